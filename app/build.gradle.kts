@@ -33,6 +33,12 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+
+    // Timing and load benchmarks (src/benchmark/java) only join the unit tests when asked for:
+    // ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests '*Benchmark'
+    if (project.hasProperty("benchmarks")) {
+        sourceSets.getByName("test").java.srcDir("src/benchmark/java")
+    }
 }
 
 dependencies {
@@ -42,6 +48,7 @@ dependencies {
     implementation(libs.activity)
     implementation(libs.constraintlayout)
     testImplementation(libs.junit)
+    testImplementation(libs.core.testing)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
     implementation("com.google.android.material:material:1.11.0") //or newer
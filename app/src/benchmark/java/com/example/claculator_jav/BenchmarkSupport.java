@@ -0,0 +1,28 @@
+package com.example.claculator_jav;
+
+/**
+ * Minimal timing helper for the benchmarks (the app module has no JMH setup). They are
+ * built with the unit tests only when Gradle runs with -Pbenchmarks. Results are printed
+ * to stdout; benchmarks only assert correctness, never timings.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {}
+
+    /** Runs the operation for warm-up, then measures the average time per call in nanoseconds. */
+    static double nanosPerOp(int warmupIterations, int measuredIterations, Runnable operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            operation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredIterations; i++) {
+            operation.run();
+        }
+        return (System.nanoTime() - start) / (double) measuredIterations;
+    }
+
+    /** Prints one result line in a fixed format. */
+    static void report(String name, double nanosPerOp) {
+        System.out.printf("Benchmark %-40s %12.1f ns/op%n", name, nanosPerOp);
+    }
+}
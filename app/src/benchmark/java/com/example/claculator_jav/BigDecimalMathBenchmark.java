@@ -0,0 +1,33 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+/**
+ * Times the power, root and factorial inputs that are slow with naive algorithms, up to
+ * 3249! and 2^33000.5.
+ */
+public class BigDecimalMathBenchmark {
+
+    @Test
+    public void benchmark_slowInputs() {
+        BigDecimal thousand = BigDecimal.valueOf(1000);
+        BigDecimal base = new BigDecimal("1.0001");
+        BigDecimal exponent = BigDecimal.valueOf(100000);
+        BigDecimal radicand = new BigDecimal("123456789.123");
+
+        BenchmarkSupport.report("BigDecimalMath.factorial 1000!",
+                BenchmarkSupport.nanosPerOp(20, 200, () -> BigDecimalMath.factorial(thousand)));
+        BenchmarkSupport.report("BigDecimalMath.factorial 3249! (product)",
+                BenchmarkSupport.nanosPerOp(5, 50, () -> BigDecimalMath.product(1, BigDecimalMath.MAX_FACTORIAL)));
+        BenchmarkSupport.report("BigDecimalMath.power 1.0001^100000",
+                BenchmarkSupport.nanosPerOp(200, 2000, () -> BigDecimalMath.power(base, exponent)));
+        BenchmarkSupport.report("BigDecimalMath.root 7√123456789.123",
+                BenchmarkSupport.nanosPerOp(200, 2000, () -> BigDecimalMath.root(radicand, BigDecimal.valueOf(7))));
+        BenchmarkSupport.report("BigDecimalMath.power 2^0.3333",
+                BenchmarkSupport.nanosPerOp(50, 500, () -> BigDecimalMath.power(BigDecimal.valueOf(2), new BigDecimal("0.3333"))));
+        BenchmarkSupport.report("BigDecimalMath.power 2^33000.5",
+                BenchmarkSupport.nanosPerOp(2, 10, () -> BigDecimalMath.power(BigDecimal.valueOf(2), new BigDecimal("33000.5"))));
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times editing the head line of a tape with ten thousand dependent lines.
+ */
+public class CalculationTapeBenchmark {
+
+    @Test
+    public void benchmark_editAtTheHeadOfAWideTape() {
+        CalculationTape tape = new CalculationTape();
+        tape.appendLine("1");
+        int width = 10_000;
+        for (int i = 0; i < width; i++) tape.appendLine("L1 × " + (i + 1));
+        String[] values = { "2", "3" };
+        int[] edits = { 0 };
+        double nanos = BenchmarkSupport.nanosPerOp(5, 50, () -> tape.setLine(0, values[edits[0]++ % 2]));
+        BenchmarkSupport.report("CalculationTape edit with " + width + " dependents", nanos);
+        assertEquals(width + 1, tape.setLine(0, "2").length);
+        assertEquals(String.valueOf(2 * width), tape.getDisplayValue(width));
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times solving a cubic from text to its refined root.
+ */
+public class EquationSolverBenchmark {
+
+    @Test
+    public void benchmark_solve() {
+        double nanos = BenchmarkSupport.nanosPerOp(200, 2000, () -> EquationSolver.solve("x^3 - 2x - 5 = 0", "x"));
+        BenchmarkSupport.report("EquationSolver x^3 - 2x - 5", nanos);
+        assertEquals("2.09455148", EquationSolverTest.solve("x^3 - 2x - 5 = 0"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.claculator_jav;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.Assert.*;
+
+/**
+ * Throughput and latency of EvaluationServer with eight pipelining clients on localhost.
+ */
+public class EvaluationServerBenchmark {
+
+    private EvaluationServer server;
+
+    @Before
+    public void start() throws IOException {
+        server = new EvaluationServer(0, 4);
+    }
+
+    @After
+    public void stop() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void benchmark_concurrentClients() throws Exception {
+        int clients = 8;
+        int perClient = 25_000;
+        int window = 256; // Requests a client keeps in flight
+        ExecutorService pool = Executors.newFixedThreadPool(clients * 2);
+        try {
+            long start = System.nanoTime();
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                int offset = c * perClient;
+                results.add(pool.submit(() -> {
+                    long[] sent = new long[perClient];
+                    long[] latencies = new long[perClient];
+                    Semaphore inFlight = new Semaphore(window);
+                    try (EvaluationServerTest.Client client = new EvaluationServerTest.Client(server.getPort())) {
+                        Future<?> writer = pool.submit(() -> {
+                            for (int i = 0; i < perClient; i++) {
+                                if (!inFlight.tryAcquire()) {
+                                    client.out.flush(); // Window full: send what is buffered and wait
+                                    inFlight.acquire();
+                                }
+                                sent[i] = System.nanoTime();
+                                client.out.write((offset + i) + "×2+1\n");
+                            }
+                            client.out.flush();
+                            return null;
+                        });
+                        for (int i = 0; i < perClient; i++) {
+                            String response = client.in.readLine();
+                            latencies[i] = System.nanoTime() - sent[i];
+                            inFlight.release();
+                            assertEquals("OK " + (2L * (offset + i) + 1), response);
+                        }
+                        writer.get();
+                    }
+                    return latencies;
+                }));
+            }
+            long[] all = new long[clients * perClient];
+            for (int c = 0; c < clients; c++) {
+                System.arraycopy(results.get(c).get(), 0, all, c * perClient, perClient);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            Arrays.sort(all);
+
+            EvaluationServer.Stats stats = server.getStats();
+            System.out.printf("EvaluationServer: %d clients, %.0f requests/s, client p50=%dus p99=%dus%n", clients,
+                    all.length / seconds, all[all.length / 2] / 1000, all[(int) (all.length * 0.99)] / 1000);
+            System.out.println("EvaluationServer: " + stats);
+            assertEquals(all.length, stats.requests);
+            assertEquals(0, stats.errors);
+            assertTrue("Requests should be coalesced into batches", stats.batches < stats.requests);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+/**
+ * Times a compiled expression over 64K points, column-wise in bulk against one point at a
+ * time.
+ */
+public class ExpressionCompilerBenchmark {
+
+    @Test
+    public void benchmark_bulkVersusPointEvaluation() {
+        CompiledExpression function = ExpressionCompiler.compile("x^3 - 2x × x + √(x × x + 1)", "x");
+        int count = 1 << 16;
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) x[i] = i * 0.001;
+        double bulk = BenchmarkSupport.nanosPerOp(20, 200, () -> function.evaluate(x, y, count));
+        double point = BenchmarkSupport.nanosPerOp(20, 200, () -> {
+            for (int i = 0; i < count; i++) y[i] = function.evaluate(x[i]);
+        });
+        BenchmarkSupport.report("CompiledExpression bulk 64K points", bulk);
+        BenchmarkSupport.report("CompiledExpression point 64K points", point);
+    }
+}
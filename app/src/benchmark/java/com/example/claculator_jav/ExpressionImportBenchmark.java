@@ -0,0 +1,33 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times pasting a long, deeply nested expression into the engine.
+ */
+public class ExpressionImportBenchmark {
+
+    @Test
+    public void benchmark_deeplyNestedPaste() throws Exception {
+        int depth = 100_000;
+        String expression = ExpressionImportTest.nested(depth);
+
+        CalculatorEngine engine = ExpressionImportTest.quietEngine();
+        double nanos = BenchmarkSupport.nanosPerOp(3, 10, () -> {
+            engine.clear();
+            try (Reader reader = new StringReader(expression)) {
+                engine.importExpression(reader);
+            } catch (java.io.IOException e) {
+                throw new IllegalStateException(e);
+            }
+            engine.calculateResult();
+        });
+        BenchmarkSupport.report("paste " + expression.length() + " chars", nanos);
+        assertEquals(String.valueOf(depth + 1), engine.getDisplayValue());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.*;
+
+/**
+ * Timing and allocation for a 300,000-entry history exported to and imported from a file channel.
+ */
+public class HistoryStoreBenchmark {
+
+    @Test
+    public void benchmark_largeHistoryThroughFileChannel() throws Exception {
+        int count = 300_000;
+        HistoryStore original = HistoryStoreTest.store(count);
+        File file = File.createTempFile("history", ".jsonl");
+        file.deleteOnExit();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        try (FileChannel channel = new FileOutputStream(file).getChannel()) {
+            original.export(channel, HistoryStore.Format.JSON_LINES, null);
+        }
+        long exportNanos = System.nanoTime() - start;
+        long exportAllocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        HistoryStore imported = new HistoryStore();
+        start = System.nanoTime();
+        HistoryStore.ImportResult result;
+        try (FileChannel channel = new FileInputStream(file).getChannel()) {
+            result = HistoryStore.importFrom(channel, imported::addAll, null);
+        }
+        long importNanos = System.nanoTime() - start;
+
+        System.out.printf("HistoryStore: %d entries, %d bytes; export %.1f ms (%.0f B allocated/entry), import %.1f ms%n",
+                count, file.length(), exportNanos / 1e6, exportAllocated / (double) count, importNanos / 1e6);
+        assertEquals(count, result.accepted);
+        assertEquals(count, imported.size());
+        // Streaming: export allocates far less than the file it writes (no copy of the history or the text)
+        assertTrue(exportAllocated + " bytes allocated for a " + file.length() + "-byte export",
+                exportAllocated < file.length() / 2);
+    }
+}
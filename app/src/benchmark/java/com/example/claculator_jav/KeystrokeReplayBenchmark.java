@@ -0,0 +1,43 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays of a typing session at 1×, 10× and full speed against a ViewModel, with latency
+ * percentiles, dropped/stale frames and a final-state check.
+ */
+public class KeystrokeReplayBenchmark {
+
+    private static final String SESSION_SCRIPT = KeystrokeReplayTest.SESSION_SCRIPT;
+
+    private static String repeat(String text, int count) {
+        StringBuilder builder = new StringBuilder(text.length() * count);
+        for (int i = 0; i < count; i++) builder.append(text);
+        return builder.toString();
+    }
+
+    @Test
+    public void replay_realTime() throws Exception {
+        TraceReplayer.Report report = TraceReplayer.replay(KeystrokeTrace.synthetic(SESSION_SCRIPT, 15), 1);
+        System.err.println("Replay 1x: " + report);
+        assertTrue(report.toString(), report.matchesExpectedState());
+    }
+
+    @Test
+    public void replay_tenTimesSpeed() throws Exception {
+        TraceReplayer.Report report = TraceReplayer.replay(KeystrokeTrace.synthetic(repeat(SESSION_SCRIPT, 5), 120), 10);
+        System.err.println("Replay 10x: " + report);
+        assertTrue(report.toString(), report.matchesExpectedState());
+    }
+
+    @Test
+    public void replay_asFastAsPossible() throws Exception {
+        TraceReplayer.Report report = TraceReplayer.replay(KeystrokeTrace.synthetic(repeat(SESSION_SCRIPT, 200), 120),
+                TraceReplayer.AS_FAST_AS_POSSIBLE);
+        System.err.println("Replay max speed: " + report);
+        assertTrue(report.toString(), report.matchesExpectedState());
+        assertEquals(200 * SESSION_SCRIPT.replace(" ", "").length(), report.keys);
+    }
+}
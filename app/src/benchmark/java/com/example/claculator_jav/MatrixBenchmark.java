@@ -0,0 +1,40 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Times multiplication and LU solves from 4×4 up to 1000×1000, spanning the sequential
+ * and parallel paths.
+ */
+public class MatrixBenchmark {
+
+    private static final int[] SIZES = { 4, 16, 64, 256, 1000 };
+
+    @Test
+    public void benchmark_multiplyAndSolve() {
+        Random random = new Random(3);
+        for (int n : SIZES) {
+            Matrix a = MatrixTest.randomMatrix(n, random);
+            Matrix b = MatrixTest.randomMatrix(n, random);
+            Matrix rhs = randomColumn(n, random);
+            // Keep total work per size roughly constant (about 5e8 multiply-adds), at least one run
+            int iterations = (int) Math.max(1, 5e8 / ((double) n * n * n));
+            int warmup = Math.max(1, iterations / 4);
+
+            double multiplyNanos = BenchmarkSupport.nanosPerOp(warmup, iterations, () -> a.multiply(b));
+            double solveNanos = BenchmarkSupport.nanosPerOp(warmup, iterations, () -> a.solve(rhs));
+            BenchmarkSupport.report("Matrix.multiply " + n + "×" + n, multiplyNanos);
+            BenchmarkSupport.report("Matrix.solve " + n + "×" + n, solveNanos);
+        }
+    }
+
+    private static Matrix randomColumn(int n, Random random) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextDouble();
+        }
+        return Matrix.of(n, 1, values);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times the primitive long path of ProgrammerEngine against the BigDecimal path of
+ * CalculatorEngine on the same integer keystrokes.
+ */
+public class ProgrammerEngineBenchmark {
+
+    @Test
+    public void benchmark_integerVersusDecimalPath() {
+        // Both engines are reused and fed the same keystrokes; the decimal one doesn't log
+        String[] keys = ProgrammerEngineTest.tokens(ProgrammerEngineTest.EXPRESSION);
+        ProgrammerEngine programmer = new ProgrammerEngine();
+        double integerNanos = BenchmarkSupport.nanosPerOp(20_000, 200_000, () -> {
+            programmer.clear();
+            ProgrammerEngineTest.type(programmer, keys);
+        });
+        CalculatorEngine decimal = new CalculatorEngine();
+        decimal.setQuiet(true);
+        double decimalNanos = BenchmarkSupport.nanosPerOp(20_000, 200_000, () -> {
+            decimal.clear();
+            ProgrammerEngineTest.type(decimal, keys);
+        });
+        assertEquals(ProgrammerEngineTest.EXPECTED, programmer.getDisplayValue());
+        assertEquals(ProgrammerEngineTest.EXPECTED, decimal.getDisplayValue());
+
+        BenchmarkSupport.report("ProgrammerEngine (long)", integerNanos);
+        BenchmarkSupport.report("CalculatorEngine (BigDecimal)", decimalNanos);
+    }
+}
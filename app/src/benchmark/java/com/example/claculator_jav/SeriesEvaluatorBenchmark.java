@@ -0,0 +1,16 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+/**
+ * Times the zero factor search for a cubic term over a range of 10⁸ integers.
+ */
+public class SeriesEvaluatorBenchmark {
+
+    @Test
+    public void benchmark_zeroFactorSearch() {
+        CompiledExpression term = ExpressionCompiler.compile("(i - 70000000)^3 - 3i", "i");
+        double nanos = BenchmarkSupport.nanosPerOp(20, 200, () -> SeriesEvaluator.hasZeroFactor(term, 3, 1, 100_000_000L));
+        BenchmarkSupport.report("SeriesEvaluator zero factor search, cubic over 1e8", nanos);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.claculator_jav;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times many sessions typing at once on a small shared pool and reports the peak queue
+ * depth.
+ */
+public class SessionManagerBenchmark {
+
+    private SessionManager manager;
+
+    @After
+    public void shutdown() {
+        if (manager != null) manager.shutdown();
+    }
+
+    @Test
+    public void benchmark_manySessionsTyping() throws Exception {
+        manager = new SessionManager(4, null, SessionManager.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        List<SessionManager.Session> sessions = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            sessions.add(manager.openSession());
+        }
+        BenchmarkSupport.report("SessionManager 64 sessions × 100 keys", BenchmarkSupport.nanosPerOp(2, 10, () -> {
+            for (int round = 0; round < 50; round++) {
+                for (SessionManager.Session session : sessions) {
+                    SessionManagerTest.type(session, "1+");
+                }
+            }
+            try {
+                for (SessionManager.Session session : sessions) {
+                    SessionManagerTest.type(session, "=");
+                    SessionManagerTest.await(session);
+                }
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        int maxDepth = 0;
+        for (SessionManager.SessionStats stats : manager.getStats()) {
+            maxDepth = Math.max(maxDepth, stats.maxQueueDepth);
+        }
+        System.out.println("SessionManager: peak queue depth " + maxDepth);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (manager.getTotalQueueDepth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1); // The last task's count is released just after it runs
+        }
+        assertEquals(0, manager.getTotalQueueDepth());
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Times accumulating a million values spread over 600 orders of magnitude.
+ */
+public class StatisticsAccumulatorBenchmark {
+
+    @Test
+    public void benchmark_wideRangeAccumulation() {
+        Random random = new Random(4);
+        double[] values = new double[1 << 20];
+        for (int i = 0; i < values.length; i++) values[i] = Math.pow(10, -300 + random.nextDouble() * 600);
+        double nanos = BenchmarkSupport.nanosPerOp(3, 10, () -> StatisticsAccumulator.of(values, 0, values.length));
+        BenchmarkSupport.report("StatisticsAccumulator 1M wide-range values", nanos);
+    }
+}
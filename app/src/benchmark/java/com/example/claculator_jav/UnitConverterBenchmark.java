@@ -0,0 +1,28 @@
+package com.example.claculator_jav;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+/**
+ * Times the per-keystroke convert-to-all path on the bundled unit table.
+ */
+public class UnitConverterBenchmark {
+
+    private static UnitConverter converter;
+
+    @BeforeClass
+    public static void loadTable() throws Exception {
+        converter = UnitConverterTest.bundledTable();
+    }
+
+    @Test
+    public void benchmark_convertToAll() {
+        BigDecimal value = new BigDecimal("1234.5678");
+        BenchmarkSupport.report("UnitConverter.convertToAll Length",
+                BenchmarkSupport.nanosPerOp(2000, 20000, () -> converter.convertToAll(value, "mi")));
+        BenchmarkSupport.report("UnitConverter.convert °F→°C",
+                BenchmarkSupport.nanosPerOp(2000, 20000, () -> converter.convert(value, "°F", "°C")));
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.claculator_jav;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BigDecimal arithmetic behind the engine's ^ (power), √ (nth root) and ! (factorial)
+ * operators, written so that no input a user can type turns into a slow computation.
+ * <ul>
+ *   <li>Factorials multiply by binary splitting (balanced halves, so BigInteger's
+ *       Karatsuba/Toom-Cook multiplication does the heavy lifting), continuing from the
+ *       largest recently computed factorial kept in a small LRU memo.</li>
+ *   <li>Integer powers use exponentiation by squaring. Small results are exact, like
+ *       repeated ×; larger ones round every intermediate product to just the digits the
+ *       result needs (its integer digits + DIVISION_SCALE + guard digits, plus the digits
+ *       of the exponent, since n roundings of the base can each grow n-fold), so
+ *       1.0001^100000 costs about 17 short multiplications instead of an exact 400000-digit
+ *       fraction.</li>
+ *   <li>Roots use Newton's iteration, and other fractional powers exp(y × ln x), with ln
+ *       solved by Halley's iteration on exp at rising precision. All start from a double
+ *       estimate. exp takes as many series terms as its precision needs.</li>
+ * </ul>
+ * Inexact results are rounded to DIVISION_SCALE decimal places, like a quotient; fractional
+ * powers through exp/ln are also limited to MAX_INEXACT_DIGITS significant digits, so a
+ * huge one such as 2^33000.5 keeps its magnitude and leading digits only. The
+ * magnitude of every result is estimated before it is computed: values that would have
+ * more than MAX_RESULT_DIGITS integer digits throw ArithmeticException("Overflow") and
+ * values that round to 0 are returned as 0 without computing them. Thread-safe.
+ */
+final class BigDecimalMath {
+
+    // --- Constants ---
+    static final int MAX_RESULT_DIGITS = 10_000;      // Larger results are reported as an overflow
+    static final int MAX_FACTORIAL = 3249;            // Largest n whose n! has at most MAX_RESULT_DIGITS digits
+    private static final int MAX_EXACT_POWER_DIGITS = 64; // Integer powers up to this size are kept exact
+    private static final int MAX_ROOT_DEGREE = 1_000_000; // Higher "roots" (x^0.0000001) go through exp/ln
+    static final int MAX_INEXACT_DIGITS = 1000;       // Significant digits of fractional powers (exp/ln)
+    private static final int GUARD_DIGITS = 10;
+    private static final int MAX_ITERATIONS = 100;
+    private static final int SPLIT_THRESHOLD = 32;    // Ranges this short are multiplied directly
+    private static final int MEMO_SIZE = 16;
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+    private static final double LN_2 = Math.log(2);
+    private static final double LN_10 = Math.log(10);
+    private static final double LOG2_10 = LN_10 / LN_2;
+
+    // Recently computed factorials, least recently used first
+    private static final Map<Integer, BigInteger> recentFactorials =
+            new LinkedHashMap<Integer, BigInteger>(MEMO_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, BigInteger> eldest) {
+                    return size() > MEMO_SIZE;
+                }
+            };
+
+    private BigDecimalMath() {}
+
+    // --- Factorial ---
+
+    /**
+     * n! for a whole number 0 ≤ n ≤ MAX_FACTORIAL.
+     * @throws ArithmeticException If n is negative or fractional, or n! is too large.
+     */
+    static BigDecimal factorial(BigDecimal n) {
+        if (n.signum() < 0 || !isInteger(n)) {
+            throw new ArithmeticException("Invalid factorial");
+        }
+        if (n.compareTo(BigDecimal.valueOf(MAX_FACTORIAL)) > 0) {
+            throw new ArithmeticException("Overflow");
+        }
+        int k = n.intValue();
+        // Factor out the trailing zeros (one per factor 5, by Legendre's formula) up front, so
+        // formatting the result doesn't strip them one division at a time
+        int trailingZeros = 0;
+        for (int power = 5; power <= k; power *= 5) {
+            trailingZeros += k / power;
+        }
+        return new BigDecimal(factorial(k).divide(BigInteger.TEN.pow(trailingZeros)), -trailingZeros);
+    }
+
+    /** n!, continuing from the largest memoized factorial below n. */
+    static BigInteger factorial(int n) {
+        int start = 0;
+        BigInteger startValue = BigInteger.ONE; // 0!
+        synchronized (recentFactorials) {
+            BigInteger cached = recentFactorials.get(n);
+            if (cached != null) {
+                return cached;
+            }
+            for (Map.Entry<Integer, BigInteger> entry : recentFactorials.entrySet()) {
+                if (entry.getKey() < n && entry.getKey() > start) {
+                    start = entry.getKey();
+                    startValue = entry.getValue();
+                }
+            }
+        }
+        BigInteger result = startValue.multiply(product(start + 1, n));
+        synchronized (recentFactorials) {
+            recentFactorials.put(n, result);
+        }
+        return result;
+    }
+
+    /** Product of the integers from..to (1 for an empty range), split into balanced halves. */
+    static BigInteger product(int from, int to) {
+        if (to - from < SPLIT_THRESHOLD) {
+            BigInteger result = BigInteger.ONE;
+            for (int i = from; i <= to; i++) {
+                result = result.multiply(BigInteger.valueOf(i));
+            }
+            return result;
+        }
+        int middle = (from + to) >>> 1;
+        return product(from, middle).multiply(product(middle + 1, to));
+    }
+
+    // --- Powers and Roots ---
+
+    /**
+     * x^y. Whole exponents are exact for small results; otherwise the result is rounded to
+     * DIVISION_SCALE decimal places. 0^0 is 1.
+     * @throws ArithmeticException For 0 to a negative power ("Division by zero"), an even
+     *         root of a negative number ("Invalid power"), or an overflow.
+     */
+    static BigDecimal power(BigDecimal x, BigDecimal y) {
+        if (y.signum() == 0) {
+            return BigDecimal.ONE;
+        }
+        if (x.signum() == 0) {
+            if (y.signum() < 0) throw new ArithmeticException("Division by zero");
+            return BigDecimal.ZERO;
+        }
+        boolean wholeExponent = isInteger(y);
+        if (wholeExponent && y.abs().compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) <= 0) {
+            return integerPower(x, y.longValue());
+        }
+
+        // Exponents of the form ±1/n are roots, which are also defined for negative x when n is odd
+        long degree = wholeExponent ? 0 : reciprocalDegree(y);
+        if (x.signum() < 0 && !wholeExponent && (degree == 0 || degree % 2 == 0)) {
+            throw new ArithmeticException("Invalid power");
+        }
+        double log10 = log10(x.abs()) * y.doubleValue();
+        if (isNegligible(log10)) {
+            return BigDecimal.ZERO;
+        }
+        MathContext mc = workingContext(log10);
+        BigDecimal result;
+        if (degree != 0 && Math.abs(degree) <= MAX_ROOT_DEGREE) {
+            result = nthRoot(x.abs(), (int) Math.abs(degree), mc);
+            if (degree < 0) result = BigDecimal.ONE.divide(result, mc);
+            if (x.signum() < 0) result = result.negate();
+        } else {
+            if (mc.getPrecision() > MAX_INEXACT_DIGITS) mc = new MathContext(MAX_INEXACT_DIGITS, RoundingMode.HALF_EVEN);
+            MathContext inner = new MathContext(mc.getPrecision() + 6);
+            result = exp(y.multiply(ln(x.abs(), inner), inner), mc);
+            if (x.signum() < 0 && y.toBigInteger().testBit(0)) result = result.negate(); // Odd whole exponent
+        }
+        return roundResult(result);
+    }
+
+    /**
+     * The degree-th root of x, e.g. root(8, 3) = 2, rounded to DIVISION_SCALE decimal places.
+     * Odd roots of negative numbers are negative.
+     * @throws ArithmeticException If the degree is not a positive whole number or an even
+     *         root of a negative number is requested ("Invalid root").
+     */
+    static BigDecimal root(BigDecimal x, BigDecimal degree) {
+        if (degree.signum() <= 0 || !isInteger(degree)) {
+            throw new ArithmeticException("Invalid root");
+        }
+        if (degree.compareTo(BigDecimal.valueOf(MAX_ROOT_DEGREE)) > 0) {
+            return power(x, BigDecimal.ONE.divide(degree, MathContext.DECIMAL128));
+        }
+        int n = degree.intValue();
+        if (x.signum() < 0 && n % 2 == 0) {
+            throw new ArithmeticException("Invalid root");
+        }
+        if (x.signum() == 0 || n == 1) {
+            return x;
+        }
+        double log10 = log10(x.abs()) / n;
+        if (isNegligible(log10)) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal result = nthRoot(x.abs(), n, workingContext(log10));
+        return roundResult(x.signum() < 0 ? result.negate() : result);
+    }
+
+    /** x^n by squaring: exact when the result is small, else rounded to what the result needs. */
+    private static BigDecimal integerPower(BigDecimal x, long n) {
+        long magnitude = Math.abs(n);
+        if (n > 0 && x.precision() * magnitude <= MAX_EXACT_POWER_DIGITS) {
+            return x.pow((int) n);
+        }
+        double log10 = log10(x.abs()) * n;
+        if (isNegligible(log10)) {
+            return BigDecimal.ZERO;
+        }
+        // Each rounding is a relative error of one unit in the last place, which the remaining
+        // squarings raise to a power of up to n: add a guard digit per decimal digit of n
+        MathContext mc = new MathContext(workingContext(log10).getPrecision() + Long.toString(magnitude).length(),
+                RoundingMode.HALF_EVEN);
+        BigDecimal result = BigDecimal.ONE;
+        BigDecimal square = x;
+        while (true) {
+            if ((magnitude & 1) != 0) {
+                result = result.multiply(square, mc);
+            }
+            magnitude >>>= 1;
+            if (magnitude == 0) break;
+            square = square.multiply(square, mc);
+        }
+        if (n < 0) {
+            result = BigDecimal.ONE.divide(result, mc);
+        }
+        return roundResult(result);
+    }
+
+    /** Newton's iteration r ← ((n − 1) r + x / r^(n−1)) / n for x > 0, to the context's precision. */
+    private static BigDecimal nthRoot(BigDecimal x, int n, MathContext mc) {
+        BigDecimal estimate = powerOfTen(log10(x) / n);
+        BigDecimal degree = BigDecimal.valueOf(n);
+        BigDecimal degreeMinusOne = BigDecimal.valueOf(n - 1);
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            BigDecimal next = degreeMinusOne.multiply(estimate, mc)
+                    .add(x.divide(estimate.pow(n - 1, mc), mc), mc)
+                    .divide(degree, mc);
+            boolean converged = next.subtract(estimate).abs().compareTo(next.ulp()) <= 0;
+            estimate = next;
+            if (converged) break;
+        }
+        return estimate;
+    }
+
+    /**
+     * e^z: halves z until the Taylor series converges quickly, then squares back up with
+     * enough extra digits to absorb the error growth of the squarings. About √precision
+     * extra halvings balance the number of series terms against the number of squarings.
+     * Each term is at most 2^-reduction times the previous one, which bounds the term count.
+     * @throws ArithmeticException If the series has not converged within that bound.
+     */
+    private static BigDecimal exp(BigDecimal z, MathContext mc) {
+        int reduction = (int) Math.sqrt(mc.getPrecision() * LOG2_10) + 1; // Bits below 1 for the reduced argument
+        int halvings = reduction + Math.max(0, Math.getExponent(Math.abs(z.doubleValue()) + 1) + 1);
+        MathContext work = new MathContext(mc.getPrecision() + halvings / 3 + 2);
+        BigDecimal reduced = z.divide(TWO.pow(halvings), work); // |reduced| < 2^-reduction
+        BigDecimal threshold = BigDecimal.ONE.movePointLeft(work.getPrecision() + 1);
+        int maxTerms = (int) Math.ceil((work.getPrecision() + 1) * LOG2_10 / reduction) + 1;
+        BigDecimal sum = BigDecimal.ONE;
+        BigDecimal term = BigDecimal.ONE;
+        for (int k = 1; term.abs().compareTo(threshold) >= 0; k++) {
+            if (k > maxTerms) throw new ArithmeticException("exp series did not converge");
+            term = term.multiply(reduced, work).divide(BigDecimal.valueOf(k), work);
+            sum = sum.add(term, work);
+        }
+        for (int i = 0; i < halvings; i++) {
+            sum = sum.multiply(sum, work);
+        }
+        return sum.round(mc);
+    }
+
+    /**
+     * ln x for x > 0 by Halley's iteration y ← y + 2 (x − e^y) / (x + e^y). It triples the
+     * correct digits per step, so the early steps run at a third, a ninth, ... of the
+     * precision, and once a full-precision step is below 10^-(precision / 3) it was the last one.
+     */
+    private static BigDecimal ln(BigDecimal x, MathContext mc) {
+        MathContext work = new MathContext(mc.getPrecision() + 3);
+        BigDecimal threshold = BigDecimal.ONE.movePointLeft(mc.getPrecision() / 3 + 1);
+        BigDecimal y = BigDecimal.valueOf(log10(x) * LN_10);
+        int[] precisions = new int[32]; // A third of the next one (plus guard digits), highest first
+        int count = 0;
+        for (int p = work.getPrecision() / 3 + GUARD_DIGITS; p > 2 * GUARD_DIGITS; p = p / 3 + GUARD_DIGITS) {
+            precisions[count++] = p;
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            y = halleyStep(x, y, new MathContext(precisions[i]));
+        }
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            BigDecimal previous = y;
+            y = halleyStep(x, y, work);
+            if (y.subtract(previous).abs().compareTo(threshold) <= 0) break;
+        }
+        return y.round(mc);
+    }
+
+    /** One step y + 2 (x − e^y) / (x + e^y) of Halley's iteration for ln x. */
+    private static BigDecimal halleyStep(BigDecimal x, BigDecimal y, MathContext mc) {
+        BigDecimal e = exp(y, mc);
+        return y.add(TWO.multiply(x.subtract(e, mc), mc).divide(x.add(e, mc), mc), mc);
+    }
+
+    // --- Helpers ---
+
+    /**
+     * Rounds an inexact result like a quotient: to DIVISION_SCALE decimal places.
+     * @throws ArithmeticException If the result has more than MAX_RESULT_DIGITS integer digits.
+     */
+    static BigDecimal roundResult(BigDecimal value) {
+        if (value.precision() - value.scale() > MAX_RESULT_DIGITS) {
+            throw new ArithmeticException("Overflow");
+        }
+        return value.scale() > CalculatorEngine.DIVISION_SCALE
+                ? value.setScale(CalculatorEngine.DIVISION_SCALE, RoundingMode.HALF_UP)
+                : value;
+    }
+
+    /**
+     * Checks the estimated decimal logarithm of a result before computing it.
+     * @return true if the result rounds to 0 at DIVISION_SCALE decimal places.
+     * @throws ArithmeticException If the result would be too large to show.
+     */
+    private static boolean isNegligible(double log10) {
+        if (log10 > MAX_RESULT_DIGITS) {
+            throw new ArithmeticException("Overflow");
+        }
+        return log10 < -CalculatorEngine.DIVISION_SCALE - 1;
+    }
+
+    /** Significant digits needed for a result of about 10^log10 to be right to DIVISION_SCALE decimal places. */
+    private static MathContext workingContext(double log10) {
+        int integerDigits = (int) Math.max(0, Math.floor(log10) + 1);
+        return new MathContext(integerDigits + CalculatorEngine.DIVISION_SCALE + GUARD_DIGITS, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * log10 of x > 0 in double precision, without overflowing for huge or tiny values. Near 1
+     * it is taken from x − 1, so 1 + 10^-18 doesn't round to 1 before a huge exponent scales it.
+     */
+    private static double log10(BigDecimal x) {
+        BigDecimal offset = x.subtract(BigDecimal.ONE);
+        if (offset.abs().compareTo(HALF) < 0) {
+            return Math.log1p(offset.doubleValue()) / LN_10;
+        }
+        BigInteger unscaled = x.unscaledValue();
+        int shift = Math.max(0, unscaled.bitLength() - 62);
+        double log = Math.log(unscaled.shiftRight(shift).doubleValue()) + shift * LN_2;
+        return log / LN_10 - x.scale();
+    }
+
+    /** About 10^exponent (double precision), as a BigDecimal that may be far outside double range. */
+    private static BigDecimal powerOfTen(double exponent) {
+        double whole = Math.floor(exponent);
+        return BigDecimal.valueOf(Math.pow(10, exponent - whole)).scaleByPowerOfTen((int) whole);
+    }
+
+    /** For y = ±1/n with n a whole number up to 10^18, returns ±n; otherwise 0. */
+    private static long reciprocalDegree(BigDecimal y) {
+        BigDecimal reduced = y.stripTrailingZeros();
+        int scale = reduced.scale();
+        BigInteger unscaled = reduced.unscaledValue().abs();
+        if (scale <= 0 || scale > 18 || unscaled.bitLength() > 62) {
+            return 0;
+        }
+        long powerOfTen = BigInteger.TEN.pow(scale).longValue();
+        long divisor = unscaled.longValue();
+        if (powerOfTen % divisor != 0) {
+            return 0;
+        }
+        return y.signum() * (powerOfTen / divisor);
+    }
+
+    static boolean isInteger(BigDecimal value) {
+        return value.signum() == 0 || value.scale() <= 0 || value.stripTrailingZeros().scale() <= 0;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.claculator_jav;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Tape (sheet) mode: a list of lines, each an expression that may use the results of
+ * earlier lines by name (L1, L2, ...), e.g. "L2 × 1.0825".
+ * <p>
+ * Lines are compiled once with ExpressionCompiler and evaluated with the engine's
+ * BigDecimal arithmetic (CompiledExpression.evaluateExact), so a line gives the same
+ * result as pasting it into the calculator. References are tracked in a dependency graph;
+ * editing a line recomputes only that line and its transitive dependents. Because a line
+ * may only reference earlier lines, the graph is always acyclic and line order is a
+ * topological order. Dependents are grouped into levels whose lines don't depend on each
+ * other, and large levels are evaluated in parallel.
+ * Not thread-safe: use from a single thread.
+ */
+public class CalculationTape {
+
+    // --- Constants ---
+    private static final int PARALLEL_LEVEL_SIZE = 256; // Smaller levels are evaluated sequentially
+
+    /** One tape line. Fields are written by the evaluation of its own level only. */
+    private static final class Line {
+        String source = "";
+        CompiledExpression compiled;     // null if the line is empty or failed to compile
+        int[] references = new int[0];   // Indexes of the lines it uses, in variable order
+        BigDecimal value;                // null if empty or in error
+        String error;                    // Error message, or null
+    }
+
+    private final List<Line> lines = new ArrayList<>();
+    private final List<Set<Integer>> dependents = new ArrayList<>(); // Reverse edges: line -> lines using it
+
+    /** Display name of a line (0-based index), e.g. "L1" for index 0. */
+    public static String referenceName(int index) {
+        return "L" + (index + 1);
+    }
+
+    public int size() {
+        return lines.size();
+    }
+
+    public String getSource(int index) {
+        return lines.get(index).source;
+    }
+
+    /** Value of a line, or null if it is empty or in error. */
+    public BigDecimal getValue(int index) {
+        return lines.get(index).value;
+    }
+
+    /** Text for the result column: the formatted value, an error message, or "" for an empty line. */
+    public String getDisplayValue(int index) {
+        Line line = lines.get(index);
+        if (line.error != null) return line.error;
+        return line.value != null ? CalculatorEngine.formatBigDecimal(line.value) : "";
+    }
+
+    /**
+     * Appends a line and evaluates it.
+     * @return The index of the new line.
+     */
+    public int appendLine(String source) {
+        lines.add(new Line());
+        dependents.add(new HashSet<>());
+        int index = lines.size() - 1;
+        setLine(index, source);
+        return index;
+    }
+
+    /**
+     * Replaces a line's expression and recomputes it and everything that depends on it.
+     * @return The indexes of all recomputed lines, in ascending order.
+     */
+    public int[] setLine(int index, String source) {
+        Line line = lines.get(index);
+        for (int reference : line.references) {
+            dependents.get(reference).remove(index);
+        }
+        compile(index, source);
+        for (int reference : line.references) {
+            dependents.get(reference).add(index);
+        }
+        return recalculateFrom(index);
+    }
+
+    /** Parses a line, resolving its L-references to earlier lines. Sets error on failure. */
+    private void compile(int index, String source) {
+        Line line = lines.get(index);
+        line.source = source;
+        line.compiled = null;
+        line.references = new int[0];
+        line.error = null;
+        if (source.trim().isEmpty()) {
+            return;
+        }
+        try {
+            Set<String> names = referencedNames(source);
+            int[] references = new int[names.size()];
+            int i = 0;
+            for (String name : names) {
+                int target = parseReference(name);
+                if (target >= index) {
+                    line.error = name + " is not an earlier line";
+                    return;
+                }
+                references[i++] = target;
+            }
+            line.compiled = ExpressionCompiler.compile(source, names.toArray(new String[0]));
+            line.references = references;
+        } catch (IllegalArgumentException e) {
+            line.error = "Syntax Error";
+            System.out.println("CalculationTape: " + referenceName(index) + ": " + e.getMessage());
+        }
+    }
+
+    /** Names of the form L&lt;number&gt; used in an expression, in first-use order. */
+    private static Set<String> referencedNames(String source) {
+        Set<String> names = new LinkedHashSet<>();
+        ExpressionTokenizer tokenizer = new ExpressionTokenizer(new StringReader(source));
+        try {
+            int type;
+            while ((type = tokenizer.next()) != ExpressionTokenizer.END) {
+                if (type == ExpressionTokenizer.IDENTIFIER && parseReference(tokenizer.text()) >= 0) {
+                    names.add(tokenizer.text());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringReader does not throw
+        }
+        return names;
+    }
+
+    /** Line index for a name like "L12" (or "l12"), or -1 if it isn't a line reference. */
+    private static int parseReference(String name) {
+        if (name.length() < 2 || (name.charAt(0) != 'L' && name.charAt(0) != 'l')) return -1;
+        int number = 0;
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9' || number > 100_000_000) return -1;
+            number = number * 10 + (c - '0');
+        }
+        return number - 1; // "L0" gives -1, which is not a line
+    }
+
+    /**
+     * Recomputes a line and its transitive dependents, level by level. A line's level is
+     * one more than the highest level among the dirty lines it references, so lines in the
+     * same level are independent of each other.
+     */
+    private int[] recalculateFrom(int start) {
+        // Collect the dirty set; references point backwards, so one forward sweep suffices
+        boolean[] dirty = new boolean[lines.size()];
+        dirty[start] = true;
+        int dirtyCount = 1;
+        int[] level = new int[lines.size()];
+        int maxLevel = 0;
+        for (int i = start; i < lines.size(); i++) {
+            if (!dirty[i]) continue;
+            for (int dependent : dependents.get(i)) {
+                if (!dirty[dependent]) {
+                    dirty[dependent] = true;
+                    dirtyCount++;
+                }
+            }
+            if (i != start) {
+                for (int reference : lines.get(i).references) {
+                    if (dirty[reference]) level[i] = Math.max(level[i], level[reference] + 1);
+                }
+                maxLevel = Math.max(maxLevel, level[i]);
+            }
+        }
+
+        // Bucket the dirty lines by level (counting sort, ascending index within a level)
+        int[] levelStart = new int[maxLevel + 2];
+        int[] recomputed = new int[dirtyCount];
+        int n = 0;
+        for (int i = start; i < lines.size(); i++) {
+            if (dirty[i]) {
+                levelStart[level[i] + 1]++;
+                recomputed[n++] = i;
+            }
+        }
+        for (int l = 1; l < levelStart.length; l++) levelStart[l] += levelStart[l - 1];
+        int[] order = new int[dirtyCount];
+        int[] fill = Arrays.copyOf(levelStart, levelStart.length);
+        for (int i : recomputed) {
+            order[fill[level[i]]++] = i;
+        }
+
+        for (int l = 0; l <= maxLevel; l++) {
+            int from = levelStart[l];
+            int to = levelStart[l + 1];
+            if (to - from >= PARALLEL_LEVEL_SIZE) {
+                // Lines of one level only read values from earlier levels
+                IntStream.range(from, to).parallel().forEach(k -> evaluate(order[k]));
+            } else {
+                for (int k = from; k < to; k++) evaluate(order[k]);
+            }
+        }
+        return recomputed;
+    }
+
+    /** Evaluates one line from the current values of the lines it references. */
+    private void evaluate(int index) {
+        Line line = lines.get(index);
+        line.value = null;
+        if (line.compiled == null) {
+            return; // Empty, or a compile error that is already recorded
+        }
+        line.error = null;
+        BigDecimal[] arguments = new BigDecimal[line.references.length];
+        for (int i = 0; i < arguments.length; i++) {
+            BigDecimal value = lines.get(line.references[i]).value;
+            if (value == null) {
+                line.error = "Error in " + referenceName(line.references[i]);
+                return;
+            }
+            arguments[i] = value;
+        }
+        try {
+            line.value = line.compiled.evaluateExact(arguments);
+        } catch (ArithmeticException e) {
+            line.error = CalculatorEngine.errorMessage(e);
+        }
+    }
+}
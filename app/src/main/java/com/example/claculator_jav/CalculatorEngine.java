@@ -1,19 +1,84 @@
 package com.example.claculator_jav;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Reader;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.Stack;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Collections;
 
 public class CalculatorEngine {
 
+    // --- Change Flags (combined into a ChangeEvent) ---
+    /** The current operand (main display value) changed. */
+    public static final int CHANGE_OPERAND = 1;
+    /** The operator/value stacks (expression preview) changed. */
+    public static final int CHANGE_EXPRESSION = 1 << 1;
+    /** The engine entered the error state. */
+    public static final int CHANGE_ERROR_ENTERED = 1 << 2;
+    /** The engine left the error state. */
+    public static final int CHANGE_ERROR_CLEARED = 1 << 3;
+    /** The number of open parentheses changed. */
+    public static final int CHANGE_PARENTHESIS = 1 << 4;
+
+    /**
+     * Receives change events after each public input method that actually modified the engine.
+     * Called on the thread that drove the engine (the ViewModel's background executor).
+     */
+    public interface ChangeListener {
+        void onEngineChanged(ChangeEvent event);
+    }
+
+    /**
+     * Describes what changed since the previous event, as a set of CHANGE_* dirty flags.
+     */
+    public static final class ChangeEvent {
+        private final int flags;
+
+        ChangeEvent(int flags) {
+            this.flags = flags;
+        }
+
+        public int getFlags() { return flags; }
+        public boolean isOperandChanged() { return (flags & CHANGE_OPERAND) != 0; }
+        public boolean isExpressionChanged() { return (flags & CHANGE_EXPRESSION) != 0; }
+        public boolean isErrorEntered() { return (flags & CHANGE_ERROR_ENTERED) != 0; }
+        public boolean isErrorCleared() { return (flags & CHANGE_ERROR_CLEARED) != 0; }
+        public boolean isErrorChanged() { return (flags & (CHANGE_ERROR_ENTERED | CHANGE_ERROR_CLEARED)) != 0; }
+        public boolean isParenthesisBalanceChanged() { return (flags & CHANGE_PARENTHESIS) != 0; }
+
+        @Override
+        public String toString() {
+            return "ChangeEvent{flags=" + Integer.toBinaryString(flags) + "}";
+        }
+    }
+
+    /**
+     * Stack that exposes its structural modification count, so the engine can tell
+     * whether the expression changed without copying or comparing stack contents.
+     */
+    private static final class VersionedStack<E> extends Stack<E> {
+        private static final long serialVersionUID = 1L; // Never serialized; engine state is saved by writeState
+
+        int version() { return modCount; }
+    }
+
     // --- Constants ---
-    private static final int MAX_DIGITS = 16;
-    private static final int DIVISION_SCALE = 8;
+    static final int MAX_DIGITS = 16; // Significant digits the display accepts (also the converter's result precision)
+    static final int DIVISION_SCALE = 8; // Decimal places kept by division (also the solver's precision)
     private static final String OPEN_PAREN = "(";
     private static final String CLOSE_PAREN = ")";
+    private static final String ROOT = "√";
+    // Sign of a pasted operand after an operator or "(" ("2 × -3"): 0 - x at the precedence of "^", shown as "-"
+    private static final String NEGATE = "neg";
+    // Degree pushed for a "√" with no left operand; a distinct instance, so the preview can recognize it
+    private static final BigDecimal SQUARE_ROOT_DEGREE = new BigDecimal(2);
+    private static final int STATE_FORMAT_VERSION = 1;
 
     // --- State Variables ---
     private BigDecimal currentOperand;
@@ -21,30 +86,94 @@ public class CalculatorEngine {
     private boolean isInErrorState = false;
     private boolean displayTrailingDecimal = false;
     private int parenthesisBalance = 0;
+    private boolean operatorPending = false; // An operator was just entered and still needs its right operand
+    private boolean afterCloseParen = false; // The last input closed a parenthesis group
+    private boolean afterLoadValue = false; // Nothing was input since loadValue: an operator continues from the value
+    private boolean quiet = false; // Suppresses per-step logging during bulk imports
 
     // --- Stacks for calculation precedence ---
-    private Stack<BigDecimal> valueStack;
-    private Stack<String> operatorStack;
+    private VersionedStack<BigDecimal> valueStack;
+    private VersionedStack<String> operatorStack;
+
+    // --- Change tracking (snapshot of the state last reported to listeners) ---
+    private final List<ChangeListener> changeListeners = new ArrayList<>();
+    private BigDecimal lastOperand;
+    private boolean lastEnteringDigits;
+    private boolean lastTrailingDecimal;
+    private boolean lastErrorState;
+    private int lastParenthesisBalance;
+    private int lastExpressionVersion;
+
+    // --- Cached expression preview prefix (rebuilt only when the stacks change) ---
+    private String cachedStackPreview = "";
+    private int cachedStackPreviewVersion = -1;
+
+    // --- Cached live result preview (keyed on the state it was computed from) ---
+    private String cachedResultPreview = "";
+    private int cachedResultPreviewVersion = -1;
+    private BigDecimal cachedResultPreviewOperand;
+    private boolean cachedResultPreviewEntering;
 
     // --- Constructor ---
     public CalculatorEngine() {
-        valueStack = new Stack<>();
-        operatorStack = new Stack<>();
-        clear(); // Initialize the state
+        valueStack = new VersionedStack<>();
+        operatorStack = new VersionedStack<>();
+        resetState(); // Initialize the state
+        snapshotState();
+    }
+
+    // --- Listener Registration ---
+
+    /** Registers a listener for change events. */
+    public void addChangeListener(ChangeListener listener) {
+        if (listener != null && !changeListeners.contains(listener)) {
+            changeListeners.add(listener);
+        }
+    }
+
+    /** Unregisters a previously added listener. */
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /** Turns per-step logging off (or back on), e.g. while validating many imported entries. */
+    void setQuiet(boolean quiet) {
+        this.quiet = quiet;
     }
 
     /**
      * Resets the engine to its initial state.
      */
     public void clear() {
+        resetState();
+        dispatchChanges();
+    }
+
+    /**
+     * Replaces the whole state with a single value, as if it had just been calculated
+     * (e.g. a solver result). The next digit starts a new number; an operator continues from it.
+     */
+    public void loadValue(BigDecimal value) {
+        resetState();
+        currentOperand = value;
+        if (!quiet) log("Engine: Loaded value " + formatBigDecimal(value));
+        dispatchChanges();
+        afterLoadValue = true; // Set after dispatching, which clears it for every other input
+    }
+
+    /** Resets all state without notifying listeners. */
+    private void resetState() {
         currentOperand = BigDecimal.ZERO;
         isEnteringDigits = false;
         isInErrorState = false;
         displayTrailingDecimal = false;
         parenthesisBalance = 0;
-        valueStack.clear();
-        operatorStack.clear();
-        System.out.println("Engine: Cleared");
+        operatorPending = false;
+        afterCloseParen = false;
+        // Skip clearing empty stacks so a no-op clear doesn't report an expression change
+        if (!valueStack.isEmpty()) valueStack.clear();
+        if (!operatorStack.isEmpty()) operatorStack.clear();
+        log("Engine: Cleared");
     }
 
     /**
@@ -52,14 +181,22 @@ public class CalculatorEngine {
      * @param digit The digit entered ("0"-"9").
      */
     public void inputDigit(String digit) {
+        applyDigit(digit);
+        dispatchChanges();
+    }
+
+    private void applyDigit(String digit) {
         if (isInErrorState) {
-            clear(); // Start fresh after error
+            resetState(); // Start fresh after error
         }
 
         if (!isEnteringDigits) {
+            if (afterCloseParen && !applyImplicitMultiplication()) return;
             currentOperand = BigDecimal.ZERO;
             isEnteringDigits = true;
             displayTrailingDecimal = false;
+            operatorPending = false;
+            afterCloseParen = false;
         }
 
         String currentText = currentOperand.toPlainString();
@@ -67,7 +204,7 @@ public class CalculatorEngine {
         // Prevent adding digits beyond the limit
         String plainDigits = currentText.replace("-", "").replace(".", "");
         if (!displayTrailingDecimal && plainDigits.length() >= MAX_DIGITS) {
-            System.out.println("Engine: Max digits reached");
+            log("Engine: Max digits reached");
             return;
         }
 
@@ -89,51 +226,95 @@ public class CalculatorEngine {
         }
     }
 
+    /**
+     * A number typed right after ")" or "!" multiplies, like pasted text: "(2 + 3)4" and
+     * "5!3" are "(2 + 3) × 4" and "5! × 3".
+     * @return false if the pending operators failed and the engine is in the error state.
+     */
+    private boolean applyImplicitMultiplication() {
+        applyOperator("×");
+        return !isInErrorState;
+    }
+
     /**
      * Processes a decimal point input.
      */
     public void inputDecimal() {
+        applyDecimal();
+        dispatchChanges();
+    }
+
+    private void applyDecimal() {
         if (isInErrorState) {
-            clear();
+            resetState();
         }
 
         if (!isEnteringDigits) {
+            if (afterCloseParen && !applyImplicitMultiplication()) return;
             // Start a new number with "0."
             currentOperand = BigDecimal.ZERO;
             isEnteringDigits = true;
             displayTrailingDecimal = true;
+            operatorPending = false;
+            afterCloseParen = false;
         } else {
             String currentText = currentOperand.toPlainString();
             // Only add decimal if one doesn't exist and within digit limits
             if (!currentText.contains(".")) {
                 String plainDigits = currentText.replace("-", "").replace(".", "");
                 if (plainDigits.length() >= MAX_DIGITS) {
-                    System.out.println("Engine: Max digits reached (decimal)");
+                    log("Engine: Max digits reached (decimal)");
                     return;
                 }
                 displayTrailingDecimal = true; // Indicate pending decimal for display
             } else {
-                System.out.println("Engine: Decimal already exists");
+                log("Engine: Decimal already exists");
             }
         }
     }
 
     /**
-     * Processes an operator input (+, -, ×, ÷).
-     * Handles operator precedence and stack calculations.
+     * Processes an operator input (+, -, ×, ÷, ^ or √).
+     * Handles operator precedence and stack calculations. "x √ y" is the x-th root of y;
+     * a "√" with no operand before it is a square root.
      * @param operator The operator string.
      */
     public void inputOperator(String operator) {
+        applyOperator(operator);
+        dispatchChanges();
+    }
+
+    private void applyOperator(String operator) {
         if (isInErrorState) {
-            System.out.println("Engine: Operator ignored (in error state)");
+            log("Engine: Operator ignored (in error state)");
+            return;
+        }
+
+        // Prefix root (e.g. "√9" or "5 + √9"): supply the implicit degree instead of replacing
+        // the pending operator. Nothing on the stack outranks a right-associative "√", so push directly.
+        if (operator.equals(ROOT) && !isEnteringDigits && !afterCloseParen
+                && (operatorPending || operatorStack.isEmpty() || operatorStack.peek().equals(OPEN_PAREN))) {
+            valueStack.push(SQUARE_ROOT_DEGREE);
+            operatorStack.push(operator);
+            operatorPending = true;
+            displayTrailingDecimal = false;
+            if (!quiet) log("Engine: Pushed square root");
             return;
         }
 
+        // A sign or prefix "√" still waiting for its operand is dropped with its implicit left
+        // operand, and the operator applies to what came before it: "5 + √ ×" is "5 ×"
+        while (!isEnteringDigits && operatorPending && isPrefixOperatorOnTop()) {
+            operatorStack.pop();
+            valueStack.pop();
+            operatorPending = !operatorStack.isEmpty() && !operatorStack.peek().equals(OPEN_PAREN);
+        }
+
         // Handle Operator Replacement: If the last input was also an operator (and not after '('), replace it.
-        if (!isEnteringDigits() && !operatorStack.isEmpty() && !operatorStack.peek().equals(OPEN_PAREN)) {
+        if (!isEnteringDigits() && operatorPending && !operatorStack.isEmpty() && !operatorStack.peek().equals(OPEN_PAREN)) {
             operatorStack.pop();
             operatorStack.push(operator);
-            System.out.println("Engine: Replaced top operator with " + operator);
+            if (!quiet) log("Engine: Replaced top operator with " + operator);
             isEnteringDigits = false;
             displayTrailingDecimal = false;
             return;
@@ -145,19 +326,26 @@ public class CalculatorEngine {
             isEnteringDigits = false;
             displayTrailingDecimal = false; // Number is now complete
         } else if (valueStack.isEmpty() && operatorStack.isEmpty()) {
-            // Handle unary operator at the start (e.g., "-5"): push 0 as the left operand.
-            valueStack.push(BigDecimal.ZERO);
-            System.out.println("Engine: Pushed initial 0 for unary operator.");
-        } else if (!operatorStack.isEmpty() && operatorStack.peek().equals(OPEN_PAREN)) {
+            // Right after loadValue, continue from the loaded value. Otherwise this is a unary
+            // operator at the start (e.g., "-5"), also after "=": push 0 as the left operand.
+            BigDecimal left = afterLoadValue ? currentOperand : BigDecimal.ZERO;
+            valueStack.push(left);
+            if (!quiet) log("Engine: Pushed " + formatBigDecimal(left) + " as the left operand.");
+        } else if (!afterCloseParen && !operatorStack.isEmpty() && operatorStack.peek().equals(OPEN_PAREN)) {
             // Handle unary operator after an open parenthesis (e.g., "(-5"): push 0.
+            // Not after a group closed inside it: "((5) + 1)" already has its left operand.
             valueStack.push(BigDecimal.ZERO);
-            System.out.println("Engine: Pushed 0 for unary operator after '('.");
+            log("Engine: Pushed 0 for unary operator after '('.");
         }
 
         // Process operators from the stack with higher or equal precedence
+        // (only strictly higher for right-associative operators: 2 ^ 3 ^ 2 = 2 ^ 9)
+        int precedence = getPrecedence(operator);
+        boolean rightAssociative = isRightAssociative(operator);
         while (!operatorStack.isEmpty() &&
                 !operatorStack.peek().equals(OPEN_PAREN) && // Stop at '('
-                getPrecedence(operatorStack.peek()) >= getPrecedence(operator)) {
+                (getPrecedence(operatorStack.peek()) > precedence
+                        || (getPrecedence(operatorStack.peek()) == precedence && !rightAssociative))) {
 
             if (valueStack.size() < 2) {
                 System.err.println("Engine: Insufficient operands for operator " + operatorStack.peek());
@@ -171,7 +359,9 @@ public class CalculatorEngine {
 
         // Push the new operator onto the stack
         operatorStack.push(operator);
-        System.out.println("Engine: Pushed Operator " + operator);
+        operatorPending = true;
+        afterCloseParen = false;
+        if (!quiet) log("Engine: Pushed Operator " + operator);
 
         // Reset state for the next operand input
         isEnteringDigits = false;
@@ -184,7 +374,7 @@ public class CalculatorEngine {
      */
     public void inputParenthesis(String parenthesis) {
         if (isInErrorState) {
-            System.out.println("Engine: Parenthesis ignored (in error state)");
+            log("Engine: Parenthesis ignored (in error state)");
             return;
         }
 
@@ -193,25 +383,24 @@ public class CalculatorEngine {
         } else if (parenthesis.equals(CLOSE_PAREN)) {
             handleCloseParenthesis();
         }
+        dispatchChanges();
     }
 
     /** Handles the logic for an opening parenthesis "(". */
     private void handleOpenParenthesis() {
-        // Handle implicit multiplication before '(': e.g., "5(" becomes "5*("
-        if (isEnteringDigits() || (!operatorStack.isEmpty() && operatorStack.peek().equals(CLOSE_PAREN))) {
-            if (isEnteringDigits()) {
-                valueStack.push(currentOperand); // Push the number first
-                isEnteringDigits = false;
-                displayTrailingDecimal = false;
-            }
-            // Treat implicit multiplication like a normal operator input
-            inputOperator("×");
+        // Handle implicit multiplication before '(': e.g., "5(" or ")(" becomes "5*(" / ")*("
+        if (isEnteringDigits() || afterCloseParen) {
+            // Treat implicit multiplication like a normal operator input (it pushes the number first)
+            applyOperator("×");
+            if (isInErrorState) return;
         }
 
         operatorStack.push(OPEN_PAREN);
         parenthesisBalance++;
+        operatorPending = false;
+        afterCloseParen = false;
         isEnteringDigits = false; // Expecting number or unary operator next
-        System.out.println("Engine: Pushed Open Parenthesis. Balance: " + parenthesisBalance);
+        if (!quiet) log("Engine: Pushed Open Parenthesis. Balance: " + parenthesisBalance);
     }
 
     /** Handles the logic for a closing parenthesis ")". */
@@ -227,8 +416,8 @@ public class CalculatorEngine {
             valueStack.push(currentOperand);
             isEnteringDigits = false;
             displayTrailingDecimal = false;
-        } else if (!operatorStack.isEmpty() && operatorStack.peek().equals(OPEN_PAREN)) {
-            // Error on empty parentheses "()"
+        } else if (!afterCloseParen && !operatorStack.isEmpty() && operatorStack.peek().equals(OPEN_PAREN)) {
+            // Error on empty parentheses "()" (but not on a just-closed inner group, e.g. "((5))")
             System.err.println("Engine: Error - Empty parentheses '()'");
             setErrorState("Empty ()");
             return;
@@ -250,7 +439,7 @@ public class CalculatorEngine {
         if (!operatorStack.isEmpty() && operatorStack.peek().equals(OPEN_PAREN)) {
             operatorStack.pop();
             parenthesisBalance--;
-            System.out.println("Engine: Processed Close Parenthesis. Balance: " + parenthesisBalance);
+            if (!quiet) log("Engine: Processed Close Parenthesis. Balance: " + parenthesisBalance);
         } else {
             // Should not happen if balance check was correct
             System.err.println("Engine: Error - Open parenthesis expected but not found.");
@@ -258,14 +447,21 @@ public class CalculatorEngine {
             return;
         }
 
+        operatorPending = false;
+        afterCloseParen = true;
         isEnteringDigits = false; // Next input likely operator, equals, or another '('
-        // Implicit multiplication after ')' (e.g., ")5" or ")(") is handled by the next input method
+        // Implicit multiplication after ')' (e.g., ")5" or ")(") is handled by the next digit, decimal or '('
     }
 
     /**
      * Calculates the final result of the expression.
      */
     public void calculateResult() {
+        applyEquals();
+        dispatchChanges();
+    }
+
+    private void applyEquals() {
         if (isInErrorState) return;
 
         // Push the last entered operand if any
@@ -304,10 +500,10 @@ public class CalculatorEngine {
         // Final result should be the only item left on the value stack
         if (valueStack.size() == 1 && operatorStack.isEmpty()) {
             currentOperand = valueStack.pop(); // Get the final result
-            System.out.println("Engine: Final Result = " + formatBigDecimal(currentOperand));
+            if (!quiet) log("Engine: Final Result = " + formatBigDecimal(currentOperand));
         } else if (valueStack.isEmpty() && operatorStack.isEmpty()) {
             // Case: User presses '=' without any input or after clear. Keep currentOperand (usually 0)
-            System.out.println("Engine: Equals pressed on empty state.");
+            log("Engine: Equals pressed on empty state.");
         } else {
             // If stacks are not in the expected state, signal an error
             System.err.println("Engine: Error in final calculation. Stacks inconsistent.");
@@ -319,14 +515,167 @@ public class CalculatorEngine {
         // Reset state for next calculation
         isEnteringDigits = false;
         displayTrailingDecimal = false;
+        operatorPending = false;
+        afterCloseParen = false;
         parenthesisBalance = 0; // Should be 0, reset for safety
     }
 
+    /**
+     * Feeds an expression read from a Reader (e.g. pasted text) into the engine exactly as if
+     * it had been typed after the current input, then notifies listeners once.
+     * Tokens go straight into the reduction stacks: there is no per-character logging,
+     * change dispatch or preview rebuild. The input is tokenized in chunks, so this runs in
+     * linear time with memory bounded by the pending operator chain; nested parentheses
+     * are handled by the stacks, without recursion.
+     * <p>
+     * A number or '(' directly after ')' is an implicit multiplication, like "5(".
+     * If a number is being entered, a number at the start of the input continues it, as typing
+     * would: "3+4" pasted after "12" is 123 + 4.
+     * Invalid characters, names or over-long numbers put the engine in the error state.
+     * @return true if the whole input was consumed without entering the error state.
+     */
+    public boolean importExpression(Reader reader) throws IOException {
+        if (isInErrorState) {
+            resetState(); // Start fresh after error, like typing a digit
+        }
+        ExpressionTokenizer tokenizer = new ExpressionTokenizer(reader);
+        long tokens = 0;
+        boolean wasQuiet = quiet;
+        quiet = true;
+        try {
+            int type;
+            while (!isInErrorState && (type = tokenizer.next()) != ExpressionTokenizer.END) {
+                tokens++;
+                switch (type) {
+                    case ExpressionTokenizer.NUMBER:
+                        if (isEnteringDigits && tokens == 1) {
+                            appendTypedNumber(tokenizer.text()); // Continues the number being entered
+                            break;
+                        }
+                        if (isEnteringDigits || tokenizer.numberDigitCount() > MAX_DIGITS) {
+                            setErrorState(isEnteringDigits ? "Syntax Error" : "Invalid Number");
+                            break;
+                        }
+                        if (afterCloseParen) {
+                            applyOperator("×");
+                        }
+                        currentOperand = tokenizer.numberValue();
+                        isEnteringDigits = true;
+                        displayTrailingDecimal = false;
+                        operatorPending = false;
+                        afterCloseParen = false;
+                        break;
+                    case ExpressionTokenizer.OPERATOR:
+                        applyImportedOperator(tokenizer.operator());
+                        break;
+                    case ExpressionTokenizer.FACTORIAL:
+                        applyFactorial();
+                        break;
+                    case ExpressionTokenizer.OPEN_PAREN:
+                        handleOpenParenthesis(); // Handles implicit multiplication itself
+                        break;
+                    case ExpressionTokenizer.CLOSE_PAREN:
+                        handleCloseParenthesis();
+                        break;
+                    default:
+                        System.err.println("Engine: Invalid token '" + tokenizer.text() + "' at " + tokenizer.offset());
+                        setErrorState("Syntax Error");
+                        break;
+                }
+            }
+        } finally {
+            quiet = wasQuiet;
+        }
+        if (!quiet) log("Engine: Imported " + tokens + " tokens");
+        dispatchChanges();
+        return !isInErrorState;
+    }
+
+    /**
+     * Applies an operator read by importExpression. Where an operand is expected (at the
+     * start unless right after loadValue, after an operator or "("), text is read like
+     * ExpressionCompiler reads it, not like keys: "-" is the sign of the next operand and "+"
+     * is ignored, so "10 ÷ -4" is 10 ÷ (-4) rather than 10 - 4. Any other operator there,
+     * except a prefix "√", is a syntax error.
+     */
+    private void applyImportedOperator(String operator) {
+        boolean operandExpected = !isEnteringDigits && !afterCloseParen && (operatorPending
+                || (operatorStack.isEmpty() ? !afterLoadValue : operatorStack.peek().equals(OPEN_PAREN)));
+        if (!operandExpected || operator.equals(ROOT)) {
+            applyOperator(operator);
+        } else if (operator.equals("-")) {
+            // Nothing pending outranks the sign; like a prefix "√" it is pushed with its implicit left operand
+            valueStack.push(BigDecimal.ZERO);
+            operatorStack.push(NEGATE);
+            operatorPending = true;
+        } else if (!operator.equals("+")) {
+            setErrorState("Syntax Error");
+        }
+    }
+
+    /** Feeds a pasted number's characters through the digit and decimal keys, e.g. "3" after "12" is 123. */
+    private void appendTypedNumber(String text) {
+        for (int i = 0; i < text.length() && !isInErrorState; i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                applyDecimal();
+            } else {
+                applyDigit(String.valueOf(c));
+            }
+        }
+    }
+
+    /**
+     * Applies n! to the number being entered, the group just closed or the last result.
+     * Like the written sign it binds tighter than any operator: 2 ^ 3! is 2 ^ 6.
+     * The result completes the operand, as if it were a closed group.
+     */
+    public void inputFactorial() {
+        applyFactorial();
+        dispatchChanges();
+    }
+
+    private void applyFactorial() {
+        if (isInErrorState) return;
+
+        BigDecimal operand;
+        if (isEnteringDigits) {
+            operand = currentOperand;
+        } else if (afterCloseParen) {
+            operand = valueStack.pop(); // Value of the group just closed (or of a previous '!')
+        } else if (valueStack.isEmpty() && operatorStack.isEmpty()) {
+            operand = currentOperand; // Last result, or 0
+        } else {
+            log("Engine: Factorial ignored (no operand available)");
+            return;
+        }
+
+        try {
+            BigDecimal result = BigDecimalMath.factorial(operand);
+            valueStack.push(result);
+            currentOperand = result;
+            if (!quiet) log("Engine: Applied ! to " + formatBigDecimal(operand));
+        } catch (ArithmeticException e) {
+            System.err.println("Engine: Arithmetic error during factorial: " + e.getMessage());
+            setErrorState(errorMessage(e));
+            return;
+        }
+        isEnteringDigits = false;
+        displayTrailingDecimal = false;
+        operatorPending = false;
+        afterCloseParen = true;
+    }
+
     /**
      * Applies percentage (divides by 100) to the current operand or last result.
      * Note: Needs refinement for complex precedence like 5 + 10%.
      */
     public void calculatePercentage() {
+        applyPercentage();
+        dispatchChanges();
+    }
+
+    private void applyPercentage() {
         if (isInErrorState) return;
 
         // Apply percentage to the number currently being entered
@@ -335,7 +684,7 @@ public class CalculatorEngine {
                 BigDecimal hundred = BigDecimal.valueOf(100);
                 currentOperand = currentOperand.divide(hundred, DIVISION_SCALE, RoundingMode.HALF_UP);
                 displayTrailingDecimal = false; // Result is unlikely to need trailing decimal display
-                System.out.println("Engine: Applied % to current operand: " + currentOperand.toPlainString());
+                if (!quiet) log("Engine: Applied % to current operand: " + currentOperand.toPlainString());
             } catch (ArithmeticException e) {
                 System.err.println("Engine: Arithmetic error during percentage: " + e.getMessage());
                 setErrorState("Math Error");
@@ -348,13 +697,13 @@ public class CalculatorEngine {
                 BigDecimal result = topValue.divide(hundred, DIVISION_SCALE, RoundingMode.HALF_UP);
                 valueStack.push(result);
                 currentOperand = result; // Update display value to show the result
-                System.out.println("Engine: Applied % to top of stack: " + result.toPlainString());
+                if (!quiet) log("Engine: Applied % to top of stack: " + result.toPlainString());
             } catch (ArithmeticException e) {
                 System.err.println("Engine: Arithmetic error during percentage (stack): " + e.getMessage());
                 setErrorState("Math Error");
             }
         } else {
-            System.out.println("Engine: Percentage ignored (no operand available)");
+            log("Engine: Percentage ignored (no operand available)");
         }
         // State after % should probably be !isEnteringDigits, ready for operator or '='
         isEnteringDigits = false;
@@ -366,9 +715,14 @@ public class CalculatorEngine {
      * Note: Backspacing operators/parentheses might require more complex state reversal.
      */
     public void backspace() {
+        applyBackspace();
+        dispatchChanges();
+    }
+
+    private void applyBackspace() {
         if (isInErrorState) {
             // Require AC/Clear to recover from errors
-            System.out.println("Engine: Backspace ignored (in error state)");
+            log("Engine: Backspace ignored (in error state)");
             return;
         }
 
@@ -376,7 +730,7 @@ public class CalculatorEngine {
         if (isEnteringDigits) {
             if (displayTrailingDecimal) {
                 displayTrailingDecimal = false; // Remove pending decimal point display
-                System.out.println("Engine: Backspace removed trailing decimal display.");
+                log("Engine: Backspace removed trailing decimal display.");
                 return; // Done
             }
 
@@ -410,16 +764,16 @@ public class CalculatorEngine {
                     displayTrailingDecimal = false;
                 }
             } else {
-                System.out.println("Engine: Backspace ignored (already 0)");
+                log("Engine: Backspace ignored (already 0)");
             }
-            System.out.println("Engine: Backspace processed (digit). Current Operand = " + getDisplayValue());
+            if (!quiet) log("Engine: Backspace processed (digit). Current Operand = " + getDisplayValue());
 
         }
         // --- Optional: Handle backspacing operators/parentheses ---
         /*
         else if (!operatorStack.isEmpty()) {
             String popped = operatorStack.pop();
-            System.out.println("Engine: Backspace popped operator/paren: " + popped);
+            if (!quiet) log("Engine: Backspace popped operator/paren: " + popped);
             if (popped.equals(OPEN_PAREN)) {
                 parenthesisBalance--;
             }
@@ -434,7 +788,7 @@ public class CalculatorEngine {
             displayTrailingDecimal = false;
         } */
         else {
-            System.out.println("Engine: Backspace ignored (nothing to delete)");
+            log("Engine: Backspace ignored (nothing to delete)");
         }
     }
 
@@ -465,15 +819,225 @@ public class CalculatorEngine {
         return displayText;
     }
 
+    // --- Change Notification ---
+
+    /** Records the current state as the baseline for the next change comparison. */
+    private void snapshotState() {
+        lastOperand = currentOperand;
+        lastEnteringDigits = isEnteringDigits;
+        lastTrailingDecimal = displayTrailingDecimal;
+        lastErrorState = isInErrorState;
+        lastParenthesisBalance = parenthesisBalance;
+        lastExpressionVersion = expressionVersion();
+    }
+
+    /**
+     * Compares the state against the last reported snapshot and, if anything changed,
+     * notifies listeners with the matching dirty flags. No-op inputs emit nothing.
+     */
+    private void dispatchChanges() {
+        int flags = 0;
+        if (!currentOperand.equals(lastOperand)
+                || isEnteringDigits != lastEnteringDigits
+                || displayTrailingDecimal != lastTrailingDecimal) {
+            flags |= CHANGE_OPERAND;
+        }
+        if (expressionVersion() != lastExpressionVersion) {
+            flags |= CHANGE_EXPRESSION;
+        }
+        if (isInErrorState != lastErrorState) {
+            flags |= isInErrorState ? CHANGE_ERROR_ENTERED : CHANGE_ERROR_CLEARED;
+        }
+        if (parenthesisBalance != lastParenthesisBalance) {
+            flags |= CHANGE_PARENTHESIS;
+        }
+        snapshotState();
+        afterLoadValue = false; // Only the input right after loadValue continues from it
+
+        if (flags == 0 || changeListeners.isEmpty()) {
+            return;
+        }
+        ChangeEvent event = new ChangeEvent(flags);
+        for (int i = 0; i < changeListeners.size(); i++) {
+            changeListeners.get(i).onEngineChanged(event);
+        }
+    }
+
+    /** Combined modification count of both stacks; changes whenever the expression does. */
+    private int expressionVersion() {
+        return valueStack.version() + operatorStack.version();
+    }
+
+    // --- Live Result Preview ---
+
+    /**
+     * Returns the running result of the expression as if '=' were pressed now, formatted
+     * for display, or "" when there is nothing to preview (no pending operator, error,
+     * a division by zero, or input that '=' would reject). Unclosed parentheses are
+     * treated as closed and a trailing operator without its right operand is ignored.
+     * <p>
+     * The stacks already hold the expression partially reduced: within each parenthesis
+     * level only operators of strictly increasing precedence remain, with their left
+     * operands. The preview folds that pending chain from the top without copying or
+     * mutating the stacks, using the same arithmetic as calculateResult, so for a
+     * complete expression it matches the final '=' result exactly. The cost per input
+     * is bounded by the pending chain (precedence levels × parenthesis depth), not by
+     * the length of the expression, and repeated calls for the same state are cached.
+     */
+    public String getResultPreview() {
+        if (isInErrorState) {
+            return "";
+        }
+        int version = expressionVersion();
+        if (version == cachedResultPreviewVersion
+                && currentOperand == cachedResultPreviewOperand
+                && isEnteringDigits == cachedResultPreviewEntering) {
+            return cachedResultPreview;
+        }
+        BigDecimal value = evaluateSpeculatively();
+        cachedResultPreview = value != null ? formatBigDecimal(value) : "";
+        cachedResultPreviewVersion = version;
+        cachedResultPreviewOperand = currentOperand;
+        cachedResultPreviewEntering = isEnteringDigits;
+        return cachedResultPreview;
+    }
+
+    /**
+     * Folds the pending operators on the stacks (read-only) into a single value.
+     * @return the speculative result, or null if no operator would be applied or it fails.
+     */
+    private BigDecimal evaluateSpeculatively() {
+        int opTop = operatorStack.size() - 1;
+        int binaryOperators = 0;
+        for (int i = 0; i <= opTop; i++) {
+            if (!operatorStack.get(i).equals(OPEN_PAREN)) binaryOperators++;
+        }
+
+        // Every pending operator holds its left operand on the value stack. The last operand is
+        // the number being entered, a closed group (or n!) on top of the value stack, or still
+        // missing after a trailing operator or '('. Any other shape is not a valid expression
+        // (e.g. a group closed right after an operator), and '=' would report an error.
+        boolean awaitingOperand = operatorPending || (opTop >= 0 && operatorStack.get(opTop).equals(OPEN_PAREN));
+        if (!(isEnteringDigits || afterCloseParen || awaitingOperand)
+                || valueStack.size() != binaryOperators + (afterCloseParen ? 1 : 0)) {
+            return null;
+        }
+
+        // A trailing operator (possibly followed by '(') is still waiting for its right operand.
+        // A trailing sign or prefix "√" is dropped with its implicit left operand, which leaves
+        // the operator before it trailing too (e.g. "5 + √(" or "2 × -").
+        int valueTop = valueStack.size() - 1;
+        if (!isEnteringDigits && !afterCloseParen) {
+            while (true) {
+                while (opTop >= 0 && operatorStack.get(opTop).equals(OPEN_PAREN)) opTop--;
+                if (opTop < 0) return null;
+                String op = operatorStack.get(opTop);
+                boolean prefix = op.equals(NEGATE) || (op.equals(ROOT) && valueStack.get(valueTop) == SQUARE_ROOT_DEGREE);
+                opTop--;
+                binaryOperators--;
+                if (!prefix) break;
+                valueTop--;
+            }
+        }
+        if (binaryOperators == 0) {
+            return null; // Nothing to fold: the preview would repeat the operand
+        }
+
+        BigDecimal accumulator = isEnteringDigits ? currentOperand : valueStack.get(valueTop--);
+        try {
+            for (; opTop >= 0; opTop--) {
+                String op = operatorStack.get(opTop);
+                if (op.equals(OPEN_PAREN)) continue; // Implicitly closed
+                accumulator = applyBinaryOperator(valueStack.get(valueTop--), op, accumulator);
+            }
+        } catch (ArithmeticException e) {
+            return null; // e.g. division by zero; '=' would report the error
+        }
+        return accumulator;
+    }
+
     // --- Getters for state ---
     public boolean isEnteringDigits() { return isEnteringDigits; }
     public boolean isInErrorState() { return isInErrorState; }
+    public BigDecimal getCurrentValue() { return currentOperand; }
     public int getParenthesisBalance() { return parenthesisBalance; }
 
+    // --- State Persistence ---
+
+    /**
+     * Writes the input state (operand, flags and both stacks) in a compact binary form, so an
+     * idle session can drop its engine and rebuild it later with readState. Values keep their
+     * exact scale, so a number being entered ("1.50") resumes as typed.
+     */
+    void writeState(DataOutput out) throws IOException {
+        out.writeInt(STATE_FORMAT_VERSION);
+        out.writeBoolean(isEnteringDigits);
+        out.writeBoolean(isInErrorState);
+        out.writeBoolean(displayTrailingDecimal);
+        out.writeBoolean(operatorPending);
+        out.writeBoolean(afterCloseParen);
+        out.writeInt(parenthesisBalance);
+        writeDecimal(out, currentOperand);
+        out.writeInt(valueStack.size());
+        for (BigDecimal value : valueStack) {
+            boolean implicitDegree = value == SQUARE_ROOT_DEGREE;
+            out.writeBoolean(implicitDegree);
+            if (!implicitDegree) {
+                writeDecimal(out, value);
+            }
+        }
+        out.writeInt(operatorStack.size());
+        for (String operator : operatorStack) {
+            out.writeUTF(operator);
+        }
+    }
+
+    /**
+     * Replaces the state with one written by writeState. Listeners are not notified: the
+     * restored state is what they were last told about.
+     * @throws IOException If the data is truncated or from an unknown format version.
+     */
+    void readState(DataInput in) throws IOException {
+        int version = in.readInt();
+        if (version != STATE_FORMAT_VERSION) {
+            throw new IOException("Unsupported engine state version " + version);
+        }
+        isEnteringDigits = in.readBoolean();
+        isInErrorState = in.readBoolean();
+        displayTrailingDecimal = in.readBoolean();
+        operatorPending = in.readBoolean();
+        afterCloseParen = in.readBoolean();
+        parenthesisBalance = in.readInt();
+        currentOperand = readDecimal(in);
+        valueStack.clear();
+        for (int i = in.readInt(); i > 0; i--) {
+            valueStack.push(in.readBoolean() ? SQUARE_ROOT_DEGREE : readDecimal(in));
+        }
+        operatorStack.clear();
+        for (int i = in.readInt(); i > 0; i--) {
+            operatorStack.push(in.readUTF());
+        }
+        snapshotState();
+    }
+
+    private static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(value.scale());
+        out.writeInt(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(DataInput in) throws IOException {
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readInt()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
     // --- Private Helper Methods ---
 
     /** Formats BigDecimal for display, removing trailing zeros. */
-    private String formatBigDecimal(BigDecimal value) {
+    static String formatBigDecimal(BigDecimal value) {
         if (value == null) {
             return "0";
         }
@@ -481,6 +1045,27 @@ public class CalculatorEngine {
         return value.stripTrailingZeros().toPlainString();
     }
 
+    /**
+     * Formats a double result (e.g. a statistic) like an engine value, rounded to the
+     * number of significant digits the display accepts. Returns "" for NaN or infinity.
+     */
+    static String formatDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return "";
+        }
+        return formatBigDecimal(BigDecimal.valueOf(value).round(new MathContext(MAX_DIGITS, RoundingMode.HALF_UP)));
+    }
+
+    /**
+     * Logs an engine step, unless a bulk import is running.
+     * Hot paths also check quiet themselves to skip building the message.
+     */
+    private void log(String message) {
+        if (!quiet) {
+            System.out.println(message);
+        }
+    }
+
     /** Sets the error state with a specific message. */
     private void setErrorState(String message) {
         System.err.println("Engine Error: " + message);
@@ -490,8 +1075,23 @@ public class CalculatorEngine {
         operatorStack.clear();
         isEnteringDigits = false;
         displayTrailingDecimal = false;
+        operatorPending = false;
+        afterCloseParen = false;
         parenthesisBalance = 0;
-        System.out.println("Engine: Entered Error State.");
+        log("Engine: Entered Error State.");
+    }
+
+    /**
+     * Short description of an arithmetic failure for error messages: "Division by Zero",
+     * "Overflow" or "Math Error".
+     */
+    static String errorMessage(ArithmeticException e) {
+        String message = e.getMessage() != null ? e.getMessage() : "";
+        if (message.startsWith("Division") || message.equals("/ by zero")) {
+            return "Division by Zero"; // BigDecimal's "Division by zero" / "Division undefined", or "/ by zero" for small values
+        }
+        if (message.equals("Overflow")) return "Overflow";
+        return "Math Error";
     }
 
     /** Sets the error state with a default message. */
@@ -501,15 +1101,31 @@ public class CalculatorEngine {
 
     /**
      * Gets the precedence level of an operator. Higher number means higher precedence.
+     * Shared with ProgrammerEngine, which adds the bitwise operators (C-like ordering).
      */
-    private int getPrecedence(String operator) {
+    static int getPrecedence(String operator) {
         switch (operator) {
+            case "OR":
+                return 1;
+            case "XOR":
+                return 2;
+            case "AND":
+                return 3;
+            case "<<":
+            case ">>":
+            case "ROL":
+            case "ROR":
+                return 4;
             case "+":
             case "-":
-                return 1;
+                return 5;
             case "×": // Multiplication
             case "÷": // Division
-                return 2;
+                return 6;
+            case "^": // Power
+            case ROOT: // Root
+            case NEGATE: // Sign: binds tighter than × but not ^, so 2 × -3 ^ 2 is 2 × -(3 ^ 2)
+                return 7;
             case OPEN_PAREN: // '(' on stack has lowest precedence during evaluation
                 return 0;
             default:
@@ -517,6 +1133,62 @@ public class CalculatorEngine {
         }
     }
 
+    /** Returns true for the binary arithmetic operators handled by applyBinaryOperator. */
+    static boolean isBinaryOperator(String operator) {
+        switch (operator) {
+            case "+":
+            case "-":
+            case "×":
+            case "÷":
+            case "^":
+            case ROOT:
+            case NEGATE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** True if the top operator is a sign or prefix "√" with its implicit left operand on top of the value stack. */
+    private boolean isPrefixOperatorOnTop() {
+        if (operatorStack.isEmpty() || valueStack.isEmpty()) return false;
+        String top = operatorStack.peek();
+        return top.equals(NEGATE) || (top.equals(ROOT) && valueStack.peek() == SQUARE_ROOT_DEGREE);
+    }
+
+    /** Returns true for operators that group from the right: a ^ b ^ c is a ^ (b ^ c). */
+    static boolean isRightAssociative(String operator) {
+        return operator.equals("^") || operator.equals(ROOT);
+    }
+
+    /**
+     * Applies a binary operator with the engine's arithmetic rules (division rounds to
+     * DIVISION_SCALE, HALF_UP; inexact powers and roots too, see BigDecimalMath). Shared by
+     * stack processing and the live result preview so both produce identical results.
+     * "x √ y" is the x-th root of y.
+     * @throws ArithmeticException on division by zero, an invalid power or root, or overflow.
+     */
+    static BigDecimal applyBinaryOperator(BigDecimal left, String operator, BigDecimal right) {
+        switch (operator) {
+            case "+":
+                return left.add(right);
+            case "-":
+                return left.subtract(right);
+            case "×":
+                return left.multiply(right);
+            case "÷":
+                return left.divide(right, DIVISION_SCALE, RoundingMode.HALF_UP);
+            case "^":
+                return BigDecimalMath.power(left, right);
+            case ROOT:
+                return BigDecimalMath.root(right, left);
+            case NEGATE:
+                return left.subtract(right); // Left is the implicit 0
+            default:
+                throw new IllegalArgumentException("Unknown operator: " + operator);
+        }
+    }
+
     /**
      * Pops the top operator and required operands from the stacks,
      * performs the calculation, and pushes the result back onto the value stack.
@@ -535,44 +1207,31 @@ public class CalculatorEngine {
             // Pop operands in reverse order (right then left)
             BigDecimal rightOperand = valueStack.pop();
             BigDecimal leftOperand = valueStack.pop();
-            BigDecimal result = BigDecimal.ZERO;
-
-            System.out.println("Engine: Processing: " + formatBigDecimal(leftOperand) + " " + op + " " + formatBigDecimal(rightOperand));
-
-            switch (op) {
-                case "+":
-                    result = leftOperand.add(rightOperand);
-                    break;
-                case "-":
-                    result = leftOperand.subtract(rightOperand);
-                    break;
-                case "×":
-                    result = leftOperand.multiply(rightOperand);
-                    break;
-                case "÷":
-                    if (rightOperand.compareTo(BigDecimal.ZERO) == 0) {
-                        System.err.println("Engine: Division by zero!");
-                        setErrorState("Division by Zero");
-                        return false;
-                    }
-                    result = leftOperand.divide(rightOperand, DIVISION_SCALE, RoundingMode.HALF_UP);
-                    break;
-                default:
-                    System.err.println("Engine: Unknown operator popped: " + op);
-                    setErrorState("Internal Error");
-                    return false;
+
+            if (!quiet) log("Engine: Processing: " + formatBigDecimal(leftOperand) + " " + op + " " + formatBigDecimal(rightOperand));
+
+            if (op.equals("÷") && rightOperand.compareTo(BigDecimal.ZERO) == 0) {
+                System.err.println("Engine: Division by zero!");
+                setErrorState("Division by Zero");
+                return false;
             }
+            if (!isBinaryOperator(op)) {
+                System.err.println("Engine: Unknown operator popped: " + op);
+                setErrorState("Internal Error");
+                return false;
+            }
+            BigDecimal result = applyBinaryOperator(leftOperand, op, rightOperand);
 
             // TODO: Check for potential overflow if needed based on MAX_DIGITS or value limits
 
             valueStack.push(result); // Push result back onto value stack
             currentOperand = result; // Update currentOperand to reflect intermediate/final result
-            System.out.println("Engine: Pushed Result " + formatBigDecimal(result));
+            if (!quiet) log("Engine: Pushed Result " + formatBigDecimal(result));
             return true; // Success
 
         } catch (ArithmeticException e) {
             System.err.println("Engine: Arithmetic error during stack calculation: " + e.getMessage());
-            setErrorState("Math Error");
+            setErrorState(errorMessage(e));
             return false;
         } catch (Exception e) { // Catch other potential errors like EmptyStackException
             System.err.println("Engine: Unexpected error during stack calculation: " + e.getMessage());
@@ -584,54 +1243,76 @@ public class CalculatorEngine {
     /**
      * Generates a string representation of the expression currently being built,
      * based on the state of the value and operator stacks.
-     * Used for the secondary display.
+     * Used for the secondary display, and stored in the history, where it is read back
+     * with importExpression: pending operators keep their input order and negative
+     * intermediate results are parenthesized, so it evaluates to the same result.
      * @return A string showing the expression preview.
      */
     public String getExpressionPreview() {
-        // Note: This implementation reconstructs from stacks and might need refinement
-        // for complex cases or perfect visual consistency with all input sequences.
-        System.out.println("--- getExpressionPreview START ---"); // Keep START/END for debugging hangs
-        StringBuilder preview = new StringBuilder();
-        List<Object> elements = new ArrayList<>(); // Combine numbers and operators in order
+        StringBuilder preview = new StringBuilder(getStackPreview());
 
-        // Make copies to not modify the actual state stacks
-        Stack<String> tempOperatorStack = new Stack<>();
-        tempOperatorStack.addAll(operatorStack);
-        Stack<BigDecimal> tempValueStack = new Stack<>();
-        tempValueStack.addAll(valueStack);
+        // If currently entering digits, append the live input
+        if (isEnteringDigits()) {
+            String currentDisplayValue = getDisplayValue(); // Get formatted current input
+            // Append with space if preview isn't empty and doesn't end with non-numeric requiring space
+            boolean afterSign = !operatorStack.isEmpty() && operatorStack.peek().equals(NEGATE); // "-3", not "- 3"
+            if (preview.length() > 0 && !afterSign && !preview.toString().endsWith("( ") && !preview.toString().endsWith(" ")) {
+                preview.append(" ");
+            }
+            preview.append(currentDisplayValue);
+        }
+        return preview.toString().trim(); // Trim leading/trailing whitespace
+    }
 
-        // Reverse the temp stacks to reconstruct in approximate input order
-        Collections.reverse(tempOperatorStack);
-        Collections.reverse(tempValueStack);
+    /**
+     * Returns the part of the expression preview derived from the stacks.
+     * The string is cached and only rebuilt when the stacks have been modified,
+     * so digit entry only pays for formatting the live operand.
+     */
+    private String getStackPreview() {
+        int version = expressionVersion();
+        if (version == cachedStackPreviewVersion) {
+            return cachedStackPreview;
+        }
+        StringBuilder preview = new StringBuilder();
+        List<Object> elements = new ArrayList<>(); // Combine numbers and operators in order
 
+        // Both stacks iterate from the bottom, i.e. in input order. Each pending operator is
+        // either "(" or a binary operator that follows its left operand; a value left over
+        // after the last operator is a group or factorial that was just completed.
         int valIndex = 0;
-        int opIndex = 0;
-
-        // Interleave values and operators (simplified logic, may need adjustment)
-        // This loop needs careful testing for edge cases
-        while (opIndex < tempOperatorStack.size() || valIndex < tempValueStack.size()) {
-            // Prioritize adding value if available and seems appropriate
-            if (valIndex < tempValueStack.size()) {
-                // Simple interleaving: Add value, then operator if available
-                elements.add(tempValueStack.get(valIndex++));
-                if(opIndex < tempOperatorStack.size()) {
-                    // Avoid adding operator immediately after '('? Check operator type?
-                    elements.add(tempOperatorStack.get(opIndex++));
-                }
-            } else if (opIndex < tempOperatorStack.size()) {
-                // Add remaining operators if no more values
-                elements.add(tempOperatorStack.get(opIndex++));
-            } else {
-                // Should not happen if loop condition is correct
-                break;
+        for (String operator : operatorStack) {
+            if (!operator.equals(OPEN_PAREN) && valIndex < valueStack.size()) {
+                elements.add(valueStack.get(valIndex++));
             }
+            elements.add(operator);
+        }
+        while (valIndex < valueStack.size()) {
+            elements.add(valueStack.get(valIndex++));
         }
 
         // Format the interleaved elements into a string
         for (int i = 0; i < elements.size(); i++) {
             Object element = elements.get(i);
+            boolean beforeSign = i + 1 < elements.size() && NEGATE.equals(elements.get(i + 1));
+            if (element == SQUARE_ROOT_DEGREE || beforeSign) {
+                continue; // Implicit degree of a prefix "√" and implicit 0 of a sign are not shown
+            }
+            if (NEGATE.equals(element)) {
+                preview.append('-'); // Written against its operand: "2 × -3"
+                continue;
+            }
             if (element instanceof BigDecimal) {
-                preview.append(formatBigDecimal((BigDecimal) element));
+                BigDecimal value = (BigDecimal) element;
+                // A negative intermediate result stays one operand when the preview is read back:
+                // "2 × (-2)" rather than "2 - 2", and "(-2) ^ 2" rather than "-(2 ^ 2)"
+                boolean bindsTighter = i + 1 < elements.size() && elements.get(i + 1) instanceof String
+                        && isRightAssociative((String) elements.get(i + 1)); // "^" or "√"
+                if (value.signum() < 0 && (i > 0 || bindsTighter)) {
+                    preview.append('(').append(formatBigDecimal(value)).append(')');
+                } else {
+                    preview.append(formatBigDecimal(value));
+                }
             } else {
                 // Append operator/parenthesis, potentially adding space before/after?
                 // Add space after operators/parens unless it's the last element
@@ -650,17 +1331,8 @@ public class CalculatorEngine {
         }
 
 
-        // If currently entering digits, append the live input
-        if (isEnteringDigits()) {
-            String currentDisplayValue = getDisplayValue(); // Get formatted current input
-            // Append with space if preview isn't empty and doesn't end with non-numeric requiring space
-            if (preview.length() > 0 && !preview.toString().endsWith("( ") && !preview.toString().endsWith(" ")) {
-                preview.append(" ");
-            }
-            preview.append(currentDisplayValue);
-        }
-
-        System.out.println("--- getExpressionPreview END ---"); // Keep START/END for debugging hangs
-        return preview.toString().trim(); // Trim leading/trailing whitespace
+        cachedStackPreview = preview.toString();
+        cachedStackPreviewVersion = version;
+        return cachedStackPreview;
     }
-}
\ No newline at end of file
+}
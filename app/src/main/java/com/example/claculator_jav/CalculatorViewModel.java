@@ -6,11 +6,21 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.math.BigDecimal;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CalculatorViewModel extends ViewModel {
 
@@ -19,103 +29,133 @@ public class CalculatorViewModel extends ViewModel {
     public final LiveData<String> displayValue = _displayValue;
     private final MutableLiveData<String> _secondaryDisplayValue = new MutableLiveData<>("");
     public final LiveData<String> secondaryDisplayValue = _secondaryDisplayValue;
+    private final MutableLiveData<String> _resultPreview = new MutableLiveData<>("");
+    public final LiveData<String> resultPreview = _resultPreview; // Live running result, "" when hidden
 
     // --- LiveData for Calculation History ---
-    private final MutableLiveData<List<String>> _history = new MutableLiveData<>(new ArrayList<>());
+    private final HistoryStore historyStore = new HistoryStore(); // Appended on the main thread, readable from any
+    private final MutableLiveData<List<String>> _history = new MutableLiveData<>(historyStore);
     public final LiveData<List<String>> history = _history;
-    private final List<String> internalHistoryList = new ArrayList<>(); // Internal list for history management
+    private final MutableLiveData<String> _historyProgress = new MutableLiveData<>("");
+    public final LiveData<String> historyProgress = _historyProgress; // Export/import progress, "" when idle
 
-    // --- Core Calculation Logic ---
-    private final CalculatorEngine engine = new CalculatorEngine();
+    // --- LiveData for Statistics Mode ---
+    private final MutableLiveData<String> _statisticsSummary = new MutableLiveData<>("No values");
+    public final LiveData<String> statisticsSummary = _statisticsSummary;
 
-    // --- Infrastructure for Background Execution ---
-    private final ExecutorService executor = Executors.newSingleThreadExecutor(); // Executes engine tasks off the main thread
-    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper()); // Posts results back to the main thread
+    // --- LiveData for Solve and Series Modes (one-shot status message, "" once shown) ---
+    private final MutableLiveData<String> _statusMessage = new MutableLiveData<>("");
+    public final LiveData<String> statusMessage = _statusMessage;
 
-    /**
-     * Data class to hold the results (display strings) generated by a background task.
-     * This prevents accessing the engine directly from the main thread for UI updates.
-     */
-    private static class DisplayUpdate {
-        final String mainDisplay;
-        final String secondaryDisplay;
-        final boolean isInError;
-        // Add the expression used for history logging
-        final String expressionForHistory;
+    // --- LiveData for Matrix Mode (one-shot result text, "" once shown) ---
+    private final MutableLiveData<String> _matrixResult = new MutableLiveData<>("");
+    public final LiveData<String> matrixResult = _matrixResult;
+
+    /** One tape line as shown in the UI; toString() gives "L1: expression = result". */
+    public static final class TapeRow {
+        public final String source;
+        private final String text;
+
+        TapeRow(int index, String source, String result) {
+            this.source = source;
+            this.text = CalculationTape.referenceName(index) + ": " + source + " = " + result;
+        }
 
-        DisplayUpdate(String main, String secondary, boolean error, String expression) {
-            this.mainDisplay = main;
-            this.secondaryDisplay = secondary;
-            this.isInError = error;
-            this.expressionForHistory = expression; // Store the expression
+        @Override
+        public String toString() {
+            return text;
         }
     }
 
+    // --- LiveData for Tape Mode ---
+    private final MutableLiveData<List<TapeRow>> _tapeRows = new MutableLiveData<>(new ArrayList<>());
+    public final LiveData<List<TapeRow>> tapeRows = _tapeRows;
+    private final List<TapeRow> internalTapeRows = new ArrayList<>(); // Only touched on the compute executor
+
+    /** One unit conversion result; toString() gives "1.609344 km". */
+    public static final class ConversionRow {
+        public final String unit;
+        public final BigDecimal value;
+
+        ConversionRow(String unit, BigDecimal value) {
+            this.unit = unit;
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return CalculatorEngine.formatBigDecimal(value) + " " + unit;
+        }
+    }
+
+    // --- LiveData for Unit Conversion ---
+    private final MutableLiveData<UnitConverter> _unitConverter = new MutableLiveData<>(); // null until the table is loaded
+    public final LiveData<UnitConverter> unitConverter = _unitConverter;
+    private final MutableLiveData<List<ConversionRow>> _conversionRows = new MutableLiveData<>(new ArrayList<>());
+    public final LiveData<List<ConversionRow>> conversionRows = _conversionRows;
+    private boolean unitTableRequested = false; // Only touched on the main thread
+
+    // --- LiveData for Programmer Mode ("" for empty input) ---
+    private final MutableLiveData<String> _programmerResult = new MutableLiveData<>("");
+    public final LiveData<String> programmerResult = _programmerResult;
+
+    // --- Core Calculation Logic ---
+    private final SessionManager.Session session; // Engine plus its serial lane
+    private StatisticsAccumulator statistics = new StatisticsAccumulator(); // Only touched on the background executor
+    private final CalculationTape tape = new CalculationTape(); // Only touched on the compute executor
+    private volatile AtomicBoolean seriesCancelled; // Cancellation flag of the latest series evaluation
+    private final ProgrammerEngine programmer = new ProgrammerEngine(); // Only touched on the background executor
+    private KeystrokeTrace traceRecording; // Trace being recorded, or null; only touched on the main thread
+
+    // --- Infrastructure for Background Execution ---
+    private final Executor executor; // Engine tasks run in order on the session's lane of the shared worker pool
+    private final Executor mainThreadExecutor; // Posts results back to the main thread
+    private final Executor computeExecutor; // Solver, matrix and file jobs, on the session's compute lane
+
+    // --- Last values posted to LiveData (only touched on the background executor) ---
+    private String lastPostedDisplay = "0";
+    private String lastPostedSecondary = "";
+    private String lastPostedPreview = "";
+
     // --- Public Methods (Called by Activity/Fragment) ---
 
     /** Processes a digit input ("0"-"9") on a background thread. */
     public void processDigit(String digit) {
-        executor.execute(() -> {
-            engine.inputDigit(digit);
-            DisplayUpdate update = generateDisplayUpdate(); // Generate display state in background
-            postUpdateToMainThread(update); // Post result to main thread
-        });
+        // Display updates are pushed by onEngineChanged, only for what actually changed
+        executor.execute(() -> engine().inputDigit(digit));
     }
 
-    /** Processes an operator input (+, -, ×, ÷) on a background thread. */
+    /** Processes an operator input (+, -, ×, ÷, ^, √) on a background thread. */
     public void processOperator(String operator) {
-        executor.execute(() -> {
-            engine.inputOperator(operator);
-            DisplayUpdate update = generateDisplayUpdate();
-            postUpdateToMainThread(update);
-        });
+        executor.execute(() -> engine().inputOperator(operator));
     }
 
     /** Processes a decimal point input on a background thread. */
     public void processDecimal() {
-        executor.execute(() -> {
-            engine.inputDecimal();
-            DisplayUpdate update = generateDisplayUpdate();
-            postUpdateToMainThread(update);
-        });
+        executor.execute(() -> engine().inputDecimal());
     }
 
     /** Calculates the final result (=) on a background thread. */
     public void processEquals() {
         executor.execute(() -> {
             // Capture expression state *before* final calculation
-            String expressionBeforeCalc = engine.getExpressionPreview(); // Get the full expression preview
-            engine.calculateResult();
-            String resultString = engine.getDisplayValue(); // Get the result string ("Error" if error)
-            boolean errorState = engine.isInErrorState();
-
-            // Determine final secondary display based on error state
-            String finalSecondaryDisplay = !errorState ? "" : ""; // Clear secondary display after '='
-
-            // Package results for main thread update, including the expression for history
-            DisplayUpdate update = new DisplayUpdate(resultString, finalSecondaryDisplay, errorState, expressionBeforeCalc);
-
-            // Post the specific result and final expression to the main thread
-            mainThreadHandler.post(() -> {
-                _displayValue.setValue(update.mainDisplay);
-                _secondaryDisplayValue.setValue(update.secondaryDisplay);
-
-                // *** START HISTORY LOGGING FIX ***
-                // Add to history only if it wasn't an error and the expression is not empty
-                if (!update.isInError && update.expressionForHistory != null && !update.expressionForHistory.trim().isEmpty()) {
-                    // Check if the result is different from the expression (avoid logging "5 = 5")
-                    // This check might need adjustment based on desired behavior for simple number entries
-                    if (!update.expressionForHistory.equals(update.mainDisplay)) {
-                        String historyEntry = update.expressionForHistory + " = " + update.mainDisplay;
-                        internalHistoryList.add(historyEntry);
-                        // Post a new list to LiveData to trigger observers
-                        _history.setValue(new ArrayList<>(internalHistoryList));
-                        System.out.println("ViewModel: Added to history: " + historyEntry); // Debugging
-                    }
-                } else if(update.isInError) {
-                    System.out.println("ViewModel: Calculation resulted in error, not adding to history."); // Debugging
-                }
-                // *** END HISTORY LOGGING FIX ***
+            String expressionBeforeCalc = engine().getExpressionPreview(); // Get the full expression preview
+            engine().calculateResult(); // Result and cleared preview are pushed by onEngineChanged
+
+            // Add to history only if it wasn't an error and the expression is not empty
+            if (engine().isInErrorState()) {
+                return;
+            }
+            String resultString = engine().getDisplayValue();
+            // Check if the result is different from the expression (avoid logging "5 = 5")
+            if (expressionBeforeCalc.trim().isEmpty() || expressionBeforeCalc.equals(resultString)) {
+                return;
+            }
+            mainThreadExecutor.execute(() -> {
+                historyStore.add(expressionBeforeCalc, resultString);
+                // Re-post the store to trigger observers; copying the whole history
+                // on every evaluation would make its cost grow with the history length
+                _history.setValue(historyStore);
             });
         });
     }
@@ -123,84 +163,486 @@ public class CalculatorViewModel extends ViewModel {
 
     /** Processes parenthesis input ("(" or ")") on a background thread. */
     public void processParenthesis(String parenthesis) {
-        executor.execute(() -> {
-            // Parenthesis validity logic should primarily reside in CalculatorEngine
-            engine.inputParenthesis(parenthesis);
-            DisplayUpdate update = generateDisplayUpdate();
-            postUpdateToMainThread(update);
-        });
+        // Parenthesis validity logic should primarily reside in CalculatorEngine
+        executor.execute(() -> engine().inputParenthesis(parenthesis));
     }
 
     /** Processes the clear (AC) action on a background thread. */
     public void processClear() {
-        executor.execute(() -> {
-            engine.clear();
-            DisplayUpdate update = generateDisplayUpdate(); // Get state after clear
-            postUpdateToMainThread(update);
-        });
+        executor.execute(() -> engine().clear());
     }
 
     /** Processes the backspace action on a background thread. */
     public void processBackspace() {
-        executor.execute(() -> {
-            engine.backspace();
-            DisplayUpdate update = generateDisplayUpdate();
-            postUpdateToMainThread(update);
-        });
+        executor.execute(() -> engine().backspace());
     }
 
     /** Processes the percentage (%) action on a background thread. */
     public void processPercentage() {
+        executor.execute(() -> engine().calculatePercentage());
+    }
+
+    /** Processes the factorial (!) action on a background thread. */
+    public void processFactorial() {
+        executor.execute(() -> engine().inputFactorial());
+    }
+
+    /** Imports pasted text as if it had been typed, on a background thread. */
+    public void processPaste(CharSequence text) {
+        processImport(new StringReader(text.toString()));
+    }
+
+    /**
+     * Streams an expression from a Reader (pasted text or an opened file) into the engine
+     * on a background thread. The display is updated once, after the whole input is consumed.
+     * The reader is closed when done.
+     */
+    public void processImport(Reader reader) {
         executor.execute(() -> {
-            engine.calculatePercentage();
-            DisplayUpdate update = generateDisplayUpdate();
-            postUpdateToMainThread(update);
+            try (Reader input = reader) {
+                if (!engine().importExpression(input)) {
+                    System.out.println("ViewModel: Imported expression is invalid.");
+                }
+            } catch (IOException e) {
+                System.err.println("ViewModel: Error reading imported expression: " + e.getMessage());
+            }
         });
     }
 
-    // --- Private Helper Methods ---
+    // --- Statistics Mode ---
+
+    /** Adds the value currently on the display to the statistics, on a background thread. */
+    public void processStatisticsAdd() {
+        executor.execute(() -> {
+            if (engine().isInErrorState()) {
+                System.out.println("ViewModel: Not adding an error to statistics.");
+                return;
+            }
+            statistics.add(engine().getCurrentValue().doubleValue());
+            postStatisticsSummary();
+        });
+    }
 
     /**
-     * Generates the current display state by querying the engine.
-     * IMPORTANT: This method runs on the background thread via the executor.
-     * @return A DisplayUpdate object containing strings for the UI.
+     * Adds every number read from a Reader (pasted text or an opened file) to the statistics.
+     * Parsing and the parallel reduction run outside the engine executor, so the keypad stays
+     * responsive during a large import; only the final merge is queued behind engine tasks.
+     * The reader is closed when done.
      */
-    private DisplayUpdate generateDisplayUpdate() {
-        String currentDisplay = engine.getDisplayValue();
-        String expressionPreview = engine.getExpressionPreview();
-        boolean errorState = engine.isInErrorState();
+    public void processStatisticsImport(Reader reader) {
+        CompletableFuture.supplyAsync(() -> {
+            try (Reader input = reader) {
+                return StatisticsAccumulator.fromReader(input);
+            } catch (IOException e) {
+                System.err.println("ViewModel: Error reading statistics values: " + e.getMessage());
+                return null;
+            }
+        }).thenAcceptAsync(imported -> {
+            if (imported != null) {
+                statistics.merge(imported);
+                postStatisticsSummary();
+            }
+        }, executor);
+    }
 
-        // Determine if the secondary display should show the expression preview
-        // Keep showing preview unless there's an error or after hitting equals (handled in processEquals)
-        boolean showPreview = !expressionPreview.isEmpty() && !errorState;
+    /** Removes all values from the statistics. */
+    public void processStatisticsClear() {
+        executor.execute(() -> {
+            statistics = new StatisticsAccumulator();
+            postStatisticsSummary();
+        });
+    }
 
+    /** Posts the current statistics summary to the main thread. Runs on the executor. */
+    private void postStatisticsSummary() {
+        String summary = statistics.describe();
+        mainThreadExecutor.execute(() -> _statisticsSummary.setValue(summary));
+    }
 
-        String finalSecondary = showPreview ? expressionPreview : "";
+    // --- Solve Mode ---
 
-        // Pass the expression preview in the update object for potential history logging
-        return new DisplayUpdate(currentDisplay, finalSecondary, errorState, expressionPreview);
+    /**
+     * Solves an equation in x (e.g. "x × 1.0825 + 15 = 250") on the compute thread, within
+     * EquationSolver's time limit. A root is loaded into the engine so it shows on the main
+     * display and can be used in further calculations; the outcome is posted to statusMessage.
+     */
+    public void processSolve(String equation) {
+        computeExecutor.execute(() -> {
+            String message;
+            try {
+                EquationSolver.Result result = EquationSolver.solve(equation, "x");
+                System.out.println("ViewModel: Solved " + equation + ": " + result);
+                if (result.isConverged()) {
+                    executor.execute(() -> engine().loadValue(result.getRoot()));
+                    message = "x = " + CalculatorEngine.formatBigDecimal(result.getRoot());
+                } else if (result.getStatus() == EquationSolver.Status.NO_ROOT_FOUND) {
+                    message = "No solution found";
+                } else {
+                    message = "Gave up after " + result.getIterations() + " iterations";
+                }
+            } catch (IllegalArgumentException e) {
+                message = e.getMessage();
+            }
+            postStatusMessage(message);
+        });
     }
 
+    // --- Series Mode ---
 
     /**
-     * Posts the calculated display state back to the main thread to update LiveData.
-     * @param update The DisplayUpdate object containing the state to display.
+     * Evaluates Σ (or Π) of a term in i for i = from..to on the compute thread, leaving the
+     * engine executor free. Closed forms return at once; other terms are reduced in parallel
+     * until SeriesEvaluator's time limit or cancelSeries(). The value is loaded into the engine.
      */
-    private void postUpdateToMainThread(DisplayUpdate update) {
-        mainThreadHandler.post(() -> {
-            // Update LiveData (must happen on main thread)
-            _displayValue.setValue(update.mainDisplay);
-            _secondaryDisplayValue.setValue(update.secondaryDisplay);
+    public void processSeries(boolean product, String term, long from, long to) {
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        seriesCancelled = cancelled;
+        computeExecutor.execute(() -> {
+            String message;
+            try {
+                long start = System.nanoTime();
+                SeriesEvaluator.Result result = product
+                        ? SeriesEvaluator.product(term, "i", from, to, SeriesEvaluator.DEFAULT_TIME_LIMIT_MILLIS, cancelled)
+                        : SeriesEvaluator.sum(term, "i", from, to, SeriesEvaluator.DEFAULT_TIME_LIMIT_MILLIS, cancelled);
+                System.out.println("ViewModel: Series " + result + " in " + (System.nanoTime() - start) / 1000 + " us");
+                switch (result.getStatus()) {
+                    case DONE:
+                        executor.execute(() -> engine().loadValue(result.getValue()));
+                        message = (product ? "Π" : "Σ") + " = " + CalculatorEngine.formatBigDecimal(result.getValue());
+                        break;
+                    case TIME_LIMIT:
+                        message = "Range too large to evaluate in time";
+                        break;
+                    case CANCELLED:
+                        message = "Cancelled";
+                        break;
+                    default:
+                        message = result.getError();
+                        break;
+                }
+            } catch (IllegalArgumentException e) {
+                message = e.getMessage();
+            }
+            postStatusMessage(message);
+        });
+    }
+
+    /** Stops the most recent series evaluation at its next chunk boundary. */
+    public void cancelSeries() {
+        AtomicBoolean cancelled = seriesCancelled;
+        if (cancelled != null) {
+            cancelled.set(true);
+        }
+    }
+
+    private void postStatusMessage(String message) {
+        mainThreadExecutor.execute(() -> _statusMessage.setValue(message));
+    }
+
+    /** Marks the current status message as shown. Called on the main thread. */
+    public void clearStatusMessage() {
+        _statusMessage.setValue("");
+    }
+
+    // --- Matrix Mode ---
+
+    /**
+     * Runs a MatrixMode operation on matrices entered as text, on the compute thread.
+     * The formatted result (or the error message) is posted to matrixResult.
+     */
+    public void processMatrix(String operation, String left, String right) {
+        computeExecutor.execute(() -> {
+            String result;
+            try {
+                long start = System.nanoTime();
+                result = MatrixMode.evaluate(operation, left, right);
+                System.out.println("ViewModel: " + operation + " took " + (System.nanoTime() - start) / 1000 + " us");
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                result = "Error: " + e.getMessage();
+            }
+            final String posted = result;
+            mainThreadExecutor.execute(() -> _matrixResult.setValue(posted));
+        });
+    }
+
+    /** Marks the current matrix result as shown. Called on the main thread. */
+    public void clearMatrixResult() {
+        _matrixResult.setValue("");
+    }
+
+    // --- Tape Mode ---
+
+    /**
+     * Sets the expression of a tape line (index == current line count appends a new line),
+     * on the compute thread. Only the edited line and its dependents are recomputed, and
+     * only their rows are rebuilt before the rows are posted.
+     */
+    public void processTapeLine(int index, String source) {
+        computeExecutor.execute(() -> {
+            long start = System.nanoTime();
+            int[] recomputed;
+            if (index >= tape.size()) {
+                recomputed = new int[] { tape.appendLine(source) };
+            } else {
+                recomputed = tape.setLine(index, source);
+            }
+            for (int line : recomputed) {
+                TapeRow row = new TapeRow(line, tape.getSource(line), tape.getDisplayValue(line));
+                if (line < internalTapeRows.size()) {
+                    internalTapeRows.set(line, row);
+                } else {
+                    internalTapeRows.add(row);
+                }
+            }
+            System.out.println("ViewModel: Tape recomputed " + recomputed.length + " lines in "
+                    + (System.nanoTime() - start) / 1000 + " us");
+            List<TapeRow> rows = new ArrayList<>(internalTapeRows);
+            mainThreadExecutor.execute(() -> _tapeRows.setValue(rows));
+        });
+    }
+
+    // --- Unit Conversion ---
+
+    /** True until loadUnitTable has been called, so the Activity opens the table only once. */
+    public boolean needsUnitTable() {
+        return !unitTableRequested;
+    }
+
+    /**
+     * Loads and precomputes the unit table on the background executor, then posts the
+     * converter. The reader is closed when done. Called on the main thread.
+     */
+    public void loadUnitTable(Reader reader) {
+        unitTableRequested = true;
+        executor.execute(() -> {
+            try (Reader input = reader) {
+                long start = System.nanoTime();
+                UnitConverter converter = UnitConverter.load(input);
+                System.out.println("ViewModel: Loaded " + converter.getCategories().size() + " unit categories in "
+                        + (System.nanoTime() - start) / 1000 + " us");
+                mainThreadExecutor.execute(() -> _unitConverter.setValue(converter));
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("ViewModel: Error loading unit table: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Converts an input (a number or an expression such as "12 × 3") from a unit into every
+     * unit of its category and posts the rows to conversionRows. Each conversion is a single
+     * precomputed multiply-add, so this is cheap enough to run on every keystroke. Input that
+     * doesn't evaluate posts an empty list.
+     */
+    public void processConversion(String unit, String input) {
+        UnitConverter converter = _unitConverter.getValue();
+        if (converter == null) {
+            return;
+        }
+        executor.execute(() -> {
+            List<ConversionRow> rows = new ArrayList<>();
+            try {
+                if (!input.trim().isEmpty()) {
+                    BigDecimal value = ExpressionCompiler.compile(input).evaluateExact();
+                    BigDecimal[] results = converter.convertToAll(value, unit);
+                    List<String> units = converter.getUnits(converter.getCategory(unit));
+                    for (int i = 0; i < results.length; i++) {
+                        rows.add(new ConversionRow(units.get(i), results[i]));
+                    }
+                }
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                rows.clear(); // Incomplete or invalid input while typing
+            }
+            mainThreadExecutor.execute(() -> _conversionRows.setValue(rows));
         });
     }
 
-    /** Formats BigDecimal for display. */
-    private String formatBigDecimal(BigDecimal value) {
-        if (value == null) return "";
-        // TODO: Add scientific notation handling if needed
-        return value.stripTrailingZeros().toPlainString();
+    /** Loads a conversion result into the engine so it can be used in further calculations. */
+    public void useConversion(ConversionRow row) {
+        executor.execute(() -> engine().loadValue(row.value));
+    }
+
+    // --- Programmer Mode ---
+
+    /**
+     * Evaluates an integer expression (e.g. "FF AND (1 << 4)") in the given radix and word size
+     * on the background executor, and posts the result in hex, decimal, octal and binary.
+     * ProgrammerEngine works on primitive longs, so this is cheap enough to run on every keystroke.
+     */
+    public void processProgrammer(String expression, int radix, int wordSize) {
+        executor.execute(() -> {
+            programmer.clear();
+            programmer.setWordSize(wordSize);
+            programmer.setRadix(radix);
+            String result;
+            if (expression.trim().isEmpty()) {
+                result = "";
+            } else if (!programmer.importExpression(expression)) {
+                result = "Error";
+            } else {
+                programmer.calculateResult();
+                result = describeProgrammerResult();
+            }
+            mainThreadExecutor.execute(() -> _programmerResult.setValue(result));
+        });
+    }
+
+    /** Formats the programmer engine's value in every radix; restores the input radix. Runs on the executor. */
+    private String describeProgrammerResult() {
+        if (programmer.isInErrorState()) {
+            return "Error";
+        }
+        int radix = programmer.getRadix();
+        StringBuilder text = new StringBuilder();
+        int[] radixes = { ProgrammerEngine.RADIX_HEX, ProgrammerEngine.RADIX_DEC, ProgrammerEngine.RADIX_OCT, ProgrammerEngine.RADIX_BIN };
+        String[] names = { "HEX ", "\nDEC ", "\nOCT ", "\nBIN " };
+        for (int i = 0; i < radixes.length; i++) {
+            programmer.setRadix(radixes[i]);
+            text.append(names[i]).append(programmer.getDisplayValue());
+        }
+        programmer.setRadix(radix);
+        return text.toString();
     }
 
+    /** Loads the last programmer result (as a signed decimal) into the engine for further calculations. */
+    public void useProgrammerResult() {
+        executor.execute(() -> {
+            if (!programmer.isInErrorState()) {
+                engine().loadValue(BigDecimal.valueOf(programmer.getValue()));
+            }
+        });
+    }
+
+    // --- Keystroke Traces ---
+
+    /**
+     * Processes a keypad key (a KeystrokeTrace.KEY_* code) like the matching process* method,
+     * recording it first while a trace is being recorded. Called on the main thread.
+     */
+    public void processKey(int key) {
+        if (traceRecording != null) {
+            traceRecording.record(key);
+        }
+        KeystrokeTrace.dispatch(this, key);
+    }
+
+    public boolean isRecordingTrace() {
+        return traceRecording != null;
+    }
+
+    /** Starts recording keypad presses into a new trace. Called on the main thread. */
+    public void startTraceRecording() {
+        traceRecording = new KeystrokeTrace();
+    }
+
+    /**
+     * Stops recording and writes the trace, with the display it ended on, to a new file in
+     * the directory on the compute thread. The outcome is posted to statusMessage.
+     */
+    public void stopTraceRecording(File directory) {
+        KeystrokeTrace trace = traceRecording;
+        traceRecording = null;
+        if (trace == null) {
+            return;
+        }
+        trace.setFinalDisplay(_displayValue.getValue());
+        computeExecutor.execute(() -> {
+            File file = new File(directory, "trace-" + System.currentTimeMillis() + ".ktr");
+            String message;
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                message = "Cannot create " + directory;
+            } else {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                    trace.write(out);
+                    message = "Saved " + trace.size() + " keystrokes to " + file.getName();
+                } catch (IOException e) {
+                    message = "Could not save trace: " + e.getMessage();
+                }
+            }
+            System.out.println("ViewModel: " + message);
+            postStatusMessage(message);
+        });
+    }
+
+    // --- Private Helper Methods ---
+
+    /** The session's engine (restored if it was parked while idle). Only call on the executor. */
+    private CalculatorEngine engine() {
+        return session.getEngine();
+    }
+
+    /**
+     * Engine change listener. Recomputes only the display strings affected by the
+     * event's dirty flags and posts only the LiveData values whose text actually changed.
+     * IMPORTANT: This method runs on the background thread via the executor.
+     */
+    private void onEngineChanged(CalculatorEngine.ChangeEvent event) {
+        String newDisplay = null;
+        String newSecondary = null;
+        String newPreview = null;
+
+        // Main display depends on the operand and the error state only
+        if (event.isOperandChanged() || event.isErrorChanged()) {
+            String display = engine().getDisplayValue();
+            if (!display.equals(lastPostedDisplay)) {
+                newDisplay = display;
+                lastPostedDisplay = display;
+            }
+        }
+
+        // The preview depends on the stacks, and on the operand while digits are being typed
+        if (event.isExpressionChanged() || event.isErrorChanged()
+                || (event.isOperandChanged() && engine().isEnteringDigits())) {
+            String secondary = buildSecondaryDisplay();
+            if (!secondary.equals(lastPostedSecondary)) {
+                newSecondary = secondary;
+                lastPostedSecondary = secondary;
+            }
+        }
+
+        // The running result depends on both the operand and the pending operators
+        if (event.isOperandChanged() || event.isExpressionChanged() || event.isErrorChanged()) {
+            String preview = engine().getResultPreview();
+            if (!preview.equals(lastPostedPreview)) {
+                newPreview = preview;
+                lastPostedPreview = preview;
+            }
+        }
+
+        postUpdateToMainThread(newDisplay, newSecondary, newPreview);
+    }
+
+    /**
+     * Builds the secondary display text from the engine.
+     * Keep showing preview unless there's an error or after hitting equals.
+     */
+    private String buildSecondaryDisplay() {
+        if (engine().isInErrorState()) {
+            return "";
+        }
+        return engine().getExpressionPreview();
+    }
+
+    /**
+     * Posts the changed display strings back to the main thread to update LiveData.
+     * A null argument means that value did not change and its LiveData is left untouched.
+     */
+    private void postUpdateToMainThread(String mainDisplay, String secondaryDisplay, String resultPreview) {
+        if (mainDisplay == null && secondaryDisplay == null && resultPreview == null) {
+            return; // Nothing visible changed, skip the main-thread round trip
+        }
+        mainThreadExecutor.execute(() -> {
+            // Update LiveData (must happen on main thread)
+            if (mainDisplay != null) {
+                _displayValue.setValue(mainDisplay);
+            }
+            if (secondaryDisplay != null) {
+                _secondaryDisplayValue.setValue(secondaryDisplay);
+            }
+            if (resultPreview != null) {
+                _resultPreview.setValue(resultPreview);
+            }
+        });
+    }
 
     // --- History Methods ---
 
@@ -208,26 +650,101 @@ public class CalculatorViewModel extends ViewModel {
     public void clearHistory() {
         // Note: Ensure thread safety if history could be modified from multiple threads.
         // As operations are posted via Handler, this should be safe currently.
-        internalHistoryList.clear();
-        _history.setValue(new ArrayList<>(internalHistoryList)); // Update LiveData with a new empty list
+        historyStore.clear();
+        _history.setValue(historyStore); // Update LiveData with the now empty list
         System.out.println("ViewModel: Cleared History");
     }
 
+    /**
+     * Streams the whole history to the channel as CSV or JSON lines on the compute thread,
+     * posting progress to historyProgress and the outcome to statusMessage. Entries added
+     * while the export runs are not included. The channel is closed when done.
+     */
+    public void exportHistory(WritableByteChannel channel, HistoryStore.Format format) {
+        computeExecutor.execute(() -> {
+            String message;
+            try (WritableByteChannel output = channel) {
+                long count = historyStore.export(output, format, (entries, bytes) ->
+                        postHistoryProgress("Exporting history: " + entries + " entries"));
+                message = "Exported " + count + " history entries";
+            } catch (IOException e) {
+                message = "Could not export history: " + e.getMessage();
+            }
+            System.out.println("ViewModel: " + message);
+            postHistoryProgress("");
+            postStatusMessage(message);
+        });
+    }
+
+    /**
+     * Imports history previously exported as CSV or JSON lines from the channel on the compute
+     * thread. Each entry is re-evaluated and kept only if it still gives its stored result;
+     * accepted entries are appended in batches. Progress goes to historyProgress (as a
+     * percentage of totalBytes, if it is known) and the outcome to statusMessage.
+     * @param totalBytes The size of the input, or -1 if unknown.
+     */
+    public void importHistory(ReadableByteChannel channel, long totalBytes) {
+        computeExecutor.execute(() -> {
+            String message;
+            try (ReadableByteChannel input = channel) {
+                HistoryStore.ImportResult result = HistoryStore.importFrom(input,
+                        (expressions, results, count) -> mainThreadExecutor.execute(() -> {
+                            historyStore.addAll(expressions, results, count);
+                            _history.setValue(historyStore);
+                        }),
+                        (entries, bytes) -> postHistoryProgress(totalBytes > 0
+                                ? "Importing history: " + Math.min(100, 100 * bytes / totalBytes) + "%"
+                                : "Importing history: " + entries + " entries"));
+                message = "Imported " + result.accepted + " history entries"
+                        + (result.rejected > 0 ? ", skipped " + result.rejected + " invalid" : "");
+            } catch (IOException e) {
+                message = "Could not import history: " + e.getMessage();
+            }
+            System.out.println("ViewModel: " + message);
+            postHistoryProgress("");
+            postStatusMessage(message);
+        });
+    }
+
+    private void postHistoryProgress(String progress) {
+        mainThreadExecutor.execute(() -> _historyProgress.setValue(progress));
+    }
+
     // --- ViewModel Lifecycle ---
 
     public CalculatorViewModel() {
-        // Post the initial display state update when ViewModel is created
-        executor.execute(() -> {
-            DisplayUpdate update = generateDisplayUpdate();
-            postUpdateToMainThread(update);
-        });
+        this(SessionManager.getDefault().openSession(), new Handler(Looper.getMainLooper())::post);
     }
 
-    /** Cleans up resources, like shutting down the background thread executor. */
+    /**
+     * Creates a ViewModel on the given engine session, delivering LiveData updates through
+     * mainThreadExecutor. Tests pass a local stand-in for the Android main thread.
+     */
+    CalculatorViewModel(SessionManager.Session session, Executor mainThreadExecutor) {
+        this.session = session;
+        this.executor = session;
+        this.computeExecutor = session::compute;
+        this.mainThreadExecutor = mainThreadExecutor;
+        // Render the initial state synchronously (the ViewModel is created on the main thread),
+        // so the first frame already shows it; everything after that arrives via change events.
+        // The session has no tasks yet, so reading its engine here is safe.
+        lastPostedDisplay = engine().getDisplayValue();
+        lastPostedSecondary = buildSecondaryDisplay();
+        _displayValue.setValue(lastPostedDisplay);
+        _secondaryDisplayValue.setValue(lastPostedSecondary);
+        lastPostedPreview = engine().getResultPreview();
+        _resultPreview.setValue(lastPostedPreview);
+        session.addChangeListener(this::onEngineChanged);
+    }
+
+    /** Cleans up resources: closes the session and cancels a running series evaluation. */
     @Override
     protected void onCleared() {
         super.onCleared();
-        executor.shutdown(); // Ensure background thread pool is released
-        System.out.println("ViewModel: Executor shutdown.");
+        session.close(); // Queued engine and compute tasks finish, then the session is released
+        AtomicBoolean cancelled = seriesCancelled;
+        if (cancelled != null) {
+            cancelled.set(true);
+        }
     }
 }
\ No newline at end of file
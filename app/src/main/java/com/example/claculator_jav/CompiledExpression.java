@@ -0,0 +1,411 @@
+package com.example.claculator_jav;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * An expression compiled by ExpressionCompiler into a postfix program over doubles.
+ * <p>
+ * Bulk evaluation runs the program column-wise: each instruction is applied to a
+ * block of BLOCK_SIZE points before moving on to the next instruction, so the inner loops
+ * are tight primitive array loops with no per-point dispatch or boxing. Large sample
+ * counts are split into chunks evaluated in parallel. Instances are immutable and can be
+ * shared between threads.
+ */
+public class CompiledExpression {
+
+    // --- Instruction Codes ---
+    static final int PUSH_CONSTANT = 0;
+    static final int PUSH_VARIABLE = 1;
+    static final int ADD = 2;
+    static final int SUBTRACT = 3;
+    static final int MULTIPLY = 4;
+    static final int DIVIDE = 5;
+    static final int NEGATE = 6;
+    static final int POWER = 7;
+    static final int ROOT = 8;       // Left operand is the degree, right the radicand
+    static final int FACTORIAL = 9;
+
+    // Engine operator symbol for each binary instruction code
+    private static final String[] SYMBOLS = { null, null, "+", "-", "×", "÷", null, "^", "√", null };
+
+    // n! for n = 0..170 (171! overflows a double)
+    private static final double[] FACTORIALS = new double[171];
+
+    static {
+        FACTORIALS[0] = 1;
+        for (int n = 1; n < FACTORIALS.length; n++) {
+            FACTORIALS[n] = FACTORIALS[n - 1] * n;
+        }
+    }
+
+    // --- Constants ---
+    private static final int BLOCK_SIZE = 256;             // Points per column pass, keeps the stack in L1
+    private static final int PARALLEL_THRESHOLD = 8192;    // Below this, a single thread is faster
+    private static final int PARALLEL_CHUNK_SIZE = 4096;
+    private static final int MAX_POLYNOMIAL_DEGREE = 1 << 16; // Higher degrees are reported as -1
+
+    // --- Program ---
+    private final String source;
+    private final String[] variables;
+    private final int[] code;        // Instruction codes
+    private final int[] operands;    // Constant or variable index for PUSH_* instructions
+    private final double[] constants;
+    private final BigDecimal[] exactConstants; // Same constants as parsed, for evaluateExact
+    private final int maxStackDepth;
+
+    CompiledExpression(String source, String[] variables, int[] code, int[] operands,
+                       double[] constants, BigDecimal[] exactConstants, int maxStackDepth) {
+        this.source = source;
+        this.variables = variables;
+        this.code = code;
+        this.operands = operands;
+        this.constants = constants;
+        this.exactConstants = exactConstants;
+        this.maxStackDepth = maxStackDepth;
+    }
+
+    public String getSource() { return source; }
+    public int getVariableCount() { return variables.length; }
+
+    /** Index of a variable in the argument order, or -1 if the expression has no such variable. */
+    public int indexOfVariable(String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Evaluates the expression at a single point.
+     * @param arguments One value per variable, in the order given to the compiler.
+     */
+    public double evaluate(double... arguments) {
+        double[] stack = new double[maxStackDepth];
+        int sp = 0;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case PUSH_CONSTANT:
+                    stack[sp++] = constants[operands[pc]];
+                    break;
+                case PUSH_VARIABLE:
+                    stack[sp++] = arguments[operands[pc]];
+                    break;
+                case ADD:
+                    sp--;
+                    stack[sp - 1] += stack[sp];
+                    break;
+                case SUBTRACT:
+                    sp--;
+                    stack[sp - 1] -= stack[sp];
+                    break;
+                case MULTIPLY:
+                    sp--;
+                    stack[sp - 1] *= stack[sp];
+                    break;
+                case DIVIDE:
+                    sp--;
+                    stack[sp - 1] /= stack[sp];
+                    break;
+                case NEGATE:
+                    stack[sp - 1] = -stack[sp - 1];
+                    break;
+                case POWER:
+                    sp--;
+                    stack[sp - 1] = Math.pow(stack[sp - 1], stack[sp]);
+                    break;
+                case ROOT:
+                    sp--;
+                    stack[sp - 1] = root(stack[sp], stack[sp - 1]);
+                    break;
+                case FACTORIAL:
+                    stack[sp - 1] = factorial(stack[sp - 1]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown instruction " + code[pc]);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Degree of the expression as a polynomial in one variable, or -1 if it is not a
+     * polynomial whose coefficients are evaluated the same way at every point (a division
+     * is only accepted when neither side depends on the variable, since the engine rounds
+     * each quotient, and a power of the variable needs a literal whole exponent, as in x^3).
+     * Used by SeriesEvaluator to detect closed forms.
+     */
+    public int polynomialDegree(int variable) {
+        int[] degrees = new int[maxStackDepth];
+        int sp = 0;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case PUSH_CONSTANT:
+                    degrees[sp++] = 0;
+                    break;
+                case PUSH_VARIABLE:
+                    degrees[sp++] = operands[pc] == variable ? 1 : 0;
+                    break;
+                case NEGATE:
+                    break;
+                case ADD:
+                case SUBTRACT:
+                    sp--;
+                    degrees[sp - 1] = Math.max(degrees[sp - 1], degrees[sp]);
+                    break;
+                case MULTIPLY:
+                    sp--;
+                    degrees[sp - 1] += degrees[sp];
+                    break;
+                case DIVIDE:
+                case ROOT:
+                    sp--;
+                    if (degrees[sp - 1] != 0 || degrees[sp] != 0) return -1;
+                    break;
+                case POWER: {
+                    sp--;
+                    if (degrees[sp] != 0) return -1;
+                    if (degrees[sp - 1] == 0) break;
+                    int exponent = code[pc - 1] == PUSH_CONSTANT ? smallWholeNumber(exactConstants[operands[pc - 1]]) : -1;
+                    if (exponent < 0 || (long) degrees[sp - 1] * exponent > MAX_POLYNOMIAL_DEGREE) return -1;
+                    degrees[sp - 1] *= exponent;
+                    break;
+                }
+                case FACTORIAL:
+                    if (degrees[sp - 1] != 0) return -1;
+                    break;
+                default:
+                    return -1;
+            }
+        }
+        return degrees[0];
+    }
+
+    /**
+     * Ratio between consecutive terms if the expression is geometric in one variable, i.e.
+     * c × b^(a × i + k) with constant c, b, k and a whole slope a (in any arrangement of
+     * constant factors, negations and sums in the exponent); otherwise null. The ratio is b^a.
+     * Divisions by the variable-dependent part are rejected since the engine rounds each
+     * quotient. Used by SeriesEvaluator for closed-form geometric sums.
+     * @throws ArithmeticException If a constant subexpression fails (e.g. division by zero).
+     */
+    public BigDecimal geometricRatio(int variable) {
+        // Per stack slot: CONSTANT with its value, LINEAR with its slope, or GEOMETRIC with its ratio
+        final int constant = 0, linear = 1, geometric = 2;
+        int[] kinds = new int[maxStackDepth];
+        BigDecimal[] values = new BigDecimal[maxStackDepth];
+        int sp = 0;
+        for (int pc = 0; pc < code.length; pc++) {
+            int op = code[pc];
+            if (op == PUSH_CONSTANT) {
+                kinds[sp] = constant;
+                values[sp++] = exactConstants[operands[pc]];
+                continue;
+            }
+            if (op == PUSH_VARIABLE) {
+                if (operands[pc] != variable) return null; // Other variables have no value here
+                kinds[sp] = linear;
+                values[sp++] = BigDecimal.ONE;
+                continue;
+            }
+            if (op == NEGATE) {
+                if (kinds[sp - 1] != geometric) values[sp - 1] = values[sp - 1].negate();
+                continue;
+            }
+            if (op == FACTORIAL) {
+                if (kinds[sp - 1] != constant) return null;
+                values[sp - 1] = BigDecimalMath.factorial(values[sp - 1]);
+                continue;
+            }
+
+            sp--;
+            int leftKind = kinds[sp - 1], rightKind = kinds[sp];
+            BigDecimal left = values[sp - 1], right = values[sp];
+            if (leftKind == constant && rightKind == constant) {
+                values[sp - 1] = CalculatorEngine.applyBinaryOperator(left, SYMBOLS[op], right);
+                continue;
+            }
+            switch (op) {
+                case ADD:
+                case SUBTRACT:
+                    if (leftKind == geometric || rightKind == geometric) return null;
+                    // A sum of linear and constant terms is linear; only the slopes add up
+                    BigDecimal rightSlope = rightKind == linear ? right : BigDecimal.ZERO;
+                    if (op == SUBTRACT) rightSlope = rightSlope.negate();
+                    values[sp - 1] = (leftKind == linear ? left : BigDecimal.ZERO).add(rightSlope);
+                    kinds[sp - 1] = linear;
+                    break;
+                case MULTIPLY:
+                    if (leftKind != constant && rightKind != constant) return null;
+                    if (leftKind == constant) {
+                        kinds[sp - 1] = rightKind;
+                        values[sp - 1] = rightKind == linear ? right.multiply(left) : right;
+                    } else if (leftKind == linear) {
+                        values[sp - 1] = left.multiply(right);
+                    }
+                    break;
+                case POWER:
+                    if (leftKind != constant || rightKind != linear || !BigDecimalMath.isInteger(right)) return null;
+                    kinds[sp - 1] = geometric;
+                    values[sp - 1] = BigDecimalMath.power(left, right);
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return kinds[0] == geometric ? values[0] : null;
+    }
+
+    /**
+     * Evaluates the expression at a single point with the engine's BigDecimal arithmetic
+     * (CalculatorEngine.applyBinaryOperator), so the result matches what the keypad shows.
+     * @throws ArithmeticException on division by zero, an invalid power, root or factorial, or overflow.
+     */
+    public BigDecimal evaluateExact(BigDecimal... arguments) {
+        BigDecimal[] stack = new BigDecimal[maxStackDepth];
+        int sp = 0;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case PUSH_CONSTANT:
+                    stack[sp++] = exactConstants[operands[pc]];
+                    break;
+                case PUSH_VARIABLE:
+                    stack[sp++] = arguments[operands[pc]];
+                    break;
+                case NEGATE:
+                    stack[sp - 1] = stack[sp - 1].negate();
+                    break;
+                case FACTORIAL:
+                    stack[sp - 1] = BigDecimalMath.factorial(stack[sp - 1]);
+                    break;
+                default:
+                    sp--;
+                    stack[sp - 1] = CalculatorEngine.applyBinaryOperator(stack[sp - 1], SYMBOLS[code[pc]], stack[sp]);
+                    break;
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evaluates a single-variable expression at x[0, count) into out[0, count).
+     * Division by zero (or an invalid power, root or factorial) yields an infinity or NaN
+     * rather than an error, so callers can plot gaps.
+     */
+    public void evaluate(double[] x, double[] out, int count) {
+        evaluate(new double[][] { x }, out, count);
+    }
+
+    /**
+     * Evaluates the expression for count points. columns[v][i] is the value of variable v
+     * at point i; the result for point i is written to out[i]. Splits across cores for
+     * large counts.
+     */
+    public void evaluate(double[][] columns, double[] out, int count) {
+        if (columns.length < variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " variable columns");
+        }
+        if (count < PARALLEL_THRESHOLD) {
+            evaluateRange(columns, out, 0, count);
+            return;
+        }
+        int chunks = (count + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = chunk * PARALLEL_CHUNK_SIZE;
+            evaluateRange(columns, out, from, Math.min(count, from + PARALLEL_CHUNK_SIZE));
+        });
+    }
+
+    /** Column-wise evaluation of points [from, to), one block at a time. */
+    private void evaluateRange(double[][] columns, double[] out, int from, int to) {
+        double[][] stack = new double[maxStackDepth][BLOCK_SIZE]; // One scratch set per chunk
+
+        for (int start = from; start < to; start += BLOCK_SIZE) {
+            int n = Math.min(BLOCK_SIZE, to - start);
+            int sp = 0;
+            for (int pc = 0; pc < code.length; pc++) {
+                switch (code[pc]) {
+                    case PUSH_CONSTANT:
+                        Arrays.fill(stack[sp++], 0, n, constants[operands[pc]]);
+                        break;
+                    case PUSH_VARIABLE:
+                        System.arraycopy(columns[operands[pc]], start, stack[sp++], 0, n);
+                        break;
+                    case ADD: {
+                        double[] left = stack[sp - 2], right = stack[--sp];
+                        for (int i = 0; i < n; i++) left[i] += right[i];
+                        break;
+                    }
+                    case SUBTRACT: {
+                        double[] left = stack[sp - 2], right = stack[--sp];
+                        for (int i = 0; i < n; i++) left[i] -= right[i];
+                        break;
+                    }
+                    case MULTIPLY: {
+                        double[] left = stack[sp - 2], right = stack[--sp];
+                        for (int i = 0; i < n; i++) left[i] *= right[i];
+                        break;
+                    }
+                    case DIVIDE: {
+                        double[] left = stack[sp - 2], right = stack[--sp];
+                        for (int i = 0; i < n; i++) left[i] /= right[i];
+                        break;
+                    }
+                    case NEGATE: {
+                        double[] top = stack[sp - 1];
+                        for (int i = 0; i < n; i++) top[i] = -top[i];
+                        break;
+                    }
+                    case POWER: {
+                        double[] left = stack[sp - 2], right = stack[--sp];
+                        for (int i = 0; i < n; i++) left[i] = Math.pow(left[i], right[i]);
+                        break;
+                    }
+                    case ROOT: {
+                        double[] left = stack[sp - 2], right = stack[--sp];
+                        for (int i = 0; i < n; i++) left[i] = root(right[i], left[i]);
+                        break;
+                    }
+                    case FACTORIAL: {
+                        double[] top = stack[sp - 1];
+                        for (int i = 0; i < n; i++) top[i] = factorial(top[i]);
+                        break;
+                    }
+                    default:
+                        throw new IllegalStateException("Unknown instruction " + code[pc]);
+                }
+            }
+            System.arraycopy(stack[0], 0, out, start, n);
+        }
+    }
+
+    /** Real degree-th root of x; odd roots of negative numbers are negative, other invalid roots NaN. */
+    private static double root(double x, double degree) {
+        if (degree == 2) return Math.sqrt(x);
+        if (degree == 3) return Math.cbrt(x);
+        if (degree < 1 || degree != Math.rint(degree)) return Double.NaN;
+        if (x < 0) return degree % 2 == 1 ? -Math.pow(-x, 1 / degree) : Double.NaN;
+        return Math.pow(x, 1 / degree);
+    }
+
+    /** n! from the table; infinity past 170 and NaN for negative or fractional n. */
+    private static double factorial(double n) {
+        if (n < 0 || n != Math.rint(n)) return Double.NaN;
+        return n < FACTORIALS.length ? FACTORIALS[(int) n] : Double.POSITIVE_INFINITY;
+    }
+
+    /** The value as an int if it is a whole number in 0..MAX_POLYNOMIAL_DEGREE, else -1. */
+    private static int smallWholeNumber(BigDecimal value) {
+        if (value.signum() < 0 || !BigDecimalMath.isInteger(value)
+                || value.compareTo(BigDecimal.valueOf(MAX_POLYNOMIAL_DEGREE)) > 0) {
+            return -1;
+        }
+        return value.intValue();
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledExpression{" + source + ", " + code.length + " instructions}";
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.claculator_jav;
+
+import android.text.PrecomputedText;
+import android.view.Choreographer;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Frame-aligned render stage for the calculator's text displays.
+ * Text layout is precomputed off the main thread with PrecomputedText, and the prepared
+ * text is swapped into the TextViews at most once per vsync through Choreographer.
+ * Intermediate values that are superseded before the next frame are never drawn.
+ */
+public class DisplayRenderer implements Choreographer.FrameCallback {
+
+    /** Pending render state for one TextView. */
+    private static class Slot {
+        final TextView view;
+        volatile int requestedSeq = 0;       // Bumped on the main thread for every submit
+        PrecomputedText prepared;            // Guarded by the Slot's monitor
+        int preparedSeq = -1;                // Guarded by the Slot's monitor
+
+        Slot(TextView view) {
+            this.view = view;
+        }
+    }
+
+    private final List<Slot> slots = new ArrayList<>();
+    private final Choreographer choreographer;
+    private final ExecutorService precomputeExecutor = Executors.newSingleThreadExecutor(); // Measures text off the main thread
+    private final AtomicBoolean frameScheduled = new AtomicBoolean(false);
+    private volatile boolean released = false;
+
+    /** Must be created on the main thread so the main thread's Choreographer is used. */
+    public DisplayRenderer() {
+        choreographer = Choreographer.getInstance();
+    }
+
+    /**
+     * Queues new text for a view. Called on the main thread (e.g. from a LiveData observer).
+     * The text is measured in the background using the view's current font metrics and
+     * applied on the next frame, unless newer text for the same view arrives first.
+     */
+    public void submit(TextView view, CharSequence text) {
+        if (released) return;
+
+        Slot slot = slotFor(view);
+        final int seq = ++slot.requestedSeq;
+        // Params must be read on the main thread; they capture font, size and break strategy
+        final PrecomputedText.Params params = view.getTextMetricsParams();
+        final CharSequence source = text != null ? text : "";
+
+        precomputeExecutor.execute(() -> {
+            if (seq != slot.requestedSeq) return; // Already superseded, skip the measurement
+            PrecomputedText precomputed = PrecomputedText.create(source, params);
+            synchronized (slot) {
+                if (seq < slot.preparedSeq) return;
+                slot.prepared = precomputed;
+                slot.preparedSeq = seq;
+            }
+            scheduleFrame();
+        });
+    }
+
+    /** Posts a single frame callback, no matter how many slots became ready. */
+    private void scheduleFrame() {
+        if (!released && frameScheduled.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    /** Runs on the main thread once per vsync while updates are pending. */
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled.set(false);
+        if (released) return;
+
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            PrecomputedText text;
+            synchronized (slot) {
+                text = slot.prepared;
+                // Only the newest requested text is drawn; a stale result waits for its successor
+                if (text == null || slot.preparedSeq != slot.requestedSeq) continue;
+                slot.prepared = null;
+            }
+            applyText(slot.view, text);
+        }
+    }
+
+    /** Swaps prepared text into the view, falling back to plain text if the metrics changed. */
+    private void applyText(TextView view, PrecomputedText text) {
+        if (text.getParams().equals(view.getTextMetricsParams())) {
+            view.setText(text); // Layout already measured off the main thread
+        } else {
+            // Font or size changed since submit (e.g. auto-size or theme switch)
+            view.setText(text.toString());
+        }
+    }
+
+    private Slot slotFor(TextView view) {
+        for (int i = 0; i < slots.size(); i++) {
+            if (slots.get(i).view == view) return slots.get(i);
+        }
+        Slot slot = new Slot(view);
+        slots.add(slot);
+        return slot;
+    }
+
+    /** Stops rendering and releases the background thread. Call from onDestroy. */
+    public void release() {
+        released = true;
+        choreographer.removeFrameCallback(this);
+        precomputeExecutor.shutdownNow();
+    }
+}
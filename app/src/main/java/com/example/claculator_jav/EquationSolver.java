@@ -0,0 +1,315 @@
+package com.example.claculator_jav;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Solves an equation in one variable, e.g. "x × 1.0825 + 15 = 250".
+ * <p>
+ * The residual (left side) - (right side) is compiled once with ExpressionCompiler and
+ * evaluated directly, without going through CalculatorEngine's keystroke state machine.
+ * A bulk scan over x = 0, ±2^k locates a sign change; a safeguarded Newton iteration
+ * (finite-difference slope, falling back to bisection whenever a step leaves the bracket)
+ * then converges in double. Without a bracket, a plain secant iteration from the best
+ * scanned point is tried instead. Finally the root is refined with the engine's BigDecimal
+ * arithmetic, rounded to CalculatorEngine.DIVISION_SCALE decimal places, and only reported
+ * if the residual there is within one display step of zero.
+ * <p>
+ * Every phase is bounded by an iteration limit and a shared deadline, so a badly behaved
+ * equation returns a non-converged Result instead of blocking the calling thread.
+ */
+public final class EquationSolver {
+
+    /** Outcome of a solve. */
+    public enum Status { CONVERGED, NO_ROOT_FOUND, ITERATION_LIMIT, TIME_LIMIT }
+
+    /** Solver result. The root is null unless the status is CONVERGED. */
+    public static final class Result {
+        private final Status status;
+        private final BigDecimal root;
+        private final int iterations;
+
+        Result(Status status, BigDecimal root, int iterations) {
+            this.status = status;
+            this.root = root;
+            this.iterations = iterations;
+        }
+
+        public Status getStatus() { return status; }
+        public BigDecimal getRoot() { return root; }
+        public int getIterations() { return iterations; }
+        public boolean isConverged() { return status == Status.CONVERGED; }
+
+        @Override
+        public String toString() {
+            return "Result{" + status + (root != null ? ", root=" + CalculatorEngine.formatBigDecimal(root) : "")
+                    + ", iterations=" + iterations + "}";
+        }
+    }
+
+    // --- Limits ---
+    static final long DEFAULT_TIME_LIMIT_MILLIS = 2000;
+    private static final int MAX_DOUBLE_ITERATIONS = 200;
+    private static final int MAX_EXACT_ITERATIONS = 50;
+    private static final int SCAN_MAX_EXPONENT = 40;   // Scan reaches ±2^40 (about 1.1e12)
+    private static final int SCAN_MIN_EXPONENT = -20;
+    private static final MathContext EXACT_CONTEXT = new MathContext(34, RoundingMode.HALF_EVEN);
+    private static final BigDecimal EXACT_ULP = BigDecimal.ONE.movePointLeft(CalculatorEngine.DIVISION_SCALE);
+    // A touching root's residual may be up to this fraction of its change over h (root within h / 2)
+    private static final double TOUCHING_TOLERANCE = 0.25;
+
+    private final CompiledExpression residual;
+    private final long deadlineNanos;
+    private int iterations = 0;
+
+    private EquationSolver(CompiledExpression residual, long timeLimitMillis) {
+        this.residual = residual;
+        this.deadlineNanos = System.nanoTime() + timeLimitMillis * 1_000_000L;
+    }
+
+    /** Solves with the default time limit. */
+    public static Result solve(String equation, String variable) {
+        return solve(equation, variable, DEFAULT_TIME_LIMIT_MILLIS);
+    }
+
+    /**
+     * Solves an equation "left = right" for the variable (a plain expression is solved for = 0).
+     * @throws IllegalArgumentException If the equation is malformed.
+     */
+    public static Result solve(String equation, String variable, long timeLimitMillis) {
+        int equals = equation.indexOf('=');
+        String residualSource = equation;
+        if (equals >= 0) {
+            if (equation.indexOf('=', equals + 1) >= 0) {
+                throw new IllegalArgumentException("Only one '=' is allowed");
+            }
+            residualSource = "(" + equation.substring(0, equals) + ") - (" + equation.substring(equals + 1) + ")";
+        }
+        CompiledExpression compiled = ExpressionCompiler.compile(residualSource, variable);
+        return new EquationSolver(compiled, timeLimitMillis).run();
+    }
+
+    private Result run() {
+        // --- Phase 1: bulk scan for a sign change around 0 ---
+        int perSide = SCAN_MAX_EXPONENT - SCAN_MIN_EXPONENT + 1;
+        double[] x = new double[2 * perSide + 1];
+        for (int k = 0; k < perSide; k++) {
+            double magnitude = Math.scalb(1.0, SCAN_MIN_EXPONENT + k);
+            x[perSide - 1 - k] = -magnitude; // Ascending order
+            x[perSide + 1 + k] = magnitude;
+        }
+        x[perSide] = 0;
+        double[] f = new double[x.length];
+        residual.evaluate(x, f, x.length);
+
+        int best = -1;
+        int bracket = -1; // Sign change between x[bracket] and x[bracket + 1], closest to 0 wins
+        for (int i = 0; i < x.length; i++) {
+            if (!isFinite(f[i])) continue;
+            if (f[i] == 0) {
+                return verified(refine(x[i]));
+            }
+            if (best < 0 || Math.abs(f[i]) < Math.abs(f[best])) best = i;
+            if (i + 1 < x.length && isFinite(f[i + 1]) && (f[i] < 0) != (f[i + 1] < 0)) {
+                // "<=" so that the positive root wins a tie (x × x = 2 gives 1.41421356)
+                if (bracket < 0 || Math.abs(x[i] + x[i + 1]) <= Math.abs(x[bracket] + x[bracket + 1])) {
+                    bracket = i;
+                }
+            }
+        }
+
+        // --- Phase 2: converge in double ---
+        Double root;
+        if (bracket >= 0) {
+            root = safeguardedNewton(x[bracket], f[bracket], x[bracket + 1], f[bracket + 1]);
+        } else if (best >= 0) {
+            root = secant(x[best], secondSecantPoint(x, f, best));
+        } else {
+            return new Result(Status.NO_ROOT_FOUND, null, iterations);
+        }
+        if (root == null) {
+            return new Result(timeUp() ? Status.TIME_LIMIT : Status.ITERATION_LIMIT, null, iterations);
+        }
+        if (Double.isNaN(root)) {
+            return new Result(Status.NO_ROOT_FOUND, null, iterations);
+        }
+        if (bracket >= 0 && !(Math.abs(residual.evaluate(root)) <= Math.min(Math.abs(f[bracket]), Math.abs(f[bracket + 1])))) {
+            // The sign change was a pole (e.g. 1 ÷ x), not a root
+            return new Result(Status.NO_ROOT_FOUND, null, iterations);
+        }
+
+        // --- Phase 3: refine with the engine's BigDecimal arithmetic ---
+        return verified(refine(root));
+    }
+
+    /** Reports a converged result as NO_ROOT_FOUND unless its root passes isRoot. */
+    private Result verified(Result refined) {
+        if (refined.isConverged() && !isRoot(refined.getRoot().doubleValue())) {
+            return new Result(Status.NO_ROOT_FOUND, null, iterations);
+        }
+        return refined;
+    }
+
+    /**
+     * A scanned neighbour of x[best] to start the secant from, with a residual different from
+     * f[best]: a secant through equal residuals (x = 2 and 4 for (x - 3) × (x - 3)) has no slope.
+     */
+    private static double secondSecantPoint(double[] x, double[] f, int best) {
+        for (int i = best + 1; i >= best - 1; i -= 2) {
+            if (i >= 0 && i < x.length && isFinite(f[i]) && f[i] != f[best]) {
+                return x[i];
+            }
+        }
+        return x[best] + Math.max(Math.abs(x[best]), 1.0) * 1e-3;
+    }
+
+    /**
+     * Checks a candidate root on a neighbourhood of ±h, wide enough to contain the rounding of
+     * the root: either the residual changes sign across it (and the root is not a pole), or it
+     * touches zero, growing at least quadratically on both sides from a value no larger than
+     * that growth allows. This rejects points where the residual only tends to zero, such as
+     * x ÷ (x - 1) - 1 far out, which rounds to zero without ever reaching it.
+     */
+    private boolean isRoot(double root) {
+        double h = Math.max(Math.abs(root), 1.0) * 1e-7;
+        double fx = residual.evaluate(root);
+        double below = residual.evaluate(root - h);
+        double above = residual.evaluate(root + h);
+        if (!isFinite(fx) || !isFinite(below) || !isFinite(above)) {
+            return false;
+        }
+        if ((below < 0 && above > 0) || (below > 0 && above < 0)) {
+            return Math.abs(fx) <= Math.abs(above - below);
+        }
+        return growsAway(fx, below, residual.evaluate(root - 2 * h))
+                && growsAway(fx, above, residual.evaluate(root + 2 * h))
+                && Math.abs(fx) <= TOUCHING_TOLERANCE * Math.min(Math.abs(below - fx), Math.abs(above - fx));
+    }
+
+    /** True if the residual moves away from f(root) at least quadratically: 4× the change at twice the distance, allowing for rounding. */
+    private static boolean growsAway(double atRoot, double near, double far) {
+        double nearChange = Math.abs(near - atRoot);
+        return nearChange > 0 && Math.abs(far - atRoot) >= 3 * nearChange;
+    }
+
+    /**
+     * Newton steps with a finite-difference slope inside a shrinking bracket [a, b]; any step
+     * that would leave the bracket (or a zero slope) is replaced by bisection.
+     * @return The root, or null if a limit was hit.
+     */
+    private Double safeguardedNewton(double a, double fa, double b, double fb) {
+        double xn = Math.abs(fa) < Math.abs(fb) ? a : b;
+        double fx = Math.abs(fa) < Math.abs(fb) ? fa : fb;
+        for (int i = 0; i < MAX_DOUBLE_ITERATIONS; i++) {
+            iterations++;
+            if (timeUp()) return null;
+            if (fx == 0 || Math.abs(b - a) <= 4 * Math.ulp(Math.max(Math.abs(a), Math.abs(b)))) {
+                return xn;
+            }
+
+            double h = Math.max(Math.abs(xn), 1.0) * 1e-7;
+            double slope = (residual.evaluate(xn + h) - residual.evaluate(xn - h)) / (2 * h);
+            double next = xn - fx / slope;
+            if (!(next > Math.min(a, b) && next < Math.max(a, b))) {
+                next = a + (b - a) / 2; // Also catches a NaN step
+            }
+            double fNext = residual.evaluate(next);
+            if (!isFinite(fNext)) {
+                next = a + (b - a) / 2; // Pole inside the bracket: keep bisecting
+                fNext = residual.evaluate(next);
+            }
+            // Keep the sign change inside [a, b]
+            if ((fNext < 0) == (fa < 0)) {
+                a = next;
+                fa = fNext;
+            } else {
+                b = next;
+                fb = fNext;
+            }
+            xn = next;
+            fx = fNext;
+        }
+        return null;
+    }
+
+    /**
+     * Unbracketed secant iteration, for roots where the residual touches zero without
+     * changing sign (e.g. a squared term) or lies beyond the scanned range.
+     * @return The root, NaN if the iteration diverged, or null if a limit was hit.
+     */
+    private Double secant(double x0, double x1) {
+        double f0 = residual.evaluate(x0);
+        double f1 = residual.evaluate(x1);
+        for (int i = 0; i < MAX_DOUBLE_ITERATIONS; i++) {
+            iterations++;
+            if (timeUp()) return null;
+            if (f1 == 0 || f1 == f0 || Math.abs(x1 - x0) <= 4 * Math.ulp(x1)) {
+                return x1; // Converged, or flat: the caller checks whether x1 is a root
+            }
+            double next = x1 - f1 * (x1 - x0) / (f1 - f0);
+            if (!isFinite(next)) {
+                return Double.NaN;
+            }
+            x0 = x1;
+            f0 = f1;
+            x1 = next;
+            f1 = residual.evaluate(x1);
+        }
+        return null;
+    }
+
+    /**
+     * Refines a double root with secant steps in BigDecimal, using the same arithmetic as
+     * the keypad, then rounds to DIVISION_SCALE places and picks the neighbouring value
+     * with the smallest exact residual.
+     */
+    private Result refine(double approximateRoot) {
+        BigDecimal x0 = new BigDecimal(approximateRoot, EXACT_CONTEXT);
+        try {
+            BigDecimal x1 = x0.add(EXACT_ULP.max(x0.abs().ulp()));
+            BigDecimal f0 = residual.evaluateExact(x0);
+            BigDecimal f1 = residual.evaluateExact(x1);
+            for (int i = 0; i < MAX_EXACT_ITERATIONS && !timeUp(); i++) {
+                iterations++;
+                BigDecimal difference = f1.subtract(f0);
+                if (f1.signum() == 0 || difference.signum() == 0) break;
+                BigDecimal next = x1.subtract(f1.multiply(x1.subtract(x0), EXACT_CONTEXT).divide(difference, EXACT_CONTEXT), EXACT_CONTEXT);
+                if (next.subtract(x1).abs().compareTo(EXACT_ULP.movePointLeft(2)) < 0) {
+                    x1 = next;
+                    break;
+                }
+                x0 = x1;
+                f0 = f1;
+                x1 = next;
+                f1 = residual.evaluateExact(x1);
+            }
+
+            // Round to the engine's precision and polish against the neighbours
+            BigDecimal root = x1.setScale(CalculatorEngine.DIVISION_SCALE, RoundingMode.HALF_UP);
+            BigDecimal bestResidual = residual.evaluateExact(root).abs();
+            for (int direction = -1; direction <= 1; direction += 2) {
+                BigDecimal step = direction < 0 ? EXACT_ULP.negate() : EXACT_ULP;
+                BigDecimal candidate = root.add(step);
+                BigDecimal candidateResidual = residual.evaluateExact(candidate).abs();
+                if (candidateResidual.compareTo(bestResidual) < 0) {
+                    root = candidate;
+                    bestResidual = candidateResidual;
+                }
+            }
+            return new Result(Status.CONVERGED, root, iterations);
+        } catch (ArithmeticException e) {
+            // Division by zero at the refined point: keep the double result
+            return new Result(Status.CONVERGED,
+                    new BigDecimal(approximateRoot).setScale(CalculatorEngine.DIVISION_SCALE, RoundingMode.HALF_UP), iterations);
+        }
+    }
+
+    private boolean timeUp() {
+        return System.nanoTime() - deadlineNanos > 0;
+    }
+
+    private static boolean isFinite(double value) {
+        return !Double.isNaN(value) && !Double.isInfinite(value);
+    }
+}
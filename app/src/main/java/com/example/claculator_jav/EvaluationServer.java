@@ -0,0 +1,481 @@
+package com.example.claculator_jav;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small local evaluation service, so back-office tools can use the calculator's
+ * arithmetic without the app. It speaks a line protocol over a loopback socket, or over
+ * stdin/stdout when started with --stdio:
+ * <pre>
+ *   12.5 × (3 + 4)        →  OK 87.5
+ *   1 / 0                 →  ERR Division by Zero
+ *   2^10; 5!; (1 + 2      →  OK 1024, OK 120, ERR Syntax Error: ... (one line each)
+ *   STATS                 →  STATS requests=... (see Stats)
+ *   QUIT                  →  closes the connection once pending responses are written
+ * </pre>
+ * A line may hold several expressions separated by ";", and clients may pipeline lines
+ * without waiting; each expression gets one response line, in request order.
+ * <p>
+ * Expressions are compiled with ExpressionCompiler and evaluated with the engine's BigDecimal
+ * rules, so results match pasting the same text into the calculator ("*" and "/" are
+ * accepted for × and ÷). Requests from all connections go into one bounded queue. A batcher takes everything queued (up to
+ * MAX_BATCH_SIZE) whenever a worker is free, so batches stay small under light load and
+ * grow when workers are busy, amortizing the hand-off between threads. Workers move each
+ * connection's finished responses to its outbound buffer as soon as all earlier ones are
+ * done, and the connection's writer thread sends them, so responses stream back while later
+ * requests are still being evaluated and a client that stops reading only stalls itself.
+ * Throughput, batch size and latency counters are available from getStats().
+ */
+public final class EvaluationServer implements Closeable {
+
+    // --- Constants ---
+    static final int MAX_BATCH_SIZE = 256;
+    private static final int QUEUE_CAPACITY = 8192;       // Readers block (TCP backpressure) when full
+    private static final int BATCHES_PER_WORKER = 2;      // Batches queued or running per worker
+    private static final int MAX_UNWRITTEN = 4096;        // Per connection; its reader waits beyond this
+    private static final String SEPARATOR = ";";
+
+    /** Point-in-time counters of the service. */
+    public static final class Stats {
+        public final long requests;      // Expressions answered
+        public final long errors;        // Of which answered with ERR
+        public final long batches;
+        public final int connections;    // Currently open
+        public final double requestsPerSecond; // Since the server started
+        public final double meanBatchSize;
+        public final double p50LatencyMicros;  // Queued to answered, from a QuantileSketch
+        public final double p99LatencyMicros;
+
+        Stats(long requests, long errors, long batches, int connections, double requestsPerSecond,
+              double p50LatencyMicros, double p99LatencyMicros) {
+            this.requests = requests;
+            this.errors = errors;
+            this.batches = batches;
+            this.connections = connections;
+            this.requestsPerSecond = requestsPerSecond;
+            this.meanBatchSize = batches > 0 ? requests / (double) batches : 0;
+            this.p50LatencyMicros = p50LatencyMicros;
+            this.p99LatencyMicros = p99LatencyMicros;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "requests=%d errors=%d batches=%d connections=%d throughput=%.0f/s batch=%.1f p50=%.0fus p99=%.0fus",
+                    requests, errors, batches, connections, requestsPerSecond, meanBatchSize,
+                    p50LatencyMicros, p99LatencyMicros);
+        }
+    }
+
+    /** One expression waiting for (or holding) its response line. */
+    private static final class Request {
+        final Connection connection;
+        final String expression;
+        final long queuedNanos = System.nanoTime();
+        volatile String response; // Set once, by the worker that evaluates it
+
+        Request(Connection connection, String expression, String response) {
+            this.connection = connection;
+            this.expression = expression;
+            this.response = response;
+        }
+    }
+
+    /**
+     * A client: a reader thread parses its lines into requests, workers queue the responses
+     * in order as they complete, and a writer thread sends them. Only the writer blocks on
+     * the client's socket, and never while holding the connection's lock.
+     */
+    private final class Connection {
+        private final InputStream input;
+        private final Writer output;
+        private final Closeable resource;
+        private final ArrayDeque<Request> inFlight = new ArrayDeque<>(); // In request order; guarded by this
+        private StringBuilder outbound = new StringBuilder(); // Response lines not yet taken by the writer; guarded by this
+        private int unwritten = 0;         // Lines in outbound or being written; guarded by this
+        private boolean inputDone = false; // Guarded by this
+        private boolean closed = false;    // Guarded by this
+
+        Connection(InputStream input, OutputStream output, Closeable resource) {
+            this.input = input;
+            this.output = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            this.resource = resource;
+        }
+
+        /**
+         * Reads request lines until the client closes its side or sends QUIT. The reader is
+         * left open: closing a socket's input stream would close the socket before the
+         * remaining responses are written.
+         */
+        void readRequests() {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    if (line.equalsIgnoreCase("QUIT")) {
+                        break;
+                    }
+                    if (line.equalsIgnoreCase("STATS")) {
+                        submit(new Request(this, line, "STATS " + getStats()));
+                        continue;
+                    }
+                    for (String expression : line.split(SEPARATOR)) {
+                        submit(new Request(this, expression.trim(), null));
+                    }
+                }
+            } catch (SocketException e) {
+                // Closed by the client or by close()
+            } catch (IOException e) {
+                System.err.println("EvaluationServer: Error reading request: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                inputDone = true;
+                notifyAll(); // The writer closes the connection once everything is sent
+            }
+        }
+
+        /**
+         * Queues a request, first waiting while the client has MAX_UNWRITTEN responses
+         * unanswered or unsent: a client that stops reading stops being read, and TCP
+         * backpressure holds it back instead of the shared queue.
+         */
+        private void submit(Request request) throws InterruptedException {
+            synchronized (this) {
+                while (!closed && inFlight.size() + unwritten >= MAX_UNWRITTEN) {
+                    wait();
+                }
+                if (closed) {
+                    return;
+                }
+                inFlight.add(request);
+            }
+            if (request.response != null) {
+                queueCompleted(); // Answered already (STATS), but still in order
+            } else {
+                pending.put(request);
+            }
+        }
+
+        /** Moves every response at the head of the queue that is ready to the outbound buffer. */
+        synchronized void queueCompleted() {
+            if (closed) {
+                return;
+            }
+            Request head;
+            int queued = 0;
+            while ((head = inFlight.peek()) != null && head.response != null) {
+                outbound.append(head.response).append('\n');
+                inFlight.poll();
+                queued++;
+            }
+            if (queued > 0) {
+                unwritten += queued;
+                notifyAll(); // Wakes the writer
+            }
+        }
+
+        /**
+         * Sends the outbound buffer whenever it has lines, flushing once per batch taken.
+         * Closes the connection when the input has ended and everything has been sent, or
+         * when the client goes away.
+         */
+        void writeResponses() {
+            StringBuilder sending = new StringBuilder();
+            try {
+                while (true) {
+                    int lines;
+                    synchronized (this) {
+                        while (!closed && outbound.length() == 0 && !(inputDone && inFlight.isEmpty())) {
+                            wait();
+                        }
+                        if (closed || outbound.length() == 0) {
+                            break;
+                        }
+                        StringBuilder taken = outbound; // Swap buffers so workers keep appending meanwhile
+                        outbound = sending;
+                        sending = taken;
+                        lines = unwritten;
+                    }
+                    output.append(sending);
+                    output.flush();
+                    sending.setLength(0);
+                    synchronized (this) {
+                        unwritten -= lines;
+                        notifyAll(); // Wakes a reader waiting in submit()
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("EvaluationServer: Client went away: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            close();
+        }
+
+        /** Marks the connection closed and closes its socket or stream, which ends a blocked write. */
+        void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                inFlight.clear();
+                notifyAll(); // Wakes serve(), the writer and a waiting reader
+            }
+            connections.remove(this);
+            try {
+                resource.close();
+            } catch (IOException e) {
+                // Nothing left to do for this client
+            }
+        }
+    }
+
+    // --- Service State ---
+    private final ServerSocket serverSocket; // null when only serving streams
+    private final BlockingQueue<Request> pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final ExecutorService workers;
+    private final Semaphore batchSlots;
+    private final Thread batcher;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextThreadId = new AtomicInteger(1);
+    private volatile boolean running = true;
+
+    // --- Counters ---
+    private final long startNanos = System.nanoTime();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final QuantileSketch latencies = new QuantileSketch(); // Nanoseconds; guarded by itself
+
+    /**
+     * Starts a server listening on the loopback interface only.
+     * @param port The port, or 0 for any free port (see getPort()); -1 for no socket, to use serve() only.
+     * @param workerThreads Threads evaluating batches.
+     */
+    public EvaluationServer(int port, int workerThreads) throws IOException {
+        workers = Executors.newFixedThreadPool(workerThreads, task -> daemon(task, "eval-worker-" + nextThreadId.getAndIncrement()));
+        batchSlots = new Semaphore(workerThreads * BATCHES_PER_WORKER);
+        batcher = daemon(this::runBatcher, "eval-batcher");
+        batcher.start();
+        if (port >= 0) {
+            serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+            daemon(this::acceptConnections, "eval-accept").start();
+        } else {
+            serverSocket = null;
+        }
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /** The port the server listens on, or -1 without a socket. */
+    public int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
+    private void acceptConnections() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = open(socket.getInputStream(), socket.getOutputStream(), socket);
+                daemon(connection::readRequests, "eval-connection-" + nextThreadId.getAndIncrement()).start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("EvaluationServer: Error accepting connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Registers a connection and starts its writer thread. */
+    private Connection open(InputStream input, OutputStream output, Closeable resource) {
+        Connection connection = new Connection(input, output, resource);
+        connections.add(connection);
+        daemon(connection::writeResponses, "eval-writer-" + nextThreadId.getAndIncrement()).start();
+        return connection;
+    }
+
+    /**
+     * Serves one client over the given streams (e.g. System.in and System.out) on the
+     * calling thread, returning once the input ends and every response has been written.
+     * The output stream is closed at the end.
+     */
+    public void serve(InputStream input, OutputStream output) {
+        Connection connection = open(input, output, output);
+        connection.readRequests();
+        synchronized (connection) {
+            while (!connection.closed) {
+                try {
+                    connection.wait(); // Until the writer sends the last response
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // --- Batching ---
+
+    /**
+     * Takes queued requests in batches, one batch per free slot: while the workers are busy,
+     * requests accumulate and the next batch is larger.
+     */
+    private void runBatcher() {
+        try {
+            while (running) {
+                batchSlots.acquire();
+                List<Request> batch = new ArrayList<>();
+                batch.add(pending.take());
+                pending.drainTo(batch, MAX_BATCH_SIZE - 1);
+                workers.execute(() -> {
+                    try {
+                        evaluateBatch(batch);
+                    } finally {
+                        batchSlots.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            // Shut down
+        } catch (RejectedExecutionException e) {
+            // Workers stopped
+        }
+    }
+
+    private void evaluateBatch(List<Request> batch) {
+        long[] latencyNanos = new long[batch.size()];
+        int errorCount = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Request request = batch.get(i);
+            String response = evaluate(request.expression);
+            if (response.startsWith("ERR")) {
+                errorCount++;
+            }
+            request.response = response;
+            latencyNanos[i] = System.nanoTime() - request.queuedNanos;
+        }
+
+        requests.add(batch.size());
+        errors.add(errorCount);
+        batches.increment();
+        synchronized (latencies) {
+            for (long latency : latencyNanos) {
+                latencies.add(latency);
+            }
+        }
+
+        // Each connection queues its ready prefix once per batch, not once per request
+        Connection last = null;
+        for (Request request : batch) {
+            if (request.connection != last) {
+                last = request.connection;
+                last.queueCompleted();
+            }
+        }
+    }
+
+    /** Evaluates one expression into its response line. */
+    static String evaluate(String expression) {
+        if (expression.isEmpty()) {
+            return "ERR Empty expression";
+        }
+        try {
+            BigDecimal value = ExpressionCompiler.compile(expression).evaluateExact();
+            return "OK " + CalculatorEngine.formatBigDecimal(value);
+        } catch (IllegalArgumentException e) {
+            return "ERR Syntax Error: " + e.getMessage();
+        } catch (ArithmeticException e) {
+            return "ERR " + CalculatorEngine.errorMessage(e);
+        }
+    }
+
+    // --- Monitoring ---
+
+    public Stats getStats() {
+        long answered = requests.sum();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        double p50;
+        double p99;
+        synchronized (latencies) {
+            p50 = latencies.getCount() > 0 ? latencies.getQuantile(0.50) / 1000 : 0;
+            p99 = latencies.getCount() > 0 ? latencies.getQuantile(0.99) / 1000 : 0;
+        }
+        return new Stats(answered, errors.sum(), batches.sum(), connections.size(),
+                seconds > 0 ? answered / seconds : 0, p50, p99);
+    }
+
+    /** Stops accepting connections, closes open ones and stops the workers. */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        batcher.interrupt();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Runs the service: "EvaluationServer [port]" listens on the loopback interface
+     * (default 7878), "EvaluationServer --stdio" answers stdin on stdout.
+     */
+    public static void main(String[] args) throws IOException {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors());
+        if (args.length > 0 && args[0].equals("--stdio")) {
+            try (EvaluationServer server = new EvaluationServer(-1, threads)) {
+                server.serve(System.in, System.out);
+            }
+            return;
+        }
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7878;
+        EvaluationServer server = new EvaluationServer(port, threads);
+        System.err.println("EvaluationServer: Listening on 127.0.0.1:" + server.getPort() + " with " + threads + " workers");
+        try {
+            Thread.currentThread().join(); // Until the process is stopped
+        } catch (InterruptedException e) {
+            server.close();
+        }
+    }
+}
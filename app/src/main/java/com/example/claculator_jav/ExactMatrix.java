@@ -0,0 +1,183 @@
+package com.example.claculator_jav;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Exact BigDecimal path for small matrices in matrix mode.
+ * <p>
+ * Uses fraction-free (Bareiss) elimination: every intermediate value is a minor of the
+ * input, so each division is exact and decimal entries never pick up rounding error.
+ * The determinant is exact; inverse and solve are exact up to one final division by the
+ * determinant, rounded like the engine's ÷ (DIVISION_SCALE places, HALF_UP).
+ * The cost grows with digit count as well as size, so this is limited to MAX_SIZE.
+ */
+public final class ExactMatrix {
+
+    // --- Constants ---
+    static final int MAX_SIZE = 10;
+
+    private final int rows;
+    private final int cols;
+    private final BigDecimal[] data; // Row-major
+
+    private ExactMatrix(int rows, int cols, BigDecimal[] data) {
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
+    }
+
+    /** Exact copy of a double matrix (each entry converted through its shortest decimal form). */
+    public static ExactMatrix from(Matrix matrix) {
+        if (matrix.getRows() > MAX_SIZE || matrix.getCols() > MAX_SIZE) {
+            throw new IllegalArgumentException("Exact mode supports up to " + MAX_SIZE + "×" + MAX_SIZE);
+        }
+        BigDecimal[] data = new BigDecimal[matrix.data.length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = BigDecimal.valueOf(matrix.data[i]);
+        }
+        return new ExactMatrix(matrix.getRows(), matrix.getCols(), data);
+    }
+
+    /** Whether a matrix is small enough for the exact path. */
+    public static boolean supports(Matrix matrix) {
+        return matrix.getRows() <= MAX_SIZE && matrix.getCols() <= MAX_SIZE;
+    }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+
+    public BigDecimal get(int row, int col) {
+        return data[row * cols + col];
+    }
+
+    /** Exact determinant by Bareiss elimination. */
+    public BigDecimal determinant() {
+        requireSquare();
+        int n = rows;
+        BigDecimal[] m = data.clone();
+        int sign = 1;
+        BigDecimal previous = BigDecimal.ONE;
+        for (int k = 0; k < n - 1; k++) {
+            if (m[k * n + k].signum() == 0) {
+                int swap = findPivotRow(m, n, n, k);
+                if (swap < 0) return BigDecimal.ZERO;
+                swapRows(m, n, k, swap);
+                sign = -sign;
+            }
+            BigDecimal pivot = m[k * n + k];
+            for (int i = k + 1; i < n; i++) {
+                for (int j = k + 1; j < n; j++) {
+                    // Exact: the result is a (k + 2) × (k + 2) minor of the input
+                    m[i * n + j] = pivot.multiply(m[i * n + j])
+                            .subtract(m[i * n + k].multiply(m[k * n + j]))
+                            .divide(previous);
+                }
+            }
+            previous = pivot;
+        }
+        BigDecimal det = m[n * n - 1];
+        return (sign < 0 ? det.negate() : det).stripTrailingZeros();
+    }
+
+    /** @throws ArithmeticException If the matrix is singular. */
+    public ExactMatrix inverse() {
+        requireSquare();
+        BigDecimal[] identity = new BigDecimal[rows * rows];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < rows; j++) {
+                identity[i * rows + j] = i == j ? BigDecimal.ONE : BigDecimal.ZERO;
+            }
+        }
+        return solve(new ExactMatrix(rows, rows, identity));
+    }
+
+    /**
+     * Solves this × X = rhs with fraction-free Gauss-Jordan elimination on [A | rhs].
+     * When it finishes, the left block is det(A) × I and the right block is det(A) × X.
+     * Both are exact, so dividing by det(A) is the only rounding step.
+     * @throws ArithmeticException If the matrix is singular.
+     */
+    public ExactMatrix solve(ExactMatrix rhs) {
+        requireSquare();
+        if (rhs.rows != rows) {
+            throw new IllegalArgumentException("Right-hand side has " + rhs.rows + " rows, expected " + rows);
+        }
+        int n = rows;
+        int width = n + rhs.cols;
+        BigDecimal[] m = new BigDecimal[n * width];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(data, i * n, m, i * width, n);
+            System.arraycopy(rhs.data, i * rhs.cols, m, i * width + n, rhs.cols);
+        }
+
+        BigDecimal previous = BigDecimal.ONE;
+        for (int k = 0; k < n; k++) {
+            if (m[k * width + k].signum() == 0) {
+                int swap = findPivotRow(m, width, n, k);
+                if (swap < 0) throw new ArithmeticException("Singular matrix");
+                swapRows(m, width, k, swap);
+            }
+            BigDecimal pivot = m[k * width + k];
+            for (int i = 0; i < n; i++) {
+                if (i == k) continue;
+                BigDecimal factor = m[i * width + k];
+                for (int j = 0; j < width; j++) {
+                    if (j == k) continue;
+                    m[i * width + j] = pivot.multiply(m[i * width + j])
+                            .subtract(factor.multiply(m[k * width + j]))
+                            .divide(previous);
+                }
+                m[i * width + k] = BigDecimal.ZERO;
+            }
+            previous = pivot;
+        }
+
+        // Every diagonal entry is now det(A) (up to the sign from row swaps, which cancels)
+        BigDecimal[] result = new BigDecimal[n * rhs.cols];
+        for (int i = 0; i < n; i++) {
+            BigDecimal diagonal = m[i * width + i];
+            for (int j = 0; j < rhs.cols; j++) {
+                result[i * rhs.cols + j] = m[i * width + n + j]
+                        .divide(diagonal, CalculatorEngine.DIVISION_SCALE, RoundingMode.HALF_UP);
+            }
+        }
+        return new ExactMatrix(n, rhs.cols, result);
+    }
+
+    /** First row below k with a non-zero entry in column k, or -1. */
+    private static int findPivotRow(BigDecimal[] m, int width, int n, int k) {
+        for (int i = k + 1; i < n; i++) {
+            if (m[i * width + k].signum() != 0) return i;
+        }
+        return -1;
+    }
+
+    private static void swapRows(BigDecimal[] m, int width, int a, int b) {
+        for (int j = 0; j < width; j++) {
+            BigDecimal t = m[a * width + j];
+            m[a * width + j] = m[b * width + j];
+            m[b * width + j] = t;
+        }
+    }
+
+    private void requireSquare() {
+        if (rows != cols) {
+            throw new IllegalArgumentException("Matrix must be square, is " + rows + "×" + cols);
+        }
+    }
+
+    /** Rows on separate lines, entries formatted like engine values. */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) builder.append('\n');
+            for (int j = 0; j < cols; j++) {
+                if (j > 0) builder.append("  ");
+                builder.append(CalculatorEngine.formatBigDecimal(data[i * cols + j]));
+            }
+        }
+        return builder.toString();
+    }
+}
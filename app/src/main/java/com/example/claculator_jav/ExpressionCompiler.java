@@ -0,0 +1,260 @@
+package com.example.claculator_jav;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Compiles a calculator expression with named variables (e.g. "2x × (x - 1)") into a
+ * CompiledExpression postfix program, once, so it can then be evaluated at many points.
+ * <p>
+ * Parsing reuses ExpressionTokenizer, and operator precedence comes from
+ * CalculatorEngine.getPrecedence. Text without variables is read exactly as
+ * CalculatorEngine.importExpression reads a paste: a variable or "(" directly after an
+ * operand, or a number after ")", is an implicit multiplication, while two numbers in a
+ * row are an error. Where an operand is expected, "-" is its sign (tighter than × but not
+ * ^, so -x^2 is -(x^2) and 2 × -3 is -6), "+" is ignored and "√" is a square root. On the
+ * keypad an operator key after an operator replaces it instead; see CalculatorEngine.
+ * "^" and "√" group from the right, and the postfix "!" applies to the operand just before it.
+ */
+public final class ExpressionCompiler {
+
+    // Unary minus binds tighter than × and ÷ but not ^: at equal precedence the right-associative
+    // ^ does not pop it, so -x^2 is -(x^2) while 2^-x is 2^(-x)
+    private static final int NEGATE_PRECEDENCE = CalculatorEngine.getPrecedence("^");
+    private static final BigDecimal SQUARE_ROOT_DEGREE = BigDecimal.valueOf(2);
+    private static final int OPEN_PAREN_MARKER = -1;
+
+    // --- Output Program (grown as needed) ---
+    private final String source;
+    private final String[] variables;
+    private int[] code = new int[16];
+    private int[] operands = new int[16];
+    private int codeLength = 0;
+    private double[] constants = new double[8];
+    private BigDecimal[] exactConstants = new BigDecimal[8];
+    private int constantCount = 0;
+    private int stackDepth = 0;
+    private int maxStackDepth = 0;
+
+    // --- Pending Operators (instruction codes, or OPEN_PAREN_MARKER) ---
+    private int[] operatorStack = new int[16];
+    private int operatorCount = 0;
+
+    private ExpressionCompiler(String source, String[] variables) {
+        this.source = source;
+        this.variables = variables;
+    }
+
+    /**
+     * Compiles an expression.
+     * @param expression The expression text, e.g. "x × x - 2".
+     * @param variables Variable names, in the order their values are passed when evaluating.
+     * @throws IllegalArgumentException If the expression is malformed or uses an unknown name.
+     */
+    public static CompiledExpression compile(String expression, String... variables) {
+        ExpressionCompiler compiler = new ExpressionCompiler(expression, variables.clone());
+        try {
+            compiler.parse();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringReader does not throw
+        }
+        return new CompiledExpression(expression, compiler.variables,
+                Arrays.copyOf(compiler.code, compiler.codeLength),
+                Arrays.copyOf(compiler.operands, compiler.codeLength),
+                Arrays.copyOf(compiler.constants, compiler.constantCount),
+                Arrays.copyOf(compiler.exactConstants, compiler.constantCount),
+                Math.max(1, compiler.maxStackDepth));
+    }
+
+    /** Shunting-yard over the token stream, emitting postfix instructions. */
+    private void parse() throws IOException {
+        ExpressionTokenizer tokenizer = new ExpressionTokenizer(new StringReader(source));
+        boolean expectOperand = true;
+
+        int type;
+        int previous = ExpressionTokenizer.END;
+        while ((type = tokenizer.next()) != ExpressionTokenizer.END) {
+            switch (type) {
+                case ExpressionTokenizer.NUMBER:
+                    if (previous == ExpressionTokenizer.NUMBER) {
+                        throw error("Missing operator before '" + tokenizer.text() + "'", tokenizer); // "2 3", as in a paste
+                    }
+                    if (!expectOperand) pushBinaryOperator(CompiledExpression.MULTIPLY); // "2(…)3" or "x 2"
+                    emitConstant(tokenizer.numberValue());
+                    expectOperand = false;
+                    break;
+                case ExpressionTokenizer.IDENTIFIER: {
+                    int index = indexOfVariable(tokenizer.text());
+                    if (index < 0) {
+                        throw error("Unknown name '" + tokenizer.text() + "'", tokenizer);
+                    }
+                    if (!expectOperand) pushBinaryOperator(CompiledExpression.MULTIPLY); // "2x"
+                    emit(CompiledExpression.PUSH_VARIABLE, index);
+                    expectOperand = false;
+                    break;
+                }
+                case ExpressionTokenizer.OPERATOR: {
+                    String operator = tokenizer.operator();
+                    if (expectOperand) {
+                        // Prefix sign
+                        if ("-".equals(operator)) {
+                            pushOperator(CompiledExpression.NEGATE);
+                        } else if ("√".equals(operator)) {
+                            emitConstant(SQUARE_ROOT_DEGREE); // Square root; nothing pending outranks it
+                            pushOperator(CompiledExpression.ROOT);
+                        } else if (!"+".equals(operator)) {
+                            throw error("Missing operand before '" + operator + "'", tokenizer);
+                        }
+                        break;
+                    }
+                    pushBinaryOperator(instructionFor(operator));
+                    expectOperand = true;
+                    break;
+                }
+                case ExpressionTokenizer.FACTORIAL:
+                    if (expectOperand) {
+                        throw error("Missing operand before '!'", tokenizer);
+                    }
+                    emit(CompiledExpression.FACTORIAL, 0); // Postfix: the operand is complete
+                    break;
+                case ExpressionTokenizer.OPEN_PAREN:
+                    if (!expectOperand) pushBinaryOperator(CompiledExpression.MULTIPLY); // "2(x+1)" or ")("
+                    pushOperator(OPEN_PAREN_MARKER);
+                    expectOperand = true;
+                    break;
+                case ExpressionTokenizer.CLOSE_PAREN:
+                    if (expectOperand) {
+                        throw error("Missing operand before ')'", tokenizer);
+                    }
+                    while (operatorCount > 0 && operatorStack[operatorCount - 1] != OPEN_PAREN_MARKER) {
+                        emit(operatorStack[--operatorCount], 0);
+                    }
+                    if (operatorCount == 0) {
+                        throw error("Unmatched ')'", tokenizer);
+                    }
+                    operatorCount--; // Discard "("
+                    break;
+                default:
+                    throw error("Unexpected '" + tokenizer.text() + "'", tokenizer);
+            }
+            previous = type;
+        }
+
+        if (expectOperand) {
+            throw new IllegalArgumentException("Incomplete expression: " + source);
+        }
+        while (operatorCount > 0) {
+            int op = operatorStack[--operatorCount];
+            if (op == OPEN_PAREN_MARKER) {
+                throw new IllegalArgumentException("Unclosed '(' in: " + source);
+            }
+            emit(op, 0);
+        }
+    }
+
+    /**
+     * Emits pending operators of higher precedence, and of the same precedence unless op is
+     * right-associative, then pushes op.
+     */
+    private void pushBinaryOperator(int op) {
+        int precedence = precedenceOf(op);
+        boolean rightAssociative = op == CompiledExpression.POWER || op == CompiledExpression.ROOT;
+        while (operatorCount > 0) {
+            int top = operatorStack[operatorCount - 1];
+            if (top == OPEN_PAREN_MARKER || precedenceOf(top) < precedence
+                    || (precedenceOf(top) == precedence && rightAssociative)) break;
+            emit(top, 0);
+            operatorCount--;
+        }
+        pushOperator(op);
+    }
+
+    private void pushOperator(int op) {
+        if (operatorCount == operatorStack.length) {
+            operatorStack = Arrays.copyOf(operatorStack, operatorCount * 2);
+        }
+        operatorStack[operatorCount++] = op;
+    }
+
+    private void emitConstant(BigDecimal value) {
+        if (constantCount == constants.length) {
+            constants = Arrays.copyOf(constants, constantCount * 2);
+            exactConstants = Arrays.copyOf(exactConstants, constantCount * 2);
+        }
+        constants[constantCount] = value.doubleValue();
+        exactConstants[constantCount] = value;
+        emit(CompiledExpression.PUSH_CONSTANT, constantCount++);
+    }
+
+    /** Appends an instruction and tracks the evaluation stack depth it needs. */
+    private void emit(int instruction, int operand) {
+        if (codeLength == code.length) {
+            code = Arrays.copyOf(code, codeLength * 2);
+            operands = Arrays.copyOf(operands, codeLength * 2);
+        }
+        code[codeLength] = instruction;
+        operands[codeLength] = operand;
+        codeLength++;
+
+        if (instruction == CompiledExpression.PUSH_CONSTANT || instruction == CompiledExpression.PUSH_VARIABLE) {
+            stackDepth++;
+            maxStackDepth = Math.max(maxStackDepth, stackDepth);
+        } else if (instruction != CompiledExpression.NEGATE && instruction != CompiledExpression.FACTORIAL) {
+            stackDepth--; // Binary operators pop two and push one
+        }
+    }
+
+    private int indexOfVariable(String name) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    private static int instructionFor(String operator) {
+        switch (operator) {
+            case "+":
+                return CompiledExpression.ADD;
+            case "-":
+                return CompiledExpression.SUBTRACT;
+            case "×":
+                return CompiledExpression.MULTIPLY;
+            case "÷":
+                return CompiledExpression.DIVIDE;
+            case "^":
+                return CompiledExpression.POWER;
+            case "√":
+                return CompiledExpression.ROOT;
+            default:
+                throw new IllegalArgumentException("Unsupported operator '" + operator + "'");
+        }
+    }
+
+    /** Precedence of an instruction, taken from the engine's table for binary operators. */
+    private static int precedenceOf(int op) {
+        switch (op) {
+            case CompiledExpression.ADD:
+                return CalculatorEngine.getPrecedence("+");
+            case CompiledExpression.SUBTRACT:
+                return CalculatorEngine.getPrecedence("-");
+            case CompiledExpression.MULTIPLY:
+                return CalculatorEngine.getPrecedence("×");
+            case CompiledExpression.DIVIDE:
+                return CalculatorEngine.getPrecedence("÷");
+            case CompiledExpression.POWER:
+                return CalculatorEngine.getPrecedence("^");
+            case CompiledExpression.ROOT:
+                return CalculatorEngine.getPrecedence("√");
+            case CompiledExpression.NEGATE:
+                return NEGATE_PRECEDENCE;
+            default:
+                return 0;
+        }
+    }
+
+    private static IllegalArgumentException error(String message, ExpressionTokenizer tokenizer) {
+        return new IllegalArgumentException(message + " at position " + tokenizer.offset());
+    }
+}
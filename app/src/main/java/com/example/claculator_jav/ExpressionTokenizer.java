@@ -0,0 +1,259 @@
+package com.example.claculator_jav;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+
+/**
+ * Pull tokenizer for calculator expressions, reading from a Reader in fixed-size chunks.
+ * Memory use is bounded by the chunk buffer and the longest allowed token, independent of
+ * the input length, so very large pasted or imported expressions can be streamed.
+ * <p>
+ * Operators are normalized to the engine's symbols: "*" becomes "×", "/" becomes "÷" and
+ * the Unicode minus "−" becomes "-". "^" (power) and "√" (root) are operators; the postfix
+ * "!" is its own FACTORIAL token. Whitespace is skipped.
+ * <p>
+ * Numbers may end in an exponent ("1.5E-3") only when the tokenizer is created with
+ * exponents enabled, as for data files: in an expression "2e-1" is 2 × e − 1 with a
+ * variable named e.
+ */
+public class ExpressionTokenizer {
+
+    // --- Token Types ---
+    public static final int END = 0;
+    public static final int NUMBER = 1;
+    public static final int OPERATOR = 2;
+    public static final int OPEN_PAREN = 3;
+    public static final int CLOSE_PAREN = 4;
+    public static final int IDENTIFIER = 5;
+    public static final int INVALID = 6;
+    public static final int FACTORIAL = 7;
+
+    // --- Constants ---
+    private static final int CHUNK_SIZE = 8192;
+    static final int MAX_TOKEN_LENGTH = 64;
+
+    // --- Input Buffer ---
+    private final Reader reader;
+    private final boolean exponents;
+    private final char[] buffer = new char[CHUNK_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private long consumed = 0; // Characters consumed from the reader so far
+
+    // --- Current Token ---
+    private final char[] tokenChars = new char[MAX_TOKEN_LENGTH];
+    private int tokenLength = 0;
+    private int tokenDigits = 0;
+    private String operator;
+    private long tokenOffset = 0;
+
+    public ExpressionTokenizer(Reader reader) {
+        this(reader, false);
+    }
+
+    /** @param exponents Whether a number may end in "e" or "E", an optional sign and digits. */
+    public ExpressionTokenizer(Reader reader, boolean exponents) {
+        this.reader = reader;
+        this.exponents = exponents;
+    }
+
+    /**
+     * Advances to the next token.
+     * @return The token type (END at the end of input).
+     */
+    public int next() throws IOException {
+        int c = peekChar();
+        while (c >= 0 && Character.isWhitespace(c)) {
+            position++;
+            c = peekChar();
+        }
+        tokenOffset = consumed - (limit - position);
+        tokenLength = 0;
+        tokenDigits = 0;
+        operator = null;
+
+        if (c < 0) {
+            return END;
+        }
+        if (isDigit(c) || c == '.') {
+            return readNumber();
+        }
+        if (Character.isLetter(c)) {
+            return readIdentifier();
+        }
+
+        position++;
+        tokenChars[0] = (char) c;
+        tokenLength = 1;
+        switch (c) {
+            case '+':
+                operator = "+";
+                return OPERATOR;
+            case '-':
+            case '−': // Unicode minus sign
+                operator = "-";
+                return OPERATOR;
+            case '*':
+            case '×':
+                operator = "×";
+                return OPERATOR;
+            case '/':
+            case '÷':
+                operator = "÷";
+                return OPERATOR;
+            case '^':
+                operator = "^";
+                return OPERATOR;
+            case '√':
+                operator = "√";
+                return OPERATOR;
+            case '!':
+                return FACTORIAL;
+            case '(':
+                return OPEN_PAREN;
+            case ')':
+                return CLOSE_PAREN;
+            default:
+                return INVALID;
+        }
+    }
+
+    /**
+     * Reads digits with at most one decimal point, then an exponent if enabled and present.
+     * Overlong numbers are reported as INVALID.
+     */
+    private int readNumber() throws IOException {
+        boolean seenDecimal = false;
+        boolean overflow = false;
+        int c = peekChar();
+        while (c >= 0 && (isDigit(c) || (c == '.' && !seenDecimal))) {
+            if (c == '.') {
+                seenDecimal = true;
+            } else {
+                tokenDigits++;
+            }
+            if (tokenLength < MAX_TOKEN_LENGTH) {
+                tokenChars[tokenLength++] = (char) c;
+            } else {
+                overflow = true; // Keep consuming so the rest isn't read as a new token
+            }
+            position++;
+            c = peekChar();
+        }
+        if (exponents && tokenDigits > 0 && (c == 'e' || c == 'E')) {
+            int sign = peekAhead(1);
+            int exponentLength = sign == '+' || sign == '-' ? 2 : 1; // "e" and its sign
+            if (isDigit(peekAhead(exponentLength))) {
+                // Digits follow: it is an exponent, not a name after the number
+                for (int i = 0; i < exponentLength; i++) {
+                    overflow |= !append(buffer[position++]);
+                }
+                c = peekChar();
+                while (c >= 0 && isDigit(c)) {
+                    overflow |= !append((char) c);
+                    position++;
+                    c = peekChar();
+                }
+            }
+        }
+        if (overflow || tokenDigits == 0) {
+            return INVALID; // Too long, or a lone "."
+        }
+        return NUMBER;
+    }
+
+    /** Adds a character to the current token, or returns false if it is full. */
+    private boolean append(char c) {
+        if (tokenLength == MAX_TOKEN_LENGTH) {
+            return false;
+        }
+        tokenChars[tokenLength++] = c;
+        return true;
+    }
+
+    /** Reads a name made of letters, digits and underscores. */
+    private int readIdentifier() throws IOException {
+        boolean overflow = false;
+        int c = peekChar();
+        while (c >= 0 && (Character.isLetterOrDigit(c) || c == '_')) {
+            if (tokenLength < MAX_TOKEN_LENGTH) {
+                tokenChars[tokenLength++] = (char) c;
+            } else {
+                overflow = true;
+            }
+            position++;
+            c = peekChar();
+        }
+        return overflow ? INVALID : IDENTIFIER;
+    }
+
+    /** Returns the next character without consuming it, refilling the buffer as needed, or -1 at the end. */
+    private int peekChar() throws IOException {
+        if (position >= limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+            consumed += limit;
+        }
+        return buffer[position];
+    }
+
+    /**
+     * Returns the character a few places ahead without consuming anything, moving the unread
+     * characters to the front of the buffer when it must read more, or -1 past the end.
+     */
+    private int peekAhead(int ahead) throws IOException {
+        while (position + ahead >= limit) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read <= 0) {
+                return -1;
+            }
+            limit += read;
+            consumed += read;
+        }
+        return buffer[position + ahead];
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // --- Current Token Accessors ---
+
+    /** Value of the current NUMBER token. */
+    public BigDecimal numberValue() {
+        return new BigDecimal(tokenChars, 0, tokenLength);
+    }
+
+    /** Number of digits (excluding the decimal point and any exponent) in the current NUMBER token. */
+    public int numberDigitCount() {
+        return tokenDigits;
+    }
+
+    /** Engine symbol of the current OPERATOR token ("+", "-", "×", "÷", "^" or "√"). */
+    public String operator() {
+        return operator;
+    }
+
+    /** Raw text of the current token (truncated to MAX_TOKEN_LENGTH). */
+    public String text() {
+        return new String(tokenChars, 0, tokenLength);
+    }
+
+    /** Character offset of the current token in the input, for error reporting. */
+    public long offset() {
+        return tokenOffset;
+    }
+
+    /** Character offset just past the current token; the next token is adjacent if it starts here. */
+    public long endOffset() {
+        return consumed - (limit - position);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.claculator_jav;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Samples a compiled f(x) for plotting, caching samples across pans and zooms.
+ * <p>
+ * Samples lie on a grid whose spacing is a power of two (2^level), picked so a view
+ * gets between targetPoints and 2 × targetPoints samples. The grid is cut into tiles of
+ * TILE_SIZE samples, cached by (level, tile index). Panning only evaluates the tiles
+ * that scroll into view, and zooming reuses the cached tiles until the spacing moves to
+ * another power of two. Missing tiles are evaluated together in one bulk call, which
+ * runs in parallel for large counts.
+ * Not thread-safe; use from one thread (e.g. the view's draw pass).
+ */
+public class GraphSampler {
+
+    // --- Constants ---
+    static final int TILE_SIZE = 256;
+    private static final int MAX_CACHED_TILES = 2048; // 512K samples, about 4 MB of y values
+    // A view spans under twice this many samples, so it always fits in half the cache
+    static final int MAX_TARGET_POINTS = MAX_CACHED_TILES * TILE_SIZE / 4;
+
+    /** Samples for one view: y[i] = f(x[i]), NaN or infinite where undefined. */
+    public static final class Samples {
+        public final double[] x;
+        public final double[] y;
+
+        Samples(double[] x, double[] y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /** Cache key: the grid level and the tile's position on that grid. */
+    private static final class TileKey {
+        final int level;
+        final long index;
+
+        TileKey(int level, long index) {
+            this.level = level;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TileKey)) return false;
+            TileKey other = (TileKey) o;
+            return level == other.level && index == other.index;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * level + Long.hashCode(index);
+        }
+    }
+
+    private final CompiledExpression function;
+    private long evaluatedTiles = 0;
+
+    // Access-ordered, so the least recently drawn tile is evicted first
+    private final Map<TileKey, double[]> tiles = new LinkedHashMap<TileKey, double[]>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TileKey, double[]> eldest) {
+            return size() > MAX_CACHED_TILES;
+        }
+    };
+
+    /** @param function A single-variable expression, e.g. compiled with variable "x". */
+    public GraphSampler(CompiledExpression function) {
+        if (function.getVariableCount() != 1) {
+            throw new IllegalArgumentException("Graphing needs an expression in exactly one variable");
+        }
+        this.function = function;
+    }
+
+    public CompiledExpression getFunction() { return function; }
+
+    /** Number of tiles evaluated so far (cache misses), for diagnostics. */
+    public long getEvaluatedTileCount() { return evaluatedTiles; }
+
+    /**
+     * Returns samples covering [xMin, xMax] with at least targetPoints samples
+     * (and fewer than twice that, capped at MAX_TARGET_POINTS), evaluating only tiles
+     * not already cached.
+     */
+    public Samples sample(double xMin, double xMax, int targetPoints) {
+        if (!(xMax > xMin) || targetPoints <= 0) {
+            throw new IllegalArgumentException("Invalid range [" + xMin + ", " + xMax + "] for " + targetPoints + " points");
+        }
+        targetPoints = Math.min(targetPoints, MAX_TARGET_POINTS);
+        int level = Math.getExponent((xMax - xMin) / targetPoints); // floor(log2(spacing))
+        double step = Math.scalb(1.0, level);
+        long first = (long) Math.floor(xMin / step);
+        long last = (long) Math.ceil(xMax / step);
+
+        long firstTile = Math.floorDiv(first, TILE_SIZE);
+        long lastTile = Math.floorDiv(last, TILE_SIZE);
+        fillMissingTiles(level, step, firstTile, lastTile);
+
+        int count = (int) (last - first + 1);
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (long tile = firstTile; tile <= lastTile; tile++) {
+            double[] values = tiles.get(new TileKey(level, tile));
+            long tileStart = tile * TILE_SIZE;
+            long from = Math.max(first, tileStart);
+            long to = Math.min(last, tileStart + TILE_SIZE - 1);
+            System.arraycopy(values, (int) (from - tileStart), y, (int) (from - first), (int) (to - from + 1));
+        }
+        for (int i = 0; i < count; i++) {
+            x[i] = (first + i) * step;
+        }
+        return new Samples(x, y);
+    }
+
+    /** Evaluates all uncached tiles of the range in a single bulk call. */
+    private void fillMissingTiles(int level, double step, long firstTile, long lastTile) {
+        List<TileKey> missing = new ArrayList<>();
+        for (long tile = firstTile; tile <= lastTile; tile++) {
+            TileKey key = new TileKey(level, tile);
+            if (tiles.get(key) == null) { // get() also marks cached tiles as recently used
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        int count = missing.size() * TILE_SIZE;
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int t = 0; t < missing.size(); t++) {
+            long tileStart = missing.get(t).index * TILE_SIZE;
+            for (int i = 0; i < TILE_SIZE; i++) {
+                x[t * TILE_SIZE + i] = (tileStart + i) * step; // Same x as sample() computes
+            }
+        }
+        function.evaluate(x, y, count);
+
+        for (int t = 0; t < missing.size(); t++) {
+            double[] values = new double[TILE_SIZE];
+            System.arraycopy(y, t * TILE_SIZE, values, 0, TILE_SIZE);
+            tiles.put(missing.get(t), values);
+        }
+        evaluatedTiles += missing.size();
+    }
+
+    /** Drops all cached samples. */
+    public void clearCache() {
+        tiles.clear();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.claculator_jav;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.material.color.MaterialColors;
+
+/**
+ * Plots a single-variable compiled expression, with drag to pan and pinch to zoom.
+ * Samples come from a GraphSampler, so redraws after a pan or zoom only evaluate the
+ * newly exposed parts of the x range.
+ */
+public class GraphView extends View {
+
+    private GraphSampler sampler;
+
+    // --- Viewport (world coordinates at the view's center, and pixels per unit) ---
+    private double centerX = 0;
+    private double centerY = 0;
+    private double pixelsPerUnit = 60;
+
+    private final Paint curvePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint axisPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path curvePath = new Path(); // Reused across frames
+
+    private final GestureDetector panDetector;
+    private final ScaleGestureDetector zoomDetector;
+
+    public GraphView(Context context) {
+        this(context, null);
+    }
+
+    public GraphView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+
+        curvePaint.setStyle(Paint.Style.STROKE);
+        curvePaint.setStrokeWidth(2 * density);
+        curvePaint.setColor(MaterialColors.getColor(this, androidx.appcompat.R.attr.colorPrimary));
+        axisPaint.setStrokeWidth(density);
+        axisPaint.setColor(MaterialColors.getColor(this, com.google.android.material.R.attr.colorOnSurfaceVariant));
+
+        panDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float distanceX, float distanceY) {
+                centerX += distanceX / pixelsPerUnit;
+                centerY -= distanceY / pixelsPerUnit;
+                invalidate();
+                return true;
+            }
+        });
+        zoomDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                // Zoom around the focal point, so the point under the fingers stays put
+                double focusX = toWorldX(detector.getFocusX());
+                double focusY = toWorldY(detector.getFocusY());
+                pixelsPerUnit = Math.max(1e-6, Math.min(1e9, pixelsPerUnit * detector.getScaleFactor()));
+                centerX = focusX - (detector.getFocusX() - getWidth() / 2.0) / pixelsPerUnit;
+                centerY = focusY + (detector.getFocusY() - getHeight() / 2.0) / pixelsPerUnit;
+                invalidate();
+                return true;
+            }
+        });
+    }
+
+    /** Sets the expression to plot (compiled with the single variable "x"). */
+    public void setFunction(CompiledExpression function) {
+        sampler = new GraphSampler(function);
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = resolveSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        int height = resolveSize(width * 3 / 4, heightMeasureSpec); // 4:3 unless constrained
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = zoomDetector.onTouchEvent(event);
+        handled |= panDetector.onTouchEvent(event);
+        return handled || super.onTouchEvent(event);
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        int width = getWidth();
+        int height = getHeight();
+        if (width == 0 || height == 0) return;
+
+        // Axes
+        float axisX = toScreenX(0);
+        float axisY = toScreenY(0);
+        canvas.drawLine(0, axisY, width, axisY, axisPaint);
+        canvas.drawLine(axisX, 0, axisX, height, axisPaint);
+
+        if (sampler == null) return;
+
+        // About one sample per pixel; cached tiles are reused between frames
+        GraphSampler.Samples samples = sampler.sample(toWorldX(0), toWorldX(width), width);
+        curvePath.rewind();
+        boolean penDown = false;
+        for (int i = 0; i < samples.x.length; i++) {
+            double y = samples.y[i];
+            if (Double.isNaN(y) || Double.isInfinite(y)) {
+                penDown = false; // Gap, e.g. division by zero
+                continue;
+            }
+            float screenX = toScreenX(samples.x[i]);
+            // Clamp far off-screen points so Path coordinates stay in float range
+            float screenY = (float) Math.max(-height, Math.min(2.0 * height, toScreenYDouble(y)));
+            if (penDown) {
+                curvePath.lineTo(screenX, screenY);
+            } else {
+                curvePath.moveTo(screenX, screenY);
+                penDown = true;
+            }
+        }
+        canvas.drawPath(curvePath, curvePaint);
+    }
+
+    // --- Coordinate Conversion ---
+
+    private double toWorldX(float screenX) {
+        return centerX + (screenX - getWidth() / 2.0) / pixelsPerUnit;
+    }
+
+    private double toWorldY(float screenY) {
+        return centerY - (screenY - getHeight() / 2.0) / pixelsPerUnit;
+    }
+
+    private float toScreenX(double worldX) {
+        return (float) (getWidth() / 2.0 + (worldX - centerX) * pixelsPerUnit);
+    }
+
+    private float toScreenY(double worldY) {
+        return (float) toScreenYDouble(worldY);
+    }
+
+    private double toScreenYDouble(double worldY) {
+        return getHeight() / 2.0 - (worldY - centerY) * pixelsPerUnit;
+    }
+}
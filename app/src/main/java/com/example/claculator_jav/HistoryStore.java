@@ -0,0 +1,496 @@
+package com.example.claculator_jav;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The calculation history: an append-only list of (expression, result) entries, read as
+ * "expression = result" strings, with streaming export to and import from CSV or JSON lines.
+ * <p>
+ * Entries live in fixed-size chunks, so appending never copies earlier entries. Only one
+ * thread (the main thread) may append or clear, but any thread may read concurrently: a
+ * reader sees every entry appended before it read size(), and clear() starts a new
+ * generation, so an export that is already running keeps streaming the old entries.
+ * <p>
+ * Export encodes entries straight from the chunks into a reusable byte buffer that is
+ * written to the channel whenever it fills, so the history is never copied or materialized
+ * as one string. Import decodes the channel through the same kind of buffer, parses entries
+ * line by line, re-validates each by evaluating its expression with a CalculatorEngine, and
+ * hands accepted entries over in batches.
+ */
+public final class HistoryStore extends AbstractList<String> {
+
+    public enum Format { CSV, JSON_LINES }
+
+    // --- Constants ---
+    private static final int CHUNK_SIZE = 1024;       // Entries per chunk
+    static final int BUFFER_SIZE = 64 * 1024;         // Bytes per channel read or write
+    static final int IMPORT_BATCH_SIZE = 1000;        // Accepted entries per batch handed over
+    private static final int PROGRESS_INTERVAL = 1000; // Entries between progress reports
+    private static final String CSV_HEADER = "expression,result";
+    private static final String SEPARATOR = " = ";    // Between expression and result in get()
+
+    /** Receives import and export progress, on the thread doing the transfer. */
+    public interface ProgressListener {
+        /** @param entries Entries written (export) or read (import) so far. @param bytes Bytes so far. */
+        void onProgress(long entries, long bytes);
+    }
+
+    /** Receives accepted entries during an import, in file order. */
+    public interface BatchConsumer {
+        void accept(String[] expressions, String[] results, int count);
+    }
+
+    /** Outcome of an import. */
+    public static final class ImportResult {
+        public final long accepted;
+        public final long rejected;  // Malformed lines, and entries whose result did not re-validate
+
+        ImportResult(long accepted, long rejected) {
+            this.accepted = accepted;
+            this.rejected = rejected;
+        }
+    }
+
+    /** One generation of entries; replaced by clear(). Its directory and size only grow. */
+    private static final class Generation {
+        volatile String[][] directory = new String[16][]; // Chunks of interleaved expression, result pairs
+        volatile int size = 0;
+    }
+
+    private volatile Generation generation = new Generation();
+
+    // --- Access (any thread) ---
+
+    @Override
+    public int size() {
+        return generation.size;
+    }
+
+    /** The entry as "expression = result". */
+    @Override
+    public String get(int index) {
+        Generation current = generation;
+        if (index < 0 || index >= current.size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + current.size);
+        }
+        String[] chunk = current.directory[index / CHUNK_SIZE];
+        int offset = 2 * (index % CHUNK_SIZE);
+        return chunk[offset] + SEPARATOR + chunk[offset + 1];
+    }
+
+    // --- Changes (main thread only) ---
+
+    /** Appends an entry. */
+    public void add(String expression, String result) {
+        Generation current = generation;
+        int index = current.size;
+        String[][] directory = current.directory;
+        int chunkIndex = index / CHUNK_SIZE;
+        if (chunkIndex == directory.length) {
+            directory = Arrays.copyOf(directory, directory.length * 2); // Copies chunk references only
+            current.directory = directory;
+        }
+        if (directory[chunkIndex] == null) {
+            directory[chunkIndex] = new String[2 * CHUNK_SIZE];
+        }
+        int offset = 2 * (index % CHUNK_SIZE);
+        directory[chunkIndex][offset] = expression;
+        directory[chunkIndex][offset + 1] = result;
+        current.size = index + 1; // Publishes the entry to readers
+    }
+
+    /** Appends the first count entries of the arrays. */
+    public void addAll(String[] expressions, String[] results, int count) {
+        for (int i = 0; i < count; i++) {
+            add(expressions[i], results[i]);
+        }
+    }
+
+    @Override
+    public void clear() {
+        generation = new Generation();
+    }
+
+    // --- Export ---
+
+    /**
+     * Writes every entry present when the export starts to the channel as UTF-8 CSV (with a
+     * header row) or JSON lines ({"expression":"…","result":"…"}). Safe to run off the main
+     * thread while entries are being appended. The channel is not closed.
+     * @return The number of entries written.
+     */
+    public long export(WritableByteChannel channel, Format format, ProgressListener progress) throws IOException {
+        Generation snapshot = generation;
+        int count = snapshot.size;
+        String[][] directory = snapshot.directory; // Read after size: holds every chunk below it
+
+        LineWriter writer = new LineWriter(channel);
+        StringBuilder line = new StringBuilder(128);
+        if (format == Format.CSV) {
+            line.append(CSV_HEADER).append('\n');
+            writer.write(line);
+        }
+        for (int index = 0; index < count; index++) {
+            String[] chunk = directory[index / CHUNK_SIZE];
+            int offset = 2 * (index % CHUNK_SIZE);
+            line.setLength(0);
+            if (format == Format.CSV) {
+                appendCsvField(line, chunk[offset]).append(',');
+                appendCsvField(line, chunk[offset + 1]).append('\n');
+            } else {
+                line.append("{\"expression\":");
+                appendJsonString(line, chunk[offset]).append(",\"result\":");
+                appendJsonString(line, chunk[offset + 1]).append("}\n");
+            }
+            writer.write(line);
+            if (progress != null && (index + 1) % PROGRESS_INTERVAL == 0) {
+                progress.onProgress(index + 1, writer.bytes());
+            }
+        }
+        writer.finish();
+        if (progress != null) {
+            progress.onProgress(count, writer.bytes());
+        }
+        return count;
+    }
+
+    /**
+     * Encodes lines as UTF-8 into one reusable byte buffer and writes it to the channel
+     * whenever it fills. Lines are copied into a reusable char buffer, so writing a line
+     * allocates nothing once the buffers are large enough.
+     */
+    private static final class LineWriter {
+        private final WritableByteChannel channel;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        private CharBuffer chars = CharBuffer.allocate(256);
+        private long flushed = 0;
+
+        LineWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void write(StringBuilder line) throws IOException {
+            int length = line.length();
+            if (length > chars.capacity()) {
+                chars = CharBuffer.allocate(Math.max(length, 2 * chars.capacity()));
+            }
+            chars.clear();
+            line.getChars(0, length, chars.array(), 0);
+            chars.limit(length);
+            while (encoder.encode(chars, bytes, false).isOverflow()) {
+                flush();
+            }
+        }
+
+        void finish() throws IOException {
+            chars.clear().limit(0);
+            while (encoder.encode(chars, bytes, true).isOverflow()) {
+                flush();
+            }
+            flush();
+        }
+
+        /** Bytes encoded so far, written or still buffered. */
+        long bytes() {
+            return flushed + bytes.position();
+        }
+
+        private void flush() throws IOException {
+            bytes.flip();
+            flushed += bytes.remaining();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            bytes.clear();
+        }
+    }
+
+    private static StringBuilder appendCsvField(StringBuilder out, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return out.append(value);
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.append('"');
+            out.append(c);
+        }
+        return out.append('"');
+    }
+
+    private static StringBuilder appendJsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.append('"');
+    }
+
+    // --- Import ---
+
+    /**
+     * Reads entries exported as CSV or JSON lines (detected from the first line) from the
+     * channel. Each entry's expression is evaluated with a fresh engine state and accepted
+     * only if it yields the stored result; accepted entries go to the consumer in batches of
+     * IMPORT_BATCH_SIZE. Runs on the calling thread, which should not be the main thread.
+     * The channel is not closed.
+     */
+    public static ImportResult importFrom(ReadableByteChannel channel, BatchConsumer consumer,
+                                          ProgressListener progress) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        StringBuilder line = new StringBuilder(128);
+        Importer importer = new Importer(consumer);
+        long bytesRead = 0;
+        boolean endOfInput = false;
+
+        while (!endOfInput) {
+            int read = channel.read(bytes);
+            if (read < 0) {
+                endOfInput = true;
+            } else {
+                bytesRead += read;
+            }
+            bytes.flip();
+            decoder.decode(bytes, chars, endOfInput);
+            if (endOfInput) {
+                decoder.flush(chars);
+            }
+            bytes.compact();
+            chars.flip();
+            while (chars.hasRemaining()) {
+                char c = chars.get();
+                if (c == '\n') {
+                    importer.line(line);
+                    line.setLength(0);
+                } else if (c != '\r') {
+                    line.append(c);
+                }
+            }
+            chars.clear();
+            if (progress != null && importer.entries >= importer.nextProgress) {
+                importer.nextProgress = importer.entries + PROGRESS_INTERVAL;
+                progress.onProgress(importer.entries, bytesRead);
+            }
+        }
+        if (line.length() > 0) {
+            importer.line(line);
+        }
+        importer.flushBatch();
+        if (progress != null) {
+            progress.onProgress(importer.entries, bytesRead);
+        }
+        return new ImportResult(importer.accepted, importer.rejected);
+    }
+
+    /** Parses lines into entries, validates them and collects batches. */
+    private static final class Importer {
+        private final BatchConsumer consumer;
+        private final CalculatorEngine engine = new CalculatorEngine();
+        private final List<String> fields = new ArrayList<>(2);
+        private String[] expressions = new String[IMPORT_BATCH_SIZE];
+        private String[] results = new String[IMPORT_BATCH_SIZE];
+        private int batchCount = 0;
+        private Format format; // Detected from the first non-blank line
+        long entries = 0;
+        long accepted = 0;
+        long rejected = 0;
+        long nextProgress = PROGRESS_INTERVAL;
+
+        Importer(BatchConsumer consumer) {
+            this.consumer = consumer;
+            engine.setQuiet(true); // No per-step logging for every imported entry
+        }
+
+        void line(CharSequence text) {
+            String trimmed = text.toString().trim();
+            if (trimmed.isEmpty()) {
+                return;
+            }
+            if (format == null) {
+                format = trimmed.startsWith("{") ? Format.JSON_LINES : Format.CSV;
+                if (format == Format.CSV && trimmed.equals(CSV_HEADER)) {
+                    return;
+                }
+            }
+            entries++;
+            fields.clear();
+            boolean parsed = format == Format.CSV ? parseCsv(trimmed, fields) : parseJson(trimmed, fields);
+            if (!parsed || fields.size() != 2 || !validates(fields.get(0), fields.get(1))) {
+                rejected++;
+                return;
+            }
+            expressions[batchCount] = fields.get(0);
+            results[batchCount] = fields.get(1);
+            batchCount++;
+            accepted++;
+            if (batchCount == IMPORT_BATCH_SIZE) {
+                flushBatch();
+            }
+        }
+
+        /** Hands the batch over; the consumer gets fresh arrays, so it may keep them. */
+        void flushBatch() {
+            if (batchCount == 0) {
+                return;
+            }
+            consumer.accept(expressions, results, batchCount);
+            expressions = new String[IMPORT_BATCH_SIZE];
+            results = new String[IMPORT_BATCH_SIZE];
+            batchCount = 0;
+        }
+
+        /** Evaluates the expression as if typed after AC, and compares with the stored result. */
+        private boolean validates(String expression, String result) {
+            engine.clear();
+            try {
+                if (!engine.importExpression(new StringReader(expression))) {
+                    return false;
+                }
+            } catch (IOException e) {
+                return false; // StringReader does not throw
+            }
+            engine.calculateResult();
+            return !engine.isInErrorState() && engine.getDisplayValue().equals(result);
+        }
+    }
+
+    /** Splits an RFC 4180 CSV line into fields. @return false if a quoted field is not closed. */
+    static boolean parseCsv(String line, List<String> fields) {
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            field.setLength(0);
+            if (i < line.length() && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= line.length()) return false;
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < line.length() && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+            } else {
+                while (i < line.length() && line.charAt(i) != ',') {
+                    field.append(line.charAt(i++));
+                }
+            }
+            fields.add(field.toString());
+            if (i >= line.length()) return true;
+            if (line.charAt(i) != ',') return false; // Text after a closing quote
+            i++;
+        }
+    }
+
+    /**
+     * Reads the "expression" and "result" string members of a one-line JSON object, in that
+     * order in fields. Other members are ignored. @return false if the line is not such an object.
+     */
+    static boolean parseJson(String line, List<String> fields) {
+        String expression = null;
+        String result = null;
+        int[] position = { 1 };
+        if (!line.startsWith("{") || !line.endsWith("}")) return false;
+        while (true) {
+            skipSpace(line, position);
+            if (position[0] >= line.length() - 1) break;
+            String name = readJsonString(line, position);
+            skipSpace(line, position);
+            if (name == null || position[0] >= line.length() || line.charAt(position[0]++) != ':') return false;
+            skipSpace(line, position);
+            String value = readJsonString(line, position);
+            if (value == null) return false; // Only string members are expected
+            if (name.equals("expression")) expression = value;
+            else if (name.equals("result")) result = value;
+            skipSpace(line, position);
+            if (position[0] < line.length() - 1 && line.charAt(position[0]++) != ',') return false;
+        }
+        if (expression == null || result == null) return false;
+        fields.add(expression);
+        fields.add(result);
+        return true;
+    }
+
+    private static void skipSpace(String line, int[] position) {
+        while (position[0] < line.length() && Character.isWhitespace(line.charAt(position[0]))) {
+            position[0]++;
+        }
+    }
+
+    /** Reads a JSON string starting at position, or returns null if there is none. */
+    private static String readJsonString(String line, int[] position) {
+        int i = position[0];
+        if (i >= line.length() || line.charAt(i) != '"') return null;
+        StringBuilder value = new StringBuilder();
+        i++;
+        while (i < line.length()) {
+            char c = line.charAt(i++);
+            if (c == '"') {
+                position[0] = i;
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (i >= line.length()) return null;
+            char escape = line.charAt(i++);
+            switch (escape) {
+                case 'n': value.append('\n'); break;
+                case 't': value.append('\t'); break;
+                case 'r': value.append('\r'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    if (i + 4 > line.length()) return null;
+                    try {
+                        value.append((char) Integer.parseInt(line.substring(i, i + 4), 16));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    i += 4;
+                    break;
+                default: value.append(escape); break; // \" \\ \/
+            }
+        }
+        return null;
+    }
+}
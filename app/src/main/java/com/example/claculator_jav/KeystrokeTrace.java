@@ -0,0 +1,234 @@
+package com.example.claculator_jav;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A recorded sequence of keypad presses with their timestamps, for replaying realistic input
+ * in load tests. While recording is on, CalculatorViewModel.processKey records each press
+ * that MainActivity's click handlers send; the trace also keeps the display value shown
+ * when recording stopped, so a replay can check that it ends in the same state.
+ * <p>
+ * Traces are stored compactly: a header, then one byte per key preceded by the time since
+ * the previous key in microseconds as a variable-length integer (usually 2–3 bytes), and the
+ * final display at the end. Recording appends to primitive arrays, so it adds no allocation
+ * per keystroke beyond occasional growth. Not thread-safe: record from the main thread.
+ */
+public final class KeystrokeTrace {
+
+    // --- Keys (the trace's byte codes; digits are their own value) ---
+    public static final int KEY_0 = 0;
+    public static final int KEY_1 = 1;
+    public static final int KEY_2 = 2;
+    public static final int KEY_3 = 3;
+    public static final int KEY_4 = 4;
+    public static final int KEY_5 = 5;
+    public static final int KEY_6 = 6;
+    public static final int KEY_7 = 7;
+    public static final int KEY_8 = 8;
+    public static final int KEY_9 = 9;
+    public static final int KEY_DECIMAL = 10;
+    public static final int KEY_ADD = 11;
+    public static final int KEY_SUBTRACT = 12;
+    public static final int KEY_MULTIPLY = 13;
+    public static final int KEY_DIVIDE = 14;
+    public static final int KEY_POWER = 15;
+    public static final int KEY_ROOT = 16;
+    public static final int KEY_EQUALS = 17;
+    public static final int KEY_CLEAR = 18;
+    public static final int KEY_BACKSPACE = 19;
+    public static final int KEY_PERCENT = 20;
+    public static final int KEY_FACTORIAL = 21;
+    public static final int KEY_PARENTHESIS = 22;
+    private static final int KEY_COUNT = 23;
+
+    /** Characters for each key in synthetic scripts and toString(): 'C' is clear, '<' backspace, '(' the parenthesis key. */
+    static final String KEY_CHARACTERS = "0123456789.+-×÷^√=C<%!(";
+
+    // --- Constants ---
+    private static final int MAGIC = 0x4B545231; // "KTR1"
+    private static final int INITIAL_CAPACITY = 256;
+    private static final String[] DIGITS = { "0", "1", "2", "3", "4", "5", "6", "7", "8", "9" };
+
+    // --- Events ---
+    private byte[] keys = new byte[INITIAL_CAPACITY];
+    private long[] timesNanos = new long[INITIAL_CAPACITY]; // Since the first key
+    private int size = 0;
+    private long startNanos;
+    private String finalDisplay = ""; // Display when recording stopped, "" if unknown
+
+    // --- Recording ---
+
+    /** Appends a key pressed now. */
+    public void record(int key) {
+        long now = System.nanoTime();
+        if (size == 0) {
+            startNanos = now;
+        }
+        add(key, now - startNanos);
+    }
+
+    private void add(int key, long timeNanos) {
+        if (key < 0 || key >= KEY_COUNT) {
+            throw new IllegalArgumentException("Unknown key " + key);
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            timesNanos = Arrays.copyOf(timesNanos, size * 2);
+        }
+        keys[size] = (byte) key;
+        timesNanos[size] = timeNanos;
+        size++;
+    }
+
+    /** Stores the display value the recorded run ended with. */
+    public void setFinalDisplay(String display) {
+        finalDisplay = display != null ? display : "";
+    }
+
+    /**
+     * Builds a trace from a script of key characters (see KEY_CHARACTERS) pressed at a fixed
+     * interval, e.g. "12+3=" every 150 ms. Whitespace is ignored.
+     */
+    public static KeystrokeTrace synthetic(String script, long intervalMillis) {
+        KeystrokeTrace trace = new KeystrokeTrace();
+        long time = 0;
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            int key = KEY_CHARACTERS.indexOf(c);
+            if (key < 0) {
+                throw new IllegalArgumentException("No key for '" + c + "'");
+            }
+            trace.add(key, time);
+            time += intervalMillis * 1_000_000L;
+        }
+        return trace;
+    }
+
+    // --- Access ---
+
+    public int size() {
+        return size;
+    }
+
+    public int getKey(int index) {
+        return keys[index];
+    }
+
+    /** Time of a key press, in nanoseconds since the first one. */
+    public long getTimeNanos(int index) {
+        return timesNanos[index];
+    }
+
+    public String getFinalDisplay() {
+        return finalDisplay;
+    }
+
+    /** Sends a key to the ViewModel, exactly as the keypad button does. */
+    public static void dispatch(CalculatorViewModel viewModel, int key) {
+        switch (key) {
+            case KEY_DECIMAL: viewModel.processDecimal(); break;
+            case KEY_ADD: viewModel.processOperator("+"); break;
+            case KEY_SUBTRACT: viewModel.processOperator("-"); break;
+            case KEY_MULTIPLY: viewModel.processOperator("×"); break;
+            case KEY_DIVIDE: viewModel.processOperator("÷"); break;
+            case KEY_POWER: viewModel.processOperator("^"); break;
+            case KEY_ROOT: viewModel.processOperator("√"); break;
+            case KEY_EQUALS: viewModel.processEquals(); break;
+            case KEY_CLEAR: viewModel.processClear(); break;
+            case KEY_BACKSPACE: viewModel.processBackspace(); break;
+            case KEY_PERCENT: viewModel.processPercentage(); break;
+            case KEY_FACTORIAL: viewModel.processFactorial(); break;
+            case KEY_PARENTHESIS: viewModel.processParenthesis("("); break;
+            default:
+                if (key >= KEY_0 && key <= KEY_9) {
+                    viewModel.processDigit(DIGITS[key]);
+                } else {
+                    throw new IllegalArgumentException("Unknown key " + key);
+                }
+        }
+    }
+
+    // --- Storage ---
+
+    /** Writes the trace in its compact binary form. The stream is not closed. */
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(size);
+        long previousMicros = 0;
+        for (int i = 0; i < size; i++) {
+            long micros = timesNanos[i] / 1000;
+            writeVarLong(out, micros - previousMicros);
+            out.writeByte(keys[i]);
+            previousMicros = micros;
+        }
+        out.writeUTF(finalDisplay);
+        out.flush();
+    }
+
+    /**
+     * Reads a trace written by write().
+     * @throws IOException If the data is not a trace, is truncated, or contains an unknown key.
+     */
+    public static KeystrokeTrace read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a keystroke trace");
+        }
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid key count " + count);
+        }
+        KeystrokeTrace trace = new KeystrokeTrace();
+        long micros = 0;
+        for (int i = 0; i < count; i++) {
+            micros += readVarLong(in);
+            int key = in.readUnsignedByte();
+            if (key >= KEY_COUNT) {
+                throw new IOException("Unknown key " + key + " at event " + i);
+            }
+            trace.add(key, micros * 1000);
+        }
+        trace.finalDisplay = in.readUTF();
+        return trace;
+    }
+
+    /** Unsigned LEB128: 7 bits per byte, high bit set on all but the last byte. */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed time delta");
+    }
+
+    /** The keys as a script, e.g. "12+3=". */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            builder.append(KEY_CHARACTERS.charAt(keys[i]));
+        }
+        return builder.toString();
+    }
+}
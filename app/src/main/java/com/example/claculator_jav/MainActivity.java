@@ -1,29 +1,63 @@
 package com.example.claculator_jav;
 
+import android.content.ClipData;
+import android.content.ClipboardManager;
 import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.os.Process;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.InputType;
+import android.text.TextWatcher;
+import android.util.TypedValue;
 import android.view.HapticFeedbackConstants;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.view.Window;
+import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.ListView;
+import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.content.ContextCompat;
+import androidx.core.view.WindowCompat;
+import androidx.core.view.WindowInsetsControllerCompat;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.example.claculator_jav.databinding.ActivityMainBinding;
+import com.google.android.material.button.MaterialButton;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.math.BigDecimal;
@@ -33,6 +67,27 @@ public class MainActivity extends AppCompatActivity {
     private ActivityMainBinding binding;
     private CalculatorViewModel viewModel;
     private DecimalFormat displayFormatter;
+    private DisplayRenderer displayRenderer;
+
+    // --- Buttons grouped by style, for re-coloring on in-place theme switches ---
+    private MaterialButton[] numberButtons;
+    private MaterialButton[] operatorButtons;
+    private MaterialButton[] functionButtons;
+    private final TypedValue typedValue = new TypedValue(); // Reused for attribute lookups
+    private long themeSwitchStartNanos = 0;
+    // Dialogs shown so far and how to rebuild each one; a shown dialog keeps the palette it was inflated with
+    private final Map<AlertDialog, Runnable> themedDialogs = new LinkedHashMap<>();
+    private String lastGraphExpression = "";
+    private String lastMatrixLeft = "";
+    private String lastMatrixRight = "";
+
+    // --- Storage Access Framework pickers for history export and import ---
+    private final ActivityResultLauncher<String> exportCsvLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("text/csv"), uri -> exportHistoryTo(uri, HistoryStore.Format.CSV));
+    private final ActivityResultLauncher<String> exportJsonLinesLauncher = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("application/x-ndjson"), uri -> exportHistoryTo(uri, HistoryStore.Format.JSON_LINES));
+    private final ActivityResultLauncher<String[]> importLauncher = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), this::importHistoryFrom);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -40,6 +95,12 @@ public class MainActivity extends AppCompatActivity {
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
+        // --- Platform splash screen: drop it as soon as the first frame is ready ---
+        getSplashScreen().setOnExitAnimationListener(splashView -> splashView.remove());
+        if (savedInstanceState == null) {
+            reportStartupTimeOnFirstFrame();
+        }
+
         // --- SET UP THE TOOLBAR ---
         Toolbar toolbar = binding.toolbar;
         setSupportActionBar(toolbar);
@@ -54,50 +115,128 @@ public class MainActivity extends AppCompatActivity {
 
         viewModel = new ViewModelProvider(this).get(CalculatorViewModel.class);
 
+        // --- Frame-aligned rendering (text is measured off the main thread) ---
+        displayRenderer = new DisplayRenderer();
+
         // --- Observe LiveData ---
         viewModel.displayValue.observe(this, display -> {
-            binding.display.setText(display);
+            displayRenderer.submit(binding.display, display);
         });
         viewModel.secondaryDisplayValue.observe(this, expression -> {
-            binding.expressionDisplay.setText(expression);
+            displayRenderer.submit(binding.expressionDisplay, expression);
+        });
+        viewModel.resultPreview.observe(this, preview -> {
+            displayRenderer.submit(binding.resultPreview, preview);
         });
         viewModel.history.observe(this, historyList -> {
             System.out.println("MainActivity: History updated, size = " + (historyList != null ? historyList.size() : 0));
         });
+        viewModel.historyProgress.observe(this, progress -> {
+            // Shown under the title, so the calculator stays usable during long transfers
+            if (getSupportActionBar() != null) {
+                getSupportActionBar().setSubtitle(progress == null || progress.isEmpty() ? null : progress);
+            }
+        });
+        viewModel.statusMessage.observe(this, message -> {
+            if (message != null && !message.isEmpty()) {
+                Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+                viewModel.clearStatusMessage(); // Don't show it again after a configuration change
+            }
+        });
+        viewModel.matrixResult.observe(this, result -> {
+            if (result != null && !result.isEmpty()) {
+                showMatrixResult(result);
+                viewModel.clearMatrixResult();
+            }
+        });
+
+        // --- Unit table for the converter (parsed and precomputed off the main thread) ---
+        if (viewModel.needsUnitTable()) {
+            viewModel.loadUnitTable(new InputStreamReader(getResources().openRawResource(R.raw.units), StandardCharsets.UTF_8));
+        }
 
         // --- Set Click Listeners ---
         // Digits
-        binding.button0.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processDigit("0"); });
-        binding.button1.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processDigit("1"); });
-        binding.button2.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processDigit("2"); });
-        binding.button3.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processDigit("3"); });
-        binding.button4.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processDigit("4"); });
-        binding.button5.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processDigit("5"); });
-        binding.button6.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processDigit("6"); });
-        binding.button7.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processDigit("7"); });
-        binding.button8.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processDigit("8"); });
-        binding.button9.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processDigit("9"); });
+        binding.button0.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_0); });
+        binding.button1.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_1); });
+        binding.button2.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_2); });
+        binding.button3.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_3); });
+        binding.button4.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_4); });
+        binding.button5.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_5); });
+        binding.button6.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_6); });
+        binding.button7.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_7); });
+        binding.button8.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_8); });
+        binding.button9.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_9); });
 
         // Operators
-        binding.buttonAdd.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processOperator("+"); });
-        binding.buttonSubtract.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processOperator("-"); });
-        binding.buttonMultiply.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processOperator("×"); });
-        binding.buttonDivide.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processOperator("÷"); });
+        binding.buttonAdd.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_ADD); });
+        binding.buttonSubtract.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_SUBTRACT); });
+        binding.buttonMultiply.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_MULTIPLY); });
+        binding.buttonDivide.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_DIVIDE); });
 
         // Actions
-        binding.buttonEquals.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processEquals(); });
-        binding.buttonAc.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.LONG_PRESS); viewModel.processClear(); });
-        binding.buttonDecimal.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processDecimal(); });
-        binding.buttonBackspace.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processBackspace(); });
-        binding.buttonPercent.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processPercentage(); });
+        binding.buttonEquals.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_EQUALS); });
+        binding.buttonAc.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.LONG_PRESS); viewModel.processKey(KeystrokeTrace.KEY_CLEAR); });
+        binding.buttonDecimal.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_DECIMAL); });
+        binding.buttonBackspace.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_BACKSPACE); });
+        binding.buttonPercent.setOnClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP); viewModel.processKey(KeystrokeTrace.KEY_PERCENT); });
+
+        // Long presses for the scientific operators (the keypad grid is full): × → ^, ÷ → √, % → !
+        binding.buttonMultiply.setOnLongClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.LONG_PRESS); viewModel.processKey(KeystrokeTrace.KEY_POWER); return true; });
+        binding.buttonDivide.setOnLongClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.LONG_PRESS); viewModel.processKey(KeystrokeTrace.KEY_ROOT); return true; });
+        binding.buttonPercent.setOnLongClickListener(v -> { v.performHapticFeedback(HapticFeedbackConstants.LONG_PRESS); viewModel.processKey(KeystrokeTrace.KEY_FACTORIAL); return true; });
         binding.buttonParentheses.setOnClickListener(view -> {
             view.performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP);
-            viewModel.processParenthesis("(");
+            viewModel.processKey(KeystrokeTrace.KEY_PARENTHESIS);
         });
 
         // --- REMOVE Listener for History from expressionDisplay ---
         binding.expressionDisplay.setOnClickListener(null);
 
+        // --- Group buttons by style (matches the styles used in activity_main.xml) ---
+        numberButtons = new MaterialButton[] {
+                binding.button0, binding.button1, binding.button2, binding.button3, binding.button4,
+                binding.button5, binding.button6, binding.button7, binding.button8, binding.button9,
+                binding.buttonDecimal, binding.buttonBackspace };
+        operatorButtons = new MaterialButton[] {
+                binding.buttonAdd, binding.buttonSubtract, binding.buttonMultiply, binding.buttonDivide };
+        functionButtons = new MaterialButton[] {
+                binding.buttonAc, binding.buttonParentheses, binding.buttonPercent };
+    }
+
+    /**
+     * Called instead of recreate() for day/night switches, since MainActivity declares
+     * configChanges="uiMode" in the manifest. Re-colors the existing views in place.
+     */
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        applyThemeColors();
+    }
+
+    /**
+     * Logs the time from process start to the first frame and reports the activity as
+     * fully drawn, so startup regressions show up in logcat ("Fully drawn" / below).
+     */
+    private void reportStartupTimeOnFirstFrame() {
+        binding.getRoot().getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                binding.getRoot().getViewTreeObserver().removeOnPreDrawListener(this);
+                long startupMillis = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+                System.out.println("MainActivity: Startup to first frame took " + startupMillis + " ms");
+                reportFullyDrawn();
+                return true;
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (displayRenderer != null) {
+            displayRenderer.release();
+        }
     }
 
     // --- Inflate Options Menu ---
@@ -105,6 +244,9 @@ public class MainActivity extends AppCompatActivity {
     public boolean onCreateOptionsMenu(Menu menu) {
         MenuInflater inflater = getMenuInflater();
         inflater.inflate(R.menu.main_menu, menu);
+        if (viewModel.isRecordingTrace()) {
+            menu.findItem(R.id.action_record_trace).setTitle(R.string.menu_stop_recording);
+        }
         return true;
     }
 
@@ -116,13 +258,61 @@ public class MainActivity extends AppCompatActivity {
         if (itemId == R.id.action_history) {
             showHistoryDialog();
             return true;
+        } else if (itemId == R.id.action_export_history) {
+            showExportHistoryDialog();
+            return true;
+        } else if (itemId == R.id.action_import_history) {
+            importLauncher.launch(new String[] { "text/*", "application/json", "application/x-ndjson", "application/octet-stream" });
+            return true;
         } else if (itemId == R.id.action_change_theme) {
             toggleTheme();
             return true;
+        } else if (itemId == R.id.action_paste) {
+            pasteFromClipboard();
+            return true;
+        } else if (itemId == R.id.action_statistics) {
+            showStatisticsDialog();
+            return true;
+        } else if (itemId == R.id.action_graph) {
+            showGraphInputDialog();
+            return true;
+        } else if (itemId == R.id.action_solve) {
+            showSolveDialog();
+            return true;
+        } else if (itemId == R.id.action_matrix) {
+            showMatrixDialog();
+            return true;
+        } else if (itemId == R.id.action_tape) {
+            showTapeDialog();
+            return true;
+        } else if (itemId == R.id.action_series) {
+            showSeriesDialog();
+            return true;
+        } else if (itemId == R.id.action_convert) {
+            showConvertDialog();
+            return true;
+        } else if (itemId == R.id.action_programmer) {
+            showProgrammerDialog();
+            return true;
+        } else if (itemId == R.id.action_record_trace) {
+            toggleTraceRecording(item);
+            return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
+    // --- Method to Paste an Expression from the Clipboard ---
+    private void pasteFromClipboard() {
+        ClipboardManager clipboard = (ClipboardManager) getSystemService(Context.CLIPBOARD_SERVICE);
+        ClipData clip = clipboard != null ? clipboard.getPrimaryClip() : null;
+        if (clip == null || clip.getItemCount() == 0) {
+            Toast.makeText(this, "Clipboard is empty", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        CharSequence text = clip.getItemAt(0).coerceToText(this);
+        viewModel.processPaste(text);
+    }
+
     // --- Method to Show History Dialog (Keep this as is) ---
     private void showHistoryDialog() {
         List<String> historyList = viewModel.history.getValue();
@@ -132,13 +322,20 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        final CharSequence[] items = historyList.toArray(new CharSequence[0]);
+        // The adapter reads entries from the history itself instead of copying it; the count
+        // is fixed so entries imported while the dialog is open don't change the list under it
+        final int count = historyList.size();
 
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Calculation History");
 
         // Create a custom ArrayAdapter to set text color
-        ArrayAdapter<CharSequence> adapter = new ArrayAdapter<CharSequence>(this, android.R.layout.select_dialog_item, items) {
+        ArrayAdapter<String> adapter = new ArrayAdapter<String>(this, android.R.layout.select_dialog_item, historyList) {
+            @Override
+            public int getCount() {
+                return count;
+            }
+
             @Override
             public View getView(int position, View convertView, ViewGroup parent) {
                 View view = super.getView(position, convertView, parent);
@@ -159,24 +356,583 @@ public class MainActivity extends AppCompatActivity {
         });
         builder.setPositiveButton("Close", (dialog, which) -> dialog.dismiss());
 
-        AlertDialog dialog = builder.create();
-        dialog.show();
+        showThemed(builder.create(), this::showHistoryDialog);
+    }
+
+    // --- Methods for History Export and Import ---
+
+    /** Asks for the export format, then lets the user pick the file to write. */
+    private void showExportHistoryDialog() {
+        List<String> historyList = viewModel.history.getValue();
+        if (historyList == null || historyList.isEmpty()) {
+            Toast.makeText(this, "History is empty", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        showThemed(new AlertDialog.Builder(this)
+                .setTitle("Export History")
+                .setItems(new CharSequence[] { "CSV", "JSON Lines" }, (dialog, which) -> {
+                    if (which == 0) {
+                        exportCsvLauncher.launch("history.csv");
+                    } else {
+                        exportJsonLinesLauncher.launch("history.jsonl");
+                    }
+                })
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
+                .create(), this::showExportHistoryDialog);
+    }
+
+    private void exportHistoryTo(Uri uri, HistoryStore.Format format) {
+        if (uri == null) {
+            return; // Picker cancelled
+        }
+        try {
+            ParcelFileDescriptor descriptor = getContentResolver().openFileDescriptor(uri, "wt");
+            if (descriptor == null) {
+                throw new FileNotFoundException(uri.toString());
+            }
+            // Closing the channel closes the stream, which closes the descriptor
+            viewModel.exportHistory(new ParcelFileDescriptor.AutoCloseOutputStream(descriptor).getChannel(), format);
+        } catch (FileNotFoundException e) {
+            Toast.makeText(this, "Cannot write " + uri.getLastPathSegment(), Toast.LENGTH_LONG).show();
+        }
+    }
+
+    private void importHistoryFrom(Uri uri) {
+        if (uri == null) {
+            return; // Picker cancelled
+        }
+        try {
+            ParcelFileDescriptor descriptor = getContentResolver().openFileDescriptor(uri, "r");
+            if (descriptor == null) {
+                throw new FileNotFoundException(uri.toString());
+            }
+            long size = descriptor.getStatSize(); // -1 if unknown
+            viewModel.importHistory(new ParcelFileDescriptor.AutoCloseInputStream(descriptor).getChannel(), size);
+        } catch (FileNotFoundException e) {
+            Toast.makeText(this, "Cannot read " + uri.getLastPathSegment(), Toast.LENGTH_LONG).show();
+        }
+    }
+
+    // --- Method to Show the Statistics Dialog ---
+    private void showStatisticsDialog() {
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Statistics");
+        builder.setMessage(viewModel.statisticsSummary.getValue());
+        builder.setPositiveButton("Add Value", (dialog, which) -> {
+            viewModel.processStatisticsAdd();
+            Toast.makeText(this, "Added " + binding.display.getText(), Toast.LENGTH_SHORT).show();
+        });
+        builder.setNeutralButton("Paste Values", (dialog, which) -> {
+            ClipboardManager clipboard = (ClipboardManager) getSystemService(Context.CLIPBOARD_SERVICE);
+            ClipData clip = clipboard != null ? clipboard.getPrimaryClip() : null;
+            if (clip == null || clip.getItemCount() == 0) {
+                Toast.makeText(this, "Clipboard is empty", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            viewModel.processStatisticsImport(new StringReader(clip.getItemAt(0).coerceToText(this).toString()));
+        });
+        builder.setNegativeButton("Clear", (dialog, which) -> {
+            viewModel.processStatisticsClear();
+            Toast.makeText(this, "Statistics Cleared", Toast.LENGTH_SHORT).show();
+        });
+
+        showThemed(builder.create(), this::showStatisticsDialog);
+    }
+
+    // --- Methods for Graphing Mode ---
+
+    /** Asks for an expression in x, then plots it. */
+    private void showGraphInputDialog() {
+        EditText input = new EditText(this);
+        input.setHint("e.g. x × x - 2");
+        input.setText(lastGraphExpression);
+        input.setSelection(input.getText().length());
+
+        showThemed(new AlertDialog.Builder(this)
+                .setTitle("Plot f(x)")
+                .setView(input)
+                .setPositiveButton("Plot", (dialog, which) -> {
+                    String expression = input.getText().toString();
+                    try {
+                        // Compiled once; the graph then evaluates it in bulk on every redraw
+                        showGraphDialog(ExpressionCompiler.compile(expression, "x"));
+                        lastGraphExpression = expression;
+                    } catch (IllegalArgumentException e) {
+                        Toast.makeText(this, e.getMessage(), Toast.LENGTH_LONG).show();
+                    }
+                })
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
+                .create(), this::showGraphInputDialog);
+    }
+
+    private void showGraphDialog(CompiledExpression function) {
+        GraphView graphView = new GraphView(this);
+        graphView.setFunction(function);
+
+        showThemed(new AlertDialog.Builder(this)
+                .setTitle("f(x) = " + function.getSource())
+                .setView(graphView)
+                .setPositiveButton("Close", (dialog, which) -> dialog.dismiss())
+                .create(), () -> showGraphDialog(function));
+    }
+
+    // --- Method for Solve Mode ---
+    private void showSolveDialog() {
+        EditText input = new EditText(this);
+        input.setHint("e.g. x × 1.0825 + 15 = 250");
+
+        showThemed(new AlertDialog.Builder(this)
+                .setTitle("Solve for x")
+                .setView(input)
+                .setPositiveButton("Solve", (dialog, which) -> viewModel.processSolve(input.getText().toString()))
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
+                .create(), this::showSolveDialog);
+    }
+
+    // --- Method for Matrix Mode ---
+    private void showMatrixDialog() {
+        EditText left = new EditText(this);
+        left.setHint("A, e.g. 1 2; 3 4");
+        left.setText(lastMatrixLeft);
+        EditText right = new EditText(this);
+        right.setHint("B (rows separated by ;)");
+        right.setText(lastMatrixRight);
+        Spinner operation = new Spinner(this);
+        operation.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, MatrixMode.OPERATIONS));
+
+        LinearLayout content = new LinearLayout(this);
+        content.setOrientation(LinearLayout.VERTICAL);
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        content.setPadding(padding, 0, padding, 0);
+        content.addView(left);
+        content.addView(right);
+        content.addView(operation);
+
+        showThemed(new AlertDialog.Builder(this)
+                .setTitle("Matrix")
+                .setView(content)
+                .setPositiveButton("Compute", (dialog, which) -> {
+                    lastMatrixLeft = left.getText().toString();
+                    lastMatrixRight = right.getText().toString();
+                    viewModel.processMatrix((String) operation.getSelectedItem(), lastMatrixLeft, lastMatrixRight);
+                })
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
+                .create(), this::showMatrixDialog);
+    }
+
+    private void showMatrixResult(String result) {
+        showThemed(new AlertDialog.Builder(this)
+                .setTitle("Result")
+                .setMessage(result)
+                .setPositiveButton("Close", (dialog, which) -> dialog.dismiss())
+                .create(), () -> showMatrixResult(result));
+    }
+
+    // --- Methods for Tape Mode ---
+
+    /**
+     * Shows the tape as a list of lines; tapping a line edits it, and the last row adds a
+     * new one. The list follows tapeRows while the dialog is open, so recalculated
+     * dependents update in place.
+     */
+    private void showTapeDialog() {
+        List<Object> items = new ArrayList<>();
+        ArrayAdapter<Object> adapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, items);
+        ListView list = new ListView(this);
+        list.setAdapter(adapter);
+
+        Observer<List<CalculatorViewModel.TapeRow>> observer = rows -> {
+            items.clear();
+            items.addAll(rows);
+            items.add("+ Add line (use L1, L2, … for earlier results)");
+            adapter.notifyDataSetChanged();
+        };
+        viewModel.tapeRows.observe(this, observer);
+
+        list.setOnItemClickListener((parent, view, position, id) -> {
+            Object item = items.get(position);
+            String source = item instanceof CalculatorViewModel.TapeRow
+                    ? ((CalculatorViewModel.TapeRow) item).source : "";
+            showTapeLineEditor(position, source);
+        });
+
+        AlertDialog dialog = new AlertDialog.Builder(this)
+                .setTitle("Tape")
+                .setView(list)
+                .setPositiveButton("Close", (d, which) -> d.dismiss())
+                .create();
+        dialog.setOnDismissListener(d -> viewModel.tapeRows.removeObserver(observer));
+        showThemed(dialog, this::showTapeDialog);
+    }
+
+    private void showTapeLineEditor(int index, String source) {
+        EditText input = new EditText(this);
+        input.setHint("e.g. L1 × 1.0825");
+        input.setText(source);
+        input.setSelection(input.getText().length());
+
+        showThemed(new AlertDialog.Builder(this)
+                .setTitle(CalculationTape.referenceName(index))
+                .setView(input)
+                .setPositiveButton("OK", (dialog, which) -> viewModel.processTapeLine(index, input.getText().toString()))
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
+                .create(), () -> showTapeLineEditor(index, source));
+    }
+
+    // --- Method for Series Mode ---
+    private void showSeriesDialog() {
+        Spinner kind = new Spinner(this);
+        kind.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, new String[] { "Σ sum", "Π product" }));
+        EditText from = new EditText(this);
+        from.setHint("From i =");
+        from.setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_SIGNED);
+        EditText to = new EditText(this);
+        to.setHint("To");
+        to.setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_SIGNED);
+        EditText term = new EditText(this);
+        term.setHint("Term in i, e.g. i × i");
+
+        LinearLayout content = new LinearLayout(this);
+        content.setOrientation(LinearLayout.VERTICAL);
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        content.setPadding(padding, 0, padding, 0);
+        content.addView(kind);
+        content.addView(from);
+        content.addView(to);
+        content.addView(term);
+
+        showThemed(new AlertDialog.Builder(this)
+                .setTitle("Series")
+                .setView(content)
+                .setPositiveButton("Evaluate", (dialog, which) -> {
+                    try {
+                        viewModel.processSeries(kind.getSelectedItemPosition() == 1, term.getText().toString(),
+                                Long.parseLong(from.getText().toString().trim()),
+                                Long.parseLong(to.getText().toString().trim()));
+                    } catch (NumberFormatException e) {
+                        Toast.makeText(this, "Enter whole numbers for the range", Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .setNeutralButton("Stop Running", (dialog, which) -> viewModel.cancelSeries())
+                .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
+                .create(), this::showSeriesDialog);
+    }
+
+    // --- Method for Unit Conversion ---
+
+    /**
+     * Shows a value converted into every unit of a category. The value starts as the
+     * current display and the list is refreshed on each keystroke or unit change; tapping
+     * a row loads that result into the calculator.
+     */
+    private void showConvertDialog() {
+        UnitConverter converter = viewModel.unitConverter.getValue();
+        if (converter == null) {
+            Toast.makeText(this, "Unit table is still loading", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Spinner category = new Spinner(this);
+        category.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, converter.getCategories()));
+        List<String> units = new ArrayList<>();
+        ArrayAdapter<String> unitAdapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, units);
+        Spinner unit = new Spinner(this);
+        unit.setAdapter(unitAdapter);
+        EditText input = new EditText(this);
+        input.setHint("Value, e.g. 12 × 3");
+        String display = viewModel.displayValue.getValue();
+        input.setText(display != null ? display : "");
+        input.setSelection(input.getText().length());
+
+        List<CalculatorViewModel.ConversionRow> rows = new ArrayList<>();
+        ArrayAdapter<CalculatorViewModel.ConversionRow> rowAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, rows);
+        ListView list = new ListView(this);
+        list.setAdapter(rowAdapter);
+
+        LinearLayout content = new LinearLayout(this);
+        content.setOrientation(LinearLayout.VERTICAL);
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        content.setPadding(padding, 0, padding, 0);
+        content.addView(category);
+        content.addView(unit);
+        content.addView(input);
+        content.addView(list);
+
+        Runnable convert = () -> {
+            Object selected = unit.getSelectedItem();
+            if (selected != null) {
+                viewModel.processConversion((String) selected, input.getText().toString());
+            }
+        };
+        category.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                units.clear();
+                units.addAll(converter.getUnits((String) parent.getItemAtPosition(position)));
+                unitAdapter.notifyDataSetChanged();
+                unit.setSelection(0);
+                convert.run();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+        unit.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                convert.run();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+        input.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence text, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence text, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable text) {
+                convert.run();
+            }
+        });
+
+        Observer<List<CalculatorViewModel.ConversionRow>> observer = results -> {
+            rows.clear();
+            rows.addAll(results);
+            rowAdapter.notifyDataSetChanged();
+        };
+        viewModel.conversionRows.observe(this, observer);
+
+        AlertDialog dialog = new AlertDialog.Builder(this)
+                .setTitle("Convert")
+                .setView(content)
+                .setPositiveButton("Close", (d, which) -> d.dismiss())
+                .create();
+        list.setOnItemClickListener((parent, view, position, id) -> {
+            viewModel.useConversion(rows.get(position));
+            dialog.dismiss();
+        });
+        dialog.setOnDismissListener(d -> viewModel.conversionRows.removeObserver(observer));
+        showThemed(dialog, this::showConvertDialog);
+    }
+
+    // --- Method for Programmer Mode ---
+
+    /**
+     * Evaluates an integer expression in the chosen radix and word size, showing the result
+     * in every radix as it is typed. "Use" loads the result into the calculator.
+     */
+    private void showProgrammerDialog() {
+        Spinner radix = new Spinner(this);
+        radix.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item,
+                new String[] { "DEC", "HEX", "OCT", "BIN" }));
+        Spinner wordSize = new Spinner(this);
+        wordSize.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item,
+                new String[] { "64-bit", "32-bit", "16-bit", "8-bit" }));
+        EditText input = new EditText(this);
+        input.setHint("e.g. FF AND (1 << 4), NOT after a value");
+        TextView result = new TextView(this);
+        result.setTextIsSelectable(true);
+
+        LinearLayout content = new LinearLayout(this);
+        content.setOrientation(LinearLayout.VERTICAL);
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        content.setPadding(padding, 0, padding, 0);
+        content.addView(radix);
+        content.addView(wordSize);
+        content.addView(input);
+        content.addView(result);
+
+        int[] radixes = { ProgrammerEngine.RADIX_DEC, ProgrammerEngine.RADIX_HEX, ProgrammerEngine.RADIX_OCT, ProgrammerEngine.RADIX_BIN };
+        int[] wordSizes = { 64, 32, 16, 8 };
+        Runnable evaluate = () -> viewModel.processProgrammer(input.getText().toString(),
+                radixes[radix.getSelectedItemPosition()], wordSizes[wordSize.getSelectedItemPosition()]);
+        AdapterView.OnItemSelectedListener onSettingChanged = new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                evaluate.run();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        };
+        radix.setOnItemSelectedListener(onSettingChanged);
+        wordSize.setOnItemSelectedListener(onSettingChanged);
+        input.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence text, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence text, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable text) {
+                evaluate.run();
+            }
+        });
+
+        Observer<String> observer = result::setText;
+        viewModel.programmerResult.observe(this, observer);
+
+        AlertDialog dialog = new AlertDialog.Builder(this)
+                .setTitle("Programmer")
+                .setView(content)
+                .setPositiveButton("Use", (d, which) -> viewModel.useProgrammerResult())
+                .setNegativeButton("Close", (d, which) -> d.dismiss())
+                .create();
+        dialog.setOnDismissListener(d -> viewModel.programmerResult.removeObserver(observer));
+        showThemed(dialog, this::showProgrammerDialog);
+    }
+
+    // --- Method to Record Keystroke Traces ---
+
+    /**
+     * Starts or stops recording keypad presses. A stopped recording is saved under
+     * files/traces for replay in load tests.
+     */
+    private void toggleTraceRecording(MenuItem item) {
+        if (viewModel.isRecordingTrace()) {
+            viewModel.stopTraceRecording(new File(getFilesDir(), "traces"));
+            item.setTitle(R.string.menu_record_trace);
+        } else {
+            viewModel.startTraceRecording();
+            item.setTitle(R.string.menu_stop_recording);
+            Toast.makeText(this, "Recording keystrokes", Toast.LENGTH_SHORT).show();
+        }
     }
 
     // --- Method to Toggle Theme ---
     private void toggleTheme() {
         // Get the current night mode setting
-        int currentNightMode = getResources().getConfiguration().uiMode & android.content.res.Configuration.UI_MODE_NIGHT_MASK;
+        int currentNightMode = getResources().getConfiguration().uiMode & Configuration.UI_MODE_NIGHT_MASK;
 
-        // Toggle between Light and Dark mode
-        if (currentNightMode == android.content.res.Configuration.UI_MODE_NIGHT_YES) {
+        themeSwitchStartNanos = SystemClock.elapsedRealtimeNanos();
+
+        // Toggle between Light and Dark mode. The activity handles uiMode changes itself,
+        // so AppCompat delivers onConfigurationChanged instead of recreating it.
+        if (currentNightMode == Configuration.UI_MODE_NIGHT_YES) {
             // Currently dark, switch to light
             AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_NO);
         } else {
             // Currently light (or unspecified), switch to dark
             AppCompatDelegate.setDefaultNightMode(AppCompatDelegate.MODE_NIGHT_YES);
         }
+    }
+
+    /**
+     * Re-resolves the theme colors (themes.xml / values-night/themes.xml) for the current
+     * configuration and applies them to the existing views, mirroring the styles.xml mapping.
+     */
+    private void applyThemeColors() {
+        // Pick up the values-night (or default) theme attributes for the new configuration
+        getTheme().rebase();
+
+        int surface = resolveThemeColor(com.google.android.material.R.attr.colorSurface);
+        int onSurface = resolveThemeColor(com.google.android.material.R.attr.colorOnSurface);
+        int surfaceVariant = resolveThemeColor(com.google.android.material.R.attr.colorSurfaceVariant);
+        int onSurfaceVariant = resolveThemeColor(com.google.android.material.R.attr.colorOnSurfaceVariant);
+
+        // System bars and toolbar, as a recreated activity would get them from the theme
+        Window window = getWindow();
+        window.setStatusBarColor(resolveThemeColor(android.R.attr.statusBarColor));
+        window.setNavigationBarColor(resolveThemeColor(android.R.attr.navigationBarColor));
+        WindowInsetsControllerCompat systemBars = WindowCompat.getInsetsController(window, window.getDecorView());
+        systemBars.setAppearanceLightStatusBars(resolveThemeFlag(android.R.attr.windowLightStatusBar));
+        systemBars.setAppearanceLightNavigationBars(resolveThemeFlag(android.R.attr.windowLightNavigationBar));
+        int toolbarText = resolveThemeColor(android.R.attr.textColorPrimary);
+        binding.toolbar.setBackgroundColor(ContextCompat.getColor(this, R.color.my_toolbar_color));
+        binding.toolbar.setTitleTextColor(toolbarText);
+        binding.toolbar.setSubtitleTextColor(resolveThemeColor(android.R.attr.textColorSecondary));
+        Drawable overflowIcon = binding.toolbar.getOverflowIcon();
+        if (overflowIcon != null) {
+            overflowIcon.setTint(toolbarText); // colorControlNormal of the ActionBar overlay
+        }
+
+        binding.getRoot().setBackgroundColor(surface);
+        binding.display.setTextColor(onSurface);
+        binding.expressionDisplay.setTextColor(onSurfaceVariant);
+        binding.resultPreview.setTextColor(onSurfaceVariant);
+
+        // CalculatorButton.Number
+        tintButtons(numberButtons, surfaceVariant, onSurfaceVariant);
+        binding.buttonBackspace.setIconTint(ColorStateList.valueOf(onSurfaceVariant));
+        // CalculatorButton.Operator
+        tintButtons(operatorButtons,
+                resolveThemeColor(com.google.android.material.R.attr.colorSecondary),
+                resolveThemeColor(com.google.android.material.R.attr.colorOnSecondary));
+        // CalculatorButton.Function
+        tintButtons(functionButtons,
+                resolveThemeColor(R.attr.colorFunctionButton),
+                resolveThemeColor(R.attr.colorOnFunctionButton));
+        // CalculatorButton.Equals
+        tintButtons(new MaterialButton[] { binding.buttonEquals },
+                resolveThemeColor(androidx.appcompat.R.attr.colorPrimary),
+                resolveThemeColor(com.google.android.material.R.attr.colorOnPrimary));
+
+        reopenThemedDialogs();
+
+        if (themeSwitchStartNanos != 0) {
+            long elapsedMicros = (SystemClock.elapsedRealtimeNanos() - themeSwitchStartNanos) / 1000;
+            System.out.println("MainActivity: Theme switched in place in " + elapsedMicros + " us");
+            themeSwitchStartNanos = 0;
+        }
+    }
+
+    /**
+     * Shows a dialog and remembers how to build it again, so an in-place theme switch can
+     * replace it with one inflated in the new palette.
+     */
+    private void showThemed(AlertDialog dialog, Runnable reopen) {
+        themedDialogs.keySet().removeIf(shown -> !shown.isShowing());
+        themedDialogs.put(dialog, reopen);
+        dialog.show();
+    }
+
+    /** Dismisses the open dialogs and rebuilds them with the current theme, in the order they were opened. */
+    private void reopenThemedDialogs() {
+        List<Runnable> reopen = new ArrayList<>();
+        for (Map.Entry<AlertDialog, Runnable> entry : themedDialogs.entrySet()) {
+            if (entry.getKey().isShowing()) {
+                entry.getKey().dismiss();
+                reopen.add(entry.getValue());
+            }
+        }
+        themedDialogs.clear();
+        for (Runnable show : reopen) {
+            show.run();
+        }
+    }
+
+    private void tintButtons(MaterialButton[] buttons, int background, int text) {
+        ColorStateList backgroundTint = ColorStateList.valueOf(background);
+        for (MaterialButton button : buttons) {
+            button.setBackgroundTintList(backgroundTint);
+            button.setTextColor(text);
+        }
+    }
+
+    /** Resolves a color attribute against the activity theme. */
+    private int resolveThemeColor(int attr) {
+        if (!getTheme().resolveAttribute(attr, typedValue, true)) {
+            return 0;
+        }
+        if (typedValue.resourceId != 0) {
+            return ContextCompat.getColor(this, typedValue.resourceId);
+        }
+        return typedValue.data;
+    }
 
-        recreate();
+    /** Resolves a boolean attribute against the activity theme (false if unset). */
+    private boolean resolveThemeFlag(int attr) {
+        return getTheme().resolveAttribute(attr, typedValue, true) && typedValue.data != 0;
     }
-}
\ No newline at end of file
+}
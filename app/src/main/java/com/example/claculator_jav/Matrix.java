@@ -0,0 +1,396 @@
+package com.example.claculator_jav;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Dense matrix of doubles for matrix mode, stored row-major in a single primitive array.
+ * <p>
+ * Multiplication and transposition are cache-blocked, and multiplication, LU
+ * decomposition and the LU-based operations (determinant, inverse, solve) split their
+ * work into parallel tasks once the matrix is large enough to pay for it. Matrices are
+ * immutable; every operation returns a new instance. Small matrices can also be handled
+ * exactly with ExactMatrix.
+ */
+public final class Matrix {
+
+    // --- Constants ---
+    private static final int BLOCK_SIZE = 64;            // 64 × 64 doubles = 32 KB per tile
+    static final int PARALLEL_THRESHOLD = 128;           // Dimension from which work is split across cores
+    private static final double SINGULAR_TOLERANCE = 1e-12;
+
+    private final int rows;
+    private final int cols;
+    final double[] data; // Row-major: element (i, j) is data[i * cols + j]
+
+    private Matrix(int rows, int cols, double[] data) {
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
+    }
+
+    // --- Construction ---
+
+    public static Matrix zeros(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Matrix dimensions must be positive");
+        }
+        return new Matrix(rows, cols, new double[rows * cols]);
+    }
+
+    public static Matrix identity(int size) {
+        Matrix result = zeros(size, size);
+        for (int i = 0; i < size; i++) {
+            result.data[i * size + i] = 1;
+        }
+        return result;
+    }
+
+    /** Creates a matrix from row-major values. */
+    public static Matrix of(int rows, int cols, double... values) {
+        if (values.length != rows * cols) {
+            throw new IllegalArgumentException("Expected " + rows * cols + " values, got " + values.length);
+        }
+        Matrix result = zeros(rows, cols);
+        System.arraycopy(values, 0, result.data, 0, values.length);
+        return result;
+    }
+
+    /**
+     * Parses matrix entry text such as "1 2; 3 4" or "[1, -2; 3.5, 4]": rows are separated
+     * by ";", entries by spaces or commas. Numbers are read with the engine's tokenizer.
+     * @throws IllegalArgumentException If the text is malformed or the rows differ in length.
+     */
+    public static Matrix parse(String text) {
+        double[] values = new double[16];
+        int count = 0;
+        int rows = 0;
+        int cols = -1;
+        int rowLength = 0;
+        boolean negate = false;
+        ExpressionTokenizer tokenizer = new ExpressionTokenizer(new StringReader(text));
+        try {
+            while (true) {
+                int type = tokenizer.next();
+                String raw = tokenizer.text();
+                if (type == ExpressionTokenizer.NUMBER) {
+                    if (count == values.length) values = Arrays.copyOf(values, count * 2);
+                    double value = tokenizer.numberValue().doubleValue();
+                    values[count++] = negate ? -value : value;
+                    negate = false;
+                    rowLength++;
+                } else if (type == ExpressionTokenizer.OPERATOR && "-".equals(tokenizer.operator()) && !negate) {
+                    negate = true;
+                } else if (type == ExpressionTokenizer.END || ";".equals(raw)) {
+                    if (negate) throw new IllegalArgumentException("Missing number after '-'");
+                    if (rowLength > 0) {
+                        if (cols >= 0 && rowLength != cols) {
+                            throw new IllegalArgumentException("Row " + (rows + 1) + " has " + rowLength + " entries, expected " + cols);
+                        }
+                        cols = rowLength;
+                        rows++;
+                        rowLength = 0;
+                    }
+                    if (type == ExpressionTokenizer.END) break;
+                } else if (!",".equals(raw) && !"[".equals(raw) && !"]".equals(raw)) {
+                    throw new IllegalArgumentException("Unexpected '" + raw + "' at position " + tokenizer.offset());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringReader does not throw
+        }
+        if (rows == 0) {
+            throw new IllegalArgumentException("Empty matrix");
+        }
+        return of(rows, cols, Arrays.copyOf(values, count));
+    }
+
+    // --- Accessors ---
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public boolean isSquare() { return rows == cols; }
+
+    public double get(int row, int col) {
+        return data[row * cols + col];
+    }
+
+    // --- Element-wise Operations ---
+
+    public Matrix add(Matrix other) {
+        requireSameShape(other);
+        Matrix result = zeros(rows, cols);
+        for (int i = 0; i < data.length; i++) {
+            result.data[i] = data[i] + other.data[i];
+        }
+        return result;
+    }
+
+    public Matrix subtract(Matrix other) {
+        requireSameShape(other);
+        Matrix result = zeros(rows, cols);
+        for (int i = 0; i < data.length; i++) {
+            result.data[i] = data[i] - other.data[i];
+        }
+        return result;
+    }
+
+    public Matrix scale(double factor) {
+        Matrix result = zeros(rows, cols);
+        for (int i = 0; i < data.length; i++) {
+            result.data[i] = data[i] * factor;
+        }
+        return result;
+    }
+
+    // --- Blocked Kernels ---
+
+    /** Transpose, copied tile by tile so both the reads and the writes stay in cache. */
+    public Matrix transpose() {
+        Matrix result = zeros(cols, rows);
+        for (int ii = 0; ii < rows; ii += BLOCK_SIZE) {
+            int iEnd = Math.min(ii + BLOCK_SIZE, rows);
+            for (int jj = 0; jj < cols; jj += BLOCK_SIZE) {
+                int jEnd = Math.min(jj + BLOCK_SIZE, cols);
+                for (int i = ii; i < iEnd; i++) {
+                    for (int j = jj; j < jEnd; j++) {
+                        result.data[j * rows + i] = data[i * cols + j];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Matrix product. Loops run i-k-j over BLOCK_SIZE tiles, so the innermost loop
+     * streams contiguous rows of the right operand and the result. Bands of result rows
+     * are computed in parallel for large matrices.
+     */
+    public Matrix multiply(Matrix other) {
+        if (cols != other.rows) {
+            throw new IllegalArgumentException("Cannot multiply " + shape() + " by " + other.shape());
+        }
+        Matrix result = zeros(rows, other.cols);
+        int bands = (rows + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (Math.max(rows, Math.max(cols, other.cols)) >= PARALLEL_THRESHOLD && bands > 1) {
+            IntStream.range(0, bands).parallel().forEach(band -> multiplyBand(other, result, band * BLOCK_SIZE));
+        } else {
+            for (int band = 0; band < bands; band++) {
+                multiplyBand(other, result, band * BLOCK_SIZE);
+            }
+        }
+        return result;
+    }
+
+    /** Computes result rows [rowStart, rowStart + BLOCK_SIZE); each band writes only its own rows. */
+    private void multiplyBand(Matrix other, Matrix result, int rowStart) {
+        int n = other.cols;
+        double[] a = data;
+        double[] b = other.data;
+        double[] c = result.data;
+        int iEnd = Math.min(rowStart + BLOCK_SIZE, rows);
+        for (int kk = 0; kk < cols; kk += BLOCK_SIZE) {
+            int kEnd = Math.min(kk + BLOCK_SIZE, cols);
+            for (int jj = 0; jj < n; jj += BLOCK_SIZE) {
+                int jEnd = Math.min(jj + BLOCK_SIZE, n);
+                for (int i = rowStart; i < iEnd; i++) {
+                    int cRow = i * n;
+                    for (int k = kk; k < kEnd; k++) {
+                        double aik = a[i * cols + k];
+                        if (aik == 0) continue;
+                        int bRow = k * n;
+                        for (int j = jj; j < jEnd; j++) {
+                            c[cRow + j] += aik * b[bRow + j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // --- LU-based Operations ---
+
+    /** LU decomposition with partial pivoting. */
+    public LUDecomposition lu() {
+        requireSquare();
+        return new LUDecomposition(this);
+    }
+
+    public double determinant() {
+        return lu().determinant();
+    }
+
+    /** @throws ArithmeticException If the matrix is singular. */
+    public Matrix inverse() {
+        return lu().solve(identity(rows));
+    }
+
+    /**
+     * Solves this × X = rhs for X (rhs may have several columns).
+     * @throws ArithmeticException If the matrix is singular.
+     */
+    public Matrix solve(Matrix rhs) {
+        if (rhs.rows != rows) {
+            throw new IllegalArgumentException("Right-hand side has " + rhs.rows + " rows, expected " + rows);
+        }
+        return lu().solve(rhs);
+    }
+
+    /**
+     * LU factors of a square matrix, computed once and reused for the determinant,
+     * inverse and solves. The factors are stored packed in one row-major array (unit lower
+     * L below the diagonal, U on and above it).
+     */
+    public static final class LUDecomposition {
+        private final int n;
+        private final double[] lu;
+        private final int[] pivot;     // Row i of the factors is row pivot[i] of the original
+        private final boolean singular;
+        private int pivotSign = 1;
+
+        LUDecomposition(Matrix matrix) {
+            n = matrix.rows;
+            lu = matrix.data.clone();
+            pivot = new int[n];
+            for (int i = 0; i < n; i++) pivot[i] = i;
+            double scale = 0;
+            for (double value : lu) scale = Math.max(scale, Math.abs(value));
+            boolean isSingular = false;
+
+            for (int k = 0; k < n; k++) {
+                // Partial pivoting: largest magnitude in column k
+                int best = k;
+                for (int i = k + 1; i < n; i++) {
+                    if (Math.abs(lu[i * n + k]) > Math.abs(lu[best * n + k])) best = i;
+                }
+                double magnitude = Math.abs(lu[best * n + k]);
+                if (magnitude <= SINGULAR_TOLERANCE * scale) {
+                    isSingular = true; // Too small to solve with, but still a factor of the determinant
+                    if (magnitude == 0) continue; // Nothing to eliminate; the determinant is 0
+                }
+                if (best != k) {
+                    swapRows(best, k);
+                    int t = pivot[best]; pivot[best] = pivot[k]; pivot[k] = t;
+                    pivotSign = -pivotSign;
+                }
+
+                // Eliminate below the pivot; rows are independent, so large updates run in parallel
+                final int column = k;
+                if (n - k >= PARALLEL_THRESHOLD) {
+                    IntStream.range(k + 1, n).parallel().forEach(i -> eliminateRow(i, column));
+                } else {
+                    for (int i = k + 1; i < n; i++) eliminateRow(i, column);
+                }
+            }
+            singular = isSingular;
+        }
+
+        /** Subtracts multiples of pivot row k from row i (contiguous, row-major). */
+        private void eliminateRow(int i, int k) {
+            int rowI = i * n;
+            int rowK = k * n;
+            double factor = lu[rowI + k] / lu[rowK + k];
+            lu[rowI + k] = factor;
+            if (factor == 0) return;
+            for (int j = k + 1; j < n; j++) {
+                lu[rowI + j] -= factor * lu[rowK + j];
+            }
+        }
+
+        private void swapRows(int a, int b) {
+            double[] temp = new double[n];
+            System.arraycopy(lu, a * n, temp, 0, n);
+            System.arraycopy(lu, b * n, lu, a * n, n);
+            System.arraycopy(temp, 0, lu, b * n, n);
+        }
+
+        public boolean isSingular() { return singular; }
+
+        /** Product of the actual pivots, so nearly singular matrices keep their small determinant. */
+        public double determinant() {
+            double det = pivotSign;
+            for (int i = 0; i < n; i++) det *= lu[i * n + i];
+            return det;
+        }
+
+        /**
+         * Solves A × X = rhs by forward and back substitution. Right-hand side columns are
+         * independent, so wide right-hand sides (e.g. the identity for an inverse) are
+         * solved in parallel bands.
+         * @throws ArithmeticException If the matrix is singular.
+         */
+        public Matrix solve(Matrix rhs) {
+            if (singular) {
+                throw new ArithmeticException("Singular matrix");
+            }
+            int m = rhs.cols;
+            // Permuted copy of the right-hand side
+            double[] x = new double[n * m];
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(rhs.data, pivot[i] * m, x, i * m, m);
+            }
+            int bands = (m + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            if (n >= PARALLEL_THRESHOLD && bands > 1) {
+                IntStream.range(0, bands).parallel().forEach(band -> substitute(x, m, band * BLOCK_SIZE));
+            } else {
+                for (int band = 0; band < bands; band++) substitute(x, m, band * BLOCK_SIZE);
+            }
+            return new Matrix(n, m, x);
+        }
+
+        /** Forward then back substitution for right-hand side columns [colStart, colStart + BLOCK_SIZE). */
+        private void substitute(double[] x, int m, int colStart) {
+            int colEnd = Math.min(colStart + BLOCK_SIZE, m);
+            for (int i = 0; i < n; i++) {       // L y = P b (unit diagonal)
+                for (int k = 0; k < i; k++) {
+                    double factor = lu[i * n + k];
+                    if (factor == 0) continue;
+                    for (int j = colStart; j < colEnd; j++) x[i * m + j] -= factor * x[k * m + j];
+                }
+            }
+            for (int i = n - 1; i >= 0; i--) {  // U x = y
+                for (int k = i + 1; k < n; k++) {
+                    double factor = lu[i * n + k];
+                    if (factor == 0) continue;
+                    for (int j = colStart; j < colEnd; j++) x[i * m + j] -= factor * x[k * m + j];
+                }
+                double diagonal = lu[i * n + i];
+                for (int j = colStart; j < colEnd; j++) x[i * m + j] /= diagonal;
+            }
+        }
+    }
+
+    // --- Helpers ---
+
+    private void requireSameShape(Matrix other) {
+        if (rows != other.rows || cols != other.cols) {
+            throw new IllegalArgumentException("Shape mismatch: " + shape() + " and " + other.shape());
+        }
+    }
+
+    private void requireSquare() {
+        if (rows != cols) {
+            throw new IllegalArgumentException("Matrix must be square, is " + shape());
+        }
+    }
+
+    String shape() {
+        return rows + "×" + cols;
+    }
+
+    /** Rows on separate lines, entries formatted like engine values. */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) builder.append('\n');
+            for (int j = 0; j < cols; j++) {
+                if (j > 0) builder.append("  ");
+                builder.append(CalculatorEngine.formatDouble(data[i * cols + j]));
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.claculator_jav;
+
+/**
+ * Operations offered by matrix mode, on matrices entered as text (see Matrix.parse).
+ * Determinant, inverse and solve use the exact BigDecimal path for small matrices and
+ * the blocked double kernels otherwise.
+ */
+public final class MatrixMode {
+
+    // --- Operations (also the labels shown in the UI) ---
+    public static final String ADD = "A + B";
+    public static final String SUBTRACT = "A − B";
+    public static final String MULTIPLY = "A × B";
+    public static final String TRANSPOSE = "Aᵀ";
+    public static final String DETERMINANT = "det A";
+    public static final String INVERSE = "A⁻¹";
+    public static final String SOLVE = "Solve A × X = B";
+
+    public static final String[] OPERATIONS = { ADD, SUBTRACT, MULTIPLY, TRANSPOSE, DETERMINANT, INVERSE, SOLVE };
+
+    private MatrixMode() {}
+
+    /** Whether an operation reads the second matrix. */
+    public static boolean usesRightOperand(String operation) {
+        return ADD.equals(operation) || SUBTRACT.equals(operation)
+                || MULTIPLY.equals(operation) || SOLVE.equals(operation);
+    }
+
+    /**
+     * Runs an operation and formats its result for display.
+     * @throws IllegalArgumentException If an entry is malformed or the shapes don't fit.
+     * @throws ArithmeticException If an inverse or solve hits a singular matrix.
+     */
+    public static String evaluate(String operation, String left, String right) {
+        Matrix a = Matrix.parse(left);
+        Matrix b = usesRightOperand(operation) ? Matrix.parse(right) : null;
+        boolean exact = ExactMatrix.supports(a) && (b == null || ExactMatrix.supports(b));
+
+        switch (operation) {
+            case ADD:
+                return a.add(b).toString();
+            case SUBTRACT:
+                return a.subtract(b).toString();
+            case MULTIPLY:
+                return a.multiply(b).toString();
+            case TRANSPOSE:
+                return a.transpose().toString();
+            case DETERMINANT:
+                if (!a.isSquare()) throw new IllegalArgumentException("Matrix must be square, is " + a.shape());
+                return exact ? CalculatorEngine.formatBigDecimal(ExactMatrix.from(a).determinant())
+                        : CalculatorEngine.formatDouble(a.determinant());
+            case INVERSE:
+                return exact ? ExactMatrix.from(a).inverse().toString() : a.inverse().toString();
+            case SOLVE:
+                return exact ? ExactMatrix.from(a).solve(ExactMatrix.from(b)).toString() : a.solve(b).toString();
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package com.example.claculator_jav;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Integer engine for programmer mode: hex/octal/binary/decimal entry, word sizes of
+ * 8, 16, 32 or 64 bits, and bitwise operators alongside + - × ÷.
+ * <p>
+ * Unlike CalculatorEngine, all values are primitive longs masked to the word size and
+ * both stacks are primitive arrays, so input and arithmetic never allocate (the arrays
+ * only grow for deeper nesting than seen before). Operator precedence comes from
+ * CalculatorEngine.getPrecedence, and the keystroke state machine (operator
+ * replacement, unary minus, implicit multiplication, parentheses) mirrors CalculatorEngine.
+ * <p>
+ * Values are stored as the low wordSize bits. Decimal display and division are signed
+ * (two's complement), hex/octal/binary display is unsigned, and {@code >>} is an
+ * arithmetic shift.
+ */
+public class ProgrammerEngine {
+
+    // --- Radix and Word Size Options ---
+    public static final int RADIX_BIN = 2;
+    public static final int RADIX_OCT = 8;
+    public static final int RADIX_DEC = 10;
+    public static final int RADIX_HEX = 16;
+
+    // --- Operator Codes (index into SYMBOLS) ---
+    private static final int OP_OPEN_PAREN = 0;
+    private static final int OP_ADD = 1;
+    private static final int OP_SUBTRACT = 2;
+    private static final int OP_MULTIPLY = 3;
+    private static final int OP_DIVIDE = 4;
+    private static final int OP_AND = 5;
+    private static final int OP_OR = 6;
+    private static final int OP_XOR = 7;
+    private static final int OP_SHIFT_LEFT = 8;
+    private static final int OP_SHIFT_RIGHT = 9;
+    private static final int OP_ROTATE_LEFT = 10;
+    private static final int OP_ROTATE_RIGHT = 11;
+
+    private static final String[] SYMBOLS = {
+            "(", "+", "-", "×", "÷", "AND", "OR", "XOR", "<<", ">>", "ROL", "ROR" };
+    private static final int[] PRECEDENCE = new int[SYMBOLS.length];
+
+    static {
+        // Same precedence machinery as the decimal engine
+        for (int i = 0; i < SYMBOLS.length; i++) {
+            PRECEDENCE[i] = CalculatorEngine.getPrecedence(SYMBOLS[i]);
+        }
+    }
+
+    // --- Settings ---
+    private int radix = RADIX_DEC;
+    private int wordSize = 64;
+    private long mask = -1L;
+
+    // --- State Variables ---
+    private long currentOperand = 0;
+    private boolean isEnteringDigits = false;
+    private boolean isInErrorState = false;
+    private boolean operatorPending = false;
+    private boolean afterCloseParen = false;
+    private int parenthesisBalance = 0;
+
+    // --- Primitive Stacks ---
+    private long[] valueStack = new long[16];
+    private int valueCount = 0;
+    private int[] operatorStack = new int[16];
+    private int operatorCount = 0;
+
+    /**
+     * Resets the engine to its initial state (radix and word size are kept).
+     */
+    public void clear() {
+        currentOperand = 0;
+        isEnteringDigits = false;
+        isInErrorState = false;
+        operatorPending = false;
+        afterCloseParen = false;
+        parenthesisBalance = 0;
+        valueCount = 0;
+        operatorCount = 0;
+    }
+
+    // --- Settings ---
+
+    /** Sets the input/display radix (2, 8, 10 or 16). Stored values are unaffected. */
+    public void setRadix(int radix) {
+        if (radix != RADIX_BIN && radix != RADIX_OCT && radix != RADIX_DEC && radix != RADIX_HEX) {
+            throw new IllegalArgumentException("Unsupported radix: " + radix);
+        }
+        this.radix = radix;
+    }
+
+    /** Sets the word size (8, 16, 32 or 64 bits), truncating every stored value to it. */
+    public void setWordSize(int bits) {
+        if (bits != 8 && bits != 16 && bits != 32 && bits != 64) {
+            throw new IllegalArgumentException("Unsupported word size: " + bits);
+        }
+        wordSize = bits;
+        mask = bits == 64 ? -1L : (1L << bits) - 1;
+        currentOperand &= mask;
+        for (int i = 0; i < valueCount; i++) {
+            valueStack[i] &= mask;
+        }
+    }
+
+    public int getRadix() { return radix; }
+    public int getWordSize() { return wordSize; }
+
+    // --- Input ---
+
+    /**
+     * Processes a digit input in the current radix.
+     * @param digit '0'-'9' or 'A'-'F' (case-insensitive); digits invalid for the radix are ignored.
+     */
+    public void inputDigit(char digit) {
+        int value = Character.digit(digit, radix);
+        if (value < 0) {
+            return; // Not a digit in this radix
+        }
+        if (isInErrorState) {
+            clear(); // Start fresh after error
+        }
+        if (!isEnteringDigits) {
+            currentOperand = 0;
+            isEnteringDigits = true;
+            operatorPending = false;
+            afterCloseParen = false;
+        }
+
+        // Decimal entry is limited to the signed maximum, other radixes to the full word
+        long limit = radix == RADIX_DEC ? mask >>> 1 : mask;
+        if (Long.compareUnsigned(currentOperand, Long.divideUnsigned(limit - value, radix)) > 0) {
+            return; // Next digit would overflow the word size
+        }
+        currentOperand = currentOperand * radix + value;
+    }
+
+    /**
+     * Processes a binary operator input.
+     * @param operator One of + - × ÷ AND OR XOR &lt;&lt; &gt;&gt; ROL ROR.
+     */
+    public void inputOperator(String operator) {
+        int op = operatorCode(operator);
+        if (op < 0) {
+            throw new IllegalArgumentException("Unknown operator: " + operator);
+        }
+        applyOperator(op);
+    }
+
+    private void applyOperator(int op) {
+        if (isInErrorState) {
+            return;
+        }
+
+        // Operator replacement right after another operator (but not after '(')
+        if (!isEnteringDigits && operatorPending && operatorCount > 0
+                && operatorStack[operatorCount - 1] != OP_OPEN_PAREN) {
+            operatorStack[operatorCount - 1] = op;
+            return;
+        }
+
+        if (isEnteringDigits) {
+            pushValue(currentOperand);
+            isEnteringDigits = false;
+        } else if ((valueCount == 0 && operatorCount == 0)
+                || (operatorCount > 0 && operatorStack[operatorCount - 1] == OP_OPEN_PAREN)) {
+            pushValue(0); // Unary operator at the start or after '(' (e.g. "-5")
+        }
+
+        while (operatorCount > 0 && operatorStack[operatorCount - 1] != OP_OPEN_PAREN
+                && PRECEDENCE[operatorStack[operatorCount - 1]] >= PRECEDENCE[op]) {
+            if (!processTopOperator()) {
+                return;
+            }
+        }
+
+        pushOperator(op);
+        operatorPending = true;
+        afterCloseParen = false;
+    }
+
+    /**
+     * Processes parenthesis input ("(" or ")").
+     */
+    public void inputParenthesis(String parenthesis) {
+        if (isInErrorState) {
+            return;
+        }
+        if (parenthesis.equals("(")) {
+            // Implicit multiplication: "5(" and ")(" become "5×(" and ")×("
+            if (isEnteringDigits || afterCloseParen) {
+                applyOperator(OP_MULTIPLY);
+                if (isInErrorState) return;
+            }
+            pushOperator(OP_OPEN_PAREN);
+            parenthesisBalance++;
+            isEnteringDigits = false;
+            operatorPending = false;
+            afterCloseParen = false;
+        } else if (parenthesis.equals(")")) {
+            handleCloseParenthesis();
+        }
+    }
+
+    private void handleCloseParenthesis() {
+        if (parenthesisBalance <= 0) {
+            setErrorState();
+            return;
+        }
+        if (isEnteringDigits) {
+            pushValue(currentOperand);
+            isEnteringDigits = false;
+        } else if (!afterCloseParen && operatorStack[operatorCount - 1] == OP_OPEN_PAREN) {
+            setErrorState(); // Empty "()"
+            return;
+        }
+        while (operatorCount > 0 && operatorStack[operatorCount - 1] != OP_OPEN_PAREN) {
+            if (!processTopOperator()) {
+                return;
+            }
+        }
+        operatorCount--; // Pop the matching '('
+        parenthesisBalance--;
+        operatorPending = false;
+        afterCloseParen = true;
+    }
+
+    /** Applies bitwise NOT to the current operand or last result (within the word size). */
+    public void inputNot() {
+        if (isInErrorState) {
+            return;
+        }
+        if (isEnteringDigits) {
+            currentOperand = ~currentOperand & mask;
+        } else if (valueCount > 0 && !operatorPending) {
+            valueStack[valueCount - 1] = ~valueStack[valueCount - 1] & mask;
+            currentOperand = valueStack[valueCount - 1];
+        }
+    }
+
+    /**
+     * Calculates the final result of the expression.
+     */
+    public void calculateResult() {
+        if (isInErrorState) {
+            return;
+        }
+        if (isEnteringDigits) {
+            pushValue(currentOperand);
+            isEnteringDigits = false;
+        }
+        if (parenthesisBalance > 0) {
+            setErrorState();
+            return;
+        }
+        while (operatorCount > 0) {
+            if (!processTopOperator()) {
+                return;
+            }
+        }
+        if (valueCount == 1) {
+            currentOperand = valueStack[--valueCount];
+        } else if (valueCount != 0) {
+            setErrorState();
+            return;
+        }
+        operatorPending = false;
+        afterCloseParen = false;
+    }
+
+    /**
+     * Feeds typed text into the engine as keystrokes, e.g. "FF AND (1 << 4)" in hex.
+     * Words are operator names (AND, OR, XOR, ROL, ROR, or NOT applied to the value before it)
+     * or numbers in the current radix; "*" and "/" are accepted for × and ÷. A digit invalid
+     * for the radix, an unknown symbol or two numbers in a row put the engine in the error state.
+     * "=" is not pressed.
+     * @return true if the whole text was consumed without entering the error state.
+     */
+    public boolean importExpression(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        while (i < length && !isInErrorState) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isLetterOrDigit(c)) {
+                int end = i;
+                while (end < length && Character.isLetterOrDigit(text.charAt(end))) end++;
+                importWord(text.subSequence(i, end).toString().toUpperCase(Locale.ROOT));
+                i = end;
+            } else if (c == '(' || c == ')') {
+                inputParenthesis(c == '(' ? "(" : ")");
+                i++;
+            } else if ((c == '<' || c == '>') && i + 1 < length && text.charAt(i + 1) == c) {
+                applyOperator(c == '<' ? OP_SHIFT_LEFT : OP_SHIFT_RIGHT);
+                i += 2;
+            } else {
+                int op = operatorCode(c == '*' ? "×" : c == '/' ? "÷" : String.valueOf(c));
+                if (op < 0) {
+                    setErrorState();
+                    break;
+                }
+                applyOperator(op);
+                i++;
+            }
+        }
+        return !isInErrorState;
+    }
+
+    private void importWord(String word) {
+        int op = operatorCode(word);
+        if (op >= 0) {
+            applyOperator(op);
+        } else if (word.equals("NOT")) {
+            inputNot();
+        } else if (isEnteringDigits) {
+            setErrorState(); // A second number with no operator in between
+        } else {
+            for (int i = 0; i < word.length(); i++) {
+                if (Character.digit(word.charAt(i), radix) < 0) {
+                    setErrorState();
+                    return;
+                }
+                inputDigit(word.charAt(i));
+            }
+        }
+    }
+
+    /** Deletes the last digit of the operand being entered. */
+    public void backspace() {
+        if (!isInErrorState && isEnteringDigits) {
+            currentOperand = Long.divideUnsigned(currentOperand, radix);
+        }
+    }
+
+    // --- Output ---
+
+    /** The current operand or result, sign-extended from the word size. */
+    public long getValue() {
+        return signExtend(currentOperand);
+    }
+
+    /**
+     * Gets the value to be shown on the main display in the current radix, or "Error".
+     */
+    public String getDisplayValue() {
+        if (isInErrorState) {
+            return "Error";
+        }
+        switch (radix) {
+            case RADIX_BIN:
+                return Long.toBinaryString(currentOperand);
+            case RADIX_OCT:
+                return Long.toOctalString(currentOperand);
+            case RADIX_HEX:
+                return Long.toHexString(currentOperand).toUpperCase();
+            default:
+                return Long.toString(signExtend(currentOperand));
+        }
+    }
+
+    public boolean isEnteringDigits() { return isEnteringDigits; }
+    public boolean isInErrorState() { return isInErrorState; }
+    public int getParenthesisBalance() { return parenthesisBalance; }
+
+    // --- Private Helper Methods ---
+
+    /** Maps an operator symbol to its code, or -1. */
+    private static int operatorCode(String operator) {
+        switch (operator) {
+            case "+": return OP_ADD;
+            case "-": return OP_SUBTRACT;
+            case "×": return OP_MULTIPLY;
+            case "÷": return OP_DIVIDE;
+            case "AND": return OP_AND;
+            case "OR": return OP_OR;
+            case "XOR": return OP_XOR;
+            case "<<": return OP_SHIFT_LEFT;
+            case ">>": return OP_SHIFT_RIGHT;
+            case "ROL": return OP_ROTATE_LEFT;
+            case "ROR": return OP_ROTATE_RIGHT;
+            default: return -1;
+        }
+    }
+
+    /**
+     * Pops the top operator and its operands, applies it and pushes the masked result.
+     * @return true if successful, false if an error occurred (error state is set).
+     */
+    private boolean processTopOperator() {
+        if (valueCount < 2 || operatorCount == 0) {
+            setErrorState();
+            return false;
+        }
+        int op = operatorStack[--operatorCount];
+        long right = valueStack[--valueCount];
+        long left = valueStack[--valueCount];
+        long result;
+
+        switch (op) {
+            case OP_ADD:
+                result = left + right;
+                break;
+            case OP_SUBTRACT:
+                result = left - right;
+                break;
+            case OP_MULTIPLY:
+                result = left * right;
+                break;
+            case OP_DIVIDE:
+                if (right == 0) {
+                    setErrorState();
+                    return false;
+                }
+                result = signExtend(left) / signExtend(right);
+                break;
+            case OP_AND:
+                result = left & right;
+                break;
+            case OP_OR:
+                result = left | right;
+                break;
+            case OP_XOR:
+                result = left ^ right;
+                break;
+            case OP_SHIFT_LEFT:
+                result = shiftCountInRange(right) ? left << right : 0;
+                break;
+            case OP_SHIFT_RIGHT:
+                result = shiftCountInRange(right) ? signExtend(left) >> right : (signExtend(left) < 0 ? -1 : 0);
+                break;
+            case OP_ROTATE_LEFT:
+                result = rotateLeft(left, (int) Long.remainderUnsigned(right, wordSize));
+                break;
+            case OP_ROTATE_RIGHT:
+                result = rotateLeft(left, wordSize - (int) Long.remainderUnsigned(right, wordSize));
+                break;
+            default:
+                setErrorState();
+                return false;
+        }
+
+        result &= mask;
+        valueStack[valueCount++] = result;
+        currentOperand = result;
+        return true;
+    }
+
+    private boolean shiftCountInRange(long count) {
+        return Long.compareUnsigned(count, wordSize) < 0;
+    }
+
+    /** Rotates left within the word size. */
+    private long rotateLeft(long value, int distance) {
+        distance %= wordSize;
+        if (distance == 0) {
+            return value;
+        }
+        return (value << distance) | (value >>> (wordSize - distance));
+    }
+
+    /** Interprets the low wordSize bits as a two's complement number. */
+    private long signExtend(long value) {
+        int unused = 64 - wordSize;
+        return (value << unused) >> unused;
+    }
+
+    private void pushValue(long value) {
+        if (valueCount == valueStack.length) {
+            valueStack = Arrays.copyOf(valueStack, valueCount * 2);
+        }
+        valueStack[valueCount++] = value & mask;
+    }
+
+    private void pushOperator(int op) {
+        if (operatorCount == operatorStack.length) {
+            operatorStack = Arrays.copyOf(operatorStack, operatorCount * 2);
+        }
+        operatorStack[operatorCount++] = op;
+    }
+
+    private void setErrorState() {
+        isInErrorState = true;
+        currentOperand = 0;
+        valueCount = 0;
+        operatorCount = 0;
+        isEnteringDigits = false;
+        operatorPending = false;
+        afterCloseParen = false;
+        parenthesisBalance = 0;
+    }
+}
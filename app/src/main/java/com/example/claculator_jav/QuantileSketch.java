@@ -0,0 +1,139 @@
+package com.example.claculator_jav;
+
+/**
+ * Mergeable quantile sketch with relative-error guarantees
+ * (logarithmic buckets, in the style of DDSketch).
+ * <p>
+ * A value v is counted in bucket ceil(log_gamma(|v|)), so any quantile is reported
+ * within RELATIVE_ACCURACY of a true sample value, whatever the range of the values.
+ * Positive and negative values use separate bucket windows that start at
+ * INITIAL_BUCKETS and grow to cover the buckets in use. Memory depends on the range
+ * of the values, not on their count: at most MAX_BUCKETS per sign (about 560 KB),
+ * reached only by values spanning 1e-300 to the largest double.
+ * Sketches built in parallel can be merged exactly.
+ */
+public class QuantileSketch {
+
+    // --- Constants ---
+    static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_INDEXABLE = 1e-300; // Smaller magnitudes count as zero
+    static final int INITIAL_BUCKETS = 256;
+    // Buckets between MIN_INDEXABLE and Double.MAX_VALUE, so a window never needs more
+    static final int MAX_BUCKETS = indexOf(Double.MAX_VALUE) - indexOf(MIN_INDEXABLE) + 1;
+
+    /** A window of consecutive bucket counts that grows to cover every bucket added. */
+    private static final class Store {
+        private long[] counts = new long[INITIAL_BUCKETS];
+        private int offset;          // Bucket index of counts[0]
+        private int minIndex;        // Lowest and highest used bucket indexes
+        private int maxIndex;
+        private long total;
+
+        void add(int index, long count) {
+            if (total == 0) {
+                offset = index - counts.length / 2;
+                minIndex = index;
+                maxIndex = index;
+            } else if (index < offset || index >= offset + counts.length) {
+                grow(Math.min(minIndex, index), Math.max(maxIndex, index));
+            }
+            counts[index - offset] += count;
+            minIndex = Math.min(minIndex, index);
+            maxIndex = Math.max(maxIndex, index);
+            total += count;
+        }
+
+        /** Reallocates the window to cover [low, high] with room on both sides, keeping every count. */
+        private void grow(int low, int high) {
+            int span = high - low + 1;
+            int length = counts.length * 2;
+            while (length < span) {
+                length *= 2;
+            }
+            length = Math.max(span, Math.min(length, MAX_BUCKETS));
+            long[] grown = new long[length];
+            int newOffset = low - (length - span) / 2;
+            System.arraycopy(counts, minIndex - offset, grown, minIndex - newOffset, maxIndex - minIndex + 1);
+            counts = grown;
+            offset = newOffset;
+        }
+
+        void mergeFrom(Store other) {
+            if (other.total == 0) return;
+            for (int index = other.minIndex; index <= other.maxIndex; index++) {
+                long count = other.counts[index - other.offset];
+                if (count != 0) {
+                    add(index, count);
+                }
+            }
+        }
+
+        long count(int index) {
+            return counts[index - offset];
+        }
+    }
+
+    private final Store positive = new Store();
+    private final Store negative = new Store(); // Indexed by magnitude
+    private long zeroCount = 0;
+
+    /** Adds a finite value. */
+    public void add(double value) {
+        if (value >= MIN_INDEXABLE) {
+            positive.add(indexOf(value), 1);
+        } else if (value <= -MIN_INDEXABLE) {
+            negative.add(indexOf(-value), 1);
+        } else {
+            zeroCount++;
+        }
+    }
+
+    /** Adds all counts of another sketch to this one. */
+    public void merge(QuantileSketch other) {
+        positive.mergeFrom(other.positive);
+        negative.mergeFrom(other.negative);
+        zeroCount += other.zeroCount;
+    }
+
+    public long getCount() {
+        return positive.total + negative.total + zeroCount;
+    }
+
+    /**
+     * Estimates the q-quantile (0 &lt;= q &lt;= 1), or NaN if the sketch is empty.
+     */
+    public double getQuantile(double q) {
+        long count = getCount();
+        if (count == 0 || q < 0 || q > 1) {
+            return Double.NaN;
+        }
+        long rank = (long) (q * (count - 1));
+
+        // Most negative values first: negative buckets by descending magnitude
+        long seen = 0;
+        if (negative.total > 0) {
+            for (int index = negative.maxIndex; index >= negative.minIndex; index--) {
+                seen += negative.count(index);
+                if (seen > rank) return -valueOf(index);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) return 0;
+        for (int index = positive.minIndex; index <= positive.maxIndex; index++) {
+            seen += positive.count(index);
+            if (seen > rank) return valueOf(index);
+        }
+        return valueOf(positive.maxIndex);
+    }
+
+    private static int indexOf(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    /** Representative value of a bucket: within RELATIVE_ACCURACY of anything in it. */
+    private static double valueOf(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.claculator_jav;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+/**
+ * Evaluates Σ (sum) and Π (product) of an expression in an integer index over a range,
+ * e.g. Σ(i = 1..n) of "i × i + 1".
+ * <p>
+ * The term is compiled once with ExpressionCompiler and evaluated with the engine's
+ * BigDecimal arithmetic. Closed forms are used where the shape allows:
+ * <ul>
+ *   <li>Σ of a polynomial in i (constant, linear, ...): the first degree + 1 terms give
+ *       the forward differences Δ^k f, and Σ f = Σ_k Δ^k f × C(n, k + 1), exactly.</li>
+ *   <li>Σ of a geometric term c × r^i: f(from) × (r^n − 1) / (r − 1), with r^n by squaring.</li>
+ *   <li>Π of a constant: c^n.</li>
+ *   <li>Π of a polynomial with a zero factor in the range: 0, found by searching the
+ *       monotone runs of its differences rather than by reaching that factor.</li>
+ * </ul>
+ * Anything else is reduced in chunks on the common fork/join pool, with exact partial sums
+ * (products are rounded to PRODUCT_CONTEXT, as they grow without bound). The reduction
+ * stops at a deadline or when cancelled, so huge ranges never block the caller.
+ */
+public final class SeriesEvaluator {
+
+    /** Outcome of an evaluation. */
+    public enum Status { DONE, TIME_LIMIT, CANCELLED, ERROR }
+
+    /** Evaluation result. The value is null unless the status is DONE. */
+    public static final class Result {
+        private final Status status;
+        private final BigDecimal value;
+        private final boolean closedForm;
+        private final String error;
+
+        Result(Status status, BigDecimal value, boolean closedForm, String error) {
+            this.status = status;
+            this.value = value;
+            this.closedForm = closedForm;
+            this.error = error;
+        }
+
+        public Status getStatus() { return status; }
+        public BigDecimal getValue() { return value; }
+        public boolean isClosedForm() { return closedForm; }
+        public String getError() { return error; }
+
+        @Override
+        public String toString() {
+            return "Result{" + status + (value != null ? ", value=" + CalculatorEngine.formatBigDecimal(value) : "")
+                    + (closedForm ? ", closed form" : "") + (error != null ? ", " + error : "") + "}";
+        }
+    }
+
+    // --- Constants ---
+    static final long DEFAULT_TIME_LIMIT_MILLIS = 5000;
+    private static final int MAX_CLOSED_FORM_DEGREE = 32;
+    private static final long CHUNK_SIZE = 4096;          // Terms per parallel task (and per cancellation check)
+    static final MathContext PRODUCT_CONTEXT = MathContext.DECIMAL128;
+
+    private SeriesEvaluator() {}
+
+    /**
+     * Σ of term over index = from..to (inclusive); an empty range sums to 0.
+     * @param cancelled Checked between chunks; set it to abandon the reduction.
+     * @throws IllegalArgumentException If the term is malformed.
+     */
+    public static Result sum(String term, String index, long from, long to, long timeLimitMillis, AtomicBoolean cancelled) {
+        CompiledExpression compiled = ExpressionCompiler.compile(term, index);
+        if (to < from) {
+            return new Result(Status.DONE, BigDecimal.ZERO, true, null);
+        }
+        try {
+            int degree = compiled.polynomialDegree(0);
+            if (degree >= 0 && degree <= MAX_CLOSED_FORM_DEGREE && to - from > degree) {
+                return new Result(Status.DONE, polynomialSum(compiled, degree, from, to), true, null);
+            }
+            BigDecimal ratio = degree < 0 ? compiled.geometricRatio(0) : null;
+            if (ratio != null) {
+                return new Result(Status.DONE, geometricSum(compiled, ratio, from, to), true, null);
+            }
+            return reduce(compiled, from, to, false, timeLimitMillis, cancelled);
+        } catch (ArithmeticException e) {
+            return new Result(Status.ERROR, null, false, CalculatorEngine.errorMessage(e));
+        }
+    }
+
+    /**
+     * Π of term over index = from..to (inclusive); an empty range gives 1.
+     * @param cancelled Checked between chunks; set it to abandon the reduction.
+     * @throws IllegalArgumentException If the term is malformed.
+     */
+    public static Result product(String term, String index, long from, long to, long timeLimitMillis, AtomicBoolean cancelled) {
+        CompiledExpression compiled = ExpressionCompiler.compile(term, index);
+        if (to < from) {
+            return new Result(Status.DONE, BigDecimal.ONE, true, null);
+        }
+        try {
+            long count = to - from + 1;
+            int degree = compiled.polynomialDegree(0);
+            if (degree >= 0 && degree <= MAX_CLOSED_FORM_DEGREE && hasZeroFactor(compiled, degree, from, to)) {
+                return new Result(Status.DONE, BigDecimal.ZERO, true, null);
+            }
+            if (degree == 0 && count <= 999_999_999L) {
+                BigDecimal factor = compiled.evaluateExact(BigDecimal.valueOf(from));
+                return new Result(Status.DONE, factor.pow((int) count, PRODUCT_CONTEXT), true, null);
+            }
+            return reduce(compiled, from, to, true, timeLimitMillis, cancelled);
+        } catch (ArithmeticException e) {
+            return new Result(Status.ERROR, null, false, CalculatorEngine.errorMessage(e));
+        }
+    }
+
+    /**
+     * Closed-form sum of a polynomial of the given degree: from the first degree + 1 terms,
+     * Σ_{j=0}^{n-1} f(from + j) = Σ_k Δ^k f(from) × C(n, k + 1). Exact.
+     */
+    static BigDecimal polynomialSum(CompiledExpression term, int degree, long from, long to) {
+        BigDecimal[] differences = new BigDecimal[degree + 1];
+        for (int k = 0; k <= degree; k++) {
+            differences[k] = term.evaluateExact(BigDecimal.valueOf(from + k));
+        }
+        // In place: differences[k] becomes Δ^k f(from)
+        for (int order = 1; order <= degree; order++) {
+            for (int k = degree; k >= order; k--) {
+                differences[k] = differences[k].subtract(differences[k - 1]);
+            }
+        }
+
+        BigInteger n = BigInteger.valueOf(to).subtract(BigInteger.valueOf(from)).add(BigInteger.ONE);
+        BigInteger binomial = n; // C(n, 1)
+        BigDecimal total = BigDecimal.ZERO;
+        for (int k = 0; k <= degree; k++) {
+            total = total.add(differences[k].multiply(new BigDecimal(binomial)));
+            // C(n, k + 2) = C(n, k + 1) × (n - k - 1) / (k + 2), exact at every step
+            binomial = binomial.multiply(n.subtract(BigInteger.valueOf(k + 1))).divide(BigInteger.valueOf(k + 2));
+        }
+        return total;
+    }
+
+    /**
+     * Closed-form sum of a geometric series with the given ratio between consecutive terms:
+     * Σ_{j=0}^{n-1} f(from) × r^j = f(from) × (r^n − 1) ÷ (r − 1), with the engine's power
+     * and division (a single rounding at the end, exact for whole ratios).
+     */
+    static BigDecimal geometricSum(CompiledExpression term, BigDecimal ratio, long from, long to) {
+        BigDecimal first = term.evaluateExact(BigDecimal.valueOf(from));
+        BigDecimal n = BigDecimal.valueOf(to).subtract(BigDecimal.valueOf(from)).add(BigDecimal.ONE);
+        if (ratio.compareTo(BigDecimal.ONE) == 0) {
+            return first.multiply(n);
+        }
+        BigDecimal growth = CalculatorEngine.applyBinaryOperator(ratio, "^", n).subtract(BigDecimal.ONE);
+        return CalculatorEngine.applyBinaryOperator(first.multiply(growth), "÷", ratio.subtract(BigDecimal.ONE));
+    }
+
+    /**
+     * Whether a polynomial term is exactly zero at some index in from..to, found without
+     * visiting every index, so a product is decided before any reduction. The differences
+     * Δ^k f are monotone wherever Δ^(k+1) f keeps its sign: starting from the constant
+     * Δ^degree f, each level's sign changes are found by binary search within the monotone
+     * runs of the level above. At level 0 a run holds a zero only where its sign changes.
+     */
+    static boolean hasZeroFactor(CompiledExpression term, int degree, long from, long to) {
+        long[] bounds = { from, to }; // Δ^k f is monotone between consecutive bounds
+        int count = 2;
+        for (int k = degree - 1; k >= 0; k--) {
+            long[] next = new long[count * 2];
+            int n = 0;
+            for (int j = 0; j + 1 < count; j++) {
+                long low = bounds[j];
+                long high = bounds[j + 1];
+                next[n++] = low;
+                int sign = difference(term, k, low).signum();
+                if (sign == 0 || difference(term, k, high).signum() == sign) {
+                    if (k == 0 && sign == 0) return true;
+                    continue; // Keeps its sign (or starts at 0) on the whole run
+                }
+                // First index of the run whose sign differs from the start
+                long first = low + 1;
+                long last = high;
+                while (first < last) {
+                    long mid = first + ((last - first) >>> 1);
+                    if (difference(term, k, mid).signum() != sign) last = mid; else first = mid + 1;
+                }
+                if (k == 0 && term.evaluateExact(BigDecimal.valueOf(first)).signum() == 0) return true;
+                next[n++] = first;
+            }
+            next[n++] = bounds[count - 1];
+            bounds = next;
+            count = n;
+        }
+        return false;
+    }
+
+    /** Forward difference Δ^order f(index) = Σ_j (−1)^(order − j) × C(order, j) × f(index + j). Exact. */
+    private static BigDecimal difference(CompiledExpression term, int order, long index) {
+        BigDecimal total = BigDecimal.ZERO;
+        long binomial = 1; // C(order, j); at most C(32, 16) here
+        for (int j = 0; j <= order; j++) {
+            BigDecimal value = term.evaluateExact(BigDecimal.valueOf(index).add(BigDecimal.valueOf(j)))
+                    .multiply(BigDecimal.valueOf(binomial));
+            total = (order - j) % 2 == 0 ? total.add(value) : total.subtract(value);
+            binomial = binomial * (order - j) / (j + 1);
+        }
+        return total;
+    }
+
+    /** Chunked parallel reduction with exact partial sums (or rounded partial products). */
+    private static Result reduce(CompiledExpression term, long from, long to, boolean multiply,
+                                 long timeLimitMillis, AtomicBoolean cancelled) {
+        long deadline = System.nanoTime() + timeLimitMillis * 1_000_000L;
+        AtomicBoolean stop = new AtomicBoolean(false);
+        long chunks = (to - from) / CHUNK_SIZE + 1;
+        BigDecimal identity = multiply ? BigDecimal.ONE : BigDecimal.ZERO;
+
+        BigDecimal total = LongStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> {
+                    if (stop.get()) return identity;
+                    if (cancelled.get() || System.nanoTime() - deadline > 0) {
+                        stop.set(true);
+                        return identity;
+                    }
+                    long start = from + chunk * CHUNK_SIZE;
+                    long end = Math.min(to, start + CHUNK_SIZE - 1);
+                    BigDecimal partial = identity;
+                    for (long i = start; i <= end; i++) {
+                        BigDecimal value = term.evaluateExact(BigDecimal.valueOf(i));
+                        if (multiply) {
+                            partial = partial.multiply(value, PRODUCT_CONTEXT);
+                            if (partial.signum() == 0) {
+                                stop.set(true); // A zero factor decides the product
+                                return BigDecimal.ZERO;
+                            }
+                        } else {
+                            partial = partial.add(value);
+                        }
+                    }
+                    return partial;
+                })
+                .reduce(identity, multiply ? (a, b) -> a.multiply(b, PRODUCT_CONTEXT) : BigDecimal::add);
+
+        if (multiply && total.signum() == 0) {
+            return new Result(Status.DONE, BigDecimal.ZERO, false, null);
+        }
+        if (stop.get()) {
+            return new Result(cancelled.get() ? Status.CANCELLED : Status.TIME_LIMIT, null, false, null);
+        }
+        return new Result(Status.DONE, total, false, null);
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.claculator_jav;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs many independent calculator sessions (e.g. one per tab) on one small shared worker
+ * pool instead of a thread per session.
+ * <p>
+ * Each session has its own engine and a serial lane: tasks submitted to a session run one at
+ * a time in submission order, while different sessions run in parallel on the pool. A lane
+ * only occupies a worker while it has queued tasks, and yields the worker after a batch so a
+ * busy session can't starve the others. Each session also has a compute lane on a second,
+ * equally small pool, for long jobs (solves, matrices, file transfers) that would otherwise
+ * hold up keystrokes on the engine lane.
+ * <p>
+ * Sessions that stay idle longer than the idle timeout are parked: the engine's state is
+ * written to a file in the state directory (or kept as a compact byte array if there is
+ * none) and the engine is dropped. The next task on the lane rebuilds it transparently.
+ * Per-session queue depth (of both lanes), peak depth and completed task counts are
+ * available from getStats() for monitoring.
+ */
+public final class SessionManager {
+
+    // --- Constants ---
+    static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60_000;
+    private static final int MAX_TASKS_PER_TURN = 64; // Tasks a lane runs before yielding its worker
+
+    private static SessionManager defaultManager;
+
+    /** Point-in-time metrics of one session's lane. */
+    public static final class SessionStats {
+        public final int id;
+        public final int queueDepth;     // Tasks submitted but not finished (including a running one)
+        public final int maxQueueDepth;  // Highest queue depth seen
+        public final long completedTasks;
+        public final int computeQueueDepth;     // The same for the compute lane
+        public final int maxComputeQueueDepth;
+        public final long completedComputeTasks;
+        public final boolean parked;
+
+        SessionStats(int id, Lane lane, Lane computeLane, boolean parked) {
+            this.id = id;
+            this.queueDepth = lane.queueDepth.get();
+            this.maxQueueDepth = lane.maxQueueDepth.get();
+            this.completedTasks = lane.completedTasks.get();
+            this.computeQueueDepth = computeLane.queueDepth.get();
+            this.maxComputeQueueDepth = computeLane.maxQueueDepth.get();
+            this.completedComputeTasks = computeLane.completedTasks.get();
+            this.parked = parked;
+        }
+
+        @Override
+        public String toString() {
+            return "Session " + id + ": depth=" + queueDepth + " max=" + maxQueueDepth
+                    + " completed=" + completedTasks + " compute depth=" + computeQueueDepth
+                    + " max=" + maxComputeQueueDepth + " completed=" + completedComputeTasks
+                    + (parked ? " (parked)" : "");
+        }
+    }
+
+    /**
+     * A serial queue of tasks on one of the manager's pools: tasks run one at a time in
+     * submission order, and a worker is only occupied while tasks are queued.
+     */
+    private static final class Lane {
+        private final int sessionId;
+        private final Executor workers;
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>(); // Guarded by itself
+        private boolean scheduled = false; // A drain is queued or running on the pool; guarded by queue
+        private final AtomicInteger queueDepth = new AtomicInteger(); // Tasks submitted but not finished
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+        private final AtomicLong completedTasks = new AtomicLong();
+
+        Lane(int sessionId, Executor workers) {
+            this.sessionId = sessionId;
+            this.workers = workers;
+        }
+
+        void enqueue(Runnable task) {
+            int depth = queueDepth.incrementAndGet();
+            maxQueueDepth.accumulateAndGet(depth, Math::max);
+            boolean schedule;
+            synchronized (queue) {
+                queue.add(task);
+                schedule = !scheduled;
+                scheduled = true;
+            }
+            if (schedule) {
+                workers.execute(this::drain);
+            }
+        }
+
+        /** Runs queued tasks in order on a pool worker, yielding after a batch. */
+        private void drain() {
+            for (int i = 0; i < MAX_TASKS_PER_TURN; i++) {
+                Runnable task;
+                synchronized (queue) {
+                    task = queue.poll();
+                    if (task == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.err.println("SessionManager: Task failed in session " + sessionId + ": " + e);
+                } finally {
+                    queueDepth.decrementAndGet();
+                    completedTasks.incrementAndGet();
+                }
+            }
+            workers.execute(this::drain); // More work left: requeue behind the other sessions
+        }
+    }
+
+    /**
+     * One calculator session: an engine plus the serial lane that owns it. Use it as the
+     * Executor for all work touching the engine; getEngine() may only be called from tasks
+     * running on the lane (or before the first task is submitted).
+     */
+    public final class Session implements Executor {
+        private final int id;
+        private final Lane lane;        // Engine tasks
+        private final Lane computeLane; // Long jobs that must not hold up the engine lane
+        private volatile boolean closed = false;
+        private volatile long lastActiveNanos = System.nanoTime();
+
+        // --- Engine, owned by the lane ---
+        private CalculatorEngine engine = newEngine(); // null while parked
+        private byte[] parkedState;                                // In-memory state when there is no state directory
+        private final List<CalculatorEngine.ChangeListener> listeners = new ArrayList<>();
+        private volatile boolean parked = false;
+
+        private Session(int id) {
+            this.id = id;
+            this.lane = new Lane(id, pool);
+            this.computeLane = new Lane(id, computePool);
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        /** Queues a task on this session's lane. */
+        @Override
+        public void execute(Runnable task) {
+            if (closed) {
+                throw new RejectedExecutionException("Session " + id + " is closed");
+            }
+            lastActiveNanos = System.nanoTime();
+            lane.enqueue(task);
+        }
+
+        /**
+         * Queues a long job (a solve, a matrix operation, a file transfer) on this session's
+         * compute lane. Compute tasks run in order, in parallel with the engine lane, and must
+         * not touch the engine; hand results back with execute().
+         */
+        public void compute(Runnable task) {
+            if (closed) {
+                throw new RejectedExecutionException("Session " + id + " is closed");
+            }
+            computeLane.enqueue(task);
+        }
+
+        /**
+         * The session's engine, rebuilt from its parked state if needed. Only call this from
+         * a task running on this session.
+         */
+        public CalculatorEngine getEngine() {
+            if (engine == null) {
+                unpark();
+            }
+            return engine;
+        }
+
+        /** Registers an engine listener that is kept across parking. Call from the lane or before the first task. */
+        public void addChangeListener(CalculatorEngine.ChangeListener listener) {
+            listeners.add(listener);
+            if (engine != null) {
+                engine.addChangeListener(listener);
+            }
+        }
+
+        /** Rejects further tasks; already queued tasks still run, then the session is removed. */
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lane.enqueue(() -> {
+                engine = null;
+                parkedState = null;
+                if (stateDirectory != null) {
+                    stateFile().delete();
+                }
+                sessions.remove(id);
+            });
+        }
+
+        public SessionStats getStats() {
+            return new SessionStats(id, lane, computeLane, parked);
+        }
+
+        /** Saves the engine state and drops the engine. Runs on the lane. */
+        private void park() {
+            if (engine == null || closed || lane.queueDepth.get() > 1) {
+                return; // Already parked, closing, or work arrived since the park was queued
+            }
+            long start = System.nanoTime();
+            try {
+                if (stateDirectory != null) {
+                    try (OutputStream file = new FileOutputStream(stateFile())) {
+                        writeState(new BufferedOutputStream(file));
+                    }
+                } else {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    writeState(bytes);
+                    parkedState = bytes.toByteArray();
+                }
+            } catch (IOException e) {
+                System.err.println("SessionManager: Could not park session " + id + ": " + e.getMessage());
+                return; // Keep the engine in memory
+            }
+            engine = null;
+            parked = true;
+            System.out.println("SessionManager: Parked session " + id + " in " + (System.nanoTime() - start) / 1000 + " us");
+        }
+
+        private void writeState(OutputStream stream) throws IOException {
+            DataOutputStream out = new DataOutputStream(stream);
+            engine.writeState(out);
+            out.flush();
+        }
+
+        /** Rebuilds the engine from its parked state and re-attaches the listeners. Runs on the lane. */
+        private void unpark() {
+            CalculatorEngine restored = newEngine();
+            try (InputStream stream = parkedState != null
+                    ? new ByteArrayInputStream(parkedState)
+                    : new BufferedInputStream(new FileInputStream(stateFile()))) {
+                restored.readState(new DataInputStream(stream));
+            } catch (IOException e) {
+                // The state file was lost or damaged: continue from a cleared calculator
+                System.err.println("SessionManager: Could not restore session " + id + ": " + e.getMessage());
+                restored = newEngine();
+            }
+            for (CalculatorEngine.ChangeListener listener : listeners) {
+                restored.addChangeListener(listener);
+            }
+            engine = restored;
+            parkedState = null;
+            parked = false;
+            if (stateDirectory != null) {
+                stateFile().delete();
+            }
+        }
+
+        private File stateFile() {
+            return new File(stateDirectory, "session-" + id + ".state");
+        }
+    }
+
+    // --- Manager State ---
+    private final ScheduledThreadPoolExecutor pool;
+    private final ExecutorService computePool; // Compute lanes, so long jobs never take an engine lane's worker
+    private final File stateDirectory; // null: park state in memory
+    private final long idleTimeoutNanos;
+    private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    /**
+     * @param threads Worker threads shared by all sessions, and as many again for compute lanes.
+     * @param stateDirectory Where parked engine state is written, or null to keep it in memory.
+     * @param idleTimeoutMillis How long a session may be idle before it is parked.
+     */
+    public SessionManager(int threads, File stateDirectory, long idleTimeoutMillis) {
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        pool = new ScheduledThreadPoolExecutor(threads, task -> {
+            Thread thread = new Thread(task, "session-worker-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger computeThreadNumber = new AtomicInteger(1);
+        computePool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "session-compute-" + computeThreadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.stateDirectory = stateDirectory;
+        if (stateDirectory != null && !stateDirectory.isDirectory() && !stateDirectory.mkdirs()) {
+            System.err.println("SessionManager: Cannot create " + stateDirectory);
+        }
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        long sweepInterval = Math.max(1, idleTimeoutMillis / 4);
+        pool.scheduleWithFixedDelay(this::parkIdleSessions, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The process-wide manager, shared by all calculator ViewModels: a pool of up to four
+     * workers, parking idle sessions under java.io.tmpdir (the app's cache directory on Android).
+     */
+    public static synchronized SessionManager getDefault() {
+        if (defaultManager == null) {
+            int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+            File directory = new File(System.getProperty("java.io.tmpdir"), "calculator-sessions");
+            defaultManager = new SessionManager(threads, directory, DEFAULT_IDLE_TIMEOUT_MILLIS);
+        }
+        return defaultManager;
+    }
+
+    /** A cleared engine without per-step logging, which would run on every keystroke. */
+    private static CalculatorEngine newEngine() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setQuiet(true);
+        return engine;
+    }
+
+    /** Creates a session with a cleared engine. */
+    public Session openSession() {
+        Session session = new Session(nextId.getAndIncrement());
+        sessions.put(session.id, session);
+        return session;
+    }
+
+    /** Metrics of all open sessions, ordered by id. */
+    public List<SessionStats> getStats() {
+        List<SessionStats> stats = new ArrayList<>();
+        for (Session session : sessions.values()) {
+            stats.add(session.getStats());
+        }
+        stats.sort((a, b) -> Integer.compare(a.id, b.id));
+        return stats;
+    }
+
+    /** Total tasks queued or running across all sessions, on engine and compute lanes. */
+    public int getTotalQueueDepth() {
+        int total = 0;
+        for (Session session : sessions.values()) {
+            total += session.lane.queueDepth.get() + session.computeLane.queueDepth.get();
+        }
+        return total;
+    }
+
+    /**
+     * Queues a park on every session idle for longer than the timeout. The park itself runs
+     * on the session's lane, so it is ordered with the session's own tasks.
+     */
+    void parkIdleSessions() {
+        long now = System.nanoTime();
+        for (Session session : sessions.values()) {
+            if (!session.parked && !session.closed && session.lane.queueDepth.get() == 0
+                    && now - session.lastActiveNanos > idleTimeoutNanos) {
+                try {
+                    session.execute(session::park);
+                } catch (RejectedExecutionException e) {
+                    // Closed in the meantime
+                }
+            }
+        }
+    }
+
+    /** Stops the workers of both pools. Queued tasks are discarded. */
+    public void shutdown() {
+        pool.shutdownNow();
+        computePool.shutdownNow();
+    }
+}
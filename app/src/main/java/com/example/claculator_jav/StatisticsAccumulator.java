@@ -0,0 +1,229 @@
+package com.example.claculator_jav;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Single-pass, mergeable summary statistics for the statistics mode.
+ * <p>
+ * Mean and variance use Welford's update (Chan et al. when merging), the sum uses
+ * Neumaier's compensated summation, and quantiles come from a QuantileSketch.
+ * Memory is constant in the number of values, and accumulators built on separate
+ * threads can be merged, so large inputs are reduced in parallel.
+ * Not thread-safe: each thread works on its own accumulator and the results are merged.
+ */
+public class StatisticsAccumulator {
+
+    // --- Constants ---
+    private static final int PARALLEL_THRESHOLD = 1 << 14; // Below this, splitting costs more than it saves
+    private static final int IMPORT_BATCH_SIZE = 1 << 16;  // Values parsed per batch while importing
+
+    // --- State ---
+    private long count = 0;
+    private double mean = 0;
+    private double m2 = 0;             // Sum of squared deviations from the mean
+    private double sum = 0;
+    private double sumCompensation = 0; // Low-order bits lost from sum
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final QuantileSketch sketch = new QuantileSketch();
+
+    /** Adds one value. NaN and infinite values are ignored. */
+    public void add(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        addToSum(value);
+        if (value < min) min = value;
+        if (value > max) max = value;
+        sketch.add(value);
+    }
+
+    /** Merges another accumulator into this one, as if its values had been added here. */
+    public void merge(StatisticsAccumulator other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            mean = other.mean;
+            m2 = other.m2;
+        } else {
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        }
+        count += other.count;
+        addToSum(other.sum);
+        sumCompensation += other.sumCompensation;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sketch.merge(other.sketch);
+    }
+
+    /** Neumaier's variant of Kahan summation: also exact when the addend is the larger term. */
+    private void addToSum(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            sumCompensation += (sum - t) + value;
+        } else {
+            sumCompensation += (value - t) + sum;
+        }
+        sum = t;
+    }
+
+    // --- Results ---
+    public long getCount() { return count; }
+    public double getSum() { return sum + sumCompensation; }
+    public double getMean() { return count > 0 ? mean : Double.NaN; }
+    public double getMin() { return count > 0 ? min : Double.NaN; }
+    public double getMax() { return count > 0 ? max : Double.NaN; }
+
+    /** Sample variance (n - 1 denominator), or NaN for fewer than two values. */
+    public double getVariance() {
+        return count > 1 ? m2 / (count - 1) : Double.NaN;
+    }
+
+    /** Population variance (n denominator), or NaN if empty. */
+    public double getPopulationVariance() {
+        return count > 0 ? m2 / count : Double.NaN;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /** Approximate q-quantile (e.g. 0.5 for the median), clamped to the exact min and max. */
+    public double getQuantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (q <= 0) return min;
+        if (q >= 1) return max;
+        return Math.max(min, Math.min(max, sketch.getQuantile(q)));
+    }
+
+    /** Multi-line summary for display, formatted like engine values. */
+    public String describe() {
+        if (count == 0) {
+            return "No values";
+        }
+        return "Count: " + count
+                + "\nSum: " + CalculatorEngine.formatDouble(getSum())
+                + "\nMean: " + CalculatorEngine.formatDouble(getMean())
+                + "\nStd Dev: " + CalculatorEngine.formatDouble(getStandardDeviation())
+                + "\nVariance: " + CalculatorEngine.formatDouble(getVariance())
+                + "\nMin: " + CalculatorEngine.formatDouble(getMin())
+                + "\nMax: " + CalculatorEngine.formatDouble(getMax())
+                + "\nMedian ≈ " + CalculatorEngine.formatDouble(getQuantile(0.5))
+                + "\nP90 ≈ " + CalculatorEngine.formatDouble(getQuantile(0.9))
+                + "\nP99 ≈ " + CalculatorEngine.formatDouble(getQuantile(0.99));
+    }
+
+    // --- Bulk Construction ---
+
+    /**
+     * Summarizes values[from, to). Large ranges are split across the common
+     * fork/join pool and the partial accumulators merged.
+     */
+    public static StatisticsAccumulator of(double[] values, int from, int to) {
+        if (to - from < PARALLEL_THRESHOLD) {
+            StatisticsAccumulator accumulator = new StatisticsAccumulator();
+            for (int i = from; i < to; i++) {
+                accumulator.add(values[i]);
+            }
+            return accumulator;
+        }
+        return Arrays.stream(values, from, to).parallel()
+                .collect(StatisticsAccumulator::new, StatisticsAccumulator::add, StatisticsAccumulator::merge);
+    }
+
+    /**
+     * Streams numbers from a Reader (e.g. an imported file). Values are separated by
+     * whitespace, commas or semicolons and read by ExpressionTokenizer's number path with
+     * exponents enabled, after an optional sign ("-2", "1.5E-3", "2.5e2"); any other word
+     * is skipped whole and counted. Parsing is sequential, but each full batch is reduced in
+     * parallel while the next batch is being parsed. The reader is not closed.
+     */
+    public static StatisticsAccumulator fromReader(Reader reader) throws IOException {
+        StatisticsAccumulator total = new StatisticsAccumulator();
+        ExpressionTokenizer tokenizer = new ExpressionTokenizer(reader, true);
+        double[] batch = new double[IMPORT_BATCH_SIZE];
+        double[] spare = new double[IMPORT_BATCH_SIZE];
+        CompletableFuture<StatisticsAccumulator> pending = null;
+        int size = 0;
+        long skipped = 0;
+
+        // The current word: adjacent tokens up to the next separator
+        int tokens = 0;
+        long wordEnd = -1;
+        boolean valid = true;   // So far an optional sign, then at most one number
+        boolean number = false;
+        boolean negative = false;
+        double value = 0;
+
+        while (true) {
+            int type = tokenizer.next();
+            boolean separator = type == ExpressionTokenizer.END
+                    || (type == ExpressionTokenizer.INVALID && isSeparator(tokenizer.text()));
+            if (tokens > 0 && (separator || tokenizer.offset() != wordEnd)) {
+                if (!valid || !number) {
+                    skipped++;
+                } else {
+                    batch[size++] = negative ? -value : value;
+                    if (size == batch.length) {
+                        if (pending != null) {
+                            total.merge(pending.join()); // Frees the spare buffer
+                        }
+                        final double[] full = batch;
+                        pending = CompletableFuture.supplyAsync(() -> of(full, 0, full.length));
+                        batch = spare;
+                        spare = full;
+                        size = 0;
+                    }
+                }
+                tokens = 0;
+                valid = true;
+                number = false;
+                negative = false;
+            }
+            if (type == ExpressionTokenizer.END) {
+                break;
+            }
+            if (separator) {
+                continue;
+            }
+            tokens++;
+            wordEnd = tokenizer.endOffset();
+            if (tokens == 1 && type == ExpressionTokenizer.OPERATOR
+                    && (tokenizer.operator().equals("-") || tokenizer.operator().equals("+"))) {
+                negative = tokenizer.operator().equals("-");
+            } else if (type == ExpressionTokenizer.NUMBER && valid && !number) {
+                value = Double.parseDouble(tokenizer.text());
+                number = true;
+            } else {
+                valid = false; // Anything else, or a second sign or number
+            }
+        }
+
+        if (pending != null) {
+            total.merge(pending.join());
+        }
+        total.merge(of(batch, 0, size));
+        if (skipped > 0) {
+            System.out.println("StatisticsAccumulator: Skipped " + skipped + " non-numeric tokens");
+        }
+        return total;
+    }
+
+    /** Commas and semicolons separate values, like whitespace; the tokenizer reports them as INVALID. */
+    private static boolean isSeparator(String text) {
+        return text.equals(",") || text.equals(";");
+    }
+}
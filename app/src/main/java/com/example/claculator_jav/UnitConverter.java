@@ -0,0 +1,308 @@
+package com.example.claculator_jav;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit conversion over a table of categories (length, mass, temperature, ...).
+ * <p>
+ * The table (res/raw/units.txt) defines each unit as an affine map to another unit of the
+ * same category: x unit = x × factor + offset reference. Definitions form a graph whose
+ * edges can be followed both ways; at load time each category is walked breadth-first from
+ * its base unit to get every unit's composite map to the base, and from those the direct
+ * map for every (from, to) pair is precomputed. A conversion is then a single
+ * multiply-add, so converting one value into every unit of a category is cheap enough to
+ * redo on each keystroke.
+ * <p>
+ * Composition uses 34-digit (DECIMAL128) arithmetic, which keeps exact table chains exact
+ * (1 mi = 1.609344 km); results are rounded to the display's 16 significant digits.
+ * Immutable once loaded, so it can be shared between threads.
+ */
+public final class UnitConverter {
+
+    // --- Constants ---
+    private static final MathContext COMPOSE_CONTEXT = MathContext.DECIMAL128;
+    private static final MathContext RESULT_CONTEXT = new MathContext(CalculatorEngine.MAX_DIGITS, RoundingMode.HALF_UP);
+
+    /** x ↦ x × scale + offset. */
+    private static final class Affine {
+        final BigDecimal scale;
+        final BigDecimal offset;
+        final boolean hasOffset;
+
+        Affine(BigDecimal scale, BigDecimal offset) {
+            this.scale = strip(scale);
+            this.offset = strip(offset);
+            this.hasOffset = offset.signum() != 0;
+        }
+
+        BigDecimal apply(BigDecimal value) {
+            BigDecimal result = value.multiply(scale, COMPOSE_CONTEXT);
+            return hasOffset ? result.add(offset, COMPOSE_CONTEXT) : result;
+        }
+
+        /** The reverse map: y = x × scale + offset  ⇔  x = (y − offset) ÷ scale. */
+        Affine inverse() {
+            BigDecimal reciprocal = BigDecimal.ONE.divide(scale, COMPOSE_CONTEXT);
+            return new Affine(reciprocal, offset.negate().multiply(reciprocal, COMPOSE_CONTEXT));
+        }
+
+        private static BigDecimal strip(BigDecimal value) {
+            return value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+        }
+    }
+
+    /** One category's units and its precomputed pair maps: conversions[from][to]. */
+    private static final class Category {
+        final String name;
+        final List<String> units;
+        final Map<String, Integer> indexes = new HashMap<>();
+        final Affine[][] conversions;
+
+        Category(String name, List<String> units, Affine[] toBase) {
+            this.name = name;
+            this.units = Collections.unmodifiableList(units);
+            int count = units.size();
+            conversions = new Affine[count][count];
+            for (int i = 0; i < count; i++) {
+                indexes.put(units.get(i), i);
+                for (int j = 0; j < count; j++) {
+                    conversions[i][j] = compose(toBase[i], toBase[j]);
+                }
+            }
+        }
+
+        /** Map from unit i to unit j given both maps to the base: (x × Si + Oi − Oj) ÷ Sj. */
+        private static Affine compose(Affine fromToBase, Affine toToBase) {
+            BigDecimal scale = fromToBase.scale.divide(toToBase.scale, COMPOSE_CONTEXT);
+            BigDecimal offset = fromToBase.offset.subtract(toToBase.offset, COMPOSE_CONTEXT)
+                    .divide(toToBase.scale, COMPOSE_CONTEXT);
+            return new Affine(scale, offset);
+        }
+    }
+
+    /** A unit definition line, kept until its category's graph is built. */
+    private static final class Definition {
+        final String unit;
+        final String reference; // null for the base unit
+        final Affine toReference;
+        final int lineNumber;
+
+        Definition(String unit, String reference, Affine toReference, int lineNumber) {
+            this.unit = unit;
+            this.reference = reference;
+            this.toReference = toReference;
+            this.lineNumber = lineNumber;
+        }
+    }
+
+    private final Map<String, Category> categories; // In table order
+    private final Map<String, Category> categoryOfUnit;
+
+    private UnitConverter(Map<String, Category> categories) {
+        this.categories = categories;
+        this.categoryOfUnit = new HashMap<>();
+        for (Category category : categories.values()) {
+            for (String unit : category.units) {
+                categoryOfUnit.put(unit, category);
+            }
+        }
+    }
+
+    // --- Loading ---
+
+    /**
+     * Reads and precomputes a unit table. Blank lines and text after '#' are ignored.
+     * @throws IllegalArgumentException If a line is malformed, a unit is defined twice or
+     *         refers to an unknown unit, or a category doesn't have exactly one base unit
+     *         connected to all of its units.
+     */
+    public static UnitConverter load(Reader reader) throws IOException {
+        Map<String, List<Definition>> definitions = new LinkedHashMap<>();
+        Map<String, String> categoryOfUnit = new HashMap<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            int comment = line.indexOf('#');
+            String content = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (content.isEmpty()) {
+                continue;
+            }
+            String[] fields = content.split("\\s+");
+            if (fields.length != 2 && fields.length != 4 && fields.length != 5) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected <category> <unit> [<factor> <reference> [<offset>]]");
+            }
+            String category = fields[0];
+            String unit = fields[1];
+            if (categoryOfUnit.put(unit, category) != null) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": unit " + unit + " is defined twice");
+            }
+            Definition definition;
+            if (fields.length == 2) {
+                definition = new Definition(unit, null, null, lineNumber);
+            } else {
+                BigDecimal factor = parseNumber(fields[2], lineNumber);
+                BigDecimal offset = fields.length == 5 ? parseNumber(fields[4], lineNumber) : BigDecimal.ZERO;
+                if (factor.signum() == 0) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": factor must not be zero");
+                }
+                definition = new Definition(unit, fields[3], new Affine(factor, offset), lineNumber);
+            }
+            definitions.computeIfAbsent(category, key -> new ArrayList<>()).add(definition);
+        }
+
+        Map<String, Category> categories = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Definition>> entry : definitions.entrySet()) {
+            categories.put(entry.getKey(), buildCategory(entry.getKey(), entry.getValue(), categoryOfUnit));
+        }
+        return new UnitConverter(categories);
+    }
+
+    private static BigDecimal parseNumber(String text, int lineNumber) {
+        try {
+            return new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": invalid number " + text);
+        }
+    }
+
+    /** Walks a category's definition graph from its base unit and precomputes its pair maps. */
+    private static Category buildCategory(String name, List<Definition> definitions, Map<String, String> categoryOfUnit) {
+        List<String> units = new ArrayList<>(definitions.size());
+        Map<String, Integer> indexes = new HashMap<>();
+        for (Definition definition : definitions) {
+            indexes.put(definition.unit, units.size());
+            units.add(definition.unit);
+        }
+
+        // Undirected adjacency: each definition gives an edge to its reference and the inverse edge back
+        List<List<Integer>> neighbours = new ArrayList<>(units.size());
+        List<List<Affine>> edgeMaps = new ArrayList<>(units.size());
+        for (int i = 0; i < units.size(); i++) {
+            neighbours.add(new ArrayList<>());
+            edgeMaps.add(new ArrayList<>());
+        }
+        int base = -1;
+        for (Definition definition : definitions) {
+            int unit = indexes.get(definition.unit);
+            if (definition.reference == null) {
+                if (base >= 0) {
+                    throw new IllegalArgumentException("Line " + definition.lineNumber + ": " + name + " already has base unit " + units.get(base));
+                }
+                base = unit;
+                continue;
+            }
+            Integer reference = indexes.get(definition.reference);
+            if (reference == null) {
+                String other = categoryOfUnit.get(definition.reference);
+                throw new IllegalArgumentException("Line " + definition.lineNumber + ": " + definition.reference
+                        + (other != null ? " is a " + other + " unit" : " is not defined"));
+            }
+            // Edge maps convert a value in the neighbour's unit into the unit owning the list
+            neighbours.get(reference).add(unit);
+            edgeMaps.get(reference).add(definition.toReference);
+            neighbours.get(unit).add(reference);
+            edgeMaps.get(unit).add(definition.toReference.inverse());
+        }
+        if (base < 0) {
+            throw new IllegalArgumentException(name + " has no base unit");
+        }
+
+        // Breadth-first from the base: toBase[w] = toBase[k] ∘ (w → k)
+        Affine[] toBase = new Affine[units.size()];
+        toBase[base] = new Affine(BigDecimal.ONE, BigDecimal.ZERO);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(base);
+        while (!queue.isEmpty()) {
+            int known = queue.poll();
+            Affine knownToBase = toBase[known];
+            List<Integer> adjacent = neighbours.get(known);
+            for (int e = 0; e < adjacent.size(); e++) {
+                int next = adjacent.get(e);
+                if (toBase[next] != null) {
+                    continue;
+                }
+                // edgeMaps[known][e] converts next → known; compose with known → base
+                Affine step = edgeMaps.get(known).get(e);
+                BigDecimal scale = knownToBase.scale.multiply(step.scale, COMPOSE_CONTEXT);
+                BigDecimal offset = knownToBase.scale.multiply(step.offset, COMPOSE_CONTEXT).add(knownToBase.offset, COMPOSE_CONTEXT);
+                toBase[next] = new Affine(scale, offset);
+                queue.add(next);
+            }
+        }
+        for (int i = 0; i < units.size(); i++) {
+            if (toBase[i] == null) {
+                throw new IllegalArgumentException(units.get(i) + " is not connected to the " + name + " base unit " + units.get(base));
+            }
+        }
+        return new Category(name, units, toBase);
+    }
+
+    // --- Queries ---
+
+    /** Category names, in table order. */
+    public List<String> getCategories() {
+        return Collections.unmodifiableList(new ArrayList<>(categories.keySet()));
+    }
+
+    /** Units of a category, in table order (empty for an unknown category). */
+    public List<String> getUnits(String category) {
+        Category entry = categories.get(category);
+        return entry != null ? entry.units : Collections.<String>emptyList();
+    }
+
+    /** Category of a unit, or null if the unit is unknown. */
+    public String getCategory(String unit) {
+        Category entry = categoryOfUnit.get(unit);
+        return entry != null ? entry.name : null;
+    }
+
+    // --- Conversion ---
+
+    /**
+     * Converts a value between two units of the same category.
+     * @throws IllegalArgumentException If a unit is unknown or the units are in different categories.
+     */
+    public BigDecimal convert(BigDecimal value, String from, String to) {
+        Category category = categoryOfUnit.get(from);
+        if (category == null) {
+            throw new IllegalArgumentException("Unknown unit: " + from);
+        }
+        Integer target = category.indexes.get(to);
+        if (target == null) {
+            throw new IllegalArgumentException(categoryOfUnit.containsKey(to) ? "Cannot convert " + from + " to " + to : "Unknown unit: " + to);
+        }
+        return category.conversions[category.indexes.get(from)][target].apply(value).round(RESULT_CONTEXT);
+    }
+
+    /**
+     * Converts a value into every unit of its category.
+     * @return The results in getUnits order (the from unit's own entry is the value itself, rounded).
+     * @throws IllegalArgumentException If the unit is unknown.
+     */
+    public BigDecimal[] convertToAll(BigDecimal value, String from) {
+        Category category = categoryOfUnit.get(from);
+        if (category == null) {
+            throw new IllegalArgumentException("Unknown unit: " + from);
+        }
+        Affine[] row = category.conversions[category.indexes.get(from)];
+        BigDecimal[] results = new BigDecimal[row.length];
+        for (int i = 0; i < row.length; i++) {
+            results[i] = row[i].apply(value).round(RESULT_CONTEXT);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the power, root and factorial operators against simple references, including the
+ * inputs that are slow with naive algorithms (large factorials, huge exponents).
+ */
+public class BigDecimalMathTest {
+
+    @Test
+    public void factorial_matchesNaiveProduct() {
+        for (int n : new int[] { 0, 1, 5, 31, 32, 100, 1000, 999 }) {
+            BigInteger expected = BigInteger.ONE;
+            for (int i = 2; i <= n; i++) expected = expected.multiply(BigInteger.valueOf(i));
+            assertEquals("n = " + n, 0, new BigDecimal(expected).compareTo(BigDecimalMath.factorial(BigDecimal.valueOf(n))));
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void factorial_rejectsFractions() {
+        BigDecimalMath.factorial(new BigDecimal("2.5"));
+    }
+
+    @Test
+    public void power_roundsLikeDivision() {
+        assertEquals("1024", CalculatorEngine.formatBigDecimal(BigDecimalMath.power(BigDecimal.valueOf(2), BigDecimal.TEN)));
+        assertEquals("0.125", CalculatorEngine.formatBigDecimal(BigDecimalMath.power(BigDecimal.valueOf(2), BigDecimal.valueOf(-3))));
+        // 1.0001^100000 = 22015.4560485521986…
+        assertEquals("22015.45604855", CalculatorEngine.formatBigDecimal(
+                BigDecimalMath.power(new BigDecimal("1.0001"), BigDecimal.valueOf(100000))));
+        assertEquals("1.41421356", CalculatorEngine.formatBigDecimal(
+                BigDecimalMath.power(BigDecimal.valueOf(2), new BigDecimal("0.5"))));
+        assertEquals("-2", CalculatorEngine.formatBigDecimal(
+                BigDecimalMath.root(BigDecimal.valueOf(-8), BigDecimal.valueOf(3))));
+        assertEquals(0, BigDecimalMath.power(new BigDecimal("0.5"), BigDecimal.valueOf(1000)).signum());
+    }
+
+    @Test
+    public void power_keepsTheBasePrecisionForHugeExponents() {
+        // (1 + 10^-20)^(10^18) ≈ e^0.01 and (1 + 10^-18)^(10^18) ≈ e; rounding the base to the result's
+        // digits would give exactly 1
+        assertEquals("1.01005017", CalculatorEngine.formatBigDecimal(BigDecimalMath.power(
+                new BigDecimal("1.00000000000000000001"), new BigDecimal("1000000000000000000"))));
+        assertEquals("2.71828183", CalculatorEngine.formatBigDecimal(BigDecimalMath.power(
+                new BigDecimal("1.000000000000000001"), new BigDecimal("1000000000000000000"))));
+        assertEquals("0.36787944", CalculatorEngine.formatBigDecimal(BigDecimalMath.power(
+                new BigDecimal("1.000000000000000001"), new BigDecimal("-1000000000000000000"))));
+    }
+
+    @Test
+    public void power_fractionalExponentsMatchRoots() {
+        // 2^100.5 = 2^100 × √2, to the last of the 31 integer digits and 8 decimal places
+        BigDecimal sqrt2 = BigDecimal.valueOf(2).sqrt(new MathContext(100));
+        BigDecimal expected = new BigDecimal(BigInteger.TWO.pow(100)).multiply(sqrt2)
+                .setScale(CalculatorEngine.DIVISION_SCALE, RoundingMode.HALF_UP);
+        assertEquals(expected, BigDecimalMath.power(BigDecimal.valueOf(2), new BigDecimal("100.5")));
+
+        // 2^3500.5 has 1054 integer digits: the leading MAX_INEXACT_DIGITS are right
+        BigDecimal huge = BigDecimalMath.power(BigDecimal.valueOf(2), new BigDecimal("3500.5"));
+        MathContext digits = new MathContext(BigDecimalMath.MAX_INEXACT_DIGITS);
+        BigDecimal reference = new BigDecimal(BigInteger.TWO.pow(3500))
+                .multiply(BigDecimal.valueOf(2).sqrt(new MathContext(BigDecimalMath.MAX_INEXACT_DIGITS + 20)), digits);
+        assertEquals(1054, huge.precision() - huge.scale());
+        assertTrue(huge.subtract(reference).abs().compareTo(reference.ulp()) <= 0);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void power_overflowThrows() {
+        BigDecimalMath.power(BigDecimal.TEN, BigDecimal.valueOf(1_000_000));
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tape mode: editing a line recomputes only that line and its dependents, errors name the
+ * line they come from, and references must point backwards.
+ */
+public class CalculationTapeTest {
+
+    private static void assertRecomputed(String expected, int[] recomputed) {
+        assertEquals("[" + expected + "]", Arrays.toString(recomputed));
+    }
+
+    @Test
+    public void edit_recomputesOnlyTheLineAndItsDependents() {
+        CalculationTape tape = new CalculationTape();
+        tape.appendLine("100");         // L1
+        tape.appendLine("7");           // L2
+        tape.appendLine("L1 × 2");      // L3
+        tape.appendLine("L2 + 1");      // L4
+        tape.appendLine("L3 + L4");     // L5
+        tape.appendLine("L5 ÷ 4");      // L6
+        assertEquals("52", tape.getDisplayValue(5));
+
+        assertRecomputed("0, 2, 4, 5", tape.setLine(0, "10"));
+        assertEquals("20", tape.getDisplayValue(2));
+        assertEquals("8", tape.getDisplayValue(3)); // Not recomputed, unchanged
+        assertEquals("7", tape.getDisplayValue(5));
+
+        assertRecomputed("3, 4, 5", tape.setLine(3, "L2 - 1"));
+        assertEquals("6.5", tape.getDisplayValue(5));
+        assertRecomputed("5", tape.setLine(5, "L5"));
+        assertEquals("26", tape.getDisplayValue(5));
+
+        // Dropping a reference removes the dependency
+        tape.setLine(2, "3");
+        assertRecomputed("0", tape.setLine(0, "1"));
+    }
+
+    @Test
+    public void error_isReportedOnDependents() {
+        CalculationTape tape = new CalculationTape();
+        tape.appendLine("5");          // L1
+        tape.appendLine("L1 ÷ 0");     // L2
+        tape.appendLine("L2 + 1");     // L3
+        tape.appendLine("L3 × 2");     // L4
+        tape.appendLine("L1 + 1");     // L5, independent of L2
+        assertNull(tape.getValue(1));
+        assertFalse(tape.getDisplayValue(1).isEmpty());
+        assertEquals("Error in L2", tape.getDisplayValue(2));
+        assertEquals("Error in L3", tape.getDisplayValue(3));
+        assertEquals("6", tape.getDisplayValue(4));
+
+        // Fixing the line clears the errors downstream
+        tape.setLine(1, "L1 ÷ 2");
+        assertEquals("3.5", tape.getDisplayValue(2));
+        assertEquals("7", tape.getDisplayValue(3));
+
+        tape.setLine(1, "L1 × × 2");
+        assertEquals("Syntax Error", tape.getDisplayValue(1));
+        assertEquals("Error in L2", tape.getDisplayValue(2));
+    }
+
+    @Test
+    public void reference_mustBeAnEarlierLine() {
+        CalculationTape tape = new CalculationTape();
+        tape.appendLine("L2 + 1");     // L1
+        tape.appendLine("4");          // L2
+        tape.appendLine("L3");         // L3, itself
+        assertEquals("L2 is not an earlier line", tape.getDisplayValue(0));
+        assertNull(tape.getValue(0));
+        assertEquals("L3 is not an earlier line", tape.getDisplayValue(2));
+
+        // The rejected reference is not a dependency: editing L2 leaves L1 alone
+        assertRecomputed("1", tape.setLine(1, "5"));
+        assertEquals("L2 is not an earlier line", tape.getDisplayValue(0));
+    }
+
+}
@@ -0,0 +1,373 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Keypad behaviour of the engine, and the change events it reports for each input.
+ */
+public class CalculatorEngineTest {
+
+    /** Records the flags of every event the engine dispatches. */
+    private static final class RecordingListener implements CalculatorEngine.ChangeListener {
+        final List<Integer> flags = new ArrayList<>();
+
+        @Override
+        public void onEngineChanged(CalculatorEngine.ChangeEvent event) {
+            flags.add(event.getFlags());
+        }
+
+        /** Returns the flags of the single event since the last call, or fails. */
+        int takeOne() {
+            assertEquals("events " + flags, 1, flags.size());
+            return flags.remove(0);
+        }
+
+        void assertNone() {
+            assertTrue("expected no events, got " + flags, flags.isEmpty());
+        }
+    }
+
+    private static final int OPERAND = CalculatorEngine.CHANGE_OPERAND;
+    private static final int EXPRESSION = CalculatorEngine.CHANGE_EXPRESSION;
+    private static final int PARENTHESIS = CalculatorEngine.CHANGE_PARENTHESIS;
+    private static final int ERROR_ENTERED = CalculatorEngine.CHANGE_ERROR_ENTERED;
+    private static final int ERROR_CLEARED = CalculatorEngine.CHANGE_ERROR_CLEARED;
+
+    /** Presses keys: digits, ".", operators, "(", ")", "!", "%", "=" and "C" (AC); spaces are skipped. */
+    private static void press(CalculatorEngine engine, String keys) {
+        for (int i = 0; i < keys.length(); i++) {
+            String key = keys.substring(i, i + 1);
+            char c = key.charAt(0);
+            if (Character.isDigit(c)) engine.inputDigit(key);
+            else if (c == '.') engine.inputDecimal();
+            else if (c == '(' || c == ')') engine.inputParenthesis(key);
+            else if (c == '!') engine.inputFactorial();
+            else if (c == '%') engine.calculatePercentage();
+            else if (c == '=') engine.calculateResult();
+            else if (c == 'C') engine.clear();
+            else if (c != ' ') engine.inputOperator(key);
+        }
+    }
+
+    // --- Change events ---
+
+    @Test
+    public void changeFlags_digitsAndOperators() {
+        CalculatorEngine engine = new CalculatorEngine();
+        RecordingListener listener = new RecordingListener();
+        engine.addChangeListener(listener);
+
+        engine.inputDigit("1");
+        assertEquals(OPERAND, listener.takeOne());
+        engine.inputDigit("2");
+        assertEquals(OPERAND, listener.takeOne());
+        engine.inputDecimal();
+        assertEquals(OPERAND, listener.takeOne()); // The trailing "." is part of the display
+
+        // Completing the number pushes it: the operand stops being edited and the expression grows
+        engine.inputOperator("+");
+        assertEquals(OPERAND | EXPRESSION, listener.takeOne());
+        engine.inputOperator("×");
+        assertEquals(EXPRESSION, listener.takeOne()); // Replaced operator, same operand
+
+        engine.inputDigit("3");
+        assertEquals(OPERAND, listener.takeOne());
+        engine.calculateResult();
+        assertEquals(OPERAND | EXPRESSION, listener.takeOne());
+        assertEquals("36", engine.getDisplayValue());
+    }
+
+    @Test
+    public void changeFlags_parentheses() {
+        CalculatorEngine engine = new CalculatorEngine();
+        RecordingListener listener = new RecordingListener();
+        engine.addChangeListener(listener);
+
+        engine.inputParenthesis("(");
+        assertEquals(EXPRESSION | PARENTHESIS, listener.takeOne());
+        engine.inputDigit("4");
+        assertEquals(OPERAND, listener.takeOne());
+        engine.inputOperator("-");
+        assertEquals(OPERAND | EXPRESSION, listener.takeOne());
+        engine.inputDigit("6");
+        assertEquals(OPERAND, listener.takeOne());
+
+        // The group's value becomes the displayed operand
+        engine.inputParenthesis(")");
+        assertEquals(OPERAND | EXPRESSION | PARENTHESIS, listener.takeOne());
+        assertEquals("-2", engine.getDisplayValue());
+        assertEquals(0, engine.getParenthesisBalance());
+    }
+
+    @Test
+    public void changeFlags_errorAndClear() {
+        CalculatorEngine engine = new CalculatorEngine();
+        RecordingListener listener = new RecordingListener();
+        engine.addChangeListener(listener);
+
+        engine.inputDigit("5");
+        engine.inputOperator("÷");
+        engine.inputDigit("0");
+        listener.flags.clear();
+
+        engine.calculateResult();
+        int flags = listener.takeOne();
+        assertEquals(ERROR_ENTERED, flags & (ERROR_ENTERED | ERROR_CLEARED));
+        assertTrue(engine.isInErrorState());
+
+        // AC leaves the error and empties the expression
+        engine.clear();
+        flags = listener.takeOne();
+        assertEquals(ERROR_CLEARED, flags & (ERROR_ENTERED | ERROR_CLEARED));
+        assertEquals("0", engine.getDisplayValue());
+
+        // A closing parenthesis without an open one is an error too, and leaves the balance alone
+        engine.inputParenthesis(")");
+        flags = listener.takeOne();
+        assertEquals(ERROR_ENTERED, flags & (ERROR_ENTERED | ERROR_CLEARED));
+        assertEquals(0, flags & PARENTHESIS);
+
+        // A digit starts over from the error
+        engine.inputDigit("7");
+        flags = listener.takeOne();
+        assertEquals(ERROR_CLEARED | OPERAND, flags & (ERROR_CLEARED | OPERAND));
+        assertEquals("7", engine.getDisplayValue());
+    }
+
+    @Test
+    public void changeFlags_noOpInputsDispatchNothing() {
+        CalculatorEngine engine = new CalculatorEngine();
+        RecordingListener listener = new RecordingListener();
+        engine.addChangeListener(listener);
+
+        engine.clear();           // Already cleared
+        engine.backspace();       // Nothing to delete
+        listener.assertNone();
+
+        engine.inputDigit("0");
+        listener.flags.clear();
+        engine.inputDigit("0");   // Leading zeros stay "0"
+        listener.assertNone();
+
+        engine.inputDecimal();
+        listener.flags.clear();
+        engine.inputDecimal();    // Second decimal point
+        listener.assertNone();
+
+        engine.clear();
+        for (int i = 0; i < 16; i++) engine.inputDigit("9"); // The display holds 16 digits
+        listener.flags.clear();
+        engine.inputDigit("9");   // Past the digit limit
+        listener.assertNone();
+
+        // Inputs ignored in the error state
+        engine.inputOperator("÷");
+        engine.inputDigit("0");
+        engine.calculateResult();
+        listener.flags.clear();
+        engine.inputOperator("+");
+        engine.inputParenthesis("(");
+        engine.backspace();
+        engine.calculateResult();
+        listener.assertNone();
+    }
+
+    @Test
+    public void changeFlags_removedListenerIsNotCalled() {
+        CalculatorEngine engine = new CalculatorEngine();
+        RecordingListener listener = new RecordingListener();
+        engine.addChangeListener(listener);
+        engine.addChangeListener(listener); // Registered once
+        engine.inputDigit("1");
+        assertEquals(OPERAND, listener.takeOne());
+
+        engine.removeChangeListener(listener);
+        engine.inputDigit("2");
+        listener.assertNone();
+    }
+
+    // --- Keypad ---
+
+    @Test
+    public void nestedGroup_isTheLeftOperand() {
+        assertEquals("6", resultOf("((5)+1)"));
+        assertEquals("7", resultOf("(2×(3)+1)"));
+        assertEquals("-4", resultOf("((1-3)×2)"));
+    }
+
+    @Test
+    public void operatorAtTheStart_hasALeftOperandOf0() {
+        // Also after "=", AC or an error: only loadValue continues from the displayed value
+        assertEquals("2", resultOf("5=+2"));
+        assertEquals("0", resultOf("7-10=×3"));
+        assertEquals("2", resultOf("5+1=C+2"));
+        assertEquals("-3", resultOf("C-5+2"));
+        assertEquals("2", resultOf("5÷0=+2"));
+    }
+
+    @Test
+    public void loadedValue_continuesWithTheNextOperator() throws Exception {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.loadValue(new BigDecimal(3));
+        press(engine, "+2=");
+        assertEquals("5", engine.getDisplayValue());
+        press(engine, "×4="); // The result of "=" is not a loaded value
+        assertEquals("0", engine.getDisplayValue());
+
+        // A paste continues from it too
+        engine.loadValue(new BigDecimal(6));
+        assertTrue(engine.importExpression(new StringReader("×2")));
+        press(engine, "=");
+        assertEquals("12", engine.getDisplayValue());
+
+        // A digit starts a new number, and only the next input continues from the value
+        engine.loadValue(new BigDecimal("1.5"));
+        press(engine, "7=");
+        assertEquals("7", engine.getDisplayValue());
+        engine.loadValue(new BigDecimal("1.5"));
+        press(engine, "(");
+        press(engine, "+1)=");
+        assertEquals("1", engine.getDisplayValue());
+    }
+
+    @Test
+    public void power_isRightAssociativeAndAboveMultiplication() throws Exception {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.importExpression(new StringReader("2 × 2^3^2 + √9 + 3!"));
+        engine.calculateResult();
+        assertEquals("1033", engine.getDisplayValue());
+    }
+
+    @Test
+    public void numberAfterFactorial_multiplies() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setQuiet(true);
+        engine.inputDigit("5");
+        engine.inputFactorial();
+        engine.inputDigit("3");
+        engine.inputOperator("+");
+        engine.inputDigit("2");
+        engine.calculateResult();
+        assertEquals("362", engine.getDisplayValue()); // 5! × 3 + 2
+
+        // Like a number after ")", and a decimal point starts the number too
+        engine.inputParenthesis("(");
+        engine.inputDigit("2");
+        engine.inputOperator("+");
+        engine.inputDigit("3");
+        engine.inputParenthesis(")");
+        engine.inputDigit("4");
+        engine.calculateResult();
+        assertEquals("20", engine.getDisplayValue());
+
+        engine.inputDigit("3");
+        engine.inputFactorial();
+        engine.inputDecimal();
+        engine.inputDigit("5");
+        engine.calculateResult();
+        assertEquals("3", engine.getDisplayValue());
+    }
+
+    @Test
+    public void operatorAfterPrefixRoot_replacesIt() {
+        // The "√" is dropped with its implicit degree, like a replaced operator
+        assertEquals("10", resultOf("5+√×2"));
+        assertEquals("-3", resultOf("√-3"));
+        assertEquals("2", resultOf("(√+2)"));
+        assertEquals("4", resultOf("5×√√-1"));
+    }
+
+    // --- Live result preview ---
+
+    /** The display after typing the keys on a fresh engine, closing any open groups and pressing "=". */
+    private static String resultOf(String keys) {
+        CalculatorEngine engine = new CalculatorEngine();
+        press(engine, keys);
+        while (engine.getParenthesisBalance() > 0 && !engine.isInErrorState()) {
+            engine.inputParenthesis(")");
+        }
+        engine.calculateResult();
+        return engine.getDisplayValue();
+    }
+
+    /**
+     * Types the keys one at a time; wherever the last key completed an operand (a digit, or
+     * a ")" or "!" that was not ignored), a shown preview must be exactly what "=" displays.
+     * Returns the final preview.
+     */
+    private static String assertPreviewMatchesEquals(String keys) {
+        CalculatorEngine engine = new CalculatorEngine();
+        RecordingListener listener = new RecordingListener();
+        engine.addChangeListener(listener);
+        String preview = "";
+        for (int i = 1; i <= keys.length(); i++) {
+            char key = keys.charAt(i - 1);
+            listener.flags.clear();
+            press(engine, String.valueOf(key));
+            preview = engine.getResultPreview();
+            boolean operandComplete = Character.isDigit(key) || key == '.'
+                    || (")!".indexOf(key) >= 0 && !listener.flags.isEmpty());
+            if (operandComplete && !preview.isEmpty()) {
+                assertEquals("preview of " + keys.substring(0, i), resultOf(keys.substring(0, i)), preview);
+            }
+        }
+        return preview;
+    }
+
+    @Test
+    public void preview_matchesEquals() {
+        // The running total while typing "1250×1.0825+"
+        CalculatorEngine engine = new CalculatorEngine();
+        press(engine, "1250×1.0825");
+        assertEquals("1353.125", engine.getResultPreview());
+        assertEquals("1353.125", resultOf("1250×1.0825"));
+        press(engine, "+");
+        assertEquals("1353.125", engine.getDisplayValue()); // Already reduced, nothing more to preview
+        assertEquals("", engine.getResultPreview());
+        press(engine, "3");
+        assertEquals("1356.125", engine.getResultPreview());
+
+        assertPreviewMatchesEquals("1250×1.0825+3");
+        assertPreviewMatchesEquals("2+3×4-10÷4");
+        assertPreviewMatchesEquals("(2+3)×(4-(1+1)÷8)");
+        assertPreviewMatchesEquals("1÷3×3");
+        assertPreviewMatchesEquals("7-10=×3-1");
+        assertPreviewMatchesEquals("(-5)×2+0.5");
+        assertPreviewMatchesEquals("2^3^2-3!×√16+2√(4+5)");
+        assertPreviewMatchesEquals("5+√9×2^(1+1)!");
+        assertEquals("", assertPreviewMatchesEquals("8÷(4-4)"));
+    }
+
+    @Test
+    public void preview_isEmptyWhenEqualsWouldFail() {
+        // A group closed right after an operator takes an operand from outside it
+        assertEquals("", assertPreviewMatchesEquals("3+(×)÷2"));
+        assertEquals("Error", resultOf("3+(×)÷2"));
+        assertEquals("", assertPreviewMatchesEquals("5+(2-)×4"));
+        assertEquals("Error", resultOf("5+(2-)×4"));
+        assertEquals("", assertPreviewMatchesEquals("1+(^)!√2"));
+        assertEquals("Error", resultOf("1+(^)!√2"));
+    }
+
+    @Test
+    public void preview_fuzzMatchesEquals() {
+        String keys = "0123456789.+-×÷^√()!%=";
+        Random random = new Random(30);
+        for (int run = 0; run < 1000; run++) {
+            StringBuilder sequence = new StringBuilder();
+            int length = 1 + random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                sequence.append(keys.charAt(random.nextInt(keys.length())));
+            }
+            assertPreviewMatchesEquals(sequence.toString());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Solve mode: the solver's handling of bracketed roots, roots that only touch zero, and
+ * residuals that never reach zero.
+ */
+public class EquationSolverTest {
+
+    static String solve(String equation) {
+        EquationSolver.Result result = EquationSolver.solve(equation, "x");
+        return result.isConverged() ? CalculatorEngine.formatBigDecimal(result.getRoot()) : result.getStatus().toString();
+    }
+
+    @Test
+    public void solve_bracketedRoots() {
+        assertEquals("217.09006928", solve("x × 1.0825 + 15 = 250"));
+        assertEquals("1.41421356", solve("x × x = 2"));
+        assertEquals("-3", solve("x^3 + 27"));
+        assertEquals("2.09455148", solve("x^3 - 2x - 5 = 0"));
+        assertFalse(EquationSolver.solve("1 ÷ x = 0", "x").isConverged()); // A pole, not a root
+    }
+
+    @Test
+    public void solve_rejectsResidualsThatOnlyApproachZero() {
+        // x ÷ (x - 1) - 1 = 1 ÷ (x - 1): tiny for large x but never zero
+        assertEquals("NO_ROOT_FOUND", solve("x ÷ (x - 1) = 1"));
+        assertEquals("NO_ROOT_FOUND", solve("2^-x = 0")); // Underflows to 0 at the end of the scan
+        assertFalse(EquationSolver.solve("(x - 3) × (x - 3) + 1 = 0", "x").isConverged()); // A minimum above zero
+        assertFalse(EquationSolver.solve("x × x + 1 = 0", "x").isConverged());
+    }
+
+    @Test
+    public void solve_touchingRoots() {
+        // The residual is 1 at both x = 2 and x = 4, and never changes sign
+        assertEquals("3", solve("(x - 3) × (x - 3) = 0"));
+        assertEquals("-0.5", solve("(2x + 1)^2"));
+        assertEquals("1", solve("x × x - 2x + 1 = 0"));
+    }
+
+}
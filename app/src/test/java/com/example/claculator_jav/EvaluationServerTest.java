@@ -0,0 +1,169 @@
+package com.example.claculator_jav;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercises EvaluationServer on localhost: protocol, agreement with the keypad engine,
+ * in-order pipelining and the stdio mode. The many-client load run is in EvaluationServerBenchmark.
+ */
+public class EvaluationServerTest {
+
+    private EvaluationServer server;
+
+    @Before
+    public void start() throws IOException {
+        server = new EvaluationServer(0, 4);
+    }
+
+    @After
+    public void stop() throws IOException {
+        server.close();
+    }
+
+    /** A blocking line client; also used for pipelining, with writes and reads on separate threads. */
+    static final class Client implements AutoCloseable {
+        final Socket socket;
+        final BufferedWriter out;
+        final BufferedReader in;
+
+        Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        String request(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+            return in.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void protocol_singleBatchedAndStats() throws Exception {
+        try (Client client = new Client(server.getPort())) {
+            assertEquals("OK 87.5", client.request("12.5 × (3 + 4)"));
+            assertEquals("OK 4.5", client.request("9/2"));
+            assertEquals("ERR Division by Zero", client.request("1 / 0"));
+
+            assertEquals("OK 1024", client.request("2^10; 5!; (1 + 2"));
+            assertEquals("OK 120", client.in.readLine());
+            assertTrue(client.in.readLine().startsWith("ERR Syntax Error"));
+
+            String stats = client.request("STATS");
+            assertTrue(stats, stats.startsWith("STATS requests="));
+            client.out.write("QUIT\n");
+            client.out.flush();
+            assertNull(client.in.readLine()); // Closed by the server
+        }
+        assertEquals(6, server.getStats().requests);
+        assertEquals(2, server.getStats().errors);
+    }
+
+    @Test
+    public void results_matchTheKeypadEngine() throws Exception {
+        String[] expressions = { "1÷3", "2^0.5", "10-2×3", "√16+1", "0.1+0.2", "7!÷3", "3√27", "(1+2)(3+4)" };
+        try (Client client = new Client(server.getPort())) {
+            for (String expression : expressions) {
+                CalculatorEngine engine = new CalculatorEngine();
+                engine.importExpression(new StringReader(expression));
+                engine.calculateResult();
+                assertEquals(expression, "OK " + engine.getDisplayValue(), client.request(expression));
+            }
+        }
+    }
+
+    @Test
+    public void pipelining_keepsRequestOrder() throws Exception {
+        int count = 20_000;
+        try (Client client = new Client(server.getPort())) {
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < count; i++) {
+                        client.out.write(i + "+1\n");
+                    }
+                    client.out.flush();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            writer.start();
+            for (int i = 0; i < count; i++) {
+                assertEquals("OK " + (i + 1), client.in.readLine());
+            }
+            writer.join();
+        }
+    }
+
+    @Test
+    public void clientThatStopsReading_doesNotStallOthers() throws Exception {
+        try (EvaluationServer single = new EvaluationServer(0, 1); Client stalled = new Client(single.getPort())) {
+            // Long results fill the socket buffers quickly; the client never reads them
+            String line = String.join("; ", Collections.nCopies(100, "7^500")) + "\n";
+            Thread writer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 400; i++) {
+                        stalled.out.write(line);
+                    }
+                    stalled.out.flush();
+                } catch (IOException e) {
+                    // Closed at the end of the test
+                }
+            });
+            writer.setDaemon(true);
+            writer.start();
+
+            // Wait until the server has stopped answering the stalled client
+            long answered = -1;
+            long deadline = System.nanoTime() + 30_000_000_000L;
+            while (answered != single.getStats().requests && System.nanoTime() < deadline) {
+                answered = single.getStats().requests;
+                Thread.sleep(200);
+            }
+            assertTrue("The stalled client should be held back", answered < 40_000);
+
+            // The only worker is free for other clients
+            try (Client other = new Client(single.getPort())) {
+                other.socket.setSoTimeout(5_000);
+                assertEquals("OK 6", other.request("2×3"));
+            }
+            assertTrue(stalled.in.readLine().startsWith("OK 35401364"));
+        }
+    }
+
+    @Test
+    public void stdio_answersEveryLine() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        server.serve(new ByteArrayInputStream("1+1\n\n2×3; 4-5\nSTATS\n".getBytes(StandardCharsets.UTF_8)), output);
+        String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals(Arrays.asList("OK 2", "OK 6", "OK -1"), Arrays.asList(lines).subList(0, 3));
+        assertTrue(lines[3].startsWith("STATS requests="));
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+/**
+ * Graphing mode: operator grouping of compiled expressions and agreement with pasted text,
+ * agreement of the bulk double path with the exact BigDecimal path, and GraphSampler's
+ * tile reuse on pan and zoom.
+ */
+public class ExpressionCompilerTest {
+
+    private static double at(String expression, double x) {
+        return ExpressionCompiler.compile(expression, "x").evaluate(x);
+    }
+
+    private static String pasted(String expression) throws Exception {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setQuiet(true);
+        engine.importExpression(new StringReader(expression));
+        engine.calculateResult();
+        return engine.getDisplayValue();
+    }
+
+    @Test
+    public void precedenceAndAssociativity() throws Exception {
+        assertEquals(-9, at("-x^2", 3), 0);           // -(x^2)
+        assertEquals(0.125, at("2^-x", 3), 0);        // 2^(-x)
+        assertEquals(512, at("2^3^x", 2), 0);         // 2^(3^2), right-associative
+        assertEquals(4, at("√x + 1", 9), 0);          // Prefix root before +
+        assertEquals(3, at("3√x", 27), 0);            // Cube root
+        assertEquals(-5, at("2 - x × 3 + 2", 3), 0);  // Left to right at equal precedence
+        assertEquals(6, at("2x", 3), 0);              // Implicit ×
+        assertEquals(8, at("(x + 1)(x - 1)", 3), 0);
+        assertEquals(8, at("2(x + 1)", 3), 0);
+        assertEquals(12, at("2x!", 3), 0);            // ! applies to the operand before it
+        assertEquals(36, at("x!^2", 3), 0);
+        assertEquals(Double.NaN, at("x!", 2.5), 0);
+
+    }
+
+    @Test
+    public void compiledText_matchesPastedText() throws Exception {
+        String[] expressions = {
+                "2^3^2", "√9 + 1", "3!^2", "(1 + 2)(3 + 4)", "(2)3", "10 - 2 × 3 ÷ 4",
+                "10 ÷ -4", "2^-1", "2 × -3", "2 - -3", "-2^2", "(-3)^2", "2 × -3^2", "2 × --3",
+                "-2 × 3", "+3", "1 + -+-2", "3! - 4", "-(2 + 1)!", "2 × -3!", "-√4", "2^-√4", "5 - √+4", "(-2)",
+        };
+        for (String expression : expressions) {
+            BigDecimal exact = ExpressionCompiler.compile(expression).evaluateExact();
+            assertEquals(expression, pasted(expression), CalculatorEngine.formatBigDecimal(exact));
+        }
+
+        // Both reject the same text
+        for (String expression : new String[] { "2 3", "2 × × 3", "(1 + 2", "1 +", "× 2", "2 × ()" }) {
+            assertEquals(expression, "Error", pasted(expression));
+            try {
+                ExpressionCompiler.compile(expression);
+                fail(expression);
+            } catch (IllegalArgumentException expected) {
+                // Rejected
+            }
+        }
+    }
+
+    @Test
+    public void bulkEvaluation_matchesExactEvaluation() {
+        String[] expressions = { "x × x - 2", "(x + 1) ÷ 3", "-x^2 + 2x", "2^x", "√(x × x + 1)", "x^3 - x" };
+        int count = 10_001; // Above the parallel threshold
+        double[] x = new double[count];
+        for (int i = 0; i < count; i++) x[i] = (i - count / 2) / 100.0; // -50.00 .. 50.00
+        double[] bulk = new double[count];
+
+        for (String expression : expressions) {
+            CompiledExpression function = ExpressionCompiler.compile(expression, "x");
+            function.evaluate(x, bulk, count);
+            for (int i = 0; i < count; i++) {
+                assertEquals(expression + " at " + x[i], function.evaluate(x[i]), bulk[i], 0);
+                double exact = function.evaluateExact(BigDecimal.valueOf(i - count / 2, 2)).doubleValue();
+                // The exact path rounds divisions and powers to DIVISION_SCALE places
+                assertEquals(expression + " at " + x[i], exact, bulk[i], 1e-7 + Math.abs(exact) * 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void sampler_reusesTilesOnPanAndZoom() {
+        CompiledExpression function = ExpressionCompiler.compile("x × x - 2", "x");
+        GraphSampler sampler = new GraphSampler(function);
+
+        GraphSampler.Samples samples = sampler.sample(0, 100, 400); // Spacing 0.25, samples 0..400
+        assertEquals(2, sampler.getEvaluatedTileCount());
+        for (int i = 0; i < samples.x.length; i++) {
+            assertEquals(function.evaluate(samples.x[i]), samples.y[i], 0);
+        }
+        assertEquals(0, samples.x[0], 0);
+        assertEquals(100, samples.x[samples.x.length - 1], 0);
+
+        sampler.sample(10, 110, 400);  // Pan within the cached tiles
+        assertEquals(2, sampler.getEvaluatedTileCount());
+        sampler.sample(100, 200, 400); // Pan right: only tiles 2 and 3 are new
+        assertEquals(4, sampler.getEvaluatedTileCount());
+        sampler.sample(0, 150, 400);   // Zoom out to spacing 0.375: same grid, all cached
+        assertEquals(4, sampler.getEvaluatedTileCount());
+
+        samples = sampler.sample(0, 50, 400); // Zoom in past a power of two: a finer grid
+        assertEquals(6, sampler.getEvaluatedTileCount());
+        assertEquals(0.125, samples.x[1] - samples.x[0], 0);
+        assertEquals(function.evaluate(samples.x[3]), samples.y[3], 0);
+
+        sampler.clearCache();
+        sampler.sample(0, 50, 400);
+        assertEquals(8, sampler.getEvaluatedTileCount());
+    }
+
+}
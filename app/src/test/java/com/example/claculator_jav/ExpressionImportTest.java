@@ -0,0 +1,117 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pasting into the engine: pasted text must give the same result as typing it at the same
+ * point, a minus after an operator is a sign, and a deeply nested paste is read in one pass.
+ */
+public class ExpressionImportTest {
+
+    static CalculatorEngine quietEngine() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setQuiet(true);
+        return engine;
+    }
+
+    @Test
+    public void paste_continuesTheNumberBeingEntered() throws Exception {
+        CalculatorEngine typed = quietEngine();
+        typed.inputDigit("1");
+        typed.inputDigit("2");
+        typed.inputDigit("3");
+        typed.inputOperator("+");
+        typed.inputDigit("4");
+        typed.calculateResult();
+
+        CalculatorEngine pasted = quietEngine();
+        pasted.inputDigit("1");
+        pasted.inputDigit("2");
+        assertTrue(pasted.importExpression(new StringReader("3+4")));
+        pasted.calculateResult();
+        assertEquals("127", typed.getDisplayValue());
+        assertEquals(typed.getDisplayValue(), pasted.getDisplayValue());
+
+        CalculatorEngine decimal = quietEngine();
+        decimal.inputDigit("1");
+        decimal.inputDecimal();
+        assertTrue(decimal.importExpression(new StringReader("5×2")));
+        decimal.calculateResult();
+        assertEquals("3", decimal.getDisplayValue());
+    }
+
+    @Test
+    public void paste_afterAnOperatorOrGroup() throws Exception {
+        CalculatorEngine engine = quietEngine();
+        engine.inputDigit("2");
+        engine.inputOperator("×");
+        assertTrue(engine.importExpression(new StringReader("(3 + 4)")));
+        assertTrue(engine.importExpression(new StringReader("5"))); // Implicit × after ")"
+        engine.calculateResult();
+        assertEquals("70", engine.getDisplayValue());
+
+        engine.clear();
+        engine.inputDigit("1");
+        assertFalse("A second number after a space is still an error",
+                engine.importExpression(new StringReader("2 3")));
+        assertEquals("Error", engine.getDisplayValue());
+    }
+
+    private static String pasteAndEvaluate(String text) throws Exception {
+        CalculatorEngine engine = quietEngine();
+        engine.importExpression(new StringReader(text));
+        engine.calculateResult();
+        return engine.getDisplayValue();
+    }
+
+    @Test
+    public void paste_minusAfterAnOperatorIsTheSign() throws Exception {
+        assertEquals("-2.5", pasteAndEvaluate("10/-4"));
+        assertEquals("0.5", pasteAndEvaluate("2^-1"));
+        assertEquals("-6", pasteAndEvaluate("2*-3"));
+        assertEquals("5", pasteAndEvaluate("2--3"));
+        assertEquals("-6", pasteAndEvaluate("2×--−3"));
+        assertEquals("-18", pasteAndEvaluate("2 × -3^2"));
+        assertEquals("-1", pasteAndEvaluate("(-3 + 2)"));
+        assertEquals("6", pasteAndEvaluate("2×+3"));
+        assertEquals("Error", pasteAndEvaluate("2××3"));
+
+        // After a keypad operator too, and shown against its operand
+        CalculatorEngine engine = quietEngine();
+        engine.inputDigit("2");
+        engine.inputOperator("×");
+        assertTrue(engine.importExpression(new StringReader("-3")));
+        assertEquals("2 × -3", engine.getExpressionPreview());
+        assertEquals("-6", engine.getResultPreview());
+
+        // A key operator replaces the pending one along with the sign
+        engine.clear();
+        assertTrue(engine.importExpression(new StringReader("2×-")));
+        engine.inputOperator("+");
+        engine.inputDigit("1");
+        engine.calculateResult();
+        assertEquals("3", engine.getDisplayValue());
+    }
+
+    /** "(1+(1+ … 1))" with the given depth; it evaluates to depth + 1. */
+    static String nested(int depth) {
+        StringBuilder text = new StringBuilder(depth * 4 + 1);
+        for (int i = 0; i < depth; i++) text.append("(1+");
+        text.append('1');
+        for (int i = 0; i < depth; i++) text.append(')');
+        return text.toString();
+    }
+
+    @Test
+    public void paste_deeplyNestedIsReadInOnePass() throws Exception {
+        // Without recursion: a nesting this deep would overflow a recursive parser's stack
+        CalculatorEngine engine = quietEngine();
+        assertTrue(engine.importExpression(new StringReader(nested(100_000))));
+        engine.calculateResult();
+        assertEquals("100001", engine.getDisplayValue());
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * History export and import: CSV and JSON-lines round trips, re-validation of imported
+ * entries, exports running alongside appends, and the ViewModel's background transfer.
+ * Timing for a large history is in HistoryStoreBenchmark.
+ */
+public class HistoryStoreTest {
+
+    private static final String[][] ENTRIES = {
+            { "7 × 12.5", "87.5" }, { "1 ÷ 3", "0.33333333" }, { "0.1 + 0.2", "0.3" },
+            { "2 ^ 10", "1024" }, { "5040 ÷ 3", "1680" }, { "-4 + 1", "-3" },
+    };
+
+    static HistoryStore store(int count) {
+        HistoryStore store = new HistoryStore();
+        for (int i = 0; i < count; i++) {
+            String[] entry = ENTRIES[i % ENTRIES.length];
+            store.add(entry[0], entry[1]);
+        }
+        return store;
+    }
+
+    private static byte[] export(HistoryStore store, HistoryStore.Format format) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        store.export(Channels.newChannel(bytes), format, null);
+        return bytes.toByteArray();
+    }
+
+    private static HistoryStore.ImportResult importInto(HistoryStore store, byte[] data) throws Exception {
+        return HistoryStore.importFrom(Channels.newChannel(new ByteArrayInputStream(data)),
+                store::addAll, null);
+    }
+
+    @Test
+    public void csv_roundTrips() throws Exception {
+        HistoryStore original = store(2500);
+        byte[] csv = export(original, HistoryStore.Format.CSV);
+        assertTrue(new String(csv, StandardCharsets.UTF_8).startsWith("expression,result\n7 × 12.5,87.5\n"));
+
+        HistoryStore imported = new HistoryStore();
+        HistoryStore.ImportResult result = importInto(imported, csv);
+        assertEquals(2500, result.accepted);
+        assertEquals(0, result.rejected);
+        assertEquals(original, imported);
+    }
+
+    @Test
+    public void jsonLines_roundTrips() throws Exception {
+        HistoryStore original = store(2500);
+        byte[] json = export(original, HistoryStore.Format.JSON_LINES);
+        assertTrue(new String(json, StandardCharsets.UTF_8).startsWith("{\"expression\":\"7 × 12.5\",\"result\":\"87.5\"}\n"));
+
+        HistoryStore imported = new HistoryStore();
+        assertEquals(2500, importInto(imported, json).accepted);
+        assertEquals(original, imported);
+    }
+
+    /** Presses the key for each character (see KeystrokeTrace.KEY_CHARACTERS), and ")" to close a group. */
+    private static void press(CalculatorViewModel viewModel, String keys) {
+        for (char c : keys.toCharArray()) {
+            if (c == ')') {
+                viewModel.processParenthesis(")");
+            } else {
+                viewModel.processKey(KeystrokeTrace.KEY_CHARACTERS.indexOf(c));
+            }
+        }
+    }
+
+    @Test
+    public void keypadEntries_roundTripThroughExportAndImport() throws Exception {
+        String[] calculations = {
+                "12-3×2=", "2×(3-5)^2=", "(3-5)^2=", "7-10=×3=", "5!3+2=", "(2+3)4=", "√9+1=",
+                "3√8×2=", "1÷3+1=", "2^3^2=", "C-5+2=", "2×-3=", "4×(1-3)=", "0.5×(2-7)÷4=",
+        };
+        SessionManager manager = new SessionManager(1, null, SessionManager.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        try {
+            SessionManager.Session session = manager.openSession();
+            MainThreadStandIn mainThread = new MainThreadStandIn();
+            CalculatorViewModel viewModel = new CalculatorViewModel(session, mainThread);
+            for (String keys : calculations) {
+                press(viewModel, keys);
+            }
+            CountDownLatch done = new CountDownLatch(1);
+            session.execute(done::countDown);
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            mainThread.drain(); // History entries are appended on the main thread
+
+            List<String> history = viewModel.history.getValue();
+            assertEquals("12 - 3 × 2 = 6", history.get(0));
+            assertEquals("2 × (-2) ^ 2 = 8", history.get(1));
+            assertEquals(history.toString(), calculations.length + 1, history.size()); // "7-10=×3=" adds two
+
+            for (HistoryStore.Format format : HistoryStore.Format.values()) {
+                HistoryStore imported = new HistoryStore();
+                HistoryStore.ImportResult result = importInto(imported, export((HistoryStore) history, format));
+                assertEquals(format + ": " + history, 0, result.rejected);
+                assertEquals(history, imported);
+            }
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void import_revalidatesEntries() throws Exception {
+        String csv = "expression,result\r\n"
+                + "1 + 1,2\r\n"
+                + "1 + 1,3\r\n"                  // Wrong result
+                + "1 ÷ 0,0\r\n"                  // Error
+                + "\"2 × 3\",\"6\"\r\n"          // Quoted fields
+                + "\"unclosed,4\r\n"             // Malformed
+                + "\n"
+                + "2 × (3 + 4),14";              // No final newline
+        HistoryStore imported = new HistoryStore();
+        HistoryStore.ImportResult result = importInto(imported, csv.getBytes(StandardCharsets.UTF_8));
+        assertEquals(3, result.accepted);
+        assertEquals(3, result.rejected);
+        assertEquals(Arrays.asList("1 + 1 = 2", "2 × 3 = 6", "2 × (3 + 4) = 14"), imported);
+
+        String json = "{\"result\": \"9\", \"expression\": \"3 ^ 2\", \"source\": \"tape\"}\n"
+                + "{\"expression\":\"\\u0031 + 2\",\"result\":\"3\"}\n"
+                + "{\"expression\":\"1 + 2\",\"result\":3}\n"; // Result is not a string
+        imported = new HistoryStore();
+        result = importInto(imported, json.getBytes(StandardCharsets.UTF_8));
+        assertEquals(2, result.accepted);
+        assertEquals(1, result.rejected);
+        assertEquals(Arrays.asList("3 ^ 2 = 9", "1 + 2 = 3"), imported);
+    }
+
+    @Test
+    public void csvFields_areQuotedAndParsedBack() {
+        List<String> fields = new ArrayList<>();
+        assertTrue(HistoryStore.parseCsv("\"a,b\",\"say \"\"hi\"\"\",", fields));
+        assertEquals(Arrays.asList("a,b", "say \"hi\"", ""), fields);
+        fields.clear();
+        assertFalse(HistoryStore.parseCsv("\"a\"b,c", fields));
+    }
+
+    @Test
+    public void export_isASnapshotWhileAppending() throws Exception {
+        HistoryStore store = store(50_000);
+        Thread appender = new Thread(() -> {
+            for (int i = 0; i < 50_000; i++) store.add("1 + 1", "2");
+        });
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        appender.start();
+        long exported = store.export(Channels.newChannel(bytes), HistoryStore.Format.JSON_LINES, null);
+        appender.join();
+        assertTrue(exported >= 50_000);
+        String text = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(exported, text.chars().filter(c -> c == '\n').count());
+
+        store.clear();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void viewModel_transfersOffTheMainThread() throws Exception {
+        SessionManager manager = new SessionManager(1, null, SessionManager.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        try {
+            MainThreadStandIn mainThread = new MainThreadStandIn();
+            CalculatorViewModel viewModel = new CalculatorViewModel(manager.openSession(), mainThread);
+            byte[] csv = export(store(5000), HistoryStore.Format.CSV);
+
+            viewModel.importHistory(Channels.newChannel(new ByteArrayInputStream(csv)), csv.length);
+            List<String> progress = new ArrayList<>();
+            viewModel.historyProgress.observeForever(progress::add);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (viewModel.history.getValue().size() < 5000 && System.nanoTime() < deadline) {
+                mainThread.drain(); // Batches are appended on the main thread
+                Thread.sleep(5);
+            }
+            while (!viewModel.statusMessage.getValue().startsWith("Imported") && System.nanoTime() < deadline) {
+                mainThread.drain();
+                Thread.sleep(5);
+            }
+            assertEquals(5000, viewModel.history.getValue().size());
+            assertEquals("Imported 5000 history entries", viewModel.statusMessage.getValue());
+            assertTrue(progress.contains("Importing history: 100%"));
+            assertEquals("", viewModel.historyProgress.getValue());
+
+            ByteArrayOutputStream exported = new ByteArrayOutputStream();
+            CountDownLatch closed = new CountDownLatch(1);
+            viewModel.exportHistory(new java.nio.channels.WritableByteChannel() {
+                private final java.nio.channels.WritableByteChannel target = Channels.newChannel(exported);
+                @Override public int write(java.nio.ByteBuffer source) throws java.io.IOException { return target.write(source); }
+                @Override public boolean isOpen() { return target.isOpen(); }
+                @Override public void close() throws java.io.IOException { target.close(); closed.countDown(); }
+            }, HistoryStore.Format.CSV);
+            assertTrue(closed.await(30, TimeUnit.SECONDS));
+            assertArrayEquals(csv, exported.toByteArray());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+}
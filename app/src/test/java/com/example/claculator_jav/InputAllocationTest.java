@@ -0,0 +1,217 @@
+package com.example.claculator_jav;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Allocation budgets for the input and display path, measured with the JVM's per-thread
+ * allocation counters (com.sun.management.ThreadMXBean). Scripted keystrokes run through the
+ * engine alone and through CalculatorViewModel's session and LiveData update path; a test
+ * fails when the bytes allocated per keystroke or per evaluation exceed its budget.
+ * <p>
+ * Budgets are roughly twice the measured values, so they catch regressions such as a new
+ * copy or string build per keystroke without tripping on JDK differences. Engines run quiet,
+ * as SessionManager creates them, so logging is not part of the measured path.
+ */
+public class InputAllocationTest {
+
+    // --- Budgets (bytes) ---
+    private static final long DIGIT_KEYSTROKE_BUDGET = 900;
+    private static final long EXPRESSION_KEYSTROKE_BUDGET = 1_300;
+    private static final long EVALUATION_BUDGET = 900;
+    private static final long VIEW_MODEL_KEYSTROKE_BUDGET = 1_700;
+    private static final long VIEW_MODEL_EVALUATION_BUDGET = 3_200;
+
+    // --- Scripts ("C" is clear) ---
+    private static final String DIGITS = "123456789012C";
+    private static final String EXPRESSION = "12.5×(3+4)-6÷2=C";
+    private static final String EVALUATED = "1234.5×(67+8.9)-10÷3";
+
+    private static final int WARMUP_ROUNDS = 5_000;
+    private static final int MEASURED_ROUNDS = 1_000;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutor = new InstantTaskExecutorRule(); // LiveData on the test thread
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Before
+    public void requireAllocationCounters() {
+        Assume.assumeTrue("Thread allocation counters are not available",
+                THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled());
+    }
+
+    private static long allocatedBytes(long... threadIds) {
+        long total = 0;
+        for (long id : threadIds) {
+            total += THREADS.getThreadAllocatedBytes(id);
+        }
+        return total;
+    }
+
+    private static void report(String name, double bytesPerOp, long budget) {
+        System.err.printf("Allocation %-40s %10.1f B/op (budget %d)%n", name, bytesPerOp, budget);
+        assertTrue(name + ": " + bytesPerOp + " bytes/op exceeds the budget of " + budget, bytesPerOp <= budget);
+    }
+
+    // --- Engine ---
+
+    private static void type(CalculatorEngine engine, String keys) {
+        for (int i = 0; i < keys.length(); i++) {
+            char key = keys.charAt(i);
+            if (key >= '0' && key <= '9') engine.inputDigit(DIGIT_STRINGS[key - '0']);
+            else if (key == '.') engine.inputDecimal();
+            else if (key == '(') engine.inputParenthesis("(");
+            else if (key == ')') engine.inputParenthesis(")");
+            else if (key == '=') engine.calculateResult();
+            else if (key == 'C') engine.clear();
+            else engine.inputOperator(OPERATORS[OPERATOR_KEYS.indexOf(key)]);
+        }
+    }
+
+    private static final String[] DIGIT_STRINGS = { "0", "1", "2", "3", "4", "5", "6", "7", "8", "9" };
+    private static final String OPERATOR_KEYS = "+-×÷";
+    private static final String[] OPERATORS = { "+", "-", "×", "÷" };
+
+    /** An engine whose listener formats everything the ViewModel shows after each change. */
+    private static CalculatorEngine displayedEngine() {
+        CalculatorEngine engine = new CalculatorEngine();
+        engine.setQuiet(true);
+        engine.addChangeListener(event -> {
+            engine.getDisplayValue();
+            engine.getExpressionPreview();
+            engine.getResultPreview();
+        });
+        return engine;
+    }
+
+    private static double engineBytesPerKeystroke(String script) {
+        CalculatorEngine engine = displayedEngine();
+        for (int i = 0; i < WARMUP_ROUNDS; i++) type(engine, script);
+        long thread = Thread.currentThread().getId();
+        long before = allocatedBytes(thread);
+        for (int i = 0; i < MEASURED_ROUNDS; i++) type(engine, script);
+        return (allocatedBytes(thread) - before) / (double) (MEASURED_ROUNDS * script.length());
+    }
+
+    @Test
+    public void engine_digitEntryWithinBudget() {
+        report("engine digit entry", engineBytesPerKeystroke(DIGITS), DIGIT_KEYSTROKE_BUDGET);
+    }
+
+    @Test
+    public void engine_expressionEntryWithinBudget() {
+        report("engine expression entry", engineBytesPerKeystroke(EXPRESSION), EXPRESSION_KEYSTROKE_BUDGET);
+    }
+
+    @Test
+    public void engine_evaluationWithinBudget() {
+        CalculatorEngine engine = displayedEngine();
+        long thread = Thread.currentThread().getId();
+        long measured = 0;
+        for (int i = 0; i < WARMUP_ROUNDS + MEASURED_ROUNDS; i++) {
+            type(engine, "C" + EVALUATED);
+            long before = allocatedBytes(thread);
+            engine.calculateResult();
+            if (i >= WARMUP_ROUNDS) measured += allocatedBytes(thread) - before;
+        }
+        report("engine evaluation", measured / (double) MEASURED_ROUNDS, EVALUATION_BUDGET);
+    }
+
+    // --- ViewModel ---
+
+    /** Types through the ViewModel, waits for the lane, then delivers posted LiveData updates. */
+    private static void type(CalculatorViewModel viewModel, SessionManager.Session session,
+                             MainThreadStandIn mainThread, String keys) throws InterruptedException {
+        for (int i = 0; i < keys.length(); i++) {
+            char key = keys.charAt(i);
+            if (key >= '0' && key <= '9') viewModel.processDigit(DIGIT_STRINGS[key - '0']);
+            else if (key == '.') viewModel.processDecimal();
+            else if (key == '(') viewModel.processParenthesis("(");
+            else if (key == ')') viewModel.processParenthesis(")");
+            else if (key == '=') viewModel.processEquals();
+            else if (key == 'C') viewModel.processClear();
+            else viewModel.processOperator(OPERATORS[OPERATOR_KEYS.indexOf(key)]);
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        session.execute(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        mainThread.drain();
+    }
+
+    private static long workerThreadId(SessionManager.Session session) throws InterruptedException {
+        long[] id = new long[1];
+        CountDownLatch done = new CountDownLatch(1);
+        session.execute(() -> {
+            id[0] = Thread.currentThread().getId();
+            done.countDown();
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return id[0];
+    }
+
+    /** Bytes per keystroke on the worker and the main-thread stand-in together, for a script typed in batches. */
+    private static double viewModelBytesPerKeystroke(String script) throws InterruptedException {
+        SessionManager manager = new SessionManager(1, null, SessionManager.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        try {
+            SessionManager.Session session = manager.openSession();
+            MainThreadStandIn mainThread = new MainThreadStandIn();
+            CalculatorViewModel viewModel = new CalculatorViewModel(session, mainThread);
+            String batch = repeat(script, 50);
+            for (int i = 0; i < WARMUP_ROUNDS / 50; i++) type(viewModel, session, mainThread, batch);
+            long[] threads = { Thread.currentThread().getId(), workerThreadId(session) };
+            long before = allocatedBytes(threads);
+            for (int i = 0; i < MEASURED_ROUNDS / 50; i++) type(viewModel, session, mainThread, batch);
+            return (allocatedBytes(threads) - before) / (double) (MEASURED_ROUNDS * script.length());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    private static String repeat(String text, int count) {
+        StringBuilder builder = new StringBuilder(text.length() * count);
+        for (int i = 0; i < count; i++) builder.append(text);
+        return builder.toString();
+    }
+
+    @Test
+    public void viewModel_keystrokePathWithinBudget() throws Exception {
+        report("view model digit entry", viewModelBytesPerKeystroke(DIGITS), VIEW_MODEL_KEYSTROKE_BUDGET);
+        report("view model expression entry", viewModelBytesPerKeystroke(EXPRESSION), VIEW_MODEL_KEYSTROKE_BUDGET);
+    }
+
+    @Test
+    public void viewModel_evaluationDoesNotGrowWithHistory() throws Exception {
+        // Every round adds a history entry, so a per-evaluation copy of the history would
+        // push the later rounds far over budget.
+        SessionManager manager = new SessionManager(1, null, SessionManager.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        try {
+            SessionManager.Session session = manager.openSession();
+            MainThreadStandIn mainThread = new MainThreadStandIn();
+            CalculatorViewModel viewModel = new CalculatorViewModel(session, mainThread);
+            long[] threads = { Thread.currentThread().getId(), workerThreadId(session) };
+            long measured = 0;
+            for (int i = 0; i < WARMUP_ROUNDS + MEASURED_ROUNDS; i++) {
+                type(viewModel, session, mainThread, "C" + EVALUATED);
+                long before = allocatedBytes(threads);
+                type(viewModel, session, mainThread, "=");
+                if (i >= WARMUP_ROUNDS) measured += allocatedBytes(threads) - before;
+            }
+            assertEquals(WARMUP_ROUNDS + MEASURED_ROUNDS, viewModel.history.getValue().size());
+            report("view model evaluation", measured / (double) MEASURED_ROUNDS, VIEW_MODEL_EVALUATION_BUDGET);
+        } finally {
+            manager.shutdown();
+        }
+    }
+}
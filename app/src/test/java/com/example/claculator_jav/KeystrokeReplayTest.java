@@ -0,0 +1,105 @@
+package com.example.claculator_jav;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Keystroke traces: compact storage, and recording through the ViewModel with a replay of
+ * the saved trace. Timed replays are in KeystrokeReplayBenchmark.
+ */
+public class KeystrokeReplayTest {
+
+    // A session's worth of typing: entry, corrections, parentheses, scientific keys, clears.
+    // The keypad's parenthesis key only opens groups, so "=" after one is a "Mismatched (" error
+    // that the next clear or digit recovers from, as on the device.
+    static final String SESSION_SCRIPT =
+            "12.5×(3+4=C 1234<<5÷8= +2= 3^4-2√9= C 7!÷(2+3= 99%× 4= C ((1+2×3= 0.1+0.2= C";
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutor = new InstantTaskExecutorRule(); // LiveData on any thread
+
+    private PrintStream originalOut;
+
+    @Before
+    public void silenceLogging() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override public void write(int b) {}
+            @Override public void write(byte[] b, int off, int len) {}
+        }));
+    }
+
+    @After
+    public void restoreLogging() {
+        System.setOut(originalOut);
+    }
+
+    @Test
+    public void trace_roundTripsCompactly() throws Exception {
+        KeystrokeTrace trace = KeystrokeTrace.synthetic(SESSION_SCRIPT, 120);
+        trace.setFinalDisplay("0");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        trace.write(bytes);
+        // Gaps under 2 s need at most a 3-byte delta, plus the key byte
+        assertTrue("4 bytes per key or less", bytes.size() <= 8 + 4 * trace.size() + 3);
+
+        KeystrokeTrace read = KeystrokeTrace.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(trace.toString(), read.toString());
+        assertEquals(trace.getTimeNanos(trace.size() - 1), read.getTimeNanos(read.size() - 1));
+        assertEquals("0", read.getFinalDisplay());
+    }
+
+    @Test
+    public void viewModel_recordsKeysAndFinalDisplay() throws Exception {
+        SessionManager manager = new SessionManager(1, null, SessionManager.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        File directory = Files.createTempDirectory("traces").toFile();
+        try {
+            SessionManager.Session session = manager.openSession();
+            MainThreadStandIn mainThread = new MainThreadStandIn();
+            CalculatorViewModel viewModel = new CalculatorViewModel(session, mainThread);
+            viewModel.startTraceRecording();
+            for (int key : new int[] { KeystrokeTrace.KEY_1, KeystrokeTrace.KEY_2, KeystrokeTrace.KEY_ADD,
+                    KeystrokeTrace.KEY_3, KeystrokeTrace.KEY_EQUALS }) {
+                viewModel.processKey(key);
+            }
+            CountDownLatch done = new CountDownLatch(1);
+            session.execute(done::countDown);
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            mainThread.drain();
+            viewModel.stopTraceRecording(directory);
+            assertFalse(viewModel.isRecordingTrace());
+
+            // The outcome is posted after the writer has closed the file
+            assertTrue(mainThread.drainUntil(() -> viewModel.statusMessage.getValue().startsWith("Saved"), 10, TimeUnit.SECONDS));
+            File[] files = directory.listFiles();
+            assertEquals(1, files.length);
+            assertEquals("Saved 5 keystrokes to " + files[0].getName(), viewModel.statusMessage.getValue());
+            try (InputStream in = new FileInputStream(files[0])) {
+                KeystrokeTrace trace = KeystrokeTrace.read(in);
+                assertEquals("12+3=", trace.toString());
+                assertEquals("15", trace.getFinalDisplay());
+                assertEquals("15", TraceReplayer.replay(trace, TraceReplayer.AS_FAST_AS_POSSIBLE).finalState);
+            }
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.example.claculator_jav;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Local stand-in for the Android main thread in JVM tests: posted tasks are queued and run
+ * when the test thread (playing the main thread) calls drain(), like a Looper turn.
+ */
+final class MainThreadStandIn implements Executor {
+
+    private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+
+    @Override
+    public void execute(Runnable task) {
+        queue.add(task);
+    }
+
+    /** Runs everything posted so far on the calling thread. @return The number of tasks run. */
+    int drain() {
+        int count = 0;
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            task.run();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Runs posted tasks as they arrive, waiting for the next one, until the condition holds
+     * (e.g. a background task posted its outcome). @return false if it still doesn't hold
+     * when the timeout expires.
+     */
+    boolean drainUntil(BooleanSupplier condition, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        drain();
+        while (!condition.getAsBoolean()) {
+            Runnable task = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (task == null) {
+                return false;
+            }
+            task.run();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the matrix kernels against simple references, on both the sequential and the
+ * parallel paths, and the exact path for small decimal matrices.
+ */
+public class MatrixTest {
+
+    @Test
+    public void multiply_matchesNaiveProduct() {
+        Random random = new Random(1);
+        // Odd sizes exercise partial tiles; 300 takes the parallel path
+        for (int n : new int[] { 3, 65, 300 }) {
+            Matrix a = randomMatrix(n, random);
+            Matrix b = randomMatrix(n, random);
+            Matrix product = a.multiply(b);
+            for (int check = 0; check < 20; check++) {
+                int i = random.nextInt(n);
+                int j = random.nextInt(n);
+                double expected = 0;
+                for (int k = 0; k < n; k++) expected += a.get(i, k) * b.get(k, j);
+                assertEquals(expected, product.get(i, j), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void inverse_timesMatrixIsIdentity() {
+        Random random = new Random(2);
+        for (int n : new int[] { 4, 200 }) {
+            Matrix a = randomMatrix(n, random);
+            Matrix identity = a.multiply(a.inverse());
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    assertEquals(i == j ? 1 : 0, identity.get(i, j), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void exactPath_isExactForDecimals() {
+        Matrix a = Matrix.parse("0.1 0.2; 0.3 0.4");
+        assertEquals(new BigDecimal("-0.02"), ExactMatrix.from(a).determinant());
+        assertEquals("-2  1\n1.5  -0.5", ExactMatrix.from(Matrix.parse("1 2; 3 4")).inverse().toString());
+        assertEquals(0, ExactMatrix.from(Matrix.parse("1 2; 2 4")).determinant().signum());
+        assertEquals(a.determinant(), ExactMatrix.from(a).determinant().doubleValue(), 1e-12);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void solve_singularMatrixThrows() {
+        Matrix.parse("1 2; 2 4").solve(Matrix.parse("1; 2"));
+    }
+
+    @Test
+    public void determinant_usesTheActualPivots() {
+        // Below the singularity threshold for solving, but the determinant is still 1e-13
+        Matrix nearlySingular = Matrix.parse("0.0000000000001 0; 0 1");
+        assertTrue(nearlySingular.lu().isSingular());
+        assertEquals(1e-13, nearlySingular.determinant(), 1e-28);
+        assertEquals(-1e-13, Matrix.parse("0 1; 0.0000000000001 0").determinant(), 1e-28);
+        assertEquals(0, Matrix.parse("1 2; 2 4").determinant(), 0);
+        assertEquals(0, Matrix.parse("0 0 1; 0 0 2; 1 2 3").determinant(), 0);
+        try {
+            nearlySingular.solve(Matrix.parse("1; 1"));
+            fail("Expected a singular matrix error");
+        } catch (ArithmeticException expected) {
+            // Solving still refuses pivots below the threshold
+        }
+    }
+
+    static Matrix randomMatrix(int n, Random random) {
+        double[] values = new double[n * n];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble() * 2 - 1;
+        }
+        return Matrix.of(n, n, values);
+    }
+}
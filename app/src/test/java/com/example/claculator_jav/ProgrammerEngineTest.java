@@ -0,0 +1,151 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that ProgrammerEngine groups like CalculatorEngine on the same integer keystrokes,
+ * and checks the bitwise operators, typed text and the ViewModel's programmer mode.
+ */
+public class ProgrammerEngineTest {
+
+    // Integer-exact in both engines (the only division has no remainder)
+    static final String EXPRESSION = "(1234 + 5678) × 9 - 4900 ÷ 7 + 88 × (77 - 66) × 3";
+    static final String EXPECTED = "64412";
+
+    @Test
+    public void bitwiseOperators_maskToWordSize() {
+        ProgrammerEngine engine = new ProgrammerEngine();
+        engine.setWordSize(8);
+        engine.setRadix(ProgrammerEngine.RADIX_HEX);
+
+        type(engine, "F0 OR 0F");
+        assertEquals("FF", engine.getDisplayValue());
+
+        engine.clear();
+        type(engine, "81 ROL 1");
+        assertEquals("3", engine.getDisplayValue());
+
+        engine.clear();
+        type(engine, "FF + 1");
+        assertEquals("0", engine.getDisplayValue()); // Wraps at 8 bits
+
+        engine.clear();
+        engine.setRadix(ProgrammerEngine.RADIX_DEC);
+        type(engine, "3 - 5");
+        assertEquals("-2", engine.getDisplayValue());
+        engine.setRadix(ProgrammerEngine.RADIX_BIN);
+        assertEquals("11111110", engine.getDisplayValue());
+    }
+
+    @Test
+    public void precedence_matchesDecimalEngine() {
+        ProgrammerEngine engine = new ProgrammerEngine();
+        type(engine, EXPRESSION);
+        assertEquals(EXPECTED, engine.getDisplayValue());
+        assertEquals(EXPECTED, evaluateDecimal(EXPRESSION));
+    }
+
+    @Test
+    public void importExpression_readsTypedText() {
+        ProgrammerEngine engine = new ProgrammerEngine();
+        engine.setRadix(ProgrammerEngine.RADIX_HEX);
+        assertTrue(engine.importExpression("ff and (1 << 4) OR a0"));
+        engine.calculateResult();
+        assertEquals("B0", engine.getDisplayValue());
+
+        engine.clear();
+        engine.setWordSize(8);
+        assertTrue(engine.importExpression("0F NOT XOR 1"));
+        engine.calculateResult();
+        assertEquals("F1", engine.getDisplayValue());
+
+        engine.clear();
+        engine.setRadix(ProgrammerEngine.RADIX_BIN);
+        assertFalse("2 is not a binary digit", engine.importExpression("101 + 2"));
+        engine.clear();
+        assertFalse("Two numbers in a row", engine.importExpression("101 11"));
+        engine.clear();
+        assertFalse(engine.importExpression("1 % 1"));
+    }
+
+    @Test
+    public void viewModel_postsEveryRadixAndLoadsTheResult() throws Exception {
+        SessionManager manager = new SessionManager(1, null, SessionManager.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        try {
+            SessionManager.Session session = manager.openSession();
+            MainThreadStandIn mainThread = new MainThreadStandIn();
+            CalculatorViewModel viewModel = new CalculatorViewModel(session, mainThread);
+            viewModel.processProgrammer("3 - 5", ProgrammerEngine.RADIX_DEC, 8);
+            viewModel.useProgrammerResult();
+            CountDownLatch done = new CountDownLatch(1);
+            session.execute(done::countDown);
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            mainThread.drain();
+            assertEquals("HEX FE\nDEC -2\nOCT 376\nBIN 11111110", viewModel.programmerResult.getValue());
+            assertEquals("-2", viewModel.displayValue.getValue());
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    /** Feeds space-separated tokens as keystrokes; "=" is pressed at the end. */
+    private static void type(ProgrammerEngine engine, String expression) {
+        type(engine, tokens(expression));
+    }
+
+    static void type(ProgrammerEngine engine, String[] tokens) {
+        for (String token : tokens) {
+            if (token.equals("(") || token.equals(")")) {
+                engine.inputParenthesis(token);
+            } else if (Character.digit(token.charAt(0), engine.getRadix()) >= 0) {
+                for (int i = 0; i < token.length(); i++) {
+                    engine.inputDigit(token.charAt(i));
+                }
+            } else {
+                engine.inputOperator(token);
+            }
+        }
+        engine.calculateResult();
+    }
+
+    private static final String[] DIGITS = { "0", "1", "2", "3", "4", "5", "6", "7", "8", "9" };
+
+    /** Same keystrokes through the decimal engine's keypad methods. */
+    static void type(CalculatorEngine engine, String[] tokens) {
+        for (String token : tokens) {
+            if (token.equals("(") || token.equals(")")) {
+                engine.inputParenthesis(token);
+            } else if (Character.isDigit(token.charAt(0))) {
+                for (int i = 0; i < token.length(); i++) {
+                    engine.inputDigit(DIGITS[token.charAt(i) - '0']);
+                }
+            } else {
+                engine.inputOperator(token);
+            }
+        }
+        engine.calculateResult();
+    }
+
+    static String[] tokens(String expression) {
+        return expression.replace("(", "( ").replace(")", " )").split(" +");
+    }
+
+    private static String evaluateDecimal(String expression) {
+        CalculatorEngine engine = new CalculatorEngine();
+        try {
+            engine.importExpression(new StringReader(expression));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        engine.calculateResult();
+        return engine.getDisplayValue();
+    }
+}
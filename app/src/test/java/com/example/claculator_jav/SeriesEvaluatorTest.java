@@ -0,0 +1,91 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Σ and Π: closed forms against brute-force reductions of the same terms, and products
+ * decided by a zero factor far beyond what the time limit lets a reduction reach.
+ */
+public class SeriesEvaluatorTest {
+
+    private static final long NO_TIME_LIMIT = Long.MAX_VALUE / 2_000_000L;
+
+    private static SeriesEvaluator.Result sum(String term, long from, long to) {
+        return SeriesEvaluator.sum(term, "i", from, to, NO_TIME_LIMIT, new AtomicBoolean());
+    }
+
+    private static SeriesEvaluator.Result product(String term, long from, long to, long timeLimitMillis) {
+        return SeriesEvaluator.product(term, "i", from, to, timeLimitMillis, new AtomicBoolean());
+    }
+
+    /** Σ term by adding every term exactly. */
+    private static BigDecimal bruteForceSum(String term, long from, long to) {
+        CompiledExpression compiled = ExpressionCompiler.compile(term, "i");
+        BigDecimal total = BigDecimal.ZERO;
+        for (long i = from; i <= to; i++) total = total.add(compiled.evaluateExact(BigDecimal.valueOf(i)));
+        return total;
+    }
+
+    @Test
+    public void polynomialSum_matchesBruteForce() {
+        String[] terms = { "7", "2i - 3", "i × i + 1", "(i - 4)^3 - 2i", "i^5 × 0.25 - i" };
+        long[][] ranges = { { 1, 100 }, { -50, 50 }, { -20, -3 }, { 0, 6 } };
+        for (String term : terms) {
+            for (long[] range : ranges) {
+                SeriesEvaluator.Result result = sum(term, range[0], range[1]);
+                assertTrue(term, result.isClosedForm());
+                assertEquals(term + " over " + range[0] + ".." + range[1],
+                        0, bruteForceSum(term, range[0], range[1]).compareTo(result.getValue()));
+            }
+        }
+    }
+
+    @Test
+    public void geometricSum_matchesBruteForce() {
+        // Negative slopes in the exponent give ratios below 1; a negative base alternates
+        String[] terms = { "2^-i", "3 × 2^(10 - i)", "5^(-2i + 1)", "(-2)^i", "3^i" };
+        for (String term : terms) {
+            SeriesEvaluator.Result result = sum(term, 0, 30);
+            assertTrue(term, result.isClosedForm());
+            BigDecimal expected = bruteForceSum(term, 0, 30);
+            double tolerance = 1e-7 + Math.abs(expected.doubleValue()) * 1e-12; // Rounded powers and quotients
+            assertEquals(term, expected.doubleValue(), result.getValue().doubleValue(), tolerance);
+        }
+        assertEquals(0, new BigDecimal("715827882").compareTo(sum("(-2)^i", 1, 30).getValue()));
+    }
+
+    @Test
+    public void emptyRange_isTheIdentity() {
+        assertEquals(0, sum("i × i", 5, 4).getValue().signum());
+        assertEquals(0, sum("2^i", 1, 0).getValue().signum());
+        assertEquals(0, sum("i!", 10, 1).getValue().signum());
+        assertEquals(0, BigDecimal.ONE.compareTo(product("i - 5", 10, 1, NO_TIME_LIMIT).getValue()));
+    }
+
+    @Test
+    public void product_withAZeroFactorAfterTheDeadline() {
+        // Reducing to i = 5 would take far longer than 1 ms; the zero is found first
+        SeriesEvaluator.Result result = product("i - 5", 1, 100_000_000L, 1);
+        assertEquals(SeriesEvaluator.Status.DONE, result.getStatus());
+        assertEquals(0, result.getValue().signum());
+
+        assertEquals(0, product("(i - 60000000) × (i + 3)", 1, 100_000_000L, 1).getValue().signum());
+        assertEquals(0, product("i × i - 4000000000000", -3_000_000L, 3_000_000L, 1).getValue().signum()); // ±2000000
+        assertEquals(0, product("(i + 1)^3 - 9 × (i + 1)", -1_000_000L, 0, 1).getValue().signum()); // i = -4, -1
+
+        // Sign changes without an integer root, and a root just outside the range
+        assertFalse(SeriesEvaluator.hasZeroFactor(ExpressionCompiler.compile("2i - 1", "i"), 1, -1_000_000, 1_000_000));
+        assertFalse(SeriesEvaluator.hasZeroFactor(ExpressionCompiler.compile("i × i - 2", "i"), 2, -1_000_000, 1_000_000));
+        assertFalse(SeriesEvaluator.hasZeroFactor(ExpressionCompiler.compile("i - 5", "i"), 1, 6, 1_000_000));
+        assertFalse(SeriesEvaluator.hasZeroFactor(ExpressionCompiler.compile("(i - 3)^2 + 1", "i"), 2, -100, 100));
+        assertTrue(SeriesEvaluator.hasZeroFactor(ExpressionCompiler.compile("(i - 3)^2", "i"), 2, -100, 100));
+
+        assertEquals(0, new BigDecimal("3628800").compareTo(product("i", 1, 10, NO_TIME_LIMIT).getValue()));
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.example.claculator_jav;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that sessions keep their own input order on the shared pool and that parked
+ * engines resume mid-expression.
+ */
+public class SessionManagerTest {
+
+    private SessionManager manager;
+
+    @After
+    public void shutdown() {
+        if (manager != null) manager.shutdown();
+    }
+
+    /** Waits until everything queued on the session so far has run. */
+    static void await(SessionManager.Session session) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        session.execute(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    private static void awaitParked(SessionManager.Session session) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!session.getStats().parked && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(session.getStats().parked);
+    }
+
+    static void type(SessionManager.Session session, String keys) {
+        for (char key : keys.toCharArray()) {
+            String input = String.valueOf(key);
+            session.execute(() -> {
+                CalculatorEngine engine = session.getEngine();
+                if (Character.isDigit(key)) engine.inputDigit(input);
+                else if (key == '.') engine.inputDecimal();
+                else if (key == '(' || key == ')') engine.inputParenthesis(input);
+                else if (key == '=') engine.calculateResult();
+                else engine.inputOperator(input);
+            });
+        }
+    }
+
+    private static String display(SessionManager.Session session) throws InterruptedException {
+        String[] display = new String[1];
+        CountDownLatch done = new CountDownLatch(1);
+        session.execute(() -> {
+            display[0] = session.getEngine().getDisplayValue();
+            done.countDown();
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return display[0];
+    }
+
+    @Test
+    public void sessions_keepTheirOwnOrder() throws Exception {
+        manager = new SessionManager(2, null, SessionManager.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        List<SessionManager.Session> sessions = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            sessions.add(manager.openSession());
+        }
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < sessions.size(); i++) {
+                type(sessions.get(i), round == 0 ? String.valueOf(i) : "+1");
+            }
+        }
+        for (int i = 0; i < sessions.size(); i++) {
+            type(sessions.get(i), "=");
+            assertEquals(String.valueOf(i + 49), display(sessions.get(i)));
+        }
+        for (SessionManager.SessionStats stats : manager.getStats()) {
+            assertTrue(stats.completedTasks >= 100);
+        }
+    }
+
+    /** Waits for the manager's total queue depth; a lane counts a task as finished just after it returns. */
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (manager.getTotalQueueDepth() != depth && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(depth, manager.getTotalQueueDepth());
+    }
+
+    @Test
+    public void computeLane_runsBesideTheEngineAndCountsInQueueDepth() throws Exception {
+        manager = new SessionManager(1, null, SessionManager.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        SessionManager.Session session = manager.openSession();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        session.compute(() -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        session.compute(done::countDown);
+
+        // A long job does not hold up keystrokes, even with a single engine worker
+        type(session, "6×7=");
+        assertEquals("42", display(session));
+        awaitQueueDepth(2); // Only the compute tasks, once the engine lane has drained
+        assertEquals(2, session.getStats().computeQueueDepth);
+
+        release.countDown();
+        session.compute(done::countDown);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        awaitQueueDepth(0);
+        assertEquals(3, session.getStats().completedComputeTasks);
+    }
+
+    @Test
+    public void parking_resumesMidExpression() throws Exception {
+        File directory = Files.createTempDirectory("sessions").toFile();
+        manager = new SessionManager(1, directory, 50);
+        SessionManager.Session session = manager.openSession();
+        type(session, "2×(3+1.50");
+        await(session);
+        awaitParked(session);
+        assertEquals(1, directory.listFiles().length);
+
+        type(session, "5"); // Still entering "1.50", so this appends a digit
+        assertEquals("1.505", display(session));
+        type(session, ")=");
+        assertEquals("9.01", display(session));
+        assertFalse(session.getStats().parked);
+
+        session.close();
+        manager.shutdown();
+        assertTrue(manager.getStats().size() <= 1);
+    }
+
+    @Test
+    public void parking_inMemoryKeepsPreview() throws Exception {
+        manager = new SessionManager(1, null, 50);
+        SessionManager.Session session = manager.openSession();
+        type(session, "7√");
+        await(session);
+        awaitParked(session);
+
+        CalculatorEngine reference = new CalculatorEngine();
+        reference.inputDigit("7");
+        reference.inputOperator("√");
+        String[] restored = new String[1];
+        CountDownLatch done = new CountDownLatch(1);
+        session.execute(() -> {
+            restored[0] = session.getEngine().getExpressionPreview();
+            done.countDown();
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(reference.getExpressionPreview(), restored[0]);
+    }
+
+}
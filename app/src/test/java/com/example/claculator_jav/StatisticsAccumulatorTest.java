@@ -0,0 +1,117 @@
+package com.example.claculator_jav;
+
+import org.junit.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the statistics mode's quantiles against exact quantiles of the sorted values,
+ * over narrow and extremely wide ranges, with both signs and after parallel merges, and
+ * the parsing of imported values.
+ */
+public class StatisticsAccumulatorTest {
+
+    private static final double[] QUANTILES = { 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99 };
+
+    /** Asserts every tested quantile is within the sketch's relative accuracy of the exact one. */
+    private static void assertQuantilesAccurate(String name, double[] values) {
+        StatisticsAccumulator accumulator = StatisticsAccumulator.of(values, 0, values.length);
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double exact = sorted[(int) (q * (sorted.length - 1))];
+            double estimate = accumulator.getQuantile(q);
+            assertEquals(name + " q" + q, exact, estimate, Math.abs(exact) * QuantileSketch.RELATIVE_ACCURACY * 1.0001);
+        }
+    }
+
+    @Test
+    public void quantiles_narrowRange() {
+        Random random = new Random(1);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) values[i] = 100 + random.nextDouble() * 50;
+        assertQuantilesAccurate("uniform 100..150", values);
+    }
+
+    @Test
+    public void quantiles_spanningTheWholeDoubleRange() {
+        // Log-uniform from 1e-300 to 1e300: far more buckets than a sketch starts with
+        Random random = new Random(2);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) values[i] = Math.pow(10, -300 + random.nextDouble() * 600);
+        assertQuantilesAccurate("1e-300..1e300", values);
+
+        double[] extremes = { 1e-300, 1e-200, 1e-100, 1, 1e100, 1e200, 1e300, Double.MAX_VALUE };
+        assertQuantilesAccurate("extremes", extremes);
+    }
+
+    @Test
+    public void quantiles_mixedSignsAndZeros() {
+        Random random = new Random(3);
+        double[] values = new double[60_000];
+        for (int i = 0; i < values.length; i++) {
+            switch (i % 3) {
+                case 0: values[i] = -Math.exp(random.nextGaussian() * 20); break;
+                case 1: values[i] = Math.exp(random.nextGaussian() * 20); break;
+                default: values[i] = i % 2 == 0 ? 0 : random.nextGaussian();
+            }
+        }
+        assertQuantilesAccurate("mixed signs", values);
+    }
+
+    @Test
+    public void quantiles_afterMergingDisjointRanges() {
+        QuantileSketch low = new QuantileSketch();
+        QuantileSketch high = new QuantileSketch();
+        double[] values = new double[20_000];
+        for (int i = 0; i < 10_000; i++) {
+            values[i] = 1e-250 * (1 + i);
+            values[10_000 + i] = 1e250 * (1 + i);
+            low.add(values[i]);
+            high.add(values[10_000 + i]);
+        }
+        low.merge(high);
+        assertEquals(20_000, low.getCount());
+        assertEquals(values[4_999], low.getQuantile(0.25), values[4_999] * QuantileSketch.RELATIVE_ACCURACY);
+        assertEquals(values[14_999], low.getQuantile(0.75), values[14_999] * QuantileSketch.RELATIVE_ACCURACY);
+    }
+
+    @Test
+    public void fromReader_parsesExponentsAndSkipsBadTokens() throws Exception {
+        StatisticsAccumulator values = StatisticsAccumulator.fromReader(new StringReader("1.5E-3, 2.5e2, 7"));
+        assertEquals(3, values.getCount());
+        assertEquals(1.5e-3, values.getMin(), 0);
+        assertEquals(250, values.getMax(), 0);
+        assertEquals(257.0015, values.getSum(), 1e-12);
+
+        // A lone or doubled sign is not a value sign; malformed numbers are skipped whole
+        values = StatisticsAccumulator.fromReader(new StringReader("-4;+2\n5 - 3\t--1 1e 1e+ .5 2.5.1 x7 NaN 1E308"));
+        assertEquals(6, values.getCount());
+        assertEquals(-4, values.getMin(), 0);
+        assertEquals(1e308, values.getMax(), 0);
+        assertEquals(-4 + 2 + 5 + 3 + 0.5 + 1e308, values.getSum(), 1e292);
+    }
+
+    @Test
+    public void fromReader_readsExponentsSplitAcrossReads() throws Exception {
+        // One character per read, so every lookahead past "e" needs another read
+        Reader trickle = new FilterReader(new StringReader("2e-1;3E+2 4e 5.5e3x −1e1")) {
+            @Override public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 1));
+            }
+        };
+        StatisticsAccumulator values = StatisticsAccumulator.fromReader(trickle);
+        assertEquals(3, values.getCount()); // "4e" and "5.5e3x" are skipped
+        assertEquals(-10, values.getMin(), 0);
+        assertEquals(300, values.getMax(), 0);
+        assertEquals(290.2, values.getSum(), 1e-12);
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.example.claculator_jav;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a KeystrokeTrace into a CalculatorViewModel at a chosen speed and measures how
+ * quickly the UI state catches up with the input.
+ * <p>
+ * A single "replay-main" thread stands in for the Android main thread: it dispatches the
+ * keys at their (scaled) trace times, runs the LiveData updates the ViewModel posts, and
+ * ticks a 60 Hz frame clock. After each key, a marker is queued behind it on the session's
+ * lane and then on the main thread; when the marker runs, every update caused by that key
+ * has been delivered, so marker time minus dispatch time is the key's end-to-end latency.
+ * A frame is dropped when the main thread runs its tick more than a frame late, and stale
+ * when a key dispatched more than a frame earlier still hasn't reached the display.
+ */
+final class TraceReplayer {
+
+    // --- Constants ---
+    static final double AS_FAST_AS_POSSIBLE = 0; // Speed: dispatch every key at once, in order
+    static final long FRAME_NANOS = 16_666_667L;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    /** Outcome of one replay. */
+    static final class Report {
+        final int keys;
+        final long p50Micros;
+        final long p90Micros;
+        final long p99Micros;
+        final long maxMicros;
+        final int frames;
+        final int droppedFrames;
+        final int staleFrames;
+        final String finalState;    // Display and expression the replay ended with
+        final String expectedState; // Same, from the recorded run (or a reference run)
+
+        Report(long[] latenciesNanos, int frames, int droppedFrames, int staleFrames, String finalState, String expectedState) {
+            long[] sorted = latenciesNanos.clone();
+            Arrays.sort(sorted);
+            this.keys = sorted.length;
+            this.p50Micros = percentile(sorted, 0.50) / 1000;
+            this.p90Micros = percentile(sorted, 0.90) / 1000;
+            this.p99Micros = percentile(sorted, 0.99) / 1000;
+            this.maxMicros = sorted.length > 0 ? sorted[sorted.length - 1] / 1000 : 0;
+            this.frames = frames;
+            this.droppedFrames = droppedFrames;
+            this.staleFrames = staleFrames;
+            this.finalState = finalState;
+            this.expectedState = expectedState;
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)];
+        }
+
+        boolean matchesExpectedState() {
+            return finalState.equals(expectedState);
+        }
+
+        @Override
+        public String toString() {
+            return keys + " keys, latency p50=" + p50Micros + "us p90=" + p90Micros + "us p99=" + p99Micros
+                    + "us max=" + maxMicros + "us, frames=" + frames + " dropped=" + droppedFrames
+                    + " stale=" + staleFrames + ", final state " + (matchesExpectedState() ? "matches" : "DIFFERS: "
+                    + finalState + " vs " + expectedState);
+        }
+    }
+
+    private TraceReplayer() {}
+
+    /**
+     * Replays a trace at the given speed (1 = recorded timing, 10 = ten times faster,
+     * AS_FAST_AS_POSSIBLE = no delays) and reports latencies, frames and final state.
+     * The expected state is the trace's recorded final display, or a reference run's state
+     * if the trace has none.
+     */
+    static Report replay(KeystrokeTrace trace, double speed) throws InterruptedException, ExecutionException {
+        int count = trace.size();
+        long[] dispatched = new long[count];
+        long[] settled = new long[count];
+        int[] progress = new int[3]; // Settled keys, keys older than a frame (frame clock's cursor), frame index
+        int[] frameCounts = new int[3]; // Frames, dropped, stale
+
+        SessionManager manager = new SessionManager(2, null, SessionManager.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        ScheduledThreadPoolExecutor main = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "replay-main");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            SessionManager.Session session = manager.openSession();
+            CalculatorViewModel viewModel = main.submit(() -> new CalculatorViewModel(session, main::execute)).get();
+            CountDownLatch done = new CountDownLatch(count);
+
+            long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(5); // Leave time to queue the keys
+            ScheduledFuture<?> frameClock = main.scheduleAtFixedRate(() -> {
+                long now = System.nanoTime();
+                long due = start + (long) progress[2]++ * FRAME_NANOS;
+                frameCounts[0]++;
+                if (now - due > FRAME_NANOS) {
+                    frameCounts[1]++; // The main thread was busy past the next frame
+                }
+                // Keys dispatched more than a frame ago should be on screen by now
+                while (progress[1] < count && dispatched[progress[1]] != 0 && now - dispatched[progress[1]] > FRAME_NANOS) {
+                    progress[1]++;
+                }
+                if (progress[0] < progress[1]) {
+                    frameCounts[2]++;
+                }
+            }, start - System.nanoTime(), FRAME_NANOS, TimeUnit.NANOSECONDS);
+
+            // Each key schedules the next, so keys due at the same time still go in trace order
+            Runnable[] dispatchNext = new Runnable[1];
+            int[] next = new int[1];
+            dispatchNext[0] = () -> {
+                int index = next[0]++;
+                dispatched[index] = System.nanoTime();
+                KeystrokeTrace.dispatch(viewModel, trace.getKey(index));
+                session.execute(() -> main.execute(() -> {
+                    settled[index] = System.nanoTime();
+                    progress[0]++;
+                    done.countDown();
+                }));
+                if (next[0] < count) {
+                    main.schedule(dispatchNext[0], dueNanos(start, trace, next[0], speed) - System.nanoTime(), TimeUnit.NANOSECONDS);
+                }
+            };
+            if (count > 0) {
+                main.schedule(dispatchNext[0], dueNanos(start, trace, 0, speed) - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+            if (!done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Replay did not finish within " + TIMEOUT_SECONDS + " s");
+            }
+            frameClock.cancel(false);
+
+            long[] latencies = new long[count];
+            for (int i = 0; i < count; i++) {
+                latencies[i] = settled[i] - dispatched[i];
+            }
+            boolean recorded = !trace.getFinalDisplay().isEmpty(); // A recording only keeps the display
+            String finalState = main.submit(() -> recorded ? viewModel.displayValue.getValue() : state(viewModel)).get();
+            int[] frames = main.submit(frameCounts::clone).get();
+            String expected = recorded ? trace.getFinalDisplay() : referenceState(trace);
+            return new Report(latencies, frames[0], frames[1], frames[2], finalState, expected);
+        } finally {
+            main.shutdownNow();
+            manager.shutdown();
+        }
+    }
+
+    private static long dueNanos(long start, KeystrokeTrace trace, int index, double speed) {
+        return speed == AS_FAST_AS_POSSIBLE ? start : start + (long) (trace.getTimeNanos(index) / speed);
+    }
+
+    private static String state(CalculatorViewModel viewModel) {
+        return viewModel.displayValue.getValue() + " | " + viewModel.secondaryDisplayValue.getValue();
+    }
+
+    /** The state after running the trace synchronously: keys in order, every update delivered. */
+    static String referenceState(KeystrokeTrace trace) throws InterruptedException {
+        SessionManager manager = new SessionManager(1, null, SessionManager.DEFAULT_IDLE_TIMEOUT_MILLIS);
+        try {
+            SessionManager.Session session = manager.openSession();
+            MainThreadStandIn mainThread = new MainThreadStandIn();
+            CalculatorViewModel viewModel = new CalculatorViewModel(session, mainThread);
+            for (int i = 0; i < trace.size(); i++) {
+                KeystrokeTrace.dispatch(viewModel, trace.getKey(i));
+            }
+            CountDownLatch done = new CountDownLatch(1);
+            session.execute(done::countDown);
+            if (!done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Reference run did not finish");
+            }
+            mainThread.drain();
+            return state(viewModel);
+        } finally {
+            manager.shutdown();
+        }
+    }
+}
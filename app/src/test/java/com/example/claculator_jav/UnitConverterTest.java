@@ -0,0 +1,79 @@
+package com.example.claculator_jav;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the bundled unit table (loaded from src/main/res/raw, relative to the module
+ * directory the unit tests run in) for exact chains and affine conversions.
+ */
+public class UnitConverterTest {
+
+    private static UnitConverter converter;
+
+    static UnitConverter bundledTable() throws Exception {
+        try (Reader reader = new InputStreamReader(new FileInputStream("src/main/res/raw/units.txt"), StandardCharsets.UTF_8)) {
+            return UnitConverter.load(reader);
+        }
+    }
+
+    @BeforeClass
+    public static void loadTable() throws Exception {
+        converter = bundledTable();
+    }
+
+    private static String convert(String value, String from, String to) {
+        return CalculatorEngine.formatBigDecimal(converter.convert(new BigDecimal(value), from, to));
+    }
+
+    @Test
+    public void convert_chainsStayExact() {
+        assertEquals("1.609344", convert("1", "mi", "km"));
+        assertEquals("1", convert("1.609344", "km", "mi"));
+        assertEquals("0.3048", convert("1", "ft", "m"));
+        assertEquals("3.785411784", convert("1", "gal", "L"));
+        assertEquals("1024", convert("1", "MiB", "KiB"));
+        assertEquals("36", convert("10", "m/s", "km/h"));
+        assertEquals("10", convert("36", "km/h", "m/s"));
+    }
+
+    @Test
+    public void convert_temperatureUsesOffsets() {
+        assertEquals("212", convert("100", "°C", "°F"));
+        assertEquals("-40", convert("-40", "°F", "°C"));
+        assertEquals("273.15", convert("0", "°C", "K"));
+        assertEquals("37", convert("98.6", "°F", "°C"));
+        assertEquals("0", convert("-459.67", "°F", "K"));
+    }
+
+    @Test
+    public void convertToAll_followsUnitOrder() {
+        List<String> units = converter.getUnits("Length");
+        BigDecimal[] results = converter.convertToAll(BigDecimal.ONE, "in");
+        assertEquals(units.size(), results.length);
+        assertEquals("2.54", CalculatorEngine.formatBigDecimal(results[units.indexOf("cm")]));
+        assertEquals("1", CalculatorEngine.formatBigDecimal(results[units.indexOf("in")]));
+        assertEquals("Temperature", converter.getCategory("°R"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void convert_rejectsOtherCategories() {
+        converter.convert(BigDecimal.ONE, "kg", "m");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void load_rejectsDisconnectedUnits() throws Exception {
+        UnitConverter.load(new StringReader("Length m\nLength km 1000 m\nLength ft 12 in\nLength in\n"));
+    }
+
+}